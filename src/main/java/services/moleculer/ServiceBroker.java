@@ -316,6 +316,7 @@ public class ServiceBroker extends ContextSource implements MetricConstants {
 			}
 
 			// Set internal components
+			start(config.getLanes());
 			start(uidGenerator);
 			strategyFactory = start(config.getStrategyFactory());
 			start(serviceInvoker);
@@ -493,6 +494,7 @@ public class ServiceBroker extends ContextSource implements MetricConstants {
 		stop(serviceInvoker);
 		stop(strategyFactory);
 		stop(uidGenerator);
+		stop(config.getLanes());
 
 		Metrics metrics = config.getMetrics();
 		if (metrics != null) {
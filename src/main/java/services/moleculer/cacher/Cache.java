@@ -51,4 +51,37 @@ public @interface Cache {
 	 */
 	int ttl() default 0;
 
+	/**
+	 * Stale-while-revalidate mode: expired entries are served for "staleTtl"
+	 * seconds, while the entry is refreshed in the background.
+	 *
+	 * @return stale period in seconds (0 = disabled)
+	 */
+	int staleTtl() default 0;
+
+	/**
+	 * Refresh-ahead mode: entries are refreshed in the background after
+	 * "refreshAhead" * TTL (eg. 0.8 = refresh after 80% of the TTL).
+	 *
+	 * @return refresh-ahead factor (0 = disabled)
+	 */
+	double refreshAhead() default 0;
+
+	/**
+	 * Negative caching: null results (and the errors listed in
+	 * "negativeErrors") are cached for "negativeTtl" seconds, and replayed
+	 * without invoking the action.
+	 *
+	 * @return TTL of the cached null results and errors (0 = disabled)
+	 */
+	int negativeTtl() default 0;
+
+	/**
+	 * Types of MoleculerClientErrors which are cached when "negativeTtl" is
+	 * set (eg. "NOT_FOUND").
+	 *
+	 * @return cacheable error types
+	 */
+	String[] negativeErrors() default {};
+
 }
\ No newline at end of file
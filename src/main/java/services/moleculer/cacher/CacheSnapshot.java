@@ -0,0 +1,325 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import io.datatree.Promise;
+
+/**
+ * Snapshot file of a local cache (MemoryCacher, OHCacher). The content of the
+ * cache is streamed into the snapshot when the cacher is stopped, and the
+ * entries are restored in the background when the cacher is started, so a
+ * restarted node does not start with an empty cache. The file is a deflated
+ * stream of [key, expiration time, value] records; the expiration time is
+ * absolute, so the remaining TTL of the entries is preserved (and the entries
+ * which expired during the downtime are skipped).<br>
+ * <br>
+ * The restored entries become visible progressively. Keys which are written or
+ * deleted during the restore process are not overwritten by the (older)
+ * content of the snapshot, and "clean" cancels the restore process.
+ */
+public class CacheSnapshot {
+
+	// --- FILE FORMAT ---
+
+	/**
+	 * Header of the snapshot file ("MCS" + version)
+	 */
+	protected static final int MAGIC = 0x4D435301;
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Snapshot file
+	 */
+	protected final File file;
+
+	// --- RESTORE STATE ---
+
+	/**
+	 * Keys which are modified during the restore process
+	 */
+	protected final ConcurrentHashMap<String, Boolean> touched = new ConcurrentHashMap<>();
+
+	protected volatile boolean restoring;
+
+	protected volatile boolean cancelled;
+
+	// --- CONSTRUCTOR ---
+
+	public CacheSnapshot(File file) {
+		this.file = file;
+	}
+
+	// --- WRITE SNAPSHOT ---
+
+	/**
+	 * Creates a snapshot writer. The records are written into a temporary
+	 * file, which replaces the snapshot file when the writer is committed.
+	 *
+	 * @return snapshot writer
+	 *
+	 * @throws IOException
+	 *             any I/O exception
+	 */
+	public Writer createWriter() throws IOException {
+		return new Writer(file);
+	}
+
+	public static class Writer implements Closeable {
+
+		protected final File file;
+		protected final File tmp;
+		protected final DataOutputStream out;
+		protected final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+
+		protected long count;
+		protected boolean committed;
+
+		protected Writer(File file) throws IOException {
+			this.file = file;
+			File dir = file.getAbsoluteFile().getParentFile();
+			if (dir != null && !dir.isDirectory()) {
+				dir.mkdirs();
+			}
+			tmp = new File(file.getPath() + ".tmp");
+			out = new DataOutputStream(new BufferedOutputStream(
+					new DeflaterOutputStream(new FileOutputStream(tmp), deflater, 65536), 65536));
+			out.writeInt(MAGIC);
+			out.writeLong(System.currentTimeMillis());
+		}
+
+		/**
+		 * Writes one entry.
+		 *
+		 * @param key
+		 *            key of the entry
+		 * @param expireAt
+		 *            expiration time of the entry (0 = never expires)
+		 * @param value
+		 *            serialized value
+		 *
+		 * @throws IOException
+		 *             any I/O exception
+		 */
+		public void write(byte[] key, long expireAt, byte[] value) throws IOException {
+			out.writeInt(key.length);
+			out.write(key);
+			out.writeLong(expireAt);
+			out.writeInt(value.length);
+			out.write(value);
+			count++;
+		}
+
+		/**
+		 * Closes the stream, and replaces the snapshot file.
+		 *
+		 * @return number of the written entries
+		 *
+		 * @throws IOException
+		 *             any I/O exception
+		 */
+		public long commit() throws IOException {
+			out.writeInt(-1);
+			out.close();
+			deflater.end();
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			committed = true;
+			return count;
+		}
+
+		@Override
+		public void close() {
+			if (!committed) {
+				try {
+					out.close();
+				} catch (Exception ignored) {
+				}
+				deflater.end();
+				tmp.delete();
+			}
+		}
+
+	}
+
+	// --- RESTORE SNAPSHOT ---
+
+	@FunctionalInterface
+	public interface Loader {
+
+		/**
+		 * Stores a restored entry into the cache.
+		 *
+		 * @return true, if the entry is stored
+		 */
+		boolean load(byte[] key, long expireAt, byte[] value) throws Exception;
+
+	}
+
+	/**
+	 * Restores the entries in the background. The snapshot file is renamed
+	 * before the restore process (so a new snapshot can be written while the
+	 * old one is being read), and the renamed file is deleted after it has
+	 * been read successfully.
+	 *
+	 * @param executor
+	 *            executor of the restore process
+	 * @param loader
+	 *            stores an entry into the cache
+	 *
+	 * @return Promise with the number of the restored entries
+	 */
+	public Promise restore(ExecutorService executor, Loader loader) {
+		File source = new File(file.getPath() + ".restore");
+		if (file.isFile()) {
+			try {
+				Files.move(file.toPath(), source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (Throwable cause) {
+				return Promise.reject(cause);
+			}
+		} else if (!source.isFile()) {
+
+			// No snapshot (and no file of an interrupted restore process)
+			return Promise.resolve(0L);
+		}
+		restoring = true;
+		return new Promise(resolver -> {
+			executor.execute(() -> {
+				long count;
+				try {
+					count = load(source, loader);
+				} catch (Throwable cause) {
+					restoring = false;
+					touched.clear();
+
+					// Keep the unread snapshot (if there is no newer one)
+					if (file.exists() || !source.renameTo(file)) {
+						source.delete();
+					}
+					resolver.reject(cause);
+					return;
+				}
+				restoring = false;
+				touched.clear();
+				source.delete();
+				resolver.resolve(count);
+			});
+		});
+	}
+
+	protected long load(File source, Loader loader) throws Exception {
+		long count = 0;
+		Inflater inflater = new Inflater(true);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new InflaterInputStream(new FileInputStream(source), inflater, 65536), 65536))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Invalid snapshot file (" + source.getAbsolutePath() + ")!");
+			}
+			in.readLong();
+			long now = System.currentTimeMillis();
+			int keyLength;
+			while (!cancelled && (keyLength = in.readInt()) > -1) {
+				byte[] key = new byte[keyLength];
+				in.readFully(key);
+				long expireAt = in.readLong();
+				byte[] value = new byte[in.readInt()];
+				in.readFully(value);
+				if (expireAt > 0 && expireAt <= now) {
+					continue;
+				}
+				if (loader.load(key, expireAt, value)) {
+					count++;
+				}
+			}
+		} catch (EOFException truncated) {
+
+			// Incomplete snapshot (the restored entries are valid)
+		} finally {
+			inflater.end();
+		}
+		return count;
+	}
+
+	/**
+	 * Marks a key as modified (the snapshot will not overwrite it).
+	 *
+	 * @param key
+	 *            cache key
+	 */
+	public void touch(String key) {
+		if (restoring) {
+			touched.put(key, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Is the entry modified (or is the restore process cancelled)?
+	 *
+	 * @param key
+	 *            cache key
+	 *
+	 * @return true, if the restored entry must not be stored
+	 */
+	public boolean isTouched(String key) {
+		return cancelled || touched.containsKey(key);
+	}
+
+	/**
+	 * Stops the restore process (eg. on "clean").
+	 */
+	public void cancel() {
+		if (restoring) {
+			cancelled = true;
+		}
+	}
+
+	public boolean isRestoring() {
+		return restoring;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+}
@@ -26,9 +26,14 @@
 package services.moleculer.cacher;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.datatree.Promise;
 import io.datatree.Tree;
@@ -37,12 +42,16 @@ import io.datatree.dom.converters.DataConverterRegistry;
 import services.moleculer.ServiceBroker;
 import services.moleculer.config.ServiceBrokerConfig;
 import services.moleculer.context.Context;
+import services.moleculer.error.MoleculerClientError;
+import services.moleculer.error.MoleculerError;
+import services.moleculer.error.MoleculerErrorUtils;
 import services.moleculer.metrics.MetricConstants;
 import services.moleculer.metrics.Metrics;
 import services.moleculer.service.Action;
 import services.moleculer.service.Middleware;
 import services.moleculer.service.Name;
 import services.moleculer.stream.PacketStream;
+import services.moleculer.util.CheckedTree;
 
 /**
  * Base superclass of all Cacher implementations.
@@ -54,6 +63,36 @@ import services.moleculer.stream.PacketStream;
 @Name("Cacher")
 public abstract class Cacher extends Middleware implements MetricConstants {
 
+	// --- ENVELOPE OF THE STORED ENTRIES ---
+
+	/**
+	 * Name of the cached content in the envelope
+	 */
+	protected static final String CONTENT = "_";
+
+	/**
+	 * Write timestamp of the entry (in milliseconds) in the envelope
+	 */
+	protected static final String TIMESTAMP = "t";
+
+	/**
+	 * Expiration timestamp of the entry (in milliseconds) in the envelope
+	 * (missing = unknown or never expires)
+	 */
+	protected static final String EXPIRES = "x";
+
+	// --- ENTRIES OF THE ACTIONS WITH NEGATIVE CACHING ---
+
+	/**
+	 * TTL of the cached null result or error (in seconds) in the marker entry
+	 */
+	protected static final String NEGATIVE = "$negative";
+
+	/**
+	 * Cached error in the marker entry
+	 */
+	protected static final String ERROR = "$error";
+
 	// --- METRICS ---
 
 	protected Metrics metrics;
@@ -61,6 +100,39 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 	// --- INTERNAL PROPERTIES ---
 	
 	protected boolean debug;
+
+	// --- STAMPEDE PROTECTION ---
+
+	/**
+	 * Deduplicate concurrent cache misses of the same key
+	 */
+	protected boolean stampedeProtection = true;
+
+	/**
+	 * Actions in progress (key = cache key)
+	 */
+	protected final ConcurrentHashMap<String, Promise> inFlight = new ConcurrentHashMap<>();
+
+	// --- KEY HASHING ---
+
+	/**
+	 * Replace the serialized params with a 128-bit hash in the cache keys
+	 * (key = action name : 22 character long hash)
+	 */
+	protected boolean hashKeys;
+
+	/**
+	 * Streaming hashers (one per thread)
+	 */
+	protected static final ThreadLocal<KeyHasher> keyHashers = ThreadLocal.withInitial(KeyHasher::new);
+
+	// --- BULK OPERATIONS ---
+
+	/**
+	 * Maximum number of keys in one batch of the bulk operations (getMany,
+	 * setMany, delMany)
+	 */
+	protected int batchSize = 100;
 	
 	// --- START MIDDLEWARE ---
 
@@ -112,43 +184,38 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 		// Get TTL (0 = use default TTL)
 		final int ttl = cacheNode.get("ttl", 0);
 
-		// Metrics is disabled
-		if (metrics == null) {
-			return new Action() {
+		// Stale-while-revalidate (serve expired entries for "staleTtl" seconds)
+		int staleTtl = cacheNode.get("staleTtl", 0);
 
-				@Override
-				public Object handler(Context ctx) throws Exception {
-					
-					// Cache is disabled by the request
-					if (isCachingDisabledByTheContext(ctx) || ctx.stream != null) {
-						return action.handler(ctx);
-					}
-					
-					// Use cache
-					String key = getCacheKey(ctx.name, ctx.params, keys);
-					return new Promise(resolver -> {
-						get(key).then(in -> {
-							if (in == null || in.isNull()) {
-								new Promise(action.handler(ctx)).then(tree -> {
-									if (tree != null && !tree.isNull() && !(tree.asObject() instanceof PacketStream)) {
-										set(key, tree, ttl);
-									}
-									resolver.resolve(tree);
-								}).catchError(err -> {
-									resolver.reject(err);
-								});
-							} else {
-								resolver.resolve(in);
-							}
-						}).catchError(err -> {
-							resolver.reject(err);
-						});
-					});
-				}
-			};
+		// Refresh-ahead (refresh entries after "refreshAhead" * TTL)
+		double refreshAhead = cacheNode.get("refreshAhead", 0d);
+
+		// Negative caching (cache null results and the selected client errors
+		// for "negativeTtl" seconds)
+		int negativeTtl = cacheNode.get("negativeTtl", 0);
+		final Action loader;
+		if (negativeTtl > 0) {
+			Tree errorNode = cacheNode.get("negativeErrors");
+			HashSet<String> errorTypes = new HashSet<>();
+			if (errorNode != null) {
+				errorTypes.addAll(errorNode.asList(String.class));
+			}
+			loader = installNegative(action, negativeTtl, errorTypes);
+		} else {
+			loader = action;
 		}
-		
-		// Metrics is enabled
+
+		if (staleTtl > 0 || (refreshAhead > 0 && refreshAhead < 1)) {
+			int freshTtl = ttl > 0 ? ttl : getTtl();
+			if (freshTtl < 1) {
+				logger.warn("The \"staleTtl\" and \"refreshAhead\" parameters require TTL!");
+			} else {
+				return installRevalidation(action, loader, keys, freshTtl, Math.max(0, staleTtl), refreshAhead);
+			}
+		}
+		final boolean negative = loader instanceof NegativeAction;
+
+		// Create cached action
 		return new Action() {
 
 			@Override
@@ -158,23 +225,77 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 				if (isCachingDisabledByTheContext(ctx) || ctx.stream != null) {
 					return action.handler(ctx);
 				}
-				
+
 				// Use cache
 				String key = getCacheKey(ctx.name, ctx.params, keys);
 				return new Promise(resolver -> {
 					get(key).then(in -> {
-						if (in == null) {
-							new Promise(action.handler(ctx)).then(tree -> {
-								if (tree != null && !tree.isNull() && !(tree.asObject() instanceof PacketStream)) {
-									set(key, tree, ttl);
-								}
-								resolver.resolve(tree);
+						if (in == null || in.isNull()) {
+							callAction(ctx, loader, key, ttl).then(tree -> {
+								resolver.resolve(negative ? replay(tree) : tree);
 							}).catchError(err -> {
 								resolver.reject(err);
 							});
 						} else {
-							resolver.resolve(in);
+							resolver.resolve(negative ? replay(in) : in);
+						}
+					}).catchError(err -> {
+						resolver.reject(err);
+					});
+				});
+			}
+		};
+	}
+
+	// --- STALE-WHILE-REVALIDATE / REFRESH-AHEAD ---
+
+	protected Action installRevalidation(Action action, Action loader, String[] keys, int freshTtl, int staleTtl,
+			double refreshAhead) {
+
+		// Entries are stored for "freshTtl" + "staleTtl" seconds
+		final int storedTtl = freshTtl + staleTtl;
+		final long maxAge = storedTtl * 1000L;
+
+		// Entries are refreshed after "refreshAfter" milliseconds
+		final long refreshAfter;
+		if (refreshAhead > 0 && refreshAhead < 1) {
+			refreshAfter = (long) (freshTtl * 1000L * refreshAhead);
+		} else {
+			refreshAfter = freshTtl * 1000L;
+		}
+		final boolean negative = loader instanceof NegativeAction;
+
+		return new Action() {
+
+			@Override
+			public Object handler(Context ctx) throws Exception {
+
+				// Cache is disabled by the request
+				if (isCachingDisabledByTheContext(ctx) || ctx.stream != null) {
+					return action.handler(ctx);
+				}
+
+				// Use cache
+				String key = getCacheKey(ctx.name, ctx.params, keys);
+				return new Promise(resolver -> {
+					getEntry(key).then(entry -> {
+						long timestamp = entry == null ? 0 : entry.get(TIMESTAMP, 0L);
+						long age = System.currentTimeMillis() - timestamp;
+						Tree in = entry == null ? null : entry.get(CONTENT);
+						if (in == null || in.isNull() || (timestamp > 0 && age >= maxAge)) {
+							callAction(ctx, loader, key, storedTtl).then(tree -> {
+								resolver.resolve(negative ? replay(tree) : tree);
+							}).catchError(err -> {
+								resolver.reject(err);
+							});
+							return;
 						}
+						if (timestamp > 0 && age >= refreshAfter) {
+
+							// Serve the stale value, and refresh in background
+							refresh(ctx, loader, key, storedTtl);
+						}
+						resolver.resolve(negative ? replay(in) : in);
 					}).catchError(err -> {
 						resolver.reject(err);
 					});
@@ -183,6 +304,239 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 		};
 	}
 
+	/**
+	 * Refreshes an entry in the background (on the executor). Only one refresh
+	 * runs per key at the same time.
+	 * 
+	 * @param ctx
+	 *            Context of the call
+	 * @param action
+	 *            the cached action
+	 * @param key
+	 *            cache key
+	 * @param ttl
+	 *            TTL of the entry
+	 */
+	protected void refresh(Context ctx, Action action, String key, int ttl) {
+		Promise promise = new Promise();
+		if (inFlight.putIfAbsent(key, promise) != null) {
+			return;
+		}
+		try {
+			broker.getConfig().getExecutor().execute(() -> {
+				loadInFlight(ctx, action, key, ttl, promise);
+			});
+		} catch (Throwable cause) {
+			inFlight.remove(key, promise);
+			promise.complete(cause);
+		}
+		promise.catchError(err -> {
+			logger.warn("Unable to refresh cached entry (" + key + ")!", err);
+		});
+	}
+
+	// --- NEGATIVE CACHING ---
+
+	/**
+	 * Wraps the action: null results and the selected client errors are
+	 * converted into compact marker entries (eg. {"$negative":30} or
+	 * {"$negative":30,"$error":{...}}), which are stored for "negativeTtl"
+	 * seconds, and replayed as the same result or error without invoking the
+	 * action. Other results are stored unchanged (in the same format as the
+	 * results of the actions without negative caching).
+	 * 
+	 * @param action
+	 *            the cached action
+	 * @param negativeTtl
+	 *            TTL of the marker entries, in seconds
+	 * @param errorTypes
+	 *            cacheable types of MoleculerClientErrors (eg. "NOT_FOUND")
+	 * 
+	 * @return action which returns marker entries instead of null results and
+	 *         the selected errors
+	 */
+	protected Action installNegative(Action action, int negativeTtl, HashSet<String> errorTypes) {
+		return new NegativeAction(action, negativeTtl, errorTypes);
+	}
+
+	protected static class NegativeAction implements Action {
+
+		protected final Action action;
+		protected final int negativeTtl;
+		protected final HashSet<String> errorTypes;
+
+		protected NegativeAction(Action action, int negativeTtl, HashSet<String> errorTypes) {
+			this.action = action;
+			this.negativeTtl = negativeTtl;
+			this.errorTypes = errorTypes;
+		}
+
+		@Override
+		public Object handler(Context ctx) throws Exception {
+			Promise promise;
+			try {
+				promise = new Promise(action.handler(ctx));
+			} catch (Throwable cause) {
+				promise = Promise.reject(cause);
+			}
+			return promise.then(tree -> {
+				if (tree == null || tree.isNull()) {
+					return new Tree().put(NEGATIVE, negativeTtl);
+				}
+				return tree;
+			}).catchError(err -> {
+				if (err instanceof MoleculerClientError) {
+					MoleculerClientError clientError = (MoleculerClientError) err;
+					if (errorTypes.contains(clientError.getType())) {
+						Tree marker = new Tree().put(NEGATIVE, negativeTtl);
+						Tree error = marker.putMap(ERROR);
+						clientError.toTree(error);
+						error.remove("stack");
+						return marker;
+					}
+				}
+				return err;
+			});
+		}
+
+	}
+
+	/**
+	 * Is the entry (of an action with negative caching) a marker of a null
+	 * result or error?
+	 */
+	protected static boolean isMarker(Tree tree) {
+		if (!tree.isMap()) {
+			return false;
+		}
+		Tree ttl = tree.get(NEGATIVE);
+		if (ttl == null || !ttl.isPrimitive()) {
+			return false;
+		}
+		int size = tree.size();
+		return size == 1 || (size == 2 && tree.get(ERROR) != null);
+	}
+
+	/**
+	 * Converts an entry of an action with negative caching back to the
+	 * original result, null or error.
+	 * 
+	 * @param in
+	 *            cached entry or the result of the action
+	 * 
+	 * @return the value (or null, if it is a marker of a null result)
+	 * 
+	 * @throws MoleculerError
+	 *             the cached error
+	 */
+	protected Tree replay(Tree in) throws MoleculerError {
+		if (in == null || !isMarker(in)) {
+			return in;
+		}
+		Tree error = in.get(ERROR);
+		if (error == null) {
+			return null;
+		}
+		throw MoleculerErrorUtils.create(error);
+	}
+
+	// --- INVOKE ACTION ON CACHE MISS ---
+
+	/**
+	 * Invokes the action after a cache miss. If the stampede protection is
+	 * enabled, concurrent misses of the same key are deduplicated: the first
+	 * caller invokes the action, the others wait for its result.
+	 * 
+	 * @param ctx
+	 *            Context of the call
+	 * @param action
+	 *            the cached action
+	 * @param key
+	 *            cache key
+	 * @param ttl
+	 *            TTL of the entry (0 = use default TTL)
+	 * 
+	 * @return Promise with the result of the action
+	 */
+	protected Promise callAction(Context ctx, Action action, String key, int ttl) {
+		if (!stampedeProtection) {
+			return invokeAction(ctx, action, key, ttl);
+		}
+		Promise promise = new Promise();
+		Promise pending = inFlight.putIfAbsent(key, promise);
+		if (pending != null) {
+
+			// Another call is in progress, wait for its result
+			return pending.then(tree -> {
+				if (tree == null) {
+					return null;
+				}
+				if (tree.asObject() instanceof PacketStream) {
+
+					// Streams are not shareable
+					return new Promise(action.handler(ctx));
+				}
+				return tree.clone();
+			});
+		}
+		loadInFlight(ctx, action, key, ttl, promise);
+		return promise;
+	}
+
+	protected void loadInFlight(Context ctx, Action action, String key, int ttl, Promise promise) {
+		try {
+			load(ctx, action, key, ttl).then(tree -> {
+				inFlight.remove(key, promise);
+				promise.complete(tree);
+			}).catchError(err -> {
+				inFlight.remove(key, promise);
+				promise.complete(err);
+			});
+		} catch (Throwable cause) {
+			inFlight.remove(key, promise);
+			promise.complete(cause);
+		}
+	}
+
+	/**
+	 * Loads the missing value (invokes the action and stores its result).
+	 * Distributed cachers may override this method to synchronize the loading
+	 * between the nodes.
+	 * 
+	 * @param ctx
+	 *            Context of the call
+	 * @param action
+	 *            the cached action
+	 * @param key
+	 *            cache key
+	 * @param ttl
+	 *            TTL of the entry (0 = use default TTL)
+	 * 
+	 * @return Promise with the result of the action
+	 */
+	protected Promise load(Context ctx, Action action, String key, int ttl) {
+		return invokeAction(ctx, action, key, ttl);
+	}
+
+	protected Promise invokeAction(Context ctx, Action action, String key, int ttl) {
+		try {
+			return new Promise(action.handler(ctx)).then(tree -> {
+				if (tree != null && !tree.isNull() && !(tree.asObject() instanceof PacketStream)) {
+					if (action instanceof NegativeAction && isMarker(tree)) {
+
+						// Null result or error (stored for "negativeTtl" seconds)
+						set(key, tree, ((NegativeAction) action).negativeTtl);
+					} else {
+						set(key, tree, ttl);
+					}
+				}
+				return tree;
+			});
+		} catch (Throwable cause) {
+			return Promise.reject(cause);
+		}
+	}
+
 	// --- GENERATE CACHE KEY ---
 
 	/**
@@ -202,6 +556,9 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 		if (params == null) {
 			return name;
 		}
+		if (hashKeys) {
+			return getHashedCacheKey(name, params, keys);
+		}
 		StringBuilder key = new StringBuilder(128);
 		key.append(name);
 		key.append(':');
@@ -313,6 +670,131 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 		key.append(DataConverterRegistry.convert(String.class, source));
 	}
 
+	// --- GENERATE HASHED CACHE KEY ---
+
+	/**
+	 * Creates a cache key from the name and the 128-bit hash of the params.
+	 * The hash is computed while walking the params, without serializing them
+	 * into a String (the result is equal to the hash of the key generated by
+	 * the "serializeKey" method).
+	 *
+	 * @param name
+	 *            qualified name of the action
+	 * @param params
+	 *            input (key) structure (~JSON)
+	 * @param keys
+	 *            optional array of keys (eg. "id")
+	 * 
+	 * @return action name : 22 character long hash
+	 */
+	protected String getHashedCacheKey(String name, Tree params, String... keys) {
+		KeyHasher hasher = keyHashers.get().reset();
+		hashKey(hasher, params, keys);
+		int len = name.length();
+		char[] chars = new char[len + 1 + KeyHasher.TOKEN_LENGTH];
+		name.getChars(0, len, chars, 0);
+		chars[len] = ':';
+		hasher.finish(chars, len + 1);
+		return new String(chars);
+	}
+
+	protected void hashKey(KeyHasher hasher, Tree params, String... keys) {
+		if (keys == null || keys.length == 0) {
+			hashTree(hasher, params == null ? null : params.asObject());
+			return;
+		}
+		boolean first = true;
+		for (String k : keys) {
+			if (first) {
+				first = false;
+			} else {
+				hasher.append('|');
+			}
+			Tree tree = params.get(k);
+			hashTree(hasher, tree == null ? null : tree.asObject());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void hashTree(KeyHasher hasher, Object source) {
+
+		// Null value
+		if (source == null) {
+			hasher.append("null");
+			return;
+		}
+
+		// String
+		if (source instanceof String) {
+			hasher.append((String) source);
+			return;
+		}
+
+		// Integer types (without String conversion)
+		if (source instanceof Integer || source instanceof Long || source instanceof Short
+				|| source instanceof Byte) {
+			hasher.append(((Number) source).longValue());
+			return;
+		}
+
+		// Boolean
+		if (source instanceof Boolean) {
+			hasher.append(((Boolean) source).booleanValue());
+			return;
+		}
+
+		// Map
+		if (source instanceof Map) {
+			Map<Object, Object> map = (Map<Object, Object>) source;
+			boolean first = true;
+			for (Map.Entry<Object, Object> entry : map.entrySet()) {
+				if (first) {
+					first = false;
+				} else {
+					hasher.append('|');
+				}
+				hashTree(hasher, entry.getKey());
+				hasher.append('|');
+				hashTree(hasher, entry.getValue());
+			}
+			return;
+		}
+
+		// List or Set
+		if (source instanceof Collection) {
+			Collection<Object> collection = (Collection<Object>) source;
+			boolean first = true;
+			for (Object child : collection) {
+				if (first) {
+					first = false;
+				} else {
+					hasher.append('|');
+				}
+				hashTree(hasher, child);
+			}
+			return;
+		}
+
+		// Array
+		Class<?> clazz = source.getClass();
+		if (clazz.isArray()) {
+			int max = Array.getLength(source);
+			boolean first = true;
+			for (int i = 0; i < max; i++) {
+				if (first) {
+					first = false;
+				} else {
+					hasher.append('|');
+				}
+				hashTree(hasher, Array.get(source, i));
+			}
+			return;
+		}
+
+		// Double, UUID, Date, etc.
+		hasher.append(DataConverterRegistry.convert(String.class, source));
+	}
+
 	/**
 	 * Is the request disables caching?
 	 * 
@@ -353,6 +835,40 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 	 */
 	public abstract Promise get(String key);
 
+	/**
+	 * Gets a cached content with its write timestamp (required by the
+	 * stale-while-revalidate and refresh-ahead modes). The default
+	 * implementation doesn't know the timestamp (0 = unknown).
+	 *
+	 * @param key
+	 *            cache key
+	 * 
+	 * @return Promise with the envelope of the entry ("_" = content, "t" =
+	 *         write timestamp, "x" = optional expiration timestamp), or null
+	 */
+	public Promise getEntry(String key) {
+		return get(key).then(content -> {
+			if (content == null || content.isNull()) {
+				return null;
+			}
+			return envelope(content.asObject(), 0);
+		});
+	}
+
+	protected Tree envelope(Object content, long timestamp) {
+		return envelope(content, timestamp, 0);
+	}
+
+	protected Tree envelope(Object content, long timestamp, long expireAt) {
+		LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+		map.put(CONTENT, content);
+		map.put(TIMESTAMP, timestamp);
+		if (expireAt > 0) {
+			map.put(EXPIRES, expireAt);
+		}
+		return new CheckedTree(map);
+	}
+
 	/**
 	 * Sets a content by key into the cache.
 	 *
@@ -367,6 +883,26 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 	 */
 	public abstract Promise set(String key, Tree value, int ttl);
 
+	/**
+	 * Sets a content by key into the cache, and keeps the original write
+	 * timestamp of the content (eg. when an entry of another cache is copied
+	 * into this cache). The default implementation drops the timestamp.
+	 *
+	 * @param key
+	 *            cache key
+	 * @param value
+	 *            new value
+	 * @param ttl
+	 *            optional TTL of entry (0 == use default TTL)
+	 * @param timestamp
+	 *            original write timestamp (0 = now)
+	 * 
+	 * @return Promise with empty value
+	 */
+	public Promise setEntry(String key, Tree value, int ttl, long timestamp) {
+		return set(key, value, ttl);
+	}
+
 	/**
 	 * Deletes a content from this cache.
 	 *
@@ -395,7 +931,186 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 	 */
 	public abstract Promise getCacheKeys();
 
+	// --- BULK CACHE METHODS ---
+
+	/**
+	 * Gets many cached contents by keys. The keys are processed in batches
+	 * (see "batchSize"). The default implementation calls the "get" method for
+	 * each key of a batch.
+	 *
+	 * @param keys
+	 *            cache keys
+	 * 
+	 * @return Promise with a Tree list (the Nth item is the cached value of the
+	 *         Nth key, or null)
+	 */
+	public Promise getMany(String... keys) {
+		Object[] values = new Object[keys.length];
+		return processBatches(0, keys.length, (from, to) -> {
+			Promise[] promises = new Promise[to - from];
+			for (int i = from; i < to; i++) {
+				final int index = i;
+				Promise promise = get(keys[i]);
+				if (promise == null) {
+					promises[i - from] = Promise.resolve();
+				} else {
+					promises[i - from] = promise.then(content -> {
+						if (content != null) {
+							values[index] = content.asObject();
+						}
+					});
+				}
+			}
+			return Promise.all(promises);
+		}).then(done -> {
+			return new CheckedTree(new ArrayList<>(Arrays.asList(values)));
+		});
+	}
+
+	/**
+	 * Gets many cached contents with their write timestamps. The keys are
+	 * processed in batches (see "batchSize"). The default implementation calls
+	 * the "getEntry" method for each key of a batch.
+	 *
+	 * @param keys
+	 *            cache keys
+	 * 
+	 * @return Promise with a Tree list (the Nth item is the envelope of the Nth
+	 *         key, or null)
+	 */
+	public Promise getEntries(String... keys) {
+		Object[] values = new Object[keys.length];
+		return processBatches(0, keys.length, (from, to) -> {
+			Promise[] promises = new Promise[to - from];
+			for (int i = from; i < to; i++) {
+				final int index = i;
+				Promise promise = getEntry(keys[i]);
+				if (promise == null) {
+					promises[i - from] = Promise.resolve();
+				} else {
+					promises[i - from] = promise.then(entry -> {
+						if (entry != null) {
+							values[index] = entry.asObject();
+						}
+					});
+				}
+			}
+			return Promise.all(promises);
+		}).then(done -> {
+			return new CheckedTree(new ArrayList<>(Arrays.asList(values)));
+		});
+	}
+
+	/**
+	 * Sets many contents into the cache. The entries are processed in batches
+	 * (see "batchSize"). The default implementation calls the "set" method for
+	 * each entry of a batch.
+	 *
+	 * @param entries
+	 *            cache keys and new values
+	 * @param ttl
+	 *            optional TTL of entries (0 == use default TTL)
+	 * 
+	 * @return Promise with empty value
+	 */
+	public Promise setMany(Map<String, Tree> entries, int ttl) {
+		String[] keys = new String[entries.size()];
+		Tree[] values = new Tree[keys.length];
+		int n = 0;
+		for (Map.Entry<String, Tree> entry : entries.entrySet()) {
+			keys[n] = entry.getKey();
+			values[n++] = entry.getValue();
+		}
+		return processBatches(0, keys.length, (from, to) -> {
+			Promise[] promises = new Promise[to - from];
+			for (int i = from; i < to; i++) {
+				Promise promise = set(keys[i], values[i], ttl);
+				promises[i - from] = promise == null ? Promise.resolve() : promise;
+			}
+			return Promise.all(promises);
+		});
+	}
+
+	/**
+	 * Deletes many contents from this cache. The keys are processed in
+	 * batches (see "batchSize"). The default implementation calls the "del"
+	 * method for each key of a batch.
+	 *
+	 * @param keys
+	 *            cache keys
+	 * 
+	 * @return Promise with empty value
+	 */
+	public Promise delMany(String... keys) {
+		return processBatches(0, keys.length, (from, to) -> {
+			Promise[] promises = new Promise[to - from];
+			for (int i = from; i < to; i++) {
+				Promise promise = del(keys[i]);
+				promises[i - from] = promise == null ? Promise.resolve() : promise;
+			}
+			return Promise.all(promises);
+		});
+	}
+
+	/**
+	 * Processes the [from...count) range in batches. The next batch is started
+	 * when the previous one is completed, so only one batch is in memory (or
+	 * in the network buffers) at a time.
+	 * 
+	 * @param from
+	 *            start index
+	 * @param count
+	 *            number of items
+	 * @param processor
+	 *            processor of one batch
+	 * 
+	 * @return Promise with empty value
+	 */
+	protected Promise processBatches(int from, int count, BatchProcessor processor) {
+		int size = Math.max(1, batchSize);
+		int start = from;
+		while (start < count) {
+			int end = (int) Math.min(count, (long) start + size);
+			Promise promise;
+			try {
+				promise = processor.process(start, end);
+			} catch (Throwable cause) {
+				return Promise.reject(cause);
+			}
+			if (promise != null && (!promise.isDone() || promise.isRejected())) {
+
+				// Continue when the batch is completed
+				return promise.then(done -> {
+					return processBatches(end, count, processor);
+				});
+			}
+
+			// Completed synchronously (eg. local caches)
+			start = end;
+		}
+		return Promise.resolve();
+	}
+
+	@FunctionalInterface
+	protected interface BatchProcessor {
+
+		/**
+		 * Processes the [from...to) range of the items.
+		 */
+		Promise process(int from, int to) throws Exception;
+
+	}
+
 	// --- PROPERTY GETTERS / SETTERS ---
+
+	/**
+	 * Returns the default TTL of the entries.
+	 * 
+	 * @return default TTL in seconds (0 = never expires / not supported)
+	 */
+	public int getTtl() {
+		return 0;
+	}
 	
 	/**
 	 * Is debug enabled?
@@ -414,5 +1129,64 @@ public abstract class Cacher extends Middleware implements MetricConstants {
 	public void setDebug(boolean debug) {
 		this.debug = debug;
 	}
+
+	/**
+	 * Is stampede protection enabled?
+	 * 
+	 * @return true, if concurrent misses of the same key are deduplicated
+	 */
+	public boolean isStampedeProtection() {
+		return stampedeProtection;
+	}
+
+	/**
+	 * Enable or disable the deduplication of concurrent cache misses.
+	 * 
+	 * @param stampedeProtection
+	 *            true = only the first caller invokes the action
+	 */
+	public void setStampedeProtection(boolean stampedeProtection) {
+		this.stampedeProtection = stampedeProtection;
+	}
+
+	/**
+	 * Are the params hashed in the cache keys?
+	 * 
+	 * @return true, if the keys contain a 128-bit hash instead of the params
+	 */
+	public boolean isHashKeys() {
+		return hashKeys;
+	}
+
+	/**
+	 * Enable or disable the hashing of params in the cache keys.
+	 * 
+	 * @param hashKeys
+	 *            true = key is "action name : 128-bit hash" (shorter keys,
+	 *            no String serialization of the params)
+	 */
+	public void setHashKeys(boolean hashKeys) {
+		this.hashKeys = hashKeys;
+	}
+
+	/**
+	 * Returns the maximum number of keys in one batch of the bulk operations.
+	 * 
+	 * @return batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the maximum number of keys in one batch of the bulk operations
+	 * (getMany, setMany, delMany).
+	 * 
+	 * @param batchSize
+	 *            batch size (min. 1)
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
 	
 }
\ No newline at end of file
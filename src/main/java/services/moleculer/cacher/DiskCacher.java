@@ -0,0 +1,1157 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import static services.moleculer.util.CommonUtils.compress;
+import static services.moleculer.util.CommonUtils.decompress;
+import static services.moleculer.util.CommonUtils.nameOf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import io.datatree.Promise;
+import io.datatree.Tree;
+import services.moleculer.ServiceBroker;
+import services.moleculer.error.MoleculerServerError;
+import services.moleculer.eventbus.Matcher;
+import services.moleculer.metrics.MetricCounter;
+import services.moleculer.metrics.StoppableTimer;
+import services.moleculer.serializer.JsonSerializer;
+import services.moleculer.serializer.Serializer;
+import services.moleculer.service.Name;
+
+/**
+ * Persistent, memory-mapped disk cache. The entries are appended to
+ * memory-mapped segment files (log-structured storage), and an in-memory hash
+ * index points to the latest record of each key. The content of the cache
+ * survives restarts (the index is rebuilt from the segments at startup), and
+ * the size of the cache is limited by the disk space instead of the RAM.
+ * Supports global and entry-level TTL configuration, and it has the same
+ * partition semantics as the MemoryCacher (the "users" partition contains the
+ * "users.find" key). Configuration properties:
+ * <ul>
+ * <li>directory: directory of the segment files
+ * <li>segmentSize: size of one segment file in MEGABYTES (default: 64)
+ * <li>maxSize: maximum size of all segments in MEGABYTES (default: 0 =
+ * unlimited); the oldest segment is dropped when exceeded
+ * <li>ttl: expire time of entries, in seconds (default: 0 = never expires)
+ * <li>compressAbove: compress value above this size (BYTES)
+ * <li>compressionLevel: compression level (best speed = 1, best compression =
+ * 9)
+ * <li>compaction: period of the compaction process, in seconds (default: 60)
+ * <li>compactionRatio: ratio of the overwritten / deleted bytes, above which a
+ * segment is compacted (default: 0.5)
+ * </ul>
+ * Records are never modified in place: "set" appends a new record, "del" and
+ * "clean" append tombstones. The compaction process copies the live records
+ * of the fragmented segments into the active segment, then deletes the old
+ * segment file. The values are stored in the same format as in the OHCacher
+ * (serialized by the configured Serializer, and compressed above
+ * "compressAbove" bytes).<br>
+ * <br>
+ * This cache is slower than MemoryCacher, but a restarted node starts with a
+ * warm cache (instead of a miss storm). Segment files must not be shared
+ * between running nodes.
+ *
+ * @see MemoryCacher
+ * @see OHCacher
+ */
+@Name("Memory-mapped Disk Cacher")
+public class DiskCacher extends Cacher implements Runnable {
+
+	// --- RECORD FORMAT ---
+
+	/**
+	 * Record header: [int length][int CRC32][byte type][long expireAt][int key
+	 * length], followed by the key and the value
+	 */
+	protected static final int HEADER_SIZE = 21;
+
+	protected static final byte TYPE_PUT = 1;
+	protected static final byte TYPE_DEL = 2;
+
+	protected static final String SEGMENT_PREFIX = "segment-";
+	protected static final String SEGMENT_SUFFIX = ".dat";
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Directory of the segment files
+	 */
+	protected String directory = System.getProperty("java.io.tmpdir") + File.separatorChar + "moleculer-cache";
+
+	/**
+	 * Size of one segment file, in MEGABYTES
+	 */
+	protected int segmentSize = 64;
+
+	/**
+	 * Maximum size of all segment files, in MEGABYTES (0 = unlimited)
+	 */
+	protected long maxSize;
+
+	/**
+	 * Expire time, in SECONDS (0 = never expires)
+	 */
+	protected int ttl;
+
+	/**
+	 * Compress value above this size (BYTES), 0 = disable compression
+	 */
+	protected int compressAbove = 1024;
+
+	/**
+	 * Compression level (best speed = 1, best compression = 9)
+	 */
+	protected int compressionLevel = Deflater.BEST_SPEED;
+
+	/**
+	 * Period of the compaction (and expiration) process, in SECONDS (0 =
+	 * disabled)
+	 */
+	protected int compaction = 60;
+
+	/**
+	 * Segments are compacted when the ratio of their overwritten, deleted or
+	 * expired bytes reaches this value
+	 */
+	protected double compactionRatio = 0.5;
+
+	// --- SERIALIZER / DESERIALIZER ---
+
+	protected Serializer serializer = new JsonSerializer();
+
+	// --- SEGMENTS ---
+
+	/**
+	 * Segment files by their IDs (the newer segment has the greater ID)
+	 */
+	protected final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Segment of the new records (guarded by "writeLock")
+	 */
+	protected Segment active;
+
+	/**
+	 * ID of the next segment (guarded by "writeLock")
+	 */
+	protected long nextSegmentID;
+
+	/**
+	 * Lock of the writers (the readers are lock-free)
+	 */
+	protected final ReentrantLock writeLock = new ReentrantLock();
+
+	// --- KEY INDEX ---
+
+	/**
+	 * Locations of the latest records (key = partition name, eg. "users" from
+	 * the "users.find" key)
+	 */
+	protected final ConcurrentHashMap<String, ConcurrentHashMap<String, Location>> partitions = new ConcurrentHashMap<>();
+
+	/**
+	 * Expiration index of the full keys (guarded by "writeLock")
+	 */
+	protected final ExpirationQueue<String> expiry = new ExpirationQueue<>();
+
+	// --- COMPACTION TIMER ---
+
+	/**
+	 * Cancelable timer
+	 */
+	protected volatile ScheduledFuture<?> timer;
+
+	// --- COUNTERS ---
+
+	protected MetricCounter counterExpired;
+	protected MetricCounter counterEvicted;
+	protected MetricCounter counterGet;
+	protected MetricCounter counterSet;
+	protected MetricCounter counterDel;
+	protected MetricCounter counterClean;
+	protected MetricCounter counterFound;
+
+	// --- CONSTRUCTORS ---
+
+	/**
+	 * Creates Disk Cacher with the default settings.
+	 */
+	public DiskCacher() {
+	}
+
+	/**
+	 * Creates Disk Cacher.
+	 *
+	 * @param directory
+	 *            directory of the segment files
+	 * @param maxSize
+	 *            maximum size of all segment files in MEGABYTES (0 =
+	 *            unlimited)
+	 * @param defaultTtl
+	 *            expire time of entries, in seconds (default: 0 = never
+	 *            expires)
+	 */
+	public DiskCacher(String directory, long maxSize, int defaultTtl) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.ttl = defaultTtl;
+	}
+
+	// --- START CACHER ---
+
+	/**
+	 * Initializes cacher instance, and loads the index from the segment files.
+	 *
+	 * @param broker
+	 *            parent ServiceBroker
+	 */
+	@Override
+	public void started(ServiceBroker broker) throws Exception {
+		super.started(broker);
+		serializer.started(broker);
+		logger.info(nameOf(this, true) + " will use " + nameOf(serializer, true) + '.');
+
+		// Create counters
+		if (metrics != null) {
+			counterExpired = metrics.increment(MOLECULER_CACHER_EXPIRED_TOTAL, MOLECULER_CACHER_EXPIRED_TOTAL_DESC, 0);
+			counterEvicted = metrics.increment(MOLECULER_CACHER_EVICTED_TOTAL, MOLECULER_CACHER_EVICTED_TOTAL_DESC, 0);
+			counterGet = metrics.increment(MOLECULER_CACHER_GET_TOTAL, MOLECULER_CACHER_GET_TOTAL_DESC, 0);
+			counterSet = metrics.increment(MOLECULER_CACHER_SET_TOTAL, MOLECULER_CACHER_SET_TOTAL_DESC, 0);
+			counterDel = metrics.increment(MOLECULER_CACHER_DEL_TOTAL, MOLECULER_CACHER_DEL_TOTAL_DESC, 0);
+			counterClean = metrics.increment(MOLECULER_CACHER_CLEAN_TOTAL, MOLECULER_CACHER_CLEAN_TOTAL_DESC, 0);
+			counterFound = metrics.increment(MOLECULER_CACHER_FOUND_TOTAL, MOLECULER_CACHER_FOUND_TOTAL_DESC, 0);
+		}
+
+		// Load segments
+		File dir = new File(directory);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Unable to create directory (" + dir.getAbsolutePath() + ")!");
+		}
+		long start = System.currentTimeMillis();
+		int count = load(dir);
+		logger.info(count + " cached entries loaded from " + segments.size() + " segment(s) in "
+				+ (System.currentTimeMillis() - start) + " milliseconds.");
+		if (ttl > 0) {
+			logger.info("Entries in cache expire after " + ttl + " seconds.");
+		}
+		if (maxSize > 0) {
+			logger.info("Maximum size of the cache is " + maxSize + " Mbytes.");
+		}
+
+		// Start compaction process
+		if (compaction > 0) {
+			timer = broker.getConfig().getScheduler().scheduleWithFixedDelay(this, compaction, compaction,
+					TimeUnit.SECONDS);
+		}
+	}
+
+	protected int load(File dir) throws Exception {
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return 0;
+		}
+		long[] ids = new long[files.length];
+		int n = 0;
+		for (File file : files) {
+			String name = file.getName();
+			if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+				try {
+					ids[n++] = Long.parseLong(
+							name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()), 16);
+				} catch (NumberFormatException invalidName) {
+					logger.warn("Invalid segment file name: " + name);
+				}
+			}
+		}
+		ids = Arrays.copyOf(ids, n);
+		Arrays.sort(ids);
+
+		// Replay segments (from the oldest to the newest)
+		long now = System.currentTimeMillis();
+		writeLock.lock();
+		try {
+			for (long id : ids) {
+				Segment segment = new Segment(id, segmentFile(id), 0);
+				segments.put(id, segment);
+				replay(segment, now);
+				nextSegmentID = id + 1;
+			}
+		} finally {
+			writeLock.unlock();
+		}
+		int count = 0;
+		for (ConcurrentHashMap<String, Location> index : partitions.values()) {
+			count += index.size();
+		}
+		return count;
+	}
+
+	protected void replay(Segment segment, long now) {
+		ByteBuffer buffer = segment.buffer.duplicate();
+		int offset = 0;
+		while (true) {
+			int length = recordLength(buffer, offset, segment.capacity);
+			if (length < 1) {
+				if (length < 0) {
+					logger.warn("Segment file \"" + segment.file.getName() + "\" is truncated at " + offset
+							+ " (invalid record)!");
+				}
+				break;
+			}
+			byte type = buffer.get(offset + 8);
+			long expireAt = buffer.getLong(offset + 9);
+			String key = readKey(buffer, offset);
+			int pos = key.indexOf('.');
+			if (pos > -1) {
+				String prefix = key.substring(0, pos);
+				String name = key.substring(pos + 1);
+				if (type == TYPE_PUT && (expireAt < 1 || expireAt > now)) {
+					Location location = new Location(segment, offset, length, expireAt);
+					release(indexOf(prefix, true).put(name, location));
+					segment.live.addAndGet(length);
+					expiry.add(key, expireAt);
+				} else {
+
+					// Tombstone or expired entry
+					ConcurrentHashMap<String, Location> index = partitions.get(prefix);
+					if (index != null) {
+						release(index.remove(name));
+					}
+				}
+			}
+			offset += length;
+		}
+		segment.position = offset;
+	}
+
+	// --- CLOSE CACHE INSTANCE ---
+
+	@Override
+	public void stopped() {
+		if (timer != null) {
+			timer.cancel(false);
+			timer = null;
+		}
+		writeLock.lock();
+		try {
+			for (Segment segment : segments.values()) {
+				segment.close(false);
+			}
+			segments.clear();
+			partitions.clear();
+			expiry.clear();
+			active = null;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	// --- REMOVE EXPIRED ENTRIES / COMPACT SEGMENTS ---
+
+	@Override
+	public void run() {
+		try {
+
+			// Remove expired entries from the index
+			long now = System.currentTimeMillis();
+			int expired = 0;
+			writeLock.lock();
+			try {
+				if (!expiry.isEmpty()) {
+					for (String key : expiry.pollExpired(now)) {
+						int pos = key.indexOf('.');
+						ConcurrentHashMap<String, Location> index = partitions.get(key.substring(0, pos));
+						if (index != null) {
+							String name = key.substring(pos + 1);
+							Location location = index.get(name);
+							if (location != null && location.isExpired(now) && index.remove(name, location)) {
+								release(location);
+								expired++;
+							}
+						}
+					}
+				}
+			} finally {
+				writeLock.unlock();
+			}
+			if (expired > 0 && counterExpired != null) {
+				counterExpired.increment(expired);
+			}
+			if (debug) {
+				logger.info("Cache: " + expired + " record(s) timeouted and removed from DiskCache.");
+			}
+
+			// Compact the fragmented segments
+			for (Segment segment : segments.values()) {
+				if (segment == active) {
+					continue;
+				}
+				long size = segment.position;
+				long garbage = size - segment.live.get();
+				if (size < 1 || garbage >= size * compactionRatio) {
+					compact(segment);
+				}
+			}
+		} catch (Throwable cause) {
+			logger.warn("Unable to compact segments!", cause);
+		}
+	}
+
+	/**
+	 * Copies the live records of a sealed segment into the active segment,
+	 * then deletes the segment file. Tombstones are copied only if they can
+	 * still hide a record of an older segment.
+	 *
+	 * @param segment
+	 *            sealed segment
+	 *
+	 * @throws Exception
+	 *             any I/O exception
+	 */
+	protected void compact(Segment segment) throws Exception {
+		ByteBuffer buffer = segment.buffer.duplicate();
+		int offset = 0;
+		int copied = 0;
+		while (offset < segment.position) {
+			int length = buffer.getInt(offset);
+			byte type = buffer.get(offset + 8);
+			String key = readKey(buffer, offset);
+			int pos = key.indexOf('.');
+			String prefix = key.substring(0, pos);
+			String name = key.substring(pos + 1);
+			writeLock.lock();
+			try {
+				if (segment.deleted) {
+					return;
+				}
+				ConcurrentHashMap<String, Location> index = partitions.get(prefix);
+				Location current = index == null ? null : index.get(name);
+				if (type == TYPE_PUT) {
+					if (current != null && current.segment == segment && current.offset == offset) {
+						if (current.isExpired(System.currentTimeMillis())) {
+							index.remove(name, current);
+							release(current);
+						} else {
+							Location location = append(copyOf(buffer, offset, length), current.expireAt);
+							if (index.replace(name, current, location)) {
+								release(current);
+								location.segment.live.addAndGet(length);
+								copied++;
+							}
+						}
+					}
+				} else if (current == null && !segments.firstKey().equals(segment.id)) {
+					append(copyOf(buffer, offset, length), 0);
+				}
+			} finally {
+				writeLock.unlock();
+			}
+			offset += length;
+		}
+
+		// Delete the compacted segment
+		writeLock.lock();
+		try {
+			if (segments.remove(segment.id, segment)) {
+				segment.close(true);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+		if (debug) {
+			logger.info("Cache: Segment \"" + segment.file.getName() + "\" compacted (" + copied
+					+ " live records copied).");
+		}
+	}
+
+	// --- IMPLEMENTED CACHE METHODS ---
+
+	@Override
+	public Promise get(String key) {
+		return Promise.resolve(read(key, false));
+	}
+
+	@Override
+	public Promise getEntry(String key) {
+		return Promise.resolve(read(key, true));
+	}
+
+	protected Tree read(String key, boolean envelope) {
+
+		// Metrics
+		StoppableTimer getTimer = null;
+		if (metrics != null) {
+			counterGet.increment();
+			getTimer = metrics.timer(MOLECULER_CACHER_GET_TIME, MOLECULER_CACHER_GET_TIME_DESC);
+		}
+
+		try {
+			int pos = partitionPosition(key, true);
+
+			// Prefix is the name of the partition / region (eg.
+			// "user" from the "user.name" cache key)
+			ConcurrentHashMap<String, Location> index = partitions.get(key.substring(0, pos));
+			String name = key.substring(pos + 1);
+			Location location = index == null ? null : index.get(name);
+			if (location != null && location.isExpired(System.currentTimeMillis())) {
+				if (index.remove(name, location)) {
+					release(location);
+					if (counterExpired != null) {
+						counterExpired.increment();
+					}
+				}
+				location = null;
+			}
+			if (location == null) {
+				if (debug) {
+					logger.info("Cache: Data not found in DiskCache by key \"" + key + "\".");
+				}
+			} else {
+				if (counterFound != null) {
+					counterFound.increment();
+				}
+				Tree root = bytesToEntry(readValue(location));
+				Tree content = root.get(CONTENT);
+				if (debug) {
+					logger.info("Cache: Data found in DiskCache by key \"" + key + "\": " + content);
+				}
+				if (envelope) {
+					return content == null ? envelope(root.asObject(), 0) : root;
+				}
+				return content == null ? root : content;
+			}
+		} catch (Throwable cause) {
+			logger.warn("Unable to read data from disk cache!", cause);
+		} finally {
+			if (getTimer != null) {
+				getTimer.stop();
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Promise set(String key, Tree value, int ttl) {
+		if (value == null) {
+			return del(key);
+		}
+
+		// Metrics
+		StoppableTimer setTimer = null;
+		if (metrics != null) {
+			counterSet.increment();
+			setTimer = metrics.timer(MOLECULER_CACHER_SET_TIME, MOLECULER_CACHER_SET_TIME_DESC);
+		}
+
+		try {
+			int pos = partitionPosition(key, true);
+			String prefix = key.substring(0, pos);
+			String name = key.substring(pos + 1);
+
+			// Entry-level TTL or the default TTL (in seconds)
+			int entryTTL = ttl > 0 ? ttl : this.ttl;
+			long expireAt = entryTTL > 0 ? System.currentTimeMillis() + entryTTL * 1000L : 0;
+
+			// Serialize (and compress) outside of the lock
+			byte[] record = toRecord(TYPE_PUT, key, valueToBytes(value), expireAt);
+			writeLock.lock();
+			try {
+				if (record.length > segmentCapacity()) {
+
+					// Too large, remove the previous value
+					remove(key, prefix, name);
+					logger.warn("Value is larger than the segment size, it is not cached (key: " + key + ")!");
+				} else {
+					Location location = append(record, expireAt);
+					release(indexOf(prefix, true).put(name, location));
+					location.segment.live.addAndGet(location.length);
+					expiry.add(key, expireAt);
+				}
+			} finally {
+				writeLock.unlock();
+			}
+		} catch (Throwable cause) {
+			logger.warn("Unable to write data to disk cache!", cause);
+		} finally {
+			if (setTimer != null) {
+				setTimer.stop();
+			}
+			if (debug) {
+				logger.info("Cache: Data stored in DiskCache by key \"" + key + "\": " + value);
+			}
+		}
+		return Promise.resolve();
+	}
+
+	@Override
+	public Promise del(String key) {
+
+		// Metrics
+		StoppableTimer delTimer = null;
+		if (metrics != null) {
+			counterDel.increment();
+			delTimer = metrics.timer(MOLECULER_CACHER_DEL_TIME, MOLECULER_CACHER_DEL_TIME_DESC);
+		}
+
+		try {
+			int pos = partitionPosition(key, true);
+			boolean deleted;
+			writeLock.lock();
+			try {
+				deleted = remove(key, key.substring(0, pos), key.substring(pos + 1));
+			} finally {
+				writeLock.unlock();
+			}
+			if (debug && deleted) {
+				logger.info("Cache: Data removed from DiskCache by key \"" + key + "\".");
+			}
+		} catch (Throwable cause) {
+			logger.warn("Unable to delete data from disk cache!", cause);
+		} finally {
+			if (delTimer != null) {
+				delTimer.stop();
+			}
+		}
+		return Promise.resolve();
+	}
+
+	@Override
+	public Promise clean(String match) {
+
+		// Metrics
+		StoppableTimer cleanTimer = null;
+		if (metrics != null) {
+			counterClean.increment();
+			cleanTimer = metrics.timer(MOLECULER_CACHER_CLEAN_TIME, MOLECULER_CACHER_CLEAN_TIME_DESC);
+		}
+		long count = -1;
+		writeLock.lock();
+		try {
+			if (match.isEmpty() || match.startsWith("*")) {
+
+				// Delete all segment files
+				for (Segment segment : segments.values()) {
+					segment.close(true);
+				}
+				segments.clear();
+				partitions.clear();
+				expiry.clear();
+				active = null;
+
+			} else {
+
+				// Prefix is the name of the partition / region (eg.
+				// "user" from the "user.name" cache key)
+				int pos = partitionPosition(match, false);
+				if (pos > 0) {
+
+					// Remove items in partitions
+					String prefix = match.substring(0, pos);
+					count = clean(prefix, match.substring(pos + 1));
+
+				} else if (match.indexOf('*') == -1) {
+
+					// Not supported method
+					logger.warn("This pattern is not supported: " + match);
+
+				} else {
+
+					// Remove entire partitions
+					count = 0;
+					for (String prefix : partitions.keySet()) {
+						if (Matcher.matches(prefix, match)) {
+							count += clean(prefix, "**");
+						}
+					}
+				}
+			}
+		} catch (Throwable cause) {
+			logger.warn("Unable to clean disk cache!", cause);
+		} finally {
+			writeLock.unlock();
+			if (cleanTimer != null) {
+				cleanTimer.stop();
+			}
+			logClean("DiskCache", match, count);
+		}
+		return Promise.resolve();
+	}
+
+	protected long clean(String prefix, String match) throws Exception {
+		ConcurrentHashMap<String, Location> index = partitions.get(prefix);
+		if (index == null) {
+			return 0;
+		}
+		boolean all = match.isEmpty() || "**".equals(match);
+		if (!all && match.indexOf('*') == -1) {
+			return remove(prefix + '.' + match, prefix, match) ? 1 : 0;
+		}
+		long count = 0;
+		for (String name : index.keySet()) {
+			if ((all || Matcher.matches(name, match)) && remove(prefix + '.' + name, prefix, name)) {
+				count++;
+			}
+		}
+		if (all && index.isEmpty()) {
+			partitions.remove(prefix, index);
+		}
+		return count;
+	}
+
+	/**
+	 * Lists all keys of cached entries.
+	 *
+	 * @return a Tree object with a "keys" array.
+	 */
+	@Override
+	public Promise getCacheKeys() {
+		Tree result = new Tree();
+		Tree keys = result.putList("keys");
+		long now = System.currentTimeMillis();
+		for (Map.Entry<String, ConcurrentHashMap<String, Location>> partition : partitions.entrySet()) {
+			String prefix = partition.getKey();
+			for (Map.Entry<String, Location> entry : partition.getValue().entrySet()) {
+				if (!entry.getValue().isExpired(now)) {
+					keys.add(prefix + '.' + entry.getKey());
+				}
+			}
+		}
+		return Promise.resolve(result);
+	}
+
+	// --- INDEX ---
+
+	protected ConcurrentHashMap<String, Location> indexOf(String prefix, boolean create) {
+		ConcurrentHashMap<String, Location> index = partitions.get(prefix);
+		if (index == null && create) {
+			index = new ConcurrentHashMap<>();
+			ConcurrentHashMap<String, Location> previous = partitions.putIfAbsent(prefix, index);
+			if (previous != null) {
+				index = previous;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Removes a key from the index, and writes a tombstone (called under the
+	 * "writeLock").
+	 */
+	protected boolean remove(String key, String prefix, String name) throws Exception {
+		ConcurrentHashMap<String, Location> index = partitions.get(prefix);
+		Location removed = index == null ? null : index.remove(name);
+		if (removed == null) {
+			return false;
+		}
+		release(removed);
+		append(toRecord(TYPE_DEL, key, new byte[0], 0), 0);
+		return true;
+	}
+
+	/**
+	 * Marks the record of a removed / replaced location as garbage.
+	 */
+	protected static void release(Location location) {
+		if (location != null) {
+			location.segment.live.addAndGet(-location.length);
+		}
+	}
+
+	protected int partitionPosition(String key, boolean throwErrorIfMissing) {
+		int i = key.indexOf('.');
+		if (i == -1 && throwErrorIfMissing) {
+			throw new MoleculerServerError("Invalid cache key, a point is missing from the key (" + key + ")!", null,
+					broker.getNodeID(), "INVALID_CACHE_KEY", "key", key);
+		}
+		return i;
+	}
+
+	// --- SEGMENT FILES ---
+
+	/**
+	 * Appends a record to the active segment (called under the "writeLock").
+	 * Creates a new segment (and drops the oldest segments, if the "maxSize"
+	 * is exceeded) when the active segment is full.
+	 */
+	protected Location append(byte[] record, long expireAt) throws Exception {
+		Segment segment = active;
+		if (segment == null || segment.position + record.length > segment.capacity) {
+			segment = new Segment(nextSegmentID, segmentFile(nextSegmentID), segmentCapacity());
+			nextSegmentID++;
+			segments.put(segment.id, segment);
+			if (active != null) {
+				active.buffer.force();
+			}
+			active = segment;
+			evictSegments();
+		}
+		int offset = segment.position;
+		ByteBuffer buffer = segment.buffer.duplicate();
+		buffer.position(offset + 4);
+		buffer.put(record, 4, record.length - 4);
+
+		// The length is written last (the record is complete)
+		buffer.putInt(offset, record.length);
+		segment.position = offset + record.length;
+		return new Location(segment, offset, record.length, expireAt);
+	}
+
+	/**
+	 * Drops the oldest segments while the size of all segments exceeds the
+	 * "maxSize" (called under the "writeLock"). The live entries of the
+	 * dropped segments are evicted.
+	 */
+	protected void evictSegments() {
+		if (maxSize < 1) {
+			return;
+		}
+		long limit = maxSize * 1024 * 1024;
+		long total = 0;
+		for (Segment segment : segments.values()) {
+			total += segment.capacity;
+		}
+		Iterator<Segment> i = segments.values().iterator();
+		while (total > limit && i.hasNext()) {
+			Segment oldest = i.next();
+			if (oldest == active) {
+				break;
+			}
+			ByteBuffer buffer = oldest.buffer.duplicate();
+			int offset = 0;
+			long evicted = 0;
+			while (offset < oldest.position) {
+				int length = buffer.getInt(offset);
+				if (buffer.get(offset + 8) == TYPE_PUT) {
+					String key = readKey(buffer, offset);
+					int pos = key.indexOf('.');
+					ConcurrentHashMap<String, Location> index = partitions.get(key.substring(0, pos));
+					if (index != null) {
+						String name = key.substring(pos + 1);
+						Location location = index.get(name);
+						if (location != null && location.segment == oldest && index.remove(name, location)) {
+							evicted++;
+						}
+					}
+				}
+				offset += length;
+			}
+			i.remove();
+			oldest.close(true);
+			total -= oldest.capacity;
+			if (evicted > 0 && counterEvicted != null) {
+				counterEvicted.increment(evicted);
+			}
+		}
+	}
+
+	protected File segmentFile(long id) {
+		return new File(directory, SEGMENT_PREFIX + String.format("%016x", id) + SEGMENT_SUFFIX);
+	}
+
+	protected int segmentCapacity() {
+		return (int) Math.min(Integer.MAX_VALUE, segmentSize * 1024L * 1024L);
+	}
+
+	protected static class Segment {
+
+		protected final long id;
+		protected final File file;
+		protected final RandomAccessFile raf;
+		protected final MappedByteBuffer buffer;
+		protected final int capacity;
+
+		/**
+		 * End of the last record (guarded by the "writeLock")
+		 */
+		protected volatile int position;
+
+		/**
+		 * Size of the records which are referenced by the index
+		 */
+		protected final AtomicLong live = new AtomicLong();
+
+		protected volatile boolean deleted;
+
+		/**
+		 * Opens (or creates) a segment file.
+		 *
+		 * @param capacity
+		 *            size of the new segment file (0 = open an existing
+		 *            segment in read-only mode)
+		 */
+		protected Segment(long id, File file, int capacity) throws IOException {
+			this.id = id;
+			this.file = file;
+			if (capacity > 0) {
+				raf = new RandomAccessFile(file, "rw");
+				this.capacity = capacity;
+				buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+			} else {
+				raf = new RandomAccessFile(file, "r");
+				this.capacity = (int) Math.min(Integer.MAX_VALUE, raf.length());
+				buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, this.capacity);
+			}
+		}
+
+		/**
+		 * Closes the file. The mapped buffer remains readable (by the
+		 * concurrent readers) until it is garbage collected.
+		 */
+		protected void close(boolean delete) {
+			deleted = delete;
+			try {
+				if (!delete && !buffer.isReadOnly()) {
+					buffer.force();
+				}
+				raf.close();
+			} catch (Throwable ignored) {
+			}
+			if (delete) {
+				file.delete();
+			}
+		}
+
+	}
+
+	protected static final class Location {
+
+		protected final Segment segment;
+		protected final int offset;
+		protected final int length;
+		protected final long expireAt;
+
+		protected Location(Segment segment, int offset, int length, long expireAt) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.expireAt = expireAt;
+		}
+
+		protected boolean isExpired(long now) {
+			return expireAt > 0 && expireAt <= now;
+		}
+
+	}
+
+	// --- RECORD SERIALIZER ---
+
+	/**
+	 * Creates a record (the length field is written by the "append" method).
+	 */
+	protected static byte[] toRecord(byte type, String key, byte[] value, long expireAt) {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] record = new byte[HEADER_SIZE + keyBytes.length + value.length];
+		ByteBuffer buffer = ByteBuffer.wrap(record);
+		buffer.position(8);
+		buffer.put(type);
+		buffer.putLong(expireAt);
+		buffer.putInt(keyBytes.length);
+		buffer.put(keyBytes);
+		buffer.put(value);
+		CRC32 crc = new CRC32();
+		crc.update(record, 8, record.length - 8);
+		buffer.putInt(4, (int) crc.getValue());
+		return record;
+	}
+
+	/**
+	 * Returns the length of the record at the specified position.
+	 *
+	 * @return length of the record, 0 = end of the records, -1 = invalid
+	 *         record
+	 */
+	protected static int recordLength(ByteBuffer buffer, int offset, int capacity) {
+		if (offset + HEADER_SIZE > capacity) {
+			return 0;
+		}
+		int length = buffer.getInt(offset);
+		if (length == 0) {
+			return 0;
+		}
+		if (length < HEADER_SIZE || offset + length > capacity) {
+			return -1;
+		}
+		ByteBuffer view = buffer.duplicate();
+		view.limit(offset + length);
+		view.position(offset + 8);
+		CRC32 crc = new CRC32();
+		crc.update(view);
+		if (buffer.getInt(offset + 4) != (int) crc.getValue()) {
+			return -1;
+		}
+		return length;
+	}
+
+	protected static String readKey(ByteBuffer buffer, int offset) {
+		int keyLength = buffer.getInt(offset + 17);
+		byte[] bytes = new byte[keyLength];
+		ByteBuffer view = buffer.duplicate();
+		view.position(offset + HEADER_SIZE);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	protected static byte[] readValue(Location location) {
+		ByteBuffer buffer = location.segment.buffer.duplicate();
+		int keyLength = buffer.getInt(location.offset + 17);
+		byte[] bytes = new byte[location.length - HEADER_SIZE - keyLength];
+		buffer.position(location.offset + HEADER_SIZE + keyLength);
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	protected static byte[] copyOf(ByteBuffer buffer, int offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position(offset);
+		view.get(bytes);
+		return bytes;
+	}
+
+	// --- VALUE SERIALIZER ---
+
+	protected byte[] valueToBytes(Tree tree) throws Exception {
+
+		// Compress content
+		Tree root = envelope(tree.asObject(), System.currentTimeMillis());
+		byte[] bytes = serializer.write(root);
+		if (compressAbove > 0 && bytes.length > compressAbove) {
+
+			// Compressed -> first byte = 1
+			byte[] compressed = compress(bytes, 0, bytes.length, compressionLevel, 1);
+			compressed[0] = (byte) 1;
+			return compressed;
+		}
+		byte[] copy = new byte[bytes.length + 1];
+		System.arraycopy(bytes, 0, copy, 1, bytes.length);
+		return copy;
+	}
+
+	protected Tree bytesToEntry(byte[] bytes) throws Exception {
+
+		// Decompress content (after the flag byte)
+		if (bytes[0] == 1) {
+
+			// First byte == 1 -> compressed
+			return serializer.read(decompress(bytes, 1, bytes.length - 1));
+		}
+		return serializer.read(Arrays.copyOfRange(bytes, 1, bytes.length));
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = Objects.requireNonNull(directory);
+	}
+
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	public void setSegmentSize(int segmentSize) {
+		this.segmentSize = segmentSize;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public int getTtl() {
+		return ttl;
+	}
+
+	public void setTtl(int ttl) {
+		this.ttl = ttl;
+	}
+
+	public int getCompressAbove() {
+		return compressAbove;
+	}
+
+	public void setCompressAbove(int compressAbove) {
+		this.compressAbove = compressAbove;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	public int getCompaction() {
+		return compaction;
+	}
+
+	public void setCompaction(int compaction) {
+		this.compaction = compaction;
+	}
+
+	public double getCompactionRatio() {
+		return compactionRatio;
+	}
+
+	public void setCompactionRatio(double compactionRatio) {
+		this.compactionRatio = compactionRatio;
+	}
+
+	public Serializer getSerializer() {
+		return serializer;
+	}
+
+	public void setSerializer(Serializer serializer) {
+		this.serializer = Objects.requireNonNull(serializer);
+	}
+
+}
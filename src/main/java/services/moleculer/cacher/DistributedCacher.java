@@ -27,9 +27,13 @@ package services.moleculer.cacher;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
 
+import io.datatree.Promise;
 import io.datatree.Tree;
 import io.datatree.dom.BASE64;
+import services.moleculer.context.Context;
+import services.moleculer.service.Action;
 
 /**
  * Abstract class of distributed cachers. Currently the {@link RedisCacher} and
@@ -41,14 +45,28 @@ import io.datatree.dom.BASE64;
  */
 public abstract class DistributedCacher extends Cacher {
 
-	// --- CONTENT CONTAINER NAME ---
+	// --- POSTFIX OF LEASE KEYS ---
 
-	protected static final String CONTENT = "_";
+	protected static final String LEASE = "#lease";
 
 	// --- PROPERTIES ---
 
 	protected int maxParamsLength;
 
+	/**
+	 * Expiration of the distributed lease, in MILLISECONDS (0 = disabled). If
+	 * enabled, only the lease holder node invokes the action after a cache
+	 * miss; the other nodes are waiting for the value to be stored (until the
+	 * lease expires).
+	 */
+	protected long leaseTimeout;
+
+	/**
+	 * Polling period of the nodes waiting for the lease holder, in
+	 * MILLISECONDS
+	 */
+	protected long leasePollInterval = 50;
+
 	// --- KEY HASHERS ---
 
 	protected final ThreadLocal<MessageDigest> hashers = new ThreadLocal<>();
@@ -82,6 +100,11 @@ public abstract class DistributedCacher extends Cacher {
 		if (params == null) {
 			return name;
 		}
+		if (hashKeys) {
+
+			// Key = action name : 128-bit hash (without serialization)
+			return getHashedCacheKey(name, params, keys);
+		}
 		StringBuilder buffer = new StringBuilder(128);
 		serializeKey(buffer, params, keys);
 		String serializedParams = buffer.toString();
@@ -121,6 +144,85 @@ public abstract class DistributedCacher extends Cacher {
 		return name + ':' + serializedParams.substring(0, prefixLength) + base64;
 	}
 
+	// --- LOAD MISSING VALUE WITH A DISTRIBUTED LEASE ---
+
+	@Override
+	protected Promise load(Context ctx, Action action, String key, int ttl) {
+		if (leaseTimeout < 1) {
+			return super.load(ctx, action, key, ttl);
+		}
+		String leaseKey = key + LEASE;
+		long deadline = System.currentTimeMillis() + leaseTimeout;
+		return acquireLease(leaseKey, leaseTimeout).then(acquired -> {
+			if (acquired == null || acquired.asBoolean()) {
+
+				// This node computes the value
+				return invokeAction(ctx, action, key, ttl).then(tree -> {
+					releaseLease(leaseKey);
+					return tree;
+				}).catchError(err -> {
+					releaseLease(leaseKey);
+					return err;
+				});
+			}
+
+			// Another node computes the value
+			return awaitValue(ctx, action, key, ttl, deadline);
+		});
+	}
+
+	protected Promise awaitValue(Context ctx, Action action, String key, int ttl, long deadline) {
+		return new Promise(resolver -> {
+			broker.getConfig().getScheduler().schedule(() -> {
+				get(key).then(in -> {
+					if (in != null && !in.isNull()) {
+						resolver.resolve(in);
+						return;
+					}
+					Promise next;
+					if (System.currentTimeMillis() < deadline) {
+						next = awaitValue(ctx, action, key, ttl, deadline);
+					} else {
+
+						// Lease expired
+						next = invokeAction(ctx, action, key, ttl);
+					}
+					next.then(tree -> {
+						resolver.resolve(tree);
+					}).catchError(err -> {
+						resolver.reject(err);
+					});
+				}).catchError(err -> {
+					resolver.reject(err);
+				});
+			}, leasePollInterval, TimeUnit.MILLISECONDS);
+		});
+	}
+
+	/**
+	 * Tries to acquire a distributed lease (eg. by an atomic "set if absent"
+	 * operation). The default implementation always grants the lease.
+	 * 
+	 * @param leaseKey
+	 *            key of the lease
+	 * @param timeout
+	 *            expiration of the lease, in MILLISECONDS
+	 * 
+	 * @return Promise with a boolean value (true = lease acquired)
+	 */
+	protected Promise acquireLease(String leaseKey, long timeout) {
+		return Promise.resolve(true);
+	}
+
+	/**
+	 * Releases a distributed lease.
+	 * 
+	 * @param leaseKey
+	 *            key of the lease
+	 */
+	protected void releaseLease(String leaseKey) {
+	}
+
 	// --- GETTERS / SETTERS ---
 
 	public int getMaxParamsLength() {
@@ -136,4 +238,20 @@ public abstract class DistributedCacher extends Cacher {
 		}
 	}
 
+	public long getLeaseTimeout() {
+		return leaseTimeout;
+	}
+
+	public void setLeaseTimeout(long leaseTimeout) {
+		this.leaseTimeout = leaseTimeout;
+	}
+
+	public long getLeasePollInterval() {
+		return leasePollInterval;
+	}
+
+	public void setLeasePollInterval(long leasePollInterval) {
+		this.leasePollInterval = Math.max(1, leasePollInterval);
+	}
+
 }
\ No newline at end of file
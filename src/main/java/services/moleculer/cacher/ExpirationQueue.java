@@ -0,0 +1,161 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bucketed expiration index of the MemoryCacher's partitions (and the
+ * DiskCacher's key index). Entries are grouped by their expiration time
+ * (rounded up to the resolution), so the cleanup process only visits the
+ * expired buckets, instead of scanning all entries of the partition. Not
+ * thread-safe; the callers use it under their own locks.
+ *
+ * @param <T>
+ *            type of the indexed items (keys or nodes)
+ */
+public class ExpirationQueue<T> {
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Width of the buckets, in MILLISECONDS
+	 */
+	protected final long resolution;
+
+	/**
+	 * Buckets (key = end of the bucket's time interval / resolution)
+	 */
+	protected final TreeMap<Long, HashSet<T>> buckets = new TreeMap<>();
+
+	protected int size;
+
+	// --- CONSTRUCTORS ---
+
+	public ExpirationQueue() {
+		this(1000);
+	}
+
+	public ExpirationQueue(long resolution) {
+		this.resolution = Math.max(1, resolution);
+	}
+
+	// --- ADD / REMOVE ---
+
+	/**
+	 * Adds an item to the index.
+	 *
+	 * @param item
+	 *            key or node of the entry
+	 * @param expireAt
+	 *            expiration time of the entry (0 = never expires)
+	 */
+	public void add(T item, long expireAt) {
+		if (expireAt < 1) {
+			return;
+		}
+		Long bucket = bucketOf(expireAt);
+		HashSet<T> items = buckets.get(bucket);
+		if (items == null) {
+			items = new HashSet<>();
+			buckets.put(bucket, items);
+		}
+		if (items.add(item)) {
+			size++;
+		}
+	}
+
+	/**
+	 * Removes an item from the index.
+	 *
+	 * @param item
+	 *            key or node of the entry
+	 * @param expireAt
+	 *            expiration time of the entry (which was used in the "add"
+	 *            method)
+	 */
+	public void remove(T item, long expireAt) {
+		if (expireAt < 1) {
+			return;
+		}
+		Long bucket = bucketOf(expireAt);
+		HashSet<T> items = buckets.get(bucket);
+		if (items != null && items.remove(item)) {
+			size--;
+			if (items.isEmpty()) {
+				buckets.remove(bucket);
+			}
+		}
+	}
+
+	public void clear() {
+		buckets.clear();
+		size = 0;
+	}
+
+	// --- COLLECT EXPIRED ITEMS ---
+
+	/**
+	 * Removes and returns the items of the expired buckets. The cost is
+	 * proportional to the number of expired items.
+	 *
+	 * @param now
+	 *            current time, in milliseconds
+	 *
+	 * @return list of expired items (can be empty)
+	 */
+	public ArrayList<T> pollExpired(long now) {
+		ArrayList<T> expired = new ArrayList<>();
+		long last = now / resolution;
+		Map.Entry<Long, HashSet<T>> first;
+		while ((first = buckets.firstEntry()) != null && first.getKey() <= last) {
+			buckets.pollFirstEntry();
+			expired.addAll(first.getValue());
+		}
+		size -= expired.size();
+		return expired;
+	}
+
+	protected Long bucketOf(long expireAt) {
+
+		// Round up (all items of a bucket are expired at the end of the bucket)
+		return (expireAt + resolution - 1) / resolution;
+	}
+
+	// --- SIZE ---
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}
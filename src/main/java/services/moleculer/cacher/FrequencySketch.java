@@ -0,0 +1,128 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+/**
+ * Count-Min sketch of the access frequencies of cache keys, with 4-bit
+ * counters (max. 15). The counters are halved periodically, so the sketch
+ * reflects the recent popularity of the keys. Not thread-safe; the
+ * TinyLfuPartition calls it under its eviction lock.
+ */
+public class FrequencySketch {
+
+	// --- SEEDS OF THE HASH FUNCTIONS ---
+
+	protected static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L };
+
+	protected static final long RESET_MASK = 0x7777777777777777L;
+
+	protected static final long ONE_MASK = 0x1111111111111111L;
+
+	// --- PROPERTIES ---
+
+	protected final long[] table;
+	protected final int tableMask;
+	protected final int sampleSize;
+
+	protected int size;
+
+	// --- CONSTRUCTOR ---
+
+	public FrequencySketch(int capacity) {
+		int length = 1;
+		while (length < Math.max(16, capacity)) {
+			length <<= 1;
+		}
+		table = new long[length];
+		tableMask = length - 1;
+		sampleSize = 10 * Math.max(16, capacity);
+	}
+
+	// --- FREQUENCY OF A KEY ---
+
+	public int frequency(int hashCode) {
+		int hash = spread(hashCode);
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	// --- INCREMENT FREQUENCY ---
+
+	public void increment(int hashCode) {
+		int hash = spread(hashCode);
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= incrementAt(indexOf(hash, i), start + i);
+		}
+		if (added && ++size >= sampleSize) {
+			reset();
+		}
+	}
+
+	protected boolean incrementAt(int index, int counter) {
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+		if ((table[index] & mask) != mask) {
+			table[index] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	// --- AGING ---
+
+	protected void reset() {
+		int odd = 0;
+		for (int i = 0; i < table.length; i++) {
+			odd += Long.bitCount(table[i] & ONE_MASK);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		size = (size >>> 1) - (odd >>> 2);
+	}
+
+	// --- HASH FUNCTIONS ---
+
+	protected int indexOf(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return ((int) h) & tableMask;
+	}
+
+	protected static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+
+}
@@ -0,0 +1,527 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.UUID;
+
+import io.datatree.Tree;
+import services.moleculer.util.CheckedTree;
+
+/**
+ * Frozen (read-only) representation of cached Tree values. A frozen value is a
+ * private, never modified copy of the original structure; it can be shared
+ * between callers without cloning. The "view" method returns a Tree which
+ * reads the frozen structure directly. If the caller modifies the returned
+ * Tree, only the modified path (from the root to the changed node) is copied
+ * (copy-on-write); the frozen structure and the other callers' views are not
+ * affected. Repeated reads of the same nested node return the same view, so
+ * the modifications of all handles are kept.<br>
+ * <br>
+ * Supported values: Maps, Lists, Strings, Numbers, Booleans, Characters,
+ * UUIDs and Enums. Other types (eg. binary arrays, Sets, Dates) are not
+ * freezable; they are cloned by the MemoryCacher.
+ *
+ * @see MemoryCacher#setUseFreezing(boolean)
+ */
+public final class FrozenTree {
+
+	// --- CONSTRUCTOR ---
+
+	private FrozenTree() {
+	}
+
+	// --- FREEZE ---
+
+	/**
+	 * Creates a frozen copy of the specified Tree.
+	 *
+	 * @param tree
+	 *            source structure
+	 *
+	 * @return frozen Tree, or null if the structure contains unsupported
+	 *         (mutable) values
+	 */
+	public static Tree freeze(Tree tree) {
+		Object source = tree == null ? null : tree.asObject();
+		try {
+			return new CheckedTree(freezeObject(source));
+		} catch (UnsupportedOperationException notFreezable) {
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected static Object freezeObject(Object source) {
+
+		// Immutable values
+		if (isImmutable(source)) {
+			return source;
+		}
+
+		// Map
+		if (source instanceof Map) {
+			Map<Object, Object> map = (Map<Object, Object>) source;
+			LinkedHashMap<Object, Object> copy = new LinkedHashMap<>(Math.max(16, map.size() * 4 / 3 + 1));
+			for (Map.Entry<Object, Object> entry : map.entrySet()) {
+				copy.put(freezeObject(entry.getKey()), freezeObject(entry.getValue()));
+			}
+			return new FrozenMap(copy);
+		}
+
+		// List
+		if (source instanceof List) {
+			List<Object> list = (List<Object>) source;
+			Object[] copy = new Object[list.size()];
+			int i = 0;
+			for (Object child : list) {
+				copy[i++] = freezeObject(child);
+			}
+			return new FrozenList(copy);
+		}
+
+		// Mutable or unknown type (eg. byte[], Date, Set)
+		throw new UnsupportedOperationException();
+	}
+
+	// --- CHECK TYPE ---
+
+	protected static boolean isImmutable(Object value) {
+		return value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+				|| value instanceof Long || value instanceof Double || value instanceof Float || value instanceof Short
+				|| value instanceof Byte || value instanceof Character || value instanceof BigDecimal
+				|| value instanceof BigInteger || value instanceof UUID || value instanceof Enum;
+	}
+
+	/**
+	 * Checks whether the specified Tree is frozen (created by the "freeze"
+	 * method).
+	 *
+	 * @param tree
+	 *            Tree to check
+	 *
+	 * @return true if the Tree is frozen
+	 */
+	public static boolean isFrozen(Tree tree) {
+		if (!(tree instanceof CheckedTree)) {
+			return false;
+		}
+		Object value = tree.asObject();
+		return value instanceof FrozenMap || value instanceof FrozenList || isImmutable(value);
+	}
+
+	// --- CREATE VIEW ---
+
+	/**
+	 * Returns a copy-on-write view of a frozen Tree. Creating the view does
+	 * not copy the structure.
+	 *
+	 * @param frozen
+	 *            frozen Tree (created by the "freeze" method)
+	 *
+	 * @return modifiable view of the frozen Tree
+	 */
+	public static Tree view(Tree frozen) {
+		return new CheckedTree(wrap(null, null, frozen.asObject()));
+	}
+
+	protected static Object wrap(Container parent, Object key, Object value) {
+		if (value instanceof FrozenMap) {
+			return new CowMap(parent, key, (FrozenMap) value);
+		}
+		if (value instanceof FrozenList) {
+			return new CowList(parent, key, (FrozenList) value);
+		}
+		return value;
+	}
+
+	// --- FROZEN STRUCTURES ---
+
+	protected static final class FrozenMap extends AbstractMap<Object, Object> {
+
+		protected final LinkedHashMap<Object, Object> map;
+
+		protected FrozenMap(LinkedHashMap<Object, Object> map) {
+			this.map = map;
+		}
+
+		@Override
+		public Object get(Object key) {
+			return map.get(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return map.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public Set<Map.Entry<Object, Object>> entrySet() {
+			return Collections.unmodifiableMap(map).entrySet();
+		}
+
+	}
+
+	protected static final class FrozenList extends AbstractList<Object> implements RandomAccess {
+
+		protected final Object[] array;
+
+		protected FrozenList(Object[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Object get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+	}
+
+	// --- COPY-ON-WRITE VIEWS ---
+
+	protected interface Container {
+
+		/**
+		 * Replaces the frozen child with its (modified) view.
+		 */
+		void adopt(Object key, Object frozenChild, Object view);
+
+	}
+
+	protected static final class CowMap extends AbstractMap<Object, Object> implements Container {
+
+		protected final Container parent;
+		protected final Object key;
+		protected final FrozenMap frozen;
+
+		protected LinkedHashMap<Object, Object> own;
+
+		/**
+		 * Views of the nested structures (before the first modification)
+		 */
+		protected HashMap<Object, Object> views;
+
+		protected CowMap(Container parent, Object key, FrozenMap frozen) {
+			this.parent = parent;
+			this.key = key;
+			this.frozen = frozen;
+		}
+
+		// --- READ ---
+
+		@Override
+		public Object get(Object k) {
+			if (own == null) {
+				return child(k, frozen.get(k));
+			}
+			Object value = own.get(k);
+			Object view = wrap(this, k, value);
+			if (view != value) {
+				own.put(k, view);
+			}
+			return view;
+		}
+
+		@Override
+		public boolean containsKey(Object k) {
+			return own == null ? frozen.containsKey(k) : own.containsKey(k);
+		}
+
+		@Override
+		public int size() {
+			return own == null ? frozen.size() : own.size();
+		}
+
+		@Override
+		public Set<Map.Entry<Object, Object>> entrySet() {
+			return new AbstractSet<Map.Entry<Object, Object>>() {
+
+				@Override
+				public Iterator<Map.Entry<Object, Object>> iterator() {
+					boolean modified = own != null;
+					Iterator<Map.Entry<Object, Object>> i = modified ? own.entrySet().iterator()
+							: frozen.map.entrySet().iterator();
+					return new Iterator<Map.Entry<Object, Object>>() {
+
+						protected Object last;
+
+						@Override
+						public boolean hasNext() {
+							return i.hasNext();
+						}
+
+						@Override
+						public Map.Entry<Object, Object> next() {
+							Map.Entry<Object, Object> entry = i.next();
+							last = entry.getKey();
+							Object value = entry.getValue();
+							Object view;
+							if (modified) {
+								view = wrap(CowMap.this, last, value);
+								if (view != value) {
+
+									// Entry of the modified map (store the view)
+									entry.setValue(view);
+								}
+							} else {
+								view = child(last, value);
+							}
+							return new SimpleImmutableEntry<>(last, view);
+						}
+
+						@Override
+						public void remove() {
+							if (modified) {
+								i.remove();
+							} else {
+								CowMap.this.remove(last);
+							}
+						}
+
+					};
+				}
+
+				@Override
+				public int size() {
+					return CowMap.this.size();
+				}
+
+			};
+		}
+
+		// --- WRITE ---
+
+		@Override
+		public Object put(Object k, Object value) {
+			return unwrap(modifiable().put(k, value));
+		}
+
+		@Override
+		public Object remove(Object k) {
+			if (!containsKey(k)) {
+				return null;
+			}
+			return unwrap(modifiable().remove(k));
+		}
+
+		@Override
+		public void clear() {
+			modifiable().clear();
+		}
+
+		@Override
+		public void adopt(Object k, Object frozenChild, Object view) {
+			LinkedHashMap<Object, Object> map = modifiable();
+			if (map.get(k) == frozenChild) {
+				map.put(k, view);
+			}
+		}
+
+		protected Object child(Object k, Object value) {
+			if (!(value instanceof FrozenMap || value instanceof FrozenList)) {
+				return value;
+			}
+			if (views == null) {
+				views = new HashMap<>();
+			}
+			Object view = views.get(k);
+			if (view == null) {
+				view = wrap(this, k, value);
+				views.put(k, view);
+			}
+			return view;
+		}
+
+		protected LinkedHashMap<Object, Object> modifiable() {
+			if (own == null) {
+				own = new LinkedHashMap<>(frozen.map);
+				if (views != null) {
+					own.putAll(views);
+					views = null;
+				}
+				if (parent != null) {
+					parent.adopt(key, frozen, this);
+				}
+			}
+			return own;
+		}
+
+		protected Object unwrap(Object value) {
+			return wrap(null, null, value);
+		}
+
+	}
+
+	protected static final class CowList extends AbstractList<Object> implements RandomAccess, Container {
+
+		protected final Container parent;
+		protected final Object key;
+		protected final FrozenList frozen;
+
+		protected ArrayList<Object> own;
+
+		/**
+		 * Views of the nested structures (before the first modification)
+		 */
+		protected Object[] views;
+
+		protected CowList(Container parent, Object key, FrozenList frozen) {
+			this.parent = parent;
+			this.key = key;
+			this.frozen = frozen;
+		}
+
+		// --- READ ---
+
+		@Override
+		public Object get(int index) {
+			if (own == null) {
+				Object value = frozen.get(index);
+				if (!(value instanceof FrozenMap || value instanceof FrozenList)) {
+					return value;
+				}
+				if (views == null) {
+					views = new Object[frozen.size()];
+				}
+				if (views[index] == null) {
+					views[index] = wrap(this, index, value);
+				}
+				return views[index];
+			}
+			Object value = own.get(index);
+			Object view = wrap(this, index, value);
+			if (view != value) {
+				own.set(index, view);
+			}
+			return view;
+		}
+
+		@Override
+		public int size() {
+			return own == null ? frozen.size() : own.size();
+		}
+
+		// --- WRITE ---
+
+		@Override
+		public Object set(int index, Object value) {
+			return unwrap(modifiable().set(index, value));
+		}
+
+		@Override
+		public void add(int index, Object value) {
+			modifiable().add(index, value);
+			modCount++;
+		}
+
+		@Override
+		public Object remove(int index) {
+			modCount++;
+			return unwrap(modifiable().remove(index));
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends Object> values) {
+			modCount++;
+			return modifiable().addAll(values);
+		}
+
+		@Override
+		public void clear() {
+			modCount++;
+			modifiable().clear();
+		}
+
+		@Override
+		public void adopt(Object k, Object frozenChild, Object view) {
+			ArrayList<Object> list = modifiable();
+			int index = (Integer) k;
+			if (index >= list.size() || list.get(index) != frozenChild) {
+
+				// Position of the child has been changed
+				index = -1;
+				for (int i = 0; i < list.size(); i++) {
+					if (list.get(i) == frozenChild) {
+						index = i;
+						break;
+					}
+				}
+			}
+			if (index > -1) {
+				list.set(index, view);
+			}
+		}
+
+		protected ArrayList<Object> modifiable() {
+			if (own == null) {
+				own = new ArrayList<>(frozen.size() + 8);
+				Collections.addAll(own, frozen.array);
+				if (views != null) {
+					for (int i = 0; i < views.length; i++) {
+						if (views[i] != null) {
+							own.set(i, views[i]);
+						}
+					}
+					views = null;
+				}
+				if (parent != null) {
+					parent.adopt(key, frozen, this);
+				}
+			}
+			return own;
+		}
+
+		protected Object unwrap(Object value) {
+			return wrap(null, null, value);
+		}
+
+	}
+
+}
@@ -28,11 +28,15 @@ package services.moleculer.cacher;
 import static services.moleculer.util.CommonUtils.nameOf;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
@@ -276,6 +280,38 @@ public class JCacheCacher extends DistributedCacher {
 		return partition;
 	}
 
+	protected javax.cache.Cache<String, byte[]> getOrCreatePartition(String prefix) {
+		javax.cache.Cache<String, byte[]> partition = getPartition(prefix);
+		if (partition == null) {
+			writeLock.lock();
+			try {
+				partition = cacheManager.getCache(prefix, String.class, byte[].class);
+				if (partition == null) {
+
+					// Find partition-specific config
+					Configuration<String, byte[]> cfg = cacheConfigurations.get(prefix);
+					if (cfg == null) {
+
+						// Use default config
+						cfg = defaultConfiguration;
+					}
+
+					// Create new cache
+					partition = cacheManager.createCache(prefix, cfg);
+				}
+				javax.cache.Cache<String, byte[]> prev = partitions.get(prefix);
+				if (prev == null) {
+					partitions.put(prefix, partition);
+				} else {
+					partition = prev;
+				}
+			} finally {
+				writeLock.unlock();
+			}
+		}
+		return partition;
+	}
+
 	@Override
 	public Promise set(String key, Tree value, int ttl) {
 
@@ -291,34 +327,7 @@ public class JCacheCacher extends DistributedCacher {
 			// Prefix is the name of the partition / region (eg.
 			// "user" from the "user.name" cache key)
 			String prefix = key.substring(0, pos);
-			javax.cache.Cache<String, byte[]> partition = getPartition(prefix);
-			if (partition == null) {
-				writeLock.lock();
-				try {
-					partition = cacheManager.getCache(prefix, String.class, byte[].class);
-					if (partition == null) {
-
-						// Find partition-specific config
-						Configuration<String, byte[]> cfg = cacheConfigurations.get(prefix);
-						if (cfg == null) {
-
-							// Use default config
-							cfg = defaultConfiguration;
-						}
-
-						// Create new cache
-						partition = cacheManager.createCache(prefix, cfg);
-					}
-					javax.cache.Cache<String, byte[]> prev = partitions.get(prefix);
-					if (prev == null) {
-						partitions.put(prefix, partition);
-					} else {
-						partition = prev;
-					}
-				} finally {
-					writeLock.unlock();
-				}
-			}
+			javax.cache.Cache<String, byte[]> partition = getOrCreatePartition(prefix);
 			if (value == null) {
 				partition.remove(key);
 			} else {
@@ -441,6 +450,162 @@ public class JCacheCacher extends DistributedCacher {
 		return Promise.resolve();
 	}
 
+	// --- BULK CACHE METHODS ---
+
+	/**
+	 * Gets many cached contents with one "getAll" call per partition and
+	 * batch.
+	 */
+	@Override
+	public Promise getMany(String... keys) {
+		Object[] values = new Object[keys.length];
+		return processBatches(0, keys.length, (from, to) -> {
+
+			// Metrics
+			StoppableTimer getTimer = null;
+			if (metrics != null) {
+				counterGet.increment(to - from);
+				getTimer = metrics.timer(MOLECULER_CACHER_GET_TIME, MOLECULER_CACHER_GET_TIME_DESC);
+			}
+
+			try {
+				HashMap<String, Map<String, byte[]>> found = new HashMap<>();
+				for (Map.Entry<String, Set<String>> entry : groupByPartition(keys, from, to).entrySet()) {
+					javax.cache.Cache<String, byte[]> partition = getPartition(entry.getKey());
+					if (partition != null) {
+						found.put(entry.getKey(), partition.getAll(entry.getValue()));
+					}
+				}
+				for (int i = from; i < to; i++) {
+					int pos = partitionPosition(keys[i], true);
+					Map<String, byte[]> map = found.get(keys[i].substring(0, pos));
+					byte[] bytes = map == null ? null : map.get(keys[i].substring(pos + 1));
+					if (bytes == null) {
+						if (debug) {
+							logger.info("Cache: Data not found in JCache by key \"" + keys[i] + "\".");
+						}
+						continue;
+					}
+					Tree root = serializer.read(bytes);
+					Tree content = root.get(CONTENT);
+					if (counterFound != null) {
+						counterFound.increment();
+					}
+					if (debug) {
+						logger.info("Cache: Data found in JCache by key \"" + keys[i] + "\": " + content);
+					}
+					values[i] = content == null ? root.asObject() : content.asObject();
+				}
+			} catch (Throwable cause) {
+				logger.warn("Unable to get data from JCache!", cause);
+			} finally {
+				if (getTimer != null) {
+					getTimer.stop();
+				}
+			}
+			return null;
+		}).then(done -> {
+			return new CheckedTree(new ArrayList<>(Arrays.asList(values)));
+		});
+	}
+
+	/**
+	 * Sets many contents with one "putAll" call per partition and batch.
+	 */
+	@Override
+	public Promise setMany(Map<String, Tree> entries, int ttl) {
+		String[] keys = new String[entries.size()];
+		Tree[] values = new Tree[keys.length];
+		int n = 0;
+		for (Map.Entry<String, Tree> entry : entries.entrySet()) {
+			keys[n] = entry.getKey();
+			values[n++] = entry.getValue();
+		}
+		return processBatches(0, keys.length, (from, to) -> {
+
+			// Metrics
+			StoppableTimer setTimer = null;
+			if (metrics != null) {
+				counterSet.increment(to - from);
+				setTimer = metrics.timer(MOLECULER_CACHER_SET_TIME, MOLECULER_CACHER_SET_TIME_DESC);
+			}
+
+			try {
+				HashMap<String, Map<String, byte[]>> puts = new HashMap<>();
+				HashMap<String, Set<String>> removes = new HashMap<>();
+				for (int i = from; i < to; i++) {
+					int pos = partitionPosition(keys[i], true);
+					String prefix = keys[i].substring(0, pos);
+					String key = keys[i].substring(pos + 1);
+					if (values[i] == null) {
+						removes.computeIfAbsent(prefix, p -> new HashSet<>()).add(key);
+					} else {
+						Tree root = new CheckedTree(Collections.singletonMap(CONTENT, values[i].asObject()));
+						puts.computeIfAbsent(prefix, p -> new HashMap<>()).put(key, serializer.write(root));
+					}
+				}
+				for (Map.Entry<String, Map<String, byte[]>> entry : puts.entrySet()) {
+					getOrCreatePartition(entry.getKey()).putAll(entry.getValue());
+				}
+				for (Map.Entry<String, Set<String>> entry : removes.entrySet()) {
+					javax.cache.Cache<String, byte[]> partition = getPartition(entry.getKey());
+					if (partition != null) {
+						partition.removeAll(entry.getValue());
+					}
+				}
+				if (debug) {
+					logger.info("Cache: " + (to - from) + " entries stored in JCache.");
+				}
+			} catch (Throwable cause) {
+				logger.warn("Unable to write data to JCache!", cause);
+			} finally {
+				if (setTimer != null) {
+					setTimer.stop();
+				}
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Deletes many contents with one "removeAll" call per partition and batch.
+	 */
+	@Override
+	public Promise delMany(String... keys) {
+		return processBatches(0, keys.length, (from, to) -> {
+
+			// Metrics
+			StoppableTimer delTimer = null;
+			if (metrics != null) {
+				counterDel.increment(to - from);
+				delTimer = metrics.timer(MOLECULER_CACHER_DEL_TIME, MOLECULER_CACHER_DEL_TIME_DESC);
+			}
+
+			try {
+				for (Map.Entry<String, Set<String>> entry : groupByPartition(keys, from, to).entrySet()) {
+					javax.cache.Cache<String, byte[]> partition = getPartition(entry.getKey());
+					if (partition != null) {
+						partition.removeAll(entry.getValue());
+					}
+				}
+			} finally {
+				if (delTimer != null) {
+					delTimer.stop();
+				}
+			}
+			return null;
+		});
+	}
+
+	protected HashMap<String, Set<String>> groupByPartition(String[] keys, int from, int to) {
+		HashMap<String, Set<String>> groups = new HashMap<>();
+		for (int i = from; i < to; i++) {
+			int pos = partitionPosition(keys[i], true);
+			groups.computeIfAbsent(keys[i].substring(0, pos), p -> new HashSet<>()).add(keys[i].substring(pos + 1));
+		}
+		return groups;
+	}
+
 	protected static final long clean(javax.cache.Cache<String, byte[]> partition, String match) throws Exception {
 		long count;
 		if (match.isEmpty() || "**".equals(match)) {
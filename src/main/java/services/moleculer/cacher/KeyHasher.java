@@ -0,0 +1,337 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+/**
+ * Streaming 128-bit hash function (MurmurHash3, x64 variant) for generating
+ * cache keys without building the serialized params String. Characters are
+ * hashed as 16-bit code units, numbers as decimal digits, so the hash of a
+ * structure equals the hash of its textual key. Not thread-safe; the
+ * {@link Cacher} uses one instance per thread.
+ */
+public class KeyHasher {
+
+	// --- CONSTANTS ---
+
+	/**
+	 * Length of the textual (Base64URL encoded) hash
+	 */
+	public static final int TOKEN_LENGTH = 22;
+
+	/**
+	 * Length of the binary hash
+	 */
+	public static final int BINARY_LENGTH = 16;
+
+	protected static final long C1 = 0x87c37b91114253d5L;
+	protected static final long C2 = 0x4cf5ad432745937fL;
+
+	protected static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+			.toCharArray();
+
+	protected static final byte[] DECODER = new byte[128];
+
+	static {
+		for (int i = 0; i < DECODER.length; i++) {
+			DECODER[i] = -1;
+		}
+		for (int i = 0; i < ALPHABET.length; i++) {
+			DECODER[ALPHABET[i]] = (byte) i;
+		}
+	}
+
+	// --- STATE ---
+
+	protected long h1;
+	protected long h2;
+
+	/**
+	 * Pending (not yet mixed) bytes of the current 16-byte block
+	 */
+	protected long k1;
+	protected long k2;
+	protected int pos;
+
+	/**
+	 * Total number of hashed bytes
+	 */
+	protected long length;
+
+	/**
+	 * Temporary buffer of decimal digits
+	 */
+	protected final char[] digits = new char[20];
+
+	// --- CONSTRUCTOR ---
+
+	public KeyHasher() {
+		reset();
+	}
+
+	// --- RESET ---
+
+	public KeyHasher reset() {
+		h1 = 0;
+		h2 = 0;
+		k1 = 0;
+		k2 = 0;
+		pos = 0;
+		length = 0;
+		return this;
+	}
+
+	// --- APPEND DATA ---
+
+	public KeyHasher append(char c) {
+		update(c & 0xFF);
+		update(c >>> 8);
+		return this;
+	}
+
+	public KeyHasher append(CharSequence text) {
+		if (text == null) {
+			return append("null");
+		}
+		int len = text.length();
+		for (int i = 0; i < len; i++) {
+			char c = text.charAt(i);
+			update(c & 0xFF);
+			update(c >>> 8);
+		}
+		return this;
+	}
+
+	public KeyHasher append(long value) {
+		if (value == Long.MIN_VALUE) {
+			return append("-9223372036854775808");
+		}
+		if (value < 0) {
+			append('-');
+			value = -value;
+		}
+		int i = digits.length;
+		do {
+			digits[--i] = (char) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		for (; i < digits.length; i++) {
+			append(digits[i]);
+		}
+		return this;
+	}
+
+	public KeyHasher append(boolean value) {
+		return append(value ? "true" : "false");
+	}
+
+	protected void update(int b) {
+		long v = b & 0xFFL;
+		if (pos < 8) {
+			k1 |= v << (pos << 3);
+		} else {
+			k2 |= v << ((pos - 8) << 3);
+		}
+		length++;
+		if (++pos == 16) {
+			mixBlock();
+			k1 = 0;
+			k2 = 0;
+			pos = 0;
+		}
+	}
+
+	protected void mixBlock() {
+		h1 ^= mixK1(k1);
+		h1 = Long.rotateLeft(h1, 27);
+		h1 += h2;
+		h1 = h1 * 5 + 0x52dce729;
+
+		h2 ^= mixK2(k2);
+		h2 = Long.rotateLeft(h2, 31);
+		h2 += h1;
+		h2 = h2 * 5 + 0x38495ab5;
+	}
+
+	// --- FINISH ---
+
+	/**
+	 * Completes the hash calculation, and writes the 22 character long
+	 * (Base64URL encoded) hash into the specified array. The hasher must be
+	 * {@link #reset() reset} before the next use.
+	 *
+	 * @param chars
+	 *            target array
+	 * @param offset
+	 *            start position in the target array
+	 */
+	public void finish(char[] chars, int offset) {
+		finish();
+		int p = offset;
+		long bits = 0;
+		int count = 0;
+		for (int i = 0; i < BINARY_LENGTH; i++) {
+			bits = (bits << 8) | byteAt(i);
+			count += 8;
+			while (count >= 6) {
+				count -= 6;
+				chars[p++] = ALPHABET[(int) (bits >>> count) & 0x3F];
+			}
+		}
+		chars[p] = ALPHABET[(int) (bits << (6 - count)) & 0x3F];
+	}
+
+	/**
+	 * Completes the hash calculation, and returns the hash as 16 bytes.
+	 *
+	 * @return binary hash
+	 */
+	public byte[] finishBytes() {
+		finish();
+		byte[] bytes = new byte[BINARY_LENGTH];
+		for (int i = 0; i < BINARY_LENGTH; i++) {
+			bytes[i] = (byte) byteAt(i);
+		}
+		return bytes;
+	}
+
+	protected void finish() {
+		if (pos > 0) {
+			h1 ^= mixK1(k1);
+			h2 ^= mixK2(k2);
+			k1 = 0;
+			k2 = 0;
+			pos = 0;
+		}
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+		h1 += h2;
+		h2 += h1;
+	}
+
+	protected int byteAt(int i) {
+		long h = i < 8 ? h1 : h2;
+		return (int) (h >>> ((7 - (i & 7)) << 3)) & 0xFF;
+	}
+
+	// --- DECODE TEXTUAL HASH ---
+
+	/**
+	 * Converts a 22 character long (Base64URL encoded) hash back to 16 bytes.
+	 *
+	 * @param text
+	 *            String which contains the hash
+	 * @param offset
+	 *            start position of the hash
+	 *
+	 * @return binary hash, or null if the text is not a valid (canonical) hash
+	 */
+	public static byte[] decode(CharSequence text, int offset) {
+		if (text.length() - offset != TOKEN_LENGTH) {
+			return null;
+		}
+		byte[] bytes = new byte[BINARY_LENGTH];
+		int p = 0;
+		long bits = 0;
+		int count = 0;
+		for (int i = 0; i < TOKEN_LENGTH; i++) {
+			char c = text.charAt(offset + i);
+			int v = c < 128 ? DECODER[c] : -1;
+			if (v < 0) {
+				return null;
+			}
+			if (i == TOKEN_LENGTH - 1 && (v & 0x0F) != 0) {
+
+				// Only 2 bits of the last character are used
+				return null;
+			}
+			bits = (bits << 6) | v;
+			count += 6;
+			if (count >= 8 && p < BINARY_LENGTH) {
+				count -= 8;
+				bytes[p++] = (byte) (bits >>> count);
+			}
+		}
+		return bytes;
+	}
+
+	// --- ENCODE BINARY HASH ---
+
+	/**
+	 * Converts a 16 bytes long binary hash to its textual (Base64URL encoded)
+	 * form.
+	 *
+	 * @param bytes
+	 *            array which contains the binary hash
+	 * @param offset
+	 *            start position of the hash
+	 *
+	 * @return 22 character long hash
+	 */
+	public static String encode(byte[] bytes, int offset) {
+		char[] chars = new char[TOKEN_LENGTH];
+		int p = 0;
+		long bits = 0;
+		int count = 0;
+		for (int i = 0; i < BINARY_LENGTH; i++) {
+			bits = (bits << 8) | (bytes[offset + i] & 0xFF);
+			count += 8;
+			while (count >= 6) {
+				count -= 6;
+				chars[p++] = ALPHABET[(int) (bits >>> count) & 0x3F];
+			}
+		}
+		chars[p] = ALPHABET[(int) (bits << (6 - count)) & 0x3F];
+		return new String(chars);
+	}
+
+	// --- MIXER FUNCTIONS ---
+
+	protected static long mixK1(long k) {
+		k *= C1;
+		k = Long.rotateLeft(k, 31);
+		return k * C2;
+	}
+
+	protected static long mixK2(long k) {
+		k *= C2;
+		k = Long.rotateLeft(k, 33);
+		return k * C1;
+	}
+
+	protected static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+}
@@ -25,14 +25,21 @@
  */
 package services.moleculer.cacher;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
@@ -43,7 +50,10 @@ import services.moleculer.ServiceBroker;
 import services.moleculer.error.MoleculerServerError;
 import services.moleculer.eventbus.Matcher;
 import services.moleculer.metrics.MetricCounter;
+import services.moleculer.metrics.MetricGauge;
 import services.moleculer.metrics.StoppableTimer;
+import services.moleculer.serializer.JsonSerializer;
+import services.moleculer.serializer.Serializer;
 import services.moleculer.service.Name;
 
 /**
@@ -57,7 +67,16 @@ import services.moleculer.service.Name;
  * to 2048
  * <li>ttl: Expire time of entries in memory, in seconds (default: 0 = never
  * expires)
- * <li>cleanup: Cleanup period, in seconds
+ * <li>cleanup: Cleanup period, in seconds (the cleanup process visits only
+ * the expired entries; expired entries are never returned by "get")
+ * <li>evictionPolicy: FIFO (default), LRU or TINY_LFU (frequency-based
+ * admission with lock-free reads)
+ * <li>maxBytes: Maximum estimated heap size of all partitions, in bytes
+ * (default: 0 = unlimited, the entries are not weighed)
+ * <li>useFreezing: Return copy-on-write views instead of clones (default:
+ * false)
+ * <li>snapshotFile: Write the entries into this file on shutdown, and restore
+ * them in the background on startup (default: null = disabled)
  * </ul>
  * Performance (small and large data): 5.5 million gets / second (per thread /
  * core) <br>
@@ -95,6 +114,46 @@ public class MemoryCacher extends Cacher implements Runnable {
 	 */
 	protected boolean useCloning = true;
 
+	/**
+	 * Store the values in frozen (read-only) form, and return copy-on-write
+	 * views instead of clones. Requires "useCloning"; the callers' changes are
+	 * not visible to other callers, but the hits do not copy the values (only
+	 * the modified paths are copied, on write). Values with unsupported types
+	 * (eg. byte arrays) are cloned.
+	 */
+	protected boolean useFreezing;
+
+	/**
+	 * Eviction policy of partitions (FIFO, LRU or TINY_LFU)
+	 */
+	protected EvictionPolicy evictionPolicy = EvictionPolicy.FIFO;
+
+	/**
+	 * Maximum estimated size of all partitions, in BYTES (0 = unlimited).
+	 * When exceeded, entries of the largest partition are evicted, according
+	 * to the eviction policy. The entries are weighed (and the
+	 * "moleculer.cacher.bytes.used" gauges are updated) only if this limit is
+	 * set.
+	 */
+	protected long maxBytes;
+
+	/**
+	 * Size estimator of the entries
+	 */
+	protected Weigher weigher = new Weigher();
+
+	/**
+	 * Snapshot file (null = disabled). The entries are written into this file
+	 * when the cacher is stopped, and restored in the background when the
+	 * cacher is started.
+	 */
+	protected String snapshotFile;
+
+	/**
+	 * Serializer of the values in the snapshot file
+	 */
+	protected Serializer snapshotSerializer = new JsonSerializer();
+
 	// --- READ/WRITE LOCK ---
 
 	protected final ReadLock readLock;
@@ -115,9 +174,19 @@ public class MemoryCacher extends Cacher implements Runnable {
 
 	protected AtomicBoolean timerStopped = new AtomicBoolean();
 
+	// --- SNAPSHOT ---
+
+	protected volatile CacheSnapshot snapshot;
+
+	/**
+	 * Promise of the restore process
+	 */
+	protected volatile Promise restored = Promise.resolve();
+
 	// --- COUNTERS ---
 
 	protected MetricCounter counterExpired;
+	protected MetricCounter counterEvicted;
 	protected MetricCounter counterGet;
 	protected MetricCounter counterSet;
 	protected MetricCounter counterDel;
@@ -170,16 +239,107 @@ public class MemoryCacher extends Cacher implements Runnable {
 
 		// Log capacity
 		logger.info("Maximum number of cached entries is " + capacity + " per partition.");
+		if (maxBytes > 0) {
+			logger.info("Maximum size of cached entries is " + maxBytes + " bytes.");
+		}
 
 		// Create counters
 		if (metrics != null) {
 			counterExpired = metrics.increment(MOLECULER_CACHER_EXPIRED_TOTAL, MOLECULER_CACHER_EXPIRED_TOTAL_DESC, 0);
+			counterEvicted = metrics.increment(MOLECULER_CACHER_EVICTED_TOTAL, MOLECULER_CACHER_EVICTED_TOTAL_DESC, 0);
 			counterGet = metrics.increment(MOLECULER_CACHER_GET_TOTAL, MOLECULER_CACHER_GET_TOTAL_DESC, 0);
 			counterSet = metrics.increment(MOLECULER_CACHER_SET_TOTAL, MOLECULER_CACHER_SET_TOTAL_DESC, 0);
 			counterDel = metrics.increment(MOLECULER_CACHER_DEL_TOTAL, MOLECULER_CACHER_DEL_TOTAL_DESC, 0);
 			counterClean = metrics.increment(MOLECULER_CACHER_CLEAN_TOTAL, MOLECULER_CACHER_CLEAN_TOTAL_DESC, 0);
 			counterFound = metrics.increment(MOLECULER_CACHER_FOUND_TOTAL, MOLECULER_CACHER_FOUND_TOTAL_DESC, 0);
 		}
+
+		// Restore the snapshot in the background
+		if (snapshotFile != null) {
+			snapshotSerializer.started(broker);
+			CacheSnapshot s = new CacheSnapshot(new File(snapshotFile));
+			snapshot = s;
+			long start = System.currentTimeMillis();
+			restored = s.restore(broker.getConfig().getExecutor(), this::restore).then(count -> {
+				logger.info(count.asLong() + " entries restored from snapshot in "
+						+ (System.currentTimeMillis() - start) + " milliseconds.");
+			}).catchError(cause -> {
+				logger.warn("Unable to restore snapshot!", cause);
+			});
+		}
+	}
+
+	// --- SNAPSHOT ---
+
+	protected boolean restore(byte[] keyBytes, long expireAt, byte[] bytes) throws Exception {
+		CacheSnapshot s = snapshot;
+		String key = new String(keyBytes, StandardCharsets.UTF_8);
+		if (s == null || s.isTouched(key)) {
+			return false;
+		}
+		int pos = partitionPosition(key, true);
+		String name = key.substring(pos + 1);
+		Tree root = snapshotSerializer.read(bytes);
+		Tree value = root.get(CONTENT);
+		if (value == null) {
+			return false;
+		}
+		long weight = weigh(name, value);
+		if (maxBytes > 0 && weight > maxBytes) {
+			return false;
+		}
+		if (useFreezing) {
+			value = copyIn(value);
+		}
+
+		// Start cleanup process
+		if (expireAt > 0 && !timerStarted.get()) {
+			startTimer((int) Math.max(1, (expireAt - System.currentTimeMillis()) / 1000));
+		}
+
+		// Store entry (with the original timestamp and expiration time)
+		MemoryPartition partition = getOrCreatePartition(key.substring(0, pos));
+		partition.putEntry(name, new PartitionEntry(value, expireAt, root.get(TIMESTAMP, 0L), weight));
+		if (s.isTouched(key)) {
+
+			// Modified (or cleaned) during the restore
+			partition.removeEntry(name);
+			return false;
+		}
+		if (maxBytes > 0 && weight > 0) {
+			evictBytes();
+		}
+		return true;
+	}
+
+	protected void writeSnapshot(CacheSnapshot s) {
+		long start = System.currentTimeMillis();
+		HashMap<String, MemoryPartition> copy;
+		readLock.lock();
+		try {
+			copy = new HashMap<>(partitions);
+		} finally {
+			readLock.unlock();
+		}
+		try (CacheSnapshot.Writer writer = s.createWriter()) {
+			long now = System.currentTimeMillis();
+			for (Map.Entry<String, MemoryPartition> partition : copy.entrySet()) {
+				String prefix = partition.getKey() + '.';
+				for (Map.Entry<String, PartitionEntry> entry : partition.getValue().entries()) {
+					PartitionEntry e = entry.getValue();
+					if (e.value == null || (e.expireAt > 0 && e.expireAt <= now)) {
+						continue;
+					}
+					byte[] bytes = snapshotSerializer.write(envelope(e.value.asObject(), e.timestamp));
+					writer.write((prefix + entry.getKey()).getBytes(StandardCharsets.UTF_8), e.expireAt, bytes);
+				}
+			}
+			long count = writer.commit();
+			logger.info(count + " entries written into snapshot in " + (System.currentTimeMillis() - start)
+					+ " milliseconds.");
+		} catch (Throwable cause) {
+			logger.warn("Unable to write snapshot!", cause);
+		}
 	}
 
 	// --- REMOVE OLD ENTRIES ---
@@ -228,6 +388,20 @@ public class MemoryCacher extends Cacher implements Runnable {
 			timer = null;
 		}
 
+		// Write snapshot
+		CacheSnapshot s = snapshot;
+		if (s != null) {
+			s.cancel();
+			try {
+
+				// Wait for the cancelled restore process
+				restored.waitFor(10, TimeUnit.SECONDS);
+			} catch (Exception ignored) {
+			}
+			writeSnapshot(s);
+			snapshot = null;
+		}
+
 		// Clear partitions
 		writeLock.lock();
 		try {
@@ -265,6 +439,27 @@ public class MemoryCacher extends Cacher implements Runnable {
 		return Promise.resolve((Object) null);
 	}
 
+	@Override
+	public Promise getEntry(String key) {
+		try {
+			int pos = partitionPosition(key, true);
+
+			// Prefix is the name of the partition / region (eg.
+			// "user" from the "user.name" cache key)
+			MemoryPartition partition = getPartition(key.substring(0, pos));
+			if (partition != null) {
+				PartitionEntry entry = partition.read(key.substring(pos + 1));
+				if (entry != null) {
+					Tree content = copyOut(entry.value);
+					return Promise.resolve(envelope(content.asObject(), entry.timestamp, entry.expireAt));
+				}
+			}
+		} catch (Throwable cause) {
+			logger.warn("Unable to get data from the cache!", cause);
+		}
+		return Promise.resolve((Object) null);
+	}
+
 	protected MemoryPartition getPartition(String prefix) {
 		MemoryPartition partition = null;
 		readLock.lock();
@@ -276,28 +471,46 @@ public class MemoryCacher extends Cacher implements Runnable {
 		return partition;
 	}
 
+	protected MemoryPartition getOrCreatePartition(String prefix) {
+		MemoryPartition partition = getPartition(prefix);
+		if (partition == null) {
+			partition = createPartition();
+			if (metrics != null && maxBytes > 0) {
+				partition.gaugeBytes = metrics.set(MOLECULER_CACHER_BYTES_USED, MOLECULER_CACHER_BYTES_USED_DESC, 0,
+						"partition", prefix);
+			}
+			MemoryPartition previous;
+			writeLock.lock();
+			try {
+				previous = partitions.putIfAbsent(prefix, partition);
+			} finally {
+				writeLock.unlock();
+			}
+			if (previous != null) {
+				partition = previous;
+			}
+		}
+		return partition;
+	}
+
 	@Override
 	public Promise set(String key, Tree value, int ttl) {
+		return setEntry(key, value, ttl, 0);
+	}
+
+	@Override
+	public Promise setEntry(String key, Tree value, int ttl, long timestamp) {
+		CacheSnapshot s = snapshot;
+		if (s != null) {
+			s.touch(key);
+		}
 		try {
 			int pos = partitionPosition(key, true);
 
 			// Prefix is the name of the partition / region (eg.
 			// "user" from the "user.name" cache key)
 			String prefix = key.substring(0, pos);
-			MemoryPartition partition = getPartition(prefix);
-			if (partition == null) {
-				partition = new MemoryPartition(this);
-				MemoryPartition previous;
-				writeLock.lock();
-				try {
-					previous = partitions.putIfAbsent(prefix, partition);
-				} finally {
-					writeLock.unlock();
-				}
-				if (previous != null) {
-					partition = previous;
-				}
-			}
+			MemoryPartition partition = getOrCreatePartition(prefix);
 			int entryTTL;
 			if (ttl > 0) {
 
@@ -314,11 +527,11 @@ public class MemoryCacher extends Cacher implements Runnable {
 				startTimer(entryTTL);
 			}
 
-			// Create another, cloned instance
-			Tree v = useCloning ? value.clone() : value;
+			// Create another, cloned (or frozen) instance
+			Tree v = copyIn(value);
 
 			// Store value
-			partition.set(key.substring(pos + 1), v, entryTTL);
+			partition.set(key.substring(pos + 1), v, entryTTL, timestamp);
 			
 		} catch (Throwable cause) {
 			logger.warn("Unable to set data to the cache!", cause);
@@ -331,6 +544,10 @@ public class MemoryCacher extends Cacher implements Runnable {
 
 	@Override
 	public Promise del(String key) {
+		CacheSnapshot s = snapshot;
+		if (s != null) {
+			s.touch(key);
+		}
 		try {
 			int pos = partitionPosition(key, true);
 
@@ -352,6 +569,10 @@ public class MemoryCacher extends Cacher implements Runnable {
 
 	@Override
 	public Promise clean(String match) {
+		CacheSnapshot s = snapshot;
+		if (s != null) {
+			s.cancel();
+		}
 		long count = -1;
 		try {
 
@@ -373,6 +594,9 @@ public class MemoryCacher extends Cacher implements Runnable {
 				writeLock.lock();
 				try {
 					if (match.isEmpty() || match.startsWith("*")) {
+						for (MemoryPartition partition : partitions.values()) {
+							partition.updateWeight(0);
+						}
 						partitions.clear();
 					} else if (match.indexOf('*') == -1) {
 
@@ -380,11 +604,12 @@ public class MemoryCacher extends Cacher implements Runnable {
 						logger.warn("This pattern is not supported: " + match);
 
 					} else {
-						Iterator<String> i = partitions.keySet().iterator();
-						String key;
+						Iterator<Map.Entry<String, MemoryPartition>> i = partitions.entrySet().iterator();
+						Map.Entry<String, MemoryPartition> entry;
 						while (i.hasNext()) {
-							key = i.next();
-							if (Matcher.matches(key, match)) {
+							entry = i.next();
+							if (Matcher.matches(entry.getKey(), match)) {
+								entry.getValue().updateWeight(0);
 								i.remove();
 							}
 						}
@@ -400,6 +625,92 @@ public class MemoryCacher extends Cacher implements Runnable {
 		return Promise.resolve();
 	}
 
+	protected MemoryPartition createPartition() {
+		if (evictionPolicy == EvictionPolicy.TINY_LFU) {
+			return new TinyLfuPartition(this);
+		}
+		return new MemoryPartition(this);
+	}
+
+	// --- COPY VALUES ---
+
+	protected Tree copyIn(Tree value) {
+		if (!useCloning || value == null) {
+			return value;
+		}
+		if (useFreezing) {
+			Tree frozen = FrozenTree.freeze(value);
+			if (frozen != null) {
+				return frozen;
+			}
+		}
+		return value.clone();
+	}
+
+	protected Tree copyOut(Tree value) {
+		if (!useCloning) {
+			return value;
+		}
+		if (useFreezing && FrozenTree.isFrozen(value)) {
+
+			// Zero-copy, copy-on-write view
+			return FrozenTree.view(value);
+		}
+		return value.clone();
+	}
+
+	// --- BYTE-WEIGHTED CAPACITY ---
+
+	protected long weigh(String key, Tree value) {
+		if (maxBytes < 1) {
+			return 0;
+		}
+		return weigher.weigh(key, value);
+	}
+
+	/**
+	 * Returns the estimated size of all partitions.
+	 * 
+	 * @return estimated size, in bytes (0, if "maxBytes" is not set)
+	 */
+	public long getUsedBytes() {
+		long total = 0;
+		readLock.lock();
+		try {
+			for (MemoryPartition partition : partitions.values()) {
+				total += partition.weight.get();
+			}
+		} finally {
+			readLock.unlock();
+		}
+		return total;
+	}
+
+	protected void evictBytes() {
+		while (true) {
+
+			// Find the largest partition
+			long total = 0;
+			MemoryPartition largest = null;
+			readLock.lock();
+			try {
+				long weight;
+				for (MemoryPartition partition : partitions.values()) {
+					weight = partition.weight.get();
+					total += weight;
+					if (largest == null || weight > largest.weight.get()) {
+						largest = partition;
+					}
+				}
+			} finally {
+				readLock.unlock();
+			}
+			if (total <= maxBytes || largest == null || !largest.evictEntry()) {
+				return;
+			}
+		}
+	}
+
 	protected int partitionPosition(String key, boolean throwErrorIfMissing) {
 		int i = key.indexOf('.');
 		if (i == -1 && throwErrorIfMissing) {
@@ -450,21 +761,36 @@ public class MemoryCacher extends Cacher implements Runnable {
 
 		protected final LinkedHashMap<String, PartitionEntry> cache;
 
+		// --- EXPIRATION INDEX (GUARDED BY "writeLock") ---
+
+		protected final ExpirationQueue<String> expiry = new ExpirationQueue<>();
+
+		// --- ESTIMATED SIZE OF ENTRIES ---
+
+		protected final AtomicLong weight = new AtomicLong();
+
+		protected MetricGauge gaugeBytes;
+
 		// --- CONSTUCTORS ---
 
 		protected MemoryPartition(MemoryCacher parent) {
 
-			// Insertion-order is thread safe, access-order is not
-			cache = new LinkedHashMap<String, PartitionEntry>(parent.capacity, 1.0f, false) {
+			// Insertion-order (FIFO) or access-order (LRU)
+			boolean accessOrder = parent.evictionPolicy == EvictionPolicy.LRU;
+			cache = new LinkedHashMap<String, PartitionEntry>(parent.capacity, 1.0f, accessOrder) {
 
 				private static final long serialVersionUID = 5994447707758047152L;
 
 				protected final boolean removeEldestEntry(Map.Entry<String, PartitionEntry> entry) {
 					boolean remove = size() > parent.capacity;
+					if (remove) {
+						expiry.remove(entry.getKey(), entry.getValue().expireAt);
+						onRemoved(entry.getValue());
 
-					// Metrics
-					if (remove && parent.counterExpired != null) {
-						parent.counterExpired.increment();
+						// Metrics
+						if (parent.counterEvicted != null) {
+							parent.counterEvicted.increment();
+						}
 					}
 
 					return remove;
@@ -481,47 +807,60 @@ public class MemoryCacher extends Cacher implements Runnable {
 		// --- REMOVE OLD ENTRIES ---
 
 		protected int removeOldEntries(long now) {
-			LinkedList<String> expiredKeys = new LinkedList<>();
-			readLock.lock();
+			int count;
+			writeLock.lock();
 			try {
-				collectExpiredEntries(now, expiredKeys);
+
+				// Visit only the expired buckets (no full scan)
+				if (expiry.isEmpty()) {
+					return 0;
+				}
+				List<String> expiredKeys = expiry.pollExpired(now);
+				for (String key : expiredKeys) {
+					onRemoved(cache.remove(key));
+				}
+				count = expiredKeys.size();
 			} finally {
-				readLock.unlock();
-			}
-			if (expiredKeys.isEmpty()) {
-				return 0;
+				writeLock.unlock();
 			}
 
 			// Metrics
-			if (parent.counterExpired != null) {
-				parent.counterExpired.increment(expiredKeys.size());
+			if (count > 0 && parent.counterExpired != null) {
+				parent.counterExpired.increment(count);
 			}
+			return count;
+		}
 
-			// Remove elements
+		protected void expireEntry(String key, PartitionEntry entry) {
+			boolean removed;
 			writeLock.lock();
 			try {
-				for (String String : expiredKeys) {
-					cache.remove(String);
+				removed = cache.remove(key, entry);
+				if (removed) {
+					expiry.remove(key, entry.expireAt);
+					onRemoved(entry);
 				}
 			} finally {
 				writeLock.unlock();
 			}
-			return expiredKeys.size();
-		}
 
-		protected void collectExpiredEntries(long now, LinkedList<String> expiredKeys) {
-			PartitionEntry partitionEntry;
-			for (Map.Entry<String, PartitionEntry> entry : cache.entrySet()) {
-				partitionEntry = entry.getValue();
-				if (partitionEntry.expireAt > 0 && partitionEntry.expireAt <= now) {
-					expiredKeys.addLast(entry.getKey());
-				}
+			// Metrics
+			if (removed && parent.counterExpired != null) {
+				parent.counterExpired.increment();
 			}
 		}
 
 		// --- CACHE METHODS ---
 
 		protected Tree get(String key) throws Exception {
+			PartitionEntry entry = read(key);
+			if (entry == null) {
+				return null;
+			}
+			return parent.copyOut(entry.value);
+		}
+
+		protected PartitionEntry read(String key) throws Exception {
 
 			// Metrics
 			StoppableTimer getTimer = null;
@@ -530,25 +869,21 @@ public class MemoryCacher extends Cacher implements Runnable {
 				getTimer = parent.metrics.timer(MOLECULER_CACHER_GET_TIME, MOLECULER_CACHER_GET_TIME_DESC);
 			}
 
-			PartitionEntry entry = null;
-
-			readLock.lock();
-			try {
-				entry = cache.get(key);
-			} finally {
-				readLock.unlock();
-			}
+			PartitionEntry entry = getEntry(key);
 			try {
 				if (entry == null || entry.value == null) {
 					return null;
 				}
+
+				// Lazy expiration (between two cleanup cycles)
+				if (entry.expireAt > 0 && entry.expireAt <= System.currentTimeMillis()) {
+					expireEntry(key, entry);
+					return null;
+				}
 				if (parent.counterFound != null) {
 					parent.counterFound.increment();
 				}
-				if (parent.useCloning && entry.value != null) {
-					return entry.value.clone();
-				}
-				return entry.value;
+				return entry;
 			} finally {
 				if (getTimer != null) {
 					getTimer.stop();
@@ -557,6 +892,10 @@ public class MemoryCacher extends Cacher implements Runnable {
 		}
 
 		protected void set(String key, Tree value, int ttl) {
+			set(key, value, ttl, 0);
+		}
+
+		protected void set(String key, Tree value, int ttl, long timestamp) {
 
 			// Metrics
 			StoppableTimer setTimer = null;
@@ -565,21 +904,32 @@ public class MemoryCacher extends Cacher implements Runnable {
 				setTimer = parent.metrics.timer(MOLECULER_CACHER_SET_TIME, MOLECULER_CACHER_SET_TIME_DESC);
 			}
 
-			writeLock.lock();
 			try {
 				if (value == null) {
-					cache.remove(key);
+					removeEntry(key);
 				} else {
+					long weight = parent.weigh(key, value);
+					if (parent.maxBytes > 0 && weight > parent.maxBytes) {
+
+						// Larger than the entire cache
+						removeEntry(key);
+						return;
+					}
+					long now = System.currentTimeMillis();
 					long expireAt;
 					if (ttl > 0) {
-						expireAt = ttl * 1000L + System.currentTimeMillis();
+						expireAt = ttl * 1000L + now;
 					} else {
 						expireAt = 0;
 					}
-					cache.put(key, new PartitionEntry(value, expireAt));
+					putEntry(key, new PartitionEntry(value, expireAt, timestamp > 0 ? timestamp : now, weight));
+
+					// Byte-weighted capacity
+					if (parent.maxBytes > 0 && weight > 0) {
+						parent.evictBytes();
+					}
 				}
 			} finally {
-				writeLock.unlock();
 				if (setTimer != null) {
 					setTimer.stop();
 				}		
@@ -595,11 +945,9 @@ public class MemoryCacher extends Cacher implements Runnable {
 				delTimer = parent.metrics.timer(MOLECULER_CACHER_DEL_TIME, MOLECULER_CACHER_DEL_TIME_DESC);
 			}
 
-			writeLock.lock();
 			try {
-				return cache.remove(key) != null;
+				return removeEntry(key) != null;
 			} finally {
-				writeLock.unlock();
 				if (delTimer != null) {
 					delTimer.stop();
 				}
@@ -614,14 +962,79 @@ public class MemoryCacher extends Cacher implements Runnable {
 				parent.counterClean.increment();
 				cleanTimer = parent.metrics.timer(MOLECULER_CACHER_CLEAN_TIME, MOLECULER_CACHER_CLEAN_TIME_DESC);
 			}
+			try {
+				return cleanEntries(match);
+			} finally {
+				if (cleanTimer != null) {
+					cleanTimer.stop();
+				}
+			}
+		}
+
+		// --- STORAGE METHODS ---
+
+		protected PartitionEntry getEntry(String key) {
+			if (parent.evictionPolicy == EvictionPolicy.LRU) {
+
+				// Access-ordered map is modified by "get"
+				writeLock.lock();
+				try {
+					return cache.get(key);
+				} finally {
+					writeLock.unlock();
+				}
+			}
+			readLock.lock();
+			try {
+				return cache.get(key);
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		protected void putEntry(String key, PartitionEntry entry) {
+			writeLock.lock();
+			try {
+				PartitionEntry previous = cache.put(key, entry);
+				if (previous != null) {
+					expiry.remove(key, previous.expireAt);
+					onRemoved(previous);
+				}
+				expiry.add(key, entry.expireAt);
+				onStored(entry);
+			} finally {
+				writeLock.unlock();
+			}
+		}
+
+		protected PartitionEntry removeEntry(String key) {
+			writeLock.lock();
+			try {
+				PartitionEntry removed = cache.remove(key);
+				if (removed != null) {
+					expiry.remove(key, removed.expireAt);
+					onRemoved(removed);
+				}
+				return removed;
+			} finally {
+				writeLock.unlock();
+			}
+		}
+
+		protected long cleanEntries(String match) {
 			long count = -1;
 			writeLock.lock();
 			try {
 				if (match.isEmpty() || "**".equals(match)) {
 					count = cache.size();
 					cache.clear();
+					expiry.clear();
+					onRemoved(weight.get());
 				} else if (match.indexOf('*') == -1) {
-					if (cache.remove(match) != null) {
+					PartitionEntry removed = cache.remove(match);
+					if (removed != null) {
+						expiry.remove(match, removed.expireAt);
+						onRemoved(removed);
 						count = 1;	
 					}
 				} else {
@@ -634,20 +1047,90 @@ public class MemoryCacher extends Cacher implements Runnable {
 							r.add(key);
 						}
 					}
+					PartitionEntry removed;
 					for (String rx: r) {
-						cache.remove(rx);
+						removed = cache.remove(rx);
+						if (removed != null) {
+							expiry.remove(rx, removed.expireAt);
+							onRemoved(removed);
+						}
 					}
 					count = r.size();
 				}
 			} finally {
 				writeLock.unlock();
-				if (cleanTimer != null) {
-					cleanTimer.stop();
-				}
 			}
 			return count;
 		}
 
+		/**
+		 * Removes one entry, according to the eviction policy.
+		 * 
+		 * @return true, if an entry was evicted
+		 */
+		protected boolean evictEntry() {
+			writeLock.lock();
+			try {
+				Iterator<Map.Entry<String, PartitionEntry>> i = cache.entrySet().iterator();
+				if (!i.hasNext()) {
+					return false;
+				}
+
+				// Eldest (FIFO) or least recently used (LRU) entry
+				Map.Entry<String, PartitionEntry> eldest = i.next();
+				i.remove();
+				expiry.remove(eldest.getKey(), eldest.getValue().expireAt);
+				onRemoved(eldest.getValue());
+			} finally {
+				writeLock.unlock();
+			}
+
+			// Metrics
+			if (parent.counterEvicted != null) {
+				parent.counterEvicted.increment();
+			}
+			return true;
+		}
+
+		// --- SIZE ACCOUNTING ---
+
+		protected void onStored(PartitionEntry entry) {
+			if (entry.weight != 0) {
+				updateWeight(weight.addAndGet(entry.weight));
+			}
+		}
+
+		protected void onRemoved(PartitionEntry entry) {
+			if (entry != null && entry.weight != 0) {
+				updateWeight(weight.addAndGet(-entry.weight));
+			}
+		}
+
+		protected void onRemoved(long bytes) {
+			if (bytes != 0) {
+				updateWeight(weight.addAndGet(-bytes));
+			}
+		}
+
+		protected void updateWeight(long bytes) {
+			if (gaugeBytes != null) {
+				gaugeBytes.set(bytes);
+			}
+		}
+
+		protected ArrayList<Map.Entry<String, PartitionEntry>> entries() {
+			writeLock.lock();
+			try {
+				ArrayList<Map.Entry<String, PartitionEntry>> list = new ArrayList<>(cache.size());
+				for (Map.Entry<String, PartitionEntry> entry : cache.entrySet()) {
+					list.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+				}
+				return list;
+			} finally {
+				writeLock.unlock();
+			}
+		}
+
 		protected void addKeysTo(Tree list, String prefix) {
 			writeLock.lock();
 			try {
@@ -667,10 +1150,18 @@ public class MemoryCacher extends Cacher implements Runnable {
 
 		protected final Tree value;
 		protected final long expireAt;
+		protected final long timestamp;
+		protected final long weight;
 
-		protected PartitionEntry(Tree value, long expireAt) {
+		protected PartitionEntry(Tree value, long expireAt, long timestamp) {
+			this(value, expireAt, timestamp, 0);
+		}
+
+		protected PartitionEntry(Tree value, long expireAt, long timestamp, long weight) {
 			this.value = value;
 			this.expireAt = expireAt;
+			this.timestamp = timestamp;
+			this.weight = weight;
 		}
 
 	}
@@ -709,4 +1200,52 @@ public class MemoryCacher extends Cacher implements Runnable {
 		this.useCloning = useCloning;
 	}
 
+	public boolean isUseFreezing() {
+		return useFreezing;
+	}
+
+	public void setUseFreezing(boolean useFreezing) {
+		this.useFreezing = useFreezing;
+	}
+
+	public EvictionPolicy getEvictionPolicy() {
+		return evictionPolicy;
+	}
+
+	public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+		this.evictionPolicy = Objects.requireNonNull(evictionPolicy);
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	public String getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	public void setSnapshotFile(String snapshotFile) {
+		this.snapshotFile = snapshotFile;
+	}
+
+	public Serializer getSnapshotSerializer() {
+		return snapshotSerializer;
+	}
+
+	public void setSnapshotSerializer(Serializer snapshotSerializer) {
+		this.snapshotSerializer = Objects.requireNonNull(snapshotSerializer);
+	}
+
+	public Weigher getWeigher() {
+		return weigher;
+	}
+
+	public void setWeigher(Weigher weigher) {
+		this.weigher = Objects.requireNonNull(weigher);
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,439 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import static services.moleculer.util.CommonUtils.nameOf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.datatree.CheckedTree;
+import io.datatree.Promise;
+import io.datatree.Tree;
+import services.moleculer.ServiceBroker;
+import services.moleculer.eventbus.Listener;
+import services.moleculer.eventbus.Subscribe;
+import services.moleculer.metrics.MetricCounter;
+import services.moleculer.metrics.MetricGauge;
+import services.moleculer.service.Name;
+import services.moleculer.service.Service;
+
+/**
+ * Two-level "near" cache. A local (L1) cache (eg. a small MemoryCacher) in
+ * front of a distributed (L2) cache (eg. RedisCacher). Reads are served from
+ * the L1 cache if possible; L1 misses are loaded from the L2 cache. Writes
+ * and deletions are propagated to both levels, and an invalidation event is
+ * broadcasted to the other nodes, so they remove the outdated entries from
+ * their L1 caches. Sample:
+ * 
+ * <pre>
+ * MemoryCacher l1 = new MemoryCacher(1024, 30);
+ * RedisCacher l2 = new RedisCacher("redis://host:6379");
+ * ServiceBroker broker = ServiceBroker.builder().cacher(new NearCacher(l1, l2)).build();
+ * </pre>
+ * 
+ * The TTL of the L1 cache should be short (the invalidation events are not
+ * guaranteed to arrive, eg. during a network partition).
+ *
+ * @see MemoryCacher
+ * @see OHCacher
+ * @see RedisCacher
+ */
+@Name("Near Cacher")
+public class NearCacher extends Cacher {
+
+	// --- NAME OF THE INVALIDATION EVENT ---
+
+	public static final String INVALIDATE_EVENT = "$cacher.invalidate";
+
+	// --- CACHE LEVELS ---
+
+	/**
+	 * Local (L1) cache
+	 */
+	protected Cacher local;
+
+	/**
+	 * Distributed (L2) cache
+	 */
+	protected DistributedCacher remote;
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Max. TTL of entries in the L1 cache, in SECONDS (0 = use the TTL of the
+	 * entry)
+	 */
+	protected int localTtl;
+
+	/**
+	 * Broadcast invalidation events to the other nodes
+	 */
+	protected boolean invalidation = true;
+
+	// --- HIT COUNTERS ---
+
+	protected final AtomicLong gets = new AtomicLong();
+	protected final AtomicLong localHits = new AtomicLong();
+	protected final AtomicLong remoteHits = new AtomicLong();
+
+	// --- METRICS ---
+
+	protected MetricCounter counterLocalHit;
+	protected MetricCounter counterRemoteHit;
+	protected MetricGauge gaugeLocalRatio;
+	protected MetricGauge gaugeRemoteRatio;
+
+	// --- CONSTUCTORS ---
+
+	public NearCacher() {
+		this(new MemoryCacher(1024, 30), new RedisCacher());
+	}
+
+	public NearCacher(Cacher local, DistributedCacher remote) {
+		setLocal(local);
+		setRemote(remote);
+	}
+
+	// --- START CACHER ---
+
+	@Override
+	public void started(ServiceBroker broker) throws Exception {
+		super.started(broker);
+		local.started(broker);
+		remote.started(broker);
+		logger.info(nameOf(this, true) + " will use " + nameOf(local, true) + " (L1) and " + nameOf(remote, true)
+				+ " (L2).");
+
+		// Create counters
+		if (metrics != null) {
+			counterLocalHit = metrics.increment(MOLECULER_CACHER_HIT_TOTAL, MOLECULER_CACHER_HIT_TOTAL_DESC, 0,
+					"level", "l1");
+			counterRemoteHit = metrics.increment(MOLECULER_CACHER_HIT_TOTAL, MOLECULER_CACHER_HIT_TOTAL_DESC, 0,
+					"level", "l2");
+			gaugeLocalRatio = metrics.set(MOLECULER_CACHER_HIT_RATIO, MOLECULER_CACHER_HIT_RATIO_DESC, 0, "level",
+					"l1");
+			gaugeRemoteRatio = metrics.set(MOLECULER_CACHER_HIT_RATIO, MOLECULER_CACHER_HIT_RATIO_DESC, 0, "level",
+					"l2");
+		}
+
+		// Receive invalidation events
+		if (invalidation) {
+			broker.createService("$cacher", new InvalidationService());
+		}
+	}
+
+	// --- STOP CACHER ---
+
+	@Override
+	public void stopped() {
+		local.stopped();
+		remote.stopped();
+		super.stopped();
+	}
+
+	// --- INVALIDATION ---
+
+	@Name("$cacher")
+	protected class InvalidationService extends Service {
+
+		@Subscribe(INVALIDATE_EVENT)
+		public Listener invalidate = ctx -> {
+			if (ctx.params == null || broker.getNodeID().equals(ctx.params.get("sender", ""))) {
+				return;
+			}
+			Tree keys = ctx.params.get("keys");
+			if (keys != null) {
+				for (Tree key : keys) {
+					local.del(key.asString());
+				}
+			}
+			String match = ctx.params.get("match", (String) null);
+			if (match != null) {
+				local.clean(match);
+			}
+		};
+
+	}
+
+	protected void broadcastInvalidation(String key, String match) {
+		if (!invalidation) {
+			return;
+		}
+		try {
+			Tree payload = new Tree();
+			payload.put("sender", broker.getNodeID());
+			if (key != null) {
+				payload.putList("keys").add(key);
+			}
+			if (match != null) {
+				payload.put("match", match);
+			}
+			broker.broadcast(INVALIDATE_EVENT, payload);
+		} catch (Throwable cause) {
+			logger.warn("Unable to send invalidation event!", cause);
+		}
+	}
+
+	// --- CACHE METHODS ---
+
+	@Override
+	public Promise get(String key) {
+		return local.get(key).then(in -> {
+			if (in != null && !in.isNull()) {
+				hit(true);
+				return in;
+			}
+			return remote.getEntry(key).then(in2 -> {
+				Tree content = in2 == null ? null : in2.get(CONTENT);
+				if (content != null && !content.isNull()) {
+					hit(false);
+					copyToLocal(key, in2);
+					return content;
+				}
+				hit(null);
+				return null;
+			});
+		});
+	}
+
+	@Override
+	public Promise getEntry(String key) {
+		return local.getEntry(key).then(in -> {
+			if (in != null && !in.isNull()) {
+				hit(true);
+				return in;
+			}
+			return remote.getEntry(key).then(in2 -> {
+				Tree content = in2 == null ? null : in2.get(CONTENT);
+				if (content != null && !content.isNull()) {
+					hit(false);
+					copyToLocal(key, in2);
+					return in2;
+				}
+				hit(null);
+				return null;
+			});
+		});
+	}
+
+	/**
+	 * Gets many cached contents. The L1 misses are loaded from the L2 cache
+	 * with one "getEntries" call.
+	 */
+	@Override
+	public Promise getMany(String... keys) {
+		return local.getMany(keys).then(in -> {
+			Object[] values = new Object[keys.length];
+			int[] misses = new int[keys.length];
+			int missCount = 0;
+			for (int i = 0; i < keys.length; i++) {
+				Tree content = in == null ? null : in.get(i);
+				if (content != null && !content.isNull()) {
+					hit(true);
+					values[i] = content.asObject();
+				} else {
+					misses[missCount++] = i;
+				}
+			}
+			if (missCount == 0) {
+				return new CheckedTree(new ArrayList<>(Arrays.asList(values)));
+			}
+			String[] missedKeys = new String[missCount];
+			for (int i = 0; i < missCount; i++) {
+				missedKeys[i] = keys[misses[i]];
+			}
+			return remote.getEntries(missedKeys).then(entries -> {
+				for (int i = 0; i < missedKeys.length; i++) {
+					Tree entry = entries == null ? null : entries.get(i);
+					Tree content = entry == null || entry.isNull() ? null : entry.get(CONTENT);
+					if (content != null && !content.isNull()) {
+						hit(false);
+						copyToLocal(missedKeys[i], entry);
+						values[misses[i]] = content.asObject();
+					} else {
+						hit(null);
+					}
+				}
+				return new CheckedTree(new ArrayList<>(Arrays.asList(values)));
+			});
+		});
+	}
+
+	/**
+	 * Copies an entry of the L2 cache into the L1 cache. The L1 entry keeps
+	 * the write timestamp of the L2 entry (so the stale-while-revalidate and
+	 * refresh-ahead modes see the real age of the content), and it doesn't
+	 * live longer than the L2 entry.
+	 * 
+	 * @param key
+	 *            cache key
+	 * @param entry
+	 *            envelope of the L2 entry
+	 */
+	protected void copyToLocal(String key, Tree entry) {
+		int ttl = localTtl;
+		long expireAt = entry.get(EXPIRES, 0L);
+		if (expireAt > 0) {
+			long remaining = expireAt - System.currentTimeMillis();
+			if (remaining < 1) {
+
+				// Expired (the clock of the L2 server differs)
+				return;
+			}
+			int seconds = (int) Math.min(Integer.MAX_VALUE, Math.max(1, remaining / 1000));
+			if (ttl < 1 || seconds < ttl) {
+				ttl = seconds;
+			}
+		}
+		local.setEntry(key, entry.get(CONTENT), ttl, entry.get(TIMESTAMP, 0L));
+	}
+
+	protected void hit(Boolean level) {
+		long count = gets.incrementAndGet();
+		if (level != null) {
+			if (level) {
+				localHits.incrementAndGet();
+				if (counterLocalHit != null) {
+					counterLocalHit.increment();
+				}
+			} else {
+				remoteHits.incrementAndGet();
+				if (counterRemoteHit != null) {
+					counterRemoteHit.increment();
+				}
+			}
+		}
+		if (gaugeLocalRatio != null) {
+			gaugeLocalRatio.set((double) localHits.get() / count);
+			gaugeRemoteRatio.set((double) remoteHits.get() / count);
+		}
+	}
+
+	@Override
+	public Promise set(String key, Tree value, int ttl) {
+		int l1Ttl = localTtl > 0 && (ttl < 1 || ttl > localTtl) ? localTtl : ttl;
+		local.set(key, value, l1Ttl);
+		return remote.set(key, value, ttl).then(rsp -> {
+			broadcastInvalidation(key, null);
+			return rsp;
+		});
+	}
+
+	@Override
+	public Promise del(String key) {
+		local.del(key);
+		return remote.del(key).then(rsp -> {
+			broadcastInvalidation(key, null);
+			return rsp;
+		});
+	}
+
+	@Override
+	public Promise clean(String match) {
+		local.clean(match);
+		return remote.clean(match).then(rsp -> {
+			broadcastInvalidation(null, match);
+			return rsp;
+		});
+	}
+
+	@Override
+	public Promise getCacheKeys() {
+		return remote.getCacheKeys();
+	}
+
+	// --- GENERATE CACHE KEY ---
+
+	@Override
+	public String getCacheKey(String name, Tree params, String... keys) {
+		return remote.getCacheKey(name, params, keys);
+	}
+
+	// --- HIT RATIOS ---
+
+	/**
+	 * Returns the ratio of the L1 cache hits.
+	 * 
+	 * @return hit ratio (0...1)
+	 */
+	public double getLocalHitRatio() {
+		long count = gets.get();
+		return count == 0 ? 0 : (double) localHits.get() / count;
+	}
+
+	/**
+	 * Returns the ratio of the L2 cache hits.
+	 * 
+	 * @return hit ratio (0...1)
+	 */
+	public double getRemoteHitRatio() {
+		long count = gets.get();
+		return count == 0 ? 0 : (double) remoteHits.get() / count;
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	@Override
+	public int getTtl() {
+		return remote.getTtl();
+	}
+
+	public Cacher getLocal() {
+		return local;
+	}
+
+	public void setLocal(Cacher local) {
+		this.local = Objects.requireNonNull(local);
+	}
+
+	public DistributedCacher getRemote() {
+		return remote;
+	}
+
+	public void setRemote(DistributedCacher remote) {
+		this.remote = Objects.requireNonNull(remote);
+	}
+
+	public int getLocalTtl() {
+		return localTtl;
+	}
+
+	public void setLocalTtl(int localTtl) {
+		this.localTtl = localTtl;
+	}
+
+	public boolean isInvalidation() {
+		return invalidation;
+	}
+
+	public void setInvalidation(boolean invalidation) {
+		this.invalidation = invalidation;
+	}
+
+}
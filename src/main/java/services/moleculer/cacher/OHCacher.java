@@ -30,17 +30,20 @@ import static services.moleculer.util.CommonUtils.decompress;
 import static services.moleculer.util.CommonUtils.nameOf;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.Deflater;
 
 import org.caffinitas.ohc.CacheSerializer;
@@ -57,7 +60,6 @@ import services.moleculer.metrics.StoppableTimer;
 import services.moleculer.serializer.JsonSerializer;
 import services.moleculer.serializer.Serializer;
 import services.moleculer.service.Name;
-import services.moleculer.util.CheckedTree;
 
 /**
  * Off-heap cache implementation (it's similar to MemoryCacher, but stores
@@ -73,7 +75,16 @@ import services.moleculer.util.CheckedTree;
  * number-of-cores * 2
  * <li>hashTableSize: hash table size (must be a power of 2), defaults to 8192
  * <li>compressAbove: compress key and/or value above this size (BYTES)
+ * <li>indexCleanup: period of removing evicted keys from the key index
+ * (SECONDS)
+ * <li>snapshotFile: Write the entries into this file on shutdown, and restore
+ * them in the background on startup (default: null = disabled)
  * </ul>
+ * Keys are indexed by partition (eg. "users" from the "users.find" key), so
+ * "clean" visits only the matching keys, and "clean('users.**')" drops the
+ * entire partition in constant time. The removed entries become unreachable
+ * immediately, and their off-heap memory is released by the eviction / TTL
+ * mechanism of OHC.
  * Performance (per thread / core):<br>
  * <br>
  * <b>Small uncompressed data</b><br>
@@ -103,10 +114,6 @@ import services.moleculer.util.CheckedTree;
 @Name("Off-heap Memory Cacher")
 public class OHCacher extends Cacher {
 
-	// --- CONTENT CONTAINER NAME ---
-
-	protected static final String CONTENT = "_";
-
 	// --- PROPERTIES ---
 
 	/**
@@ -141,6 +148,19 @@ public class OHCacher extends Cacher {
 	 */
 	protected int compressionLevel = Deflater.BEST_SPEED;
 
+	/**
+	 * Period of removing evicted keys from the key index, in SECONDS (0 =
+	 * disabled)
+	 */
+	protected int indexCleanup = 60;
+
+	/**
+	 * Snapshot file (null = disabled). The entries are written into this file
+	 * when the cacher is stopped, and restored in the background when the
+	 * cacher is started.
+	 */
+	protected String snapshotFile;
+
 	// --- SERIALIZER / DESERIALIZER ---
 
 	protected Serializer serializer = new JsonSerializer();
@@ -149,6 +169,34 @@ public class OHCacher extends Cacher {
 
 	protected OHCache<byte[], byte[]> cache;
 
+	// --- KEY INDEX ---
+
+	/**
+	 * Indexed keys by partition (key = partition name, eg. "users" from the
+	 * "users.find" key)
+	 */
+	protected final ConcurrentHashMap<String, KeyIndex> partitions = new ConcurrentHashMap<>();
+
+	/**
+	 * Source of the generation IDs (every indexed key gets a unique ID, which
+	 * is stored in the off-heap key)
+	 */
+	protected final AtomicLong generations = new AtomicLong();
+
+	/**
+	 * Cancelable timer of the index cleanup process
+	 */
+	protected volatile ScheduledFuture<?> indexTimer;
+
+	// --- SNAPSHOT ---
+
+	protected volatile CacheSnapshot snapshot;
+
+	/**
+	 * Promise of the restore process
+	 */
+	protected volatile Promise restored = Promise.resolve();
+
 	// --- METRICS TIMER ---
 
 	/**
@@ -257,6 +305,12 @@ public class OHCacher extends Cacher {
 		// Create cache
 		cache = builder.throwOOME(true).build();
 
+		// Remove evicted keys from the index
+		if (indexCleanup > 0) {
+			indexTimer = scheduler.scheduleWithFixedDelay(this::cleanupIndex, indexCleanup, indexCleanup,
+					TimeUnit.SECONDS);
+		}
+
 		// Create counters
 		if (metrics != null) {
 			gaugeExpired = metrics.set(MOLECULER_CACHER_EXPIRED_TOTAL, MOLECULER_CACHER_EXPIRED_TOTAL_DESC, 0);
@@ -282,6 +336,110 @@ public class OHCacher extends Cacher {
 
 			}, 5, 5, TimeUnit.SECONDS);
 		}
+
+		// Restore the snapshot in the background
+		if (snapshotFile != null) {
+			CacheSnapshot s = new CacheSnapshot(new File(snapshotFile));
+			snapshot = s;
+			long start = System.currentTimeMillis();
+			restored = s.restore(broker.getConfig().getExecutor(), this::restore).then(count -> {
+				logger.info(count.asLong() + " entries restored from snapshot in "
+						+ (System.currentTimeMillis() - start) + " milliseconds.");
+			}).catchError(cause -> {
+				logger.warn("Unable to restore snapshot!", cause);
+			});
+		}
+	}
+
+	// --- SNAPSHOT ---
+
+	/**
+	 * Stores a restored entry. The key gets the current generation of its
+	 * action name (the generation IDs of the previous instance are invalid).
+	 */
+	protected boolean restore(byte[] keyBytes, long expireAt, byte[] bytes) throws Exception {
+		CacheSnapshot s = snapshot;
+		OHCache<byte[], byte[]> ohc = cache;
+		if (s == null || ohc == null) {
+			return false;
+		}
+		String key = bytesToFullKey(keyBytes);
+		if (s.isTouched(key)) {
+			return false;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(keyBytes);
+		byte[] part1 = new byte[buffer.getInt()];
+		buffer.get(part1);
+		String name = new String(part1, StandardCharsets.UTF_8);
+
+		// Get generation of the key
+		String partition = partitionOf(name);
+		KeyIndex index = partitions.get(partition);
+		if (index == null) {
+			index = new KeyIndex();
+			KeyIndex previous = partitions.putIfAbsent(partition, index);
+			if (previous != null) {
+				index = previous;
+			}
+		}
+		KeyGeneration generation = index.keys.get(name);
+		if (generation == null) {
+			generation = new KeyGeneration(generations.incrementAndGet());
+			KeyGeneration previous = index.keys.putIfAbsent(name, generation);
+			if (previous != null) {
+				generation = previous;
+			}
+		}
+		int pos = buffer.position();
+		buffer.getLong();
+		if (buffer.getInt() > 0 && !generation.params) {
+			generation.params = true;
+		}
+		buffer.putLong(pos, generation.id);
+
+		// Store entry (with the original expiration time)
+		boolean stored;
+		if (expireAt > 0) {
+			stored = ohc.putIfAbsent(keyBytes, bytes, expireAt);
+		} else {
+			stored = ohc.putIfAbsent(keyBytes, bytes);
+		}
+		if (stored && s.isTouched(key)) {
+
+			// Modified (or cleaned) during the restore
+			ohc.remove(keyBytes);
+			return false;
+		}
+		return stored;
+	}
+
+	protected void writeSnapshot(CacheSnapshot s) {
+		long start = System.currentTimeMillis();
+		try (CacheSnapshot.Writer writer = s.createWriter()) {
+			long now = System.currentTimeMillis();
+			Iterator<byte[]> i = cache.keyIterator();
+			byte[] keyBytes, bytes;
+			while (i.hasNext()) {
+				keyBytes = i.next();
+				if (!isIndexed(keyBytes)) {
+					continue;
+				}
+				bytes = cache.get(keyBytes);
+				if (bytes == null) {
+					continue;
+				}
+				long expireAt = expireAtOf(bytes);
+				if (expireAt > 0 && expireAt <= now) {
+					continue;
+				}
+				writer.write(keyBytes, expireAt, bytes);
+			}
+			long count = writer.commit();
+			logger.info(count + " entries written into snapshot in " + (System.currentTimeMillis() - start)
+					+ " milliseconds.");
+		} catch (Throwable cause) {
+			logger.warn("Unable to write snapshot!", cause);
+		}
 	}
 
 	// --- CLOSE CACHE INSTANCE ---
@@ -292,6 +450,27 @@ public class OHCacher extends Cacher {
 			timer.cancel(false);
 			timer = null;
 		}
+		if (indexTimer != null) {
+			indexTimer.cancel(false);
+			indexTimer = null;
+		}
+
+		// Write snapshot
+		CacheSnapshot s = snapshot;
+		if (s != null) {
+			s.cancel();
+			try {
+
+				// Wait for the cancelled restore process
+				restored.waitFor(10, TimeUnit.SECONDS);
+			} catch (Exception ignored) {
+			}
+			if (cache != null) {
+				writeSnapshot(s);
+			}
+			snapshot = null;
+		}
+		partitions.clear();
 		if (cache != null) {
 			try {
 				cache.close();
@@ -305,6 +484,15 @@ public class OHCacher extends Cacher {
 
 	@Override
 	public Promise get(String key) {
+		return Promise.resolve(read(key, false));
+	}
+
+	@Override
+	public Promise getEntry(String key) {
+		return Promise.resolve(read(key, true));
+	}
+
+	protected Tree read(String key, boolean envelope) {
 
 		// Metrics
 		StoppableTimer getTimer = null;
@@ -314,7 +502,8 @@ public class OHCacher extends Cacher {
 		}
 
 		try {
-			byte[] bytes = cache.get(keyToBytes(key));
+			byte[] keyBytes = keyToBytes(key, false);
+			byte[] bytes = keyBytes == null ? null : cache.get(keyBytes);
 			if (bytes == null) {
 				if (debug) {
 					logger.info("Cache: Data not found in OHCache by key \"" + key + "\".");
@@ -323,11 +512,15 @@ public class OHCacher extends Cacher {
 				if (counterFound != null) {
 					counterFound.increment();
 				}
-				Tree content = bytesToValue(bytes);
+				Tree root = bytesToEntry(bytes);
+				Tree content = root.get(CONTENT);
 				if (debug) {
 					logger.info("Cache: Data found in OHCache by key \"" + key + "\": " + content);
 				}
-				return Promise.resolve(content);
+				if (envelope) {
+					return content == null ? envelope(root.asObject(), 0) : root;
+				}
+				return content == null ? root : content;
 			}
 		} catch (Throwable cause) {
 			logger.warn("Unable to read data from off-heap cache!", cause);
@@ -336,7 +529,7 @@ public class OHCacher extends Cacher {
 				getTimer.stop();
 			}
 		}
-		return Promise.resolve((Object) null);
+		return null;
 	}
 
 	@Override
@@ -349,19 +542,31 @@ public class OHCacher extends Cacher {
 			setTimer = metrics.timer(MOLECULER_CACHER_SET_TIME, MOLECULER_CACHER_SET_TIME_DESC);
 		}
 
+		CacheSnapshot s = snapshot;
+		if (s != null) {
+			s.touch(key);
+		}
 		try {
 			if (value == null) {
-				cache.remove(keyToBytes(key));
+				byte[] keyBytes = keyToBytes(key, false);
+				if (keyBytes != null) {
+					cache.remove(keyBytes);
+				}
 			} else {
 				if (ttl > 0) {
 
 					// Entry-level TTL (in seconds)
 					long expireAt = ttl * 1000L + System.currentTimeMillis();
-					cache.put(keyToBytes(key), valueToBytes(value), expireAt);
-				} else {
+					cache.put(keyToBytes(key, true), valueToBytes(value, expireAt), expireAt);
+				} else if (this.ttl > 0) {
 
 					// Use the default TTL
-					cache.put(keyToBytes(key), valueToBytes(value));
+					long expireAt = this.ttl * 1000L + System.currentTimeMillis();
+					cache.put(keyToBytes(key, true), valueToBytes(value, expireAt), expireAt);
+				} else {
+
+					// Never expires
+					cache.put(keyToBytes(key, true), valueToBytes(value, 0));
 				}
 			}
 		} catch (Throwable cause) {
@@ -386,9 +591,13 @@ public class OHCacher extends Cacher {
 			counterDel.increment();
 			delTimer = metrics.timer(MOLECULER_CACHER_DEL_TIME, MOLECULER_CACHER_DEL_TIME_DESC);
 		}
-
+		CacheSnapshot s = snapshot;
+		if (s != null) {
+			s.touch(key);
+		}
 		try {
-			boolean deleted = cache.remove(keyToBytes(key));
+			byte[] keyBytes = keyToBytes(key, false);
+			boolean deleted = keyBytes != null && cache.remove(keyBytes);
 			if (debug && deleted) {
 				logger.info("Cache: Data removed from OHCache by key \"" + key + "\".");
 			}
@@ -411,28 +620,24 @@ public class OHCacher extends Cacher {
 			counterClean.increment();
 			cleanTimer = metrics.timer(MOLECULER_CACHER_CLEAN_TIME, MOLECULER_CACHER_CLEAN_TIME_DESC);
 		}
+		CacheSnapshot s = snapshot;
+		if (s != null) {
+			s.cancel();
+		}
 		long count = -1;
 		try {
 			if (match.isEmpty() || match.startsWith("*")) {
 				count = cache.size();
+				partitions.clear();
 				cache.clear();
 			} else {
-				count = 0;
 				String pattern;
 				if (match.indexOf('.') == -1 && (match.endsWith("*") && !match.endsWith("**"))) {
 					pattern = match + '*';
 				} else {
 					pattern = match;
 				}
-				Iterator<byte[]> i = cache.keyIterator();
-				String key;
-				while (i.hasNext()) {
-					key = bytesToKey(i.next());
-					if (Matcher.matches(key, pattern)) {
-						i.remove();
-						count++;
-					}
-				}
+				count = cleanIndex(pattern);
 			}
 		} catch (Throwable cause) {
 			logger.warn("Unable to clean off-heap cache!", cause);
@@ -456,8 +661,12 @@ public class OHCacher extends Cacher {
 		Tree keys = result.putList("keys");
 		try {
 			Iterator<byte[]> i = cache.keyIterator();
+			byte[] bytes;
 			while (i.hasNext()) {
-				keys.add(bytesToKey(i.next()));
+				bytes = i.next();
+				if (isIndexed(bytes)) {
+					keys.add(bytesToKey(bytes));
+				}
 			}
 		} catch (Throwable cause) {
 			logger.warn("Unable to list keys from off-heap cache!", cause);
@@ -465,42 +674,307 @@ public class OHCacher extends Cacher {
 		return Promise.resolve(result);
 	}
 
+	// --- KEY INDEX ---
+
+	/**
+	 * Invalidates the keys which match the pattern. Visits only the keys of
+	 * the matching partitions, in the range of the pattern's literal prefix.
+	 * 
+	 * @param pattern
+	 *            pattern of the keys
+	 * 
+	 * @return number of invalidated keys (-1 = entire partitions were dropped)
+	 */
+	protected long cleanIndex(String pattern) throws Exception {
+		int wildcard = pattern.indexOf('*');
+		String literal = wildcard == -1 ? pattern : pattern.substring(0, wildcard);
+		if (pattern.indexOf(':') > -1) {
+
+			// Pattern of parameters (eg. "users.find:12*")
+			int colon = literal.indexOf(':');
+			return cleanKeys(colon == -1 ? literal : literal.substring(0, colon), pattern);
+		}
+		boolean suffix = wildcard > -1 && wildcard == pattern.length() - 2 && pattern.endsWith("**");
+		int dot = literal.indexOf('.');
+		if (dot > -1) {
+			String partition = literal.substring(0, dot);
+			if (suffix && dot == literal.length() - 1) {
+
+				// Drop entire partition (eg. "users.**")
+				partitions.remove(partition);
+				return -1;
+			}
+			KeyIndex index = partitions.get(partition);
+			return index == null ? 0 : index.clean(literal, pattern);
+		}
+
+		// Pattern without partition name (eg. "user*")
+		long count = 0;
+		boolean dropped = false;
+		for (Map.Entry<String, KeyIndex> entry : partitions.entrySet()) {
+			String partition = entry.getKey();
+			if (!partition.startsWith(literal)) {
+				continue;
+			}
+			if (suffix && !partition.isEmpty()) {
+				partitions.remove(partition, entry.getValue());
+				dropped = true;
+			} else {
+				count += entry.getValue().clean(literal, pattern);
+			}
+		}
+		KeyIndex index = partitions.get("");
+		if (index != null && !literal.isEmpty()) {
+			count += index.clean(literal, pattern);
+		}
+		return dropped ? -1 : count;
+	}
+
+	/**
+	 * Invalidates the entries whose full key (with parameters) matches the
+	 * pattern. Scans the off-heap keys, but decodes the parameters only for
+	 * the current keys of the actions with the specified prefix.
+	 * 
+	 * @param prefix
+	 *            literal prefix of the action names (eg. "users.find")
+	 * @param pattern
+	 *            pattern of the keys (eg. "users.find:12*")
+	 * 
+	 * @return number of invalidated keys
+	 */
+	protected long cleanKeys(String prefix, String pattern) throws Exception {
+		long count = 0;
+		Iterator<byte[]> i = cache.keyIterator();
+		byte[] bytes;
+		while (i.hasNext()) {
+			bytes = i.next();
+			if (actionOf(bytes).startsWith(prefix) && isIndexed(bytes)
+					&& Matcher.matches(bytesToFullKey(bytes), pattern)) {
+				i.remove();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Removes the evicted (or expired) entries from the key index. Only the
+	 * keys without parameters are checked (eg. "users.all"); the number of the
+	 * other indexed keys is limited by the number of action names.
+	 */
+	protected void cleanupIndex() {
+		OHCache<byte[], byte[]> ohc = cache;
+		if (ohc == null) {
+			return;
+		}
+		try {
+			for (KeyIndex index : partitions.values()) {
+				for (Map.Entry<String, KeyGeneration> entry : index.keys.entrySet()) {
+					KeyGeneration generation = entry.getValue();
+					if (!generation.params && !ohc.containsKey(keyToBytes(entry.getKey(), generation.id, null))) {
+						index.keys.remove(entry.getKey(), generation);
+					}
+				}
+			}
+		} catch (Throwable cause) {
+			logger.warn("Unable to cleanup key index!", cause);
+		}
+	}
+
+	/**
+	 * Returns the action name of an off-heap key.
+	 */
+	protected static String actionOf(byte[] bytes) {
+		int len = ByteBuffer.wrap(bytes).getInt();
+		return new String(bytes, 4, len, StandardCharsets.UTF_8);
+	}
+
+	protected static String partitionOf(String name) {
+		int i = name.indexOf('.');
+		return i > 0 ? name.substring(0, i) : "";
+	}
+
+	protected boolean isIndexed(byte[] bytes) throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		byte[] part1 = new byte[buffer.getInt()];
+		buffer.get(part1);
+		String name = new String(part1, StandardCharsets.UTF_8);
+		KeyIndex index = partitions.get(partitionOf(name));
+		if (index == null) {
+			return false;
+		}
+		KeyGeneration generation = index.keys.get(name);
+		return generation != null && generation.id == buffer.getLong();
+	}
+
+	protected static class KeyIndex {
+
+		/**
+		 * Generations of the keys (key = action name)
+		 */
+		protected final ConcurrentSkipListMap<String, KeyGeneration> keys = new ConcurrentSkipListMap<>();
+
+		protected long clean(String literal, String pattern) {
+			long count = 0;
+			for (String name : keys.subMap(literal, true, literal + Character.MAX_VALUE, true).keySet()) {
+				if (Matcher.matches(name, pattern) && keys.remove(name) != null) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+	}
+
+	protected static class KeyGeneration {
+
+		protected final long id;
+
+		/**
+		 * Key has parameters (eg. "users.find:John")
+		 */
+		protected volatile boolean params;
+
+		protected KeyGeneration(long id) {
+			this.id = id;
+		}
+
+	}
+
 	// --- CACHE SERIALIZER ---
 
-	protected byte[] keyToBytes(String key) throws Exception {
+	/**
+	 * Converts the key to its off-heap form. The generation ID of the action
+	 * name is stored in the key; the removed / dropped keys get a new
+	 * generation, so their old entries are unreachable. The last byte is a
+	 * flag of the parameters (1 = compressed, 2 = binary hash).
+	 * 
+	 * @param key
+	 *            cache key
+	 * @param create
+	 *            add the key to the index (if missing)
+	 * 
+	 * @return key bytes, or null if the key is not indexed (and "create" is
+	 *         false)
+	 * 
+	 * @throws Exception
+	 *             any compression exception
+	 */
+	protected byte[] keyToBytes(String key, boolean create) throws Exception {
 		int i = key.indexOf(':');
+		String name = i == -1 ? key : key.substring(0, i);
+
+		// Get generation of the key
+		String partition = partitionOf(name);
+		KeyGeneration generation;
+		if (create) {
+			KeyIndex index = partitions.get(partition);
+			if (index == null) {
+				index = new KeyIndex();
+				KeyIndex previous = partitions.putIfAbsent(partition, index);
+				if (previous != null) {
+					index = previous;
+				}
+			}
+			generation = index.keys.get(name);
+			if (generation == null) {
+				generation = new KeyGeneration(generations.incrementAndGet());
+				KeyGeneration previous = index.keys.putIfAbsent(name, generation);
+				if (previous != null) {
+					generation = previous;
+				}
+			}
+			if (i > -1 && !generation.params) {
+				generation.params = true;
+			}
+		} else {
+			KeyIndex index = partitions.get(partition);
+			generation = index == null ? null : index.keys.get(name);
+			if (generation == null) {
+				return null;
+			}
+		}
+		return keyToBytes(name, generation.id, i == -1 ? null : key.substring(i + 1));
+	}
 
-		byte[] part1;
+	protected byte[] keyToBytes(String name, long generation, String params) throws Exception {
+		byte[] part1 = name.getBytes(StandardCharsets.UTF_8);
 		byte[] part2;
 		boolean compressed;
+		boolean hashed = false;
 
-		if (i == -1) {
-			part1 = key.getBytes(StandardCharsets.UTF_8);
+		if (params == null) {
 			part2 = new byte[0];
 			compressed = false;
 		} else {
-			part1 = key.substring(0, i).getBytes(StandardCharsets.UTF_8);
-			part2 = key.substring(i + 1).getBytes(StandardCharsets.UTF_8);
-			if (compressAbove > 0 && part2.length > compressAbove) {
-				part2 = compress(part2, compressionLevel);
-				compressed = true;
-			} else {
+			byte[] hash = hashKeys ? KeyHasher.decode(params, 0) : null;
+			if (hash != null) {
+
+				// Hashed key (stored as 16 bytes instead of 22 characters)
+				part2 = hash;
 				compressed = false;
+				hashed = true;
+			} else {
+				part2 = params.getBytes(StandardCharsets.UTF_8);
+				if (compressAbove > 0 && part2.length > compressAbove) {
+					part2 = compress(part2, compressionLevel);
+					compressed = true;
+				} else {
+					compressed = false;
+				}
 			}
 		}
 
 		// Write key packet
-		ByteArrayOutputStream out = new ByteArrayOutputStream(part1.length + part2.length + 16);
-		DataOutputStream dos = new DataOutputStream(out);
-		dos.writeInt(part1.length);
-		dos.write(part1);
-		dos.writeInt(part2.length);
-		dos.write(part2);
-		dos.writeBoolean(compressed);
-		dos.flush();
+		byte[] bytes = new byte[part1.length + part2.length + 17];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.putInt(part1.length);
+		buffer.put(part1);
+		buffer.putLong(generation);
+		buffer.putInt(part2.length);
+		buffer.put(part2);
+		buffer.put((byte) (compressed ? 1 : hashed ? 2 : 0));
 
 		// Return key as partly compressed bytes
-		return out.toByteArray();
+		return bytes;
+	}
+
+	/**
+	 * Converts the off-heap key back to the full cache key (eg.
+	 * "users.find:John").
+	 * 
+	 * @param bytes
+	 *            key bytes
+	 * 
+	 * @return cache key
+	 * 
+	 * @throws Exception
+	 *             any decompression exception
+	 */
+	protected String bytesToFullKey(byte[] bytes) throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		byte[] part1 = new byte[buffer.getInt()];
+		buffer.get(part1);
+		String name = new String(part1, StandardCharsets.UTF_8);
+		buffer.getLong();
+		int len = buffer.getInt();
+		if (len == 0) {
+			return name;
+		}
+		int pos = buffer.position();
+		String params;
+		switch (bytes[pos + len]) {
+		case 1:
+			params = new String(decompress(bytes, pos, len), StandardCharsets.UTF_8);
+			break;
+		case 2:
+			params = KeyHasher.encode(bytes, pos);
+			break;
+		default:
+			params = new String(bytes, pos, len, StandardCharsets.UTF_8);
+			break;
+		}
+		return name + ':' + params;
 	}
 
 	protected String bytesToKey(byte[] bytes) throws Exception {
@@ -518,39 +992,64 @@ public class OHCacher extends Cacher {
 		return new String(part1, StandardCharsets.UTF_8);
 	}
 
-	protected byte[] valueToBytes(Tree tree) throws Exception {
+	/**
+	 * Converts the value to its off-heap form. The first byte is a flag (bit 1
+	 * = compressed, bit 2 = followed by the expiration time).
+	 * 
+	 * @param tree
+	 *            value
+	 * @param expireAt
+	 *            expiration time of the entry (0 = never expires)
+	 * 
+	 * @return value bytes
+	 * 
+	 * @throws Exception
+	 *             any serialization / compression exception
+	 */
+	protected byte[] valueToBytes(Tree tree, long expireAt) throws Exception {
 
 		// Compress content
-		Tree root = new CheckedTree(Collections.singletonMap(CONTENT, tree.asObject()));
+		Tree root = envelope(tree.asObject(), System.currentTimeMillis());
 		byte[] bytes = serializer.write(root);
-		boolean compressed;
+		byte flag = 0;
+		int offset = 1;
+		if (expireAt > 0) {
+
+			// Expiration time (second bit = 1)
+			flag |= 2;
+			offset += 8;
+		}
+		byte[] copy;
 		if (compressAbove > 0 && bytes.length > compressAbove) {
-			bytes = compress(bytes, compressionLevel);
-			compressed = true;
+
+			// Compress into a buffer with header space
+			copy = compress(bytes, 0, bytes.length, compressionLevel, offset);
+
+			// Compressed -> first bit = 1
+			flag |= 1;
 		} else {
-			compressed = false;
+			copy = new byte[bytes.length + offset];
+			System.arraycopy(bytes, 0, copy, offset, bytes.length);
 		}
-		byte[] copy = new byte[bytes.length + 1];
-		System.arraycopy(bytes, 0, copy, 1, bytes.length);
-		if (compressed) {
-
-			// Compressed -> first byte = 1
-			copy[0] = (byte) 1;
+		copy[0] = flag;
+		if (expireAt > 0) {
+			ByteBuffer.wrap(copy, 1, 8).putLong(expireAt);
 		}
 		return copy;
 	}
 
-	protected Tree bytesToValue(byte[] bytes) throws Exception {
-
-		// Decompress content
-		byte[] copy = new byte[bytes.length - 1];
-		System.arraycopy(bytes, 1, copy, 0, bytes.length - 1);
-		if (bytes[0] == 1) {
-
-			// First byte == 1 -> compressed
-			copy = decompress(copy);
+	/**
+	 * Returns the expiration time of an off-heap value (0 = never expires).
+	 */
+	protected static long expireAtOf(byte[] bytes) {
+		if ((bytes[0] & 2) == 0) {
+			return 0;
 		}
-		Tree root = serializer.read(copy);
+		return ByteBuffer.wrap(bytes, 1, 8).getLong();
+	}
+
+	protected Tree bytesToValue(byte[] bytes) throws Exception {
+		Tree root = bytesToEntry(bytes);
 		Tree content = root.get(CONTENT);
 		if (content != null) {
 			return content;
@@ -558,6 +1057,18 @@ public class OHCacher extends Cacher {
 		return root;
 	}
 
+	protected Tree bytesToEntry(byte[] bytes) throws Exception {
+
+		// Decompress content (after the header)
+		int offset = (bytes[0] & 2) == 0 ? 1 : 9;
+		if ((bytes[0] & 1) != 0) {
+
+			// First bit == 1 -> compressed
+			return serializer.read(decompress(bytes, offset, bytes.length - offset));
+		}
+		return serializer.read(Arrays.copyOfRange(bytes, offset, bytes.length));
+	}
+
 	protected static class ArraySerializer implements CacheSerializer<byte[]> {
 
 		@Override
@@ -638,4 +1149,20 @@ public class OHCacher extends Cacher {
 		this.compressionLevel = compressionLevel;
 	}
 
+	public int getIndexCleanup() {
+		return indexCleanup;
+	}
+
+	public void setIndexCleanup(int indexCleanup) {
+		this.indexCleanup = indexCleanup;
+	}
+
+	public String getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	public void setSnapshotFile(String snapshotFile) {
+		this.snapshotFile = snapshotFile;
+	}
+
 }
\ No newline at end of file
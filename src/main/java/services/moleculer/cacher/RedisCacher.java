@@ -27,7 +27,11 @@ package services.moleculer.cacher;
 
 import static services.moleculer.util.CommonUtils.nameOf;
 
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -235,6 +239,15 @@ public class RedisCacher extends DistributedCacher implements EventBus {
 
 	@Override
 	public Promise get(String key) {
+		return read(key, false);
+	}
+
+	@Override
+	public Promise getEntry(String key) {
+		return read(key, true);
+	}
+
+	protected Promise read(String key, boolean envelope) {
 		if (status.get() == STATUS_CONNECTED) {
 
 			// Metrics
@@ -262,6 +275,9 @@ public class RedisCacher extends DistributedCacher implements EventBus {
 									if (debug) {
 										logger.info("Cache: Data found in RedisCache by key \"" + key + "\": " + content);
 									}
+									if (envelope) {
+										return content == null ? envelope(root.asObject(), 0) : root;
+									}
 									if (content != null) {
 										return content;
 									}
@@ -317,7 +333,8 @@ public class RedisCacher extends DistributedCacher implements EventBus {
 					// Use the default TTL
 					args = expiration;
 				}
-				Tree root = new CheckedTree(Collections.singletonMap(CONTENT, value.asObject()));
+				long now = System.currentTimeMillis();
+				Tree root = envelope(value.asObject(), now, expireAt(ttl, now));
 				byte[] bytes = serializer.write(root);
 				if (setTimer == null) {
 					return client.set(key, bytes, args);
@@ -427,6 +444,266 @@ public class RedisCacher extends DistributedCacher implements EventBus {
 		return Promise.resolve();
 	}
 
+	// --- BULK CACHE METHODS ---
+
+	/**
+	 * Gets many cached contents with one MGET command per batch.
+	 */
+	@Override
+	public Promise getMany(String... keys) {
+		return readMany(keys, false);
+	}
+
+	/**
+	 * Gets many cached contents (with their write timestamps) with one MGET
+	 * command per batch.
+	 */
+	@Override
+	public Promise getEntries(String... keys) {
+		return readMany(keys, true);
+	}
+
+	protected Promise readMany(String[] keys, boolean envelope) {
+		Object[] values = new Object[keys.length];
+		if (status.get() != STATUS_CONNECTED) {
+			return Promise.resolve(new CheckedTree(new ArrayList<>(Arrays.asList(values))));
+		}
+		return processBatches(0, keys.length, (from, to) -> {
+
+			// Metrics
+			StoppableTimer getTimer;
+			if (metrics == null) {
+				getTimer = null;
+			} else {
+				counterGet.increment(to - from);
+				getTimer = metrics.timer(MOLECULER_CACHER_GET_TIME, MOLECULER_CACHER_GET_TIME_DESC);
+			}
+
+			try {
+				return client.mget(Arrays.copyOfRange(keys, from, to)).then(in -> {
+					try {
+						if (in != null) {
+							int i = from;
+							for (Tree item : in) {
+								Tree content = unwrap(keys[i], item.asBytes(), envelope);
+								if (content != null) {
+									values[i] = content.asObject();
+								}
+								i++;
+							}
+						}
+					} finally {
+						if (getTimer != null) {
+							getTimer.stop();
+						}
+					}
+				}).catchError(err -> {
+					if (getTimer != null) {
+						getTimer.stop();
+					}
+					return err;
+				});
+			} catch (Exception cause) {
+				if (getTimer != null) {
+					getTimer.stop();
+				}
+				logger.warn("Unable to get data from Redis!", cause);
+			}
+			return Promise.resolve();
+		}).then(done -> {
+			return new CheckedTree(new ArrayList<>(Arrays.asList(values)));
+		});
+	}
+
+	protected Tree unwrap(String key, byte[] source, boolean envelope) {
+		if (source == null) {
+			if (debug) {
+				logger.info("Cache: Data not found in RedisCache by key \"" + key + "\".");
+			}
+			return null;
+		}
+		try {
+			Tree root = serializer.read(source);
+			Tree content = root.get(CONTENT);
+			if (debug) {
+				logger.info("Cache: Data found in RedisCache by key \"" + key + "\": " + content);
+			}
+			if (envelope) {
+				return content == null ? envelope(root.asObject(), 0) : root;
+			}
+			return content == null ? root : content;
+		} catch (Exception cause) {
+			logger.warn("Unable to deserialize cached data!", cause);
+		}
+		return null;
+	}
+
+	/**
+	 * Calculates the expiration timestamp of a new entry.
+	 * 
+	 * @param ttl
+	 *            TTL of the entry (0 == use default TTL)
+	 * @param now
+	 *            write timestamp
+	 * 
+	 * @return expiration timestamp (0 = never expires)
+	 */
+	protected long expireAt(int ttl, long now) {
+		int entryTTL = ttl > 0 ? ttl : this.ttl;
+		return entryTTL > 0 ? now + entryTTL * 1000L : 0;
+	}
+
+	/**
+	 * Sets many contents with one MSET command per batch (or with pipelined
+	 * "SET key value EX ttl" commands, when the entries have TTL).
+	 */
+	@Override
+	public Promise setMany(Map<String, Tree> entries, int ttl) {
+		if (status.get() != STATUS_CONNECTED) {
+			return Promise.resolve();
+		}
+		SetArgs args;
+		if (ttl > 0) {
+
+			// Entry-level TTL (in seconds)
+			args = SetArgs.Builder.ex(ttl);
+		} else {
+
+			// Use the default TTL
+			args = expiration;
+		}
+		String[] keys = new String[entries.size()];
+		Tree[] values = new Tree[keys.length];
+		int n = 0;
+		for (Map.Entry<String, Tree> entry : entries.entrySet()) {
+			keys[n] = entry.getKey();
+			values[n++] = entry.getValue();
+		}
+		return processBatches(0, keys.length, (from, to) -> {
+
+			// Metrics
+			StoppableTimer setTimer;
+			if (metrics == null) {
+				setTimer = null;
+			} else {
+				counterSet.increment(to - from);
+				setTimer = metrics.timer(MOLECULER_CACHER_SET_TIME, "Response time for cache SET operations");
+			}
+
+			try {
+				long now = System.currentTimeMillis();
+				long expireAt = expireAt(ttl, now);
+				LinkedHashMap<String, byte[]> batch = new LinkedHashMap<>((to - from) * 2);
+				for (int i = from; i < to; i++) {
+					Object content = values[i] == null ? null : values[i].asObject();
+					batch.put(keys[i], serializer.write(envelope(content, now, expireAt)));
+				}
+				if (setTimer == null && !debug) {
+					return client.mset(batch, args);
+				}
+				return client.mset(batch, args).then(rsp -> {
+					if (setTimer != null) {
+						setTimer.stop();
+					}
+					if (debug) {
+						logger.info("Cache: " + batch.size() + " entries stored in RedisCache.");
+					}
+					return rsp;
+				}).catchError(err -> {
+					if (setTimer != null) {
+						setTimer.stop();
+					}
+					return err;
+				});
+			} catch (Exception cause) {
+				if (setTimer != null) {
+					setTimer.stop();
+				}
+				logger.warn("Unable to put data into Redis!", cause);
+			}
+			return Promise.resolve();
+		});
+	}
+
+	/**
+	 * Deletes many contents with one DEL command per batch.
+	 */
+	@Override
+	public Promise delMany(String... keys) {
+		if (status.get() != STATUS_CONNECTED) {
+			return Promise.resolve();
+		}
+		return processBatches(0, keys.length, (from, to) -> {
+
+			// Metrics
+			StoppableTimer delTimer;
+			if (metrics == null) {
+				delTimer = null;
+			} else {
+				counterDel.increment(to - from);
+				delTimer = metrics.timer(MOLECULER_CACHER_DEL_TIME, "Response time for cache DEL operations");
+			}
+
+			try {
+				if (delTimer == null && !debug) {
+					return client.mdel(Arrays.copyOfRange(keys, from, to));
+				}
+				return client.mdel(Arrays.copyOfRange(keys, from, to)).then(rsp -> {
+					if (delTimer != null) {
+						delTimer.stop();
+					}
+					if (debug) {
+						logger.info("Cache: " + rsp.asLong() + " entries removed from RedisCache.");
+					}
+					return rsp;
+				}).catchError(err -> {
+					if (delTimer != null) {
+						delTimer.stop();
+					}
+					return err;
+				});
+			} catch (Exception cause) {
+				if (delTimer != null) {
+					delTimer.stop();
+				}
+				logger.warn("Unable to delete data from Redis!", cause);
+			}
+			return Promise.resolve();
+		});
+	}
+
+	// --- DISTRIBUTED LEASE ---
+
+	@Override
+	protected Promise acquireLease(String leaseKey, long timeout) {
+		if (status.get() == STATUS_CONNECTED) {
+			try {
+				byte[] owner = broker.getNodeID().getBytes(StandardCharsets.UTF_8);
+				return client.set(leaseKey, owner, SetArgs.Builder.nx().px(timeout)).then(rsp -> {
+					return rsp != null && "OK".equals(rsp.asString());
+				});
+			} catch (Exception cause) {
+				logger.warn("Unable to acquire lease from Redis!", cause);
+			}
+		}
+		return Promise.resolve(true);
+	}
+
+	@Override
+	protected void releaseLease(String leaseKey) {
+		if (status.get() == STATUS_CONNECTED) {
+			try {
+
+				// Delete only the own lease (it may have expired and been acquired by another node)
+				byte[] owner = broker.getNodeID().getBytes(StandardCharsets.UTF_8);
+				client.delIfEquals(leaseKey, owner);
+
+			} catch (Exception cause) {
+				logger.warn("Unable to release lease!", cause);
+			}
+		}
+	}
+
 	/**
 	 * Lists all keys of cached entries.
 	 * 
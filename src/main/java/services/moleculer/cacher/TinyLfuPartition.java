@@ -0,0 +1,547 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.datatree.Tree;
+import services.moleculer.cacher.MemoryCacher.MemoryPartition;
+import services.moleculer.cacher.MemoryCacher.PartitionEntry;
+import services.moleculer.eventbus.Matcher;
+
+/**
+ * Window TinyLFU partition of the MemoryCacher. The entries are stored in a
+ * ConcurrentHashMap (reads are lock free). Accesses are recorded into lossy,
+ * striped read buffers; insertions and removals are queued into a write
+ * buffer. The buffers are replayed under the eviction lock against the
+ * "window", "probation" and "protected" LRU queues. A new entry enters the
+ * window; when it leaves the window, it is admitted to the main area only if
+ * its estimated access frequency is higher than the frequency of the main
+ * area's victim.
+ * 
+ * @see EvictionPolicy#TINY_LFU
+ */
+public class TinyLfuPartition extends MemoryPartition {
+
+	// --- QUEUE TYPES ---
+
+	protected static final byte NONE = 0;
+	protected static final byte WINDOW = 1;
+	protected static final byte PROBATION = 2;
+	protected static final byte PROTECTED = 3;
+
+	// --- READ BUFFER SIZES ---
+
+	protected static final int READ_BUFFER_STRIPES;
+	protected static final int READ_BUFFER_SIZE = 32;
+	protected static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+	// --- MAX NUMBER OF PENDING WRITES (BEFORE FORCED DRAIN) ---
+
+	protected static final int WRITE_BUFFER_DRAIN_THRESHOLD = 64;
+
+	static {
+		int stripes = 1;
+		int cpus = Runtime.getRuntime().availableProcessors();
+		while (stripes < cpus * 2) {
+			stripes <<= 1;
+		}
+		READ_BUFFER_STRIPES = Math.min(stripes, 64);
+	}
+
+	// --- ENTRIES ---
+
+	protected final ConcurrentHashMap<String, Node> data;
+
+	// --- BUFFERS ---
+
+	protected final AtomicReferenceArray<Node>[] readBuffers;
+	protected final AtomicInteger[] readCounters;
+
+	protected final ConcurrentLinkedQueue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+	protected final AtomicInteger pendingWrites = new AtomicInteger();
+
+	// --- EVICTION POLICY (GUARDED BY "evictionLock") ---
+
+	protected final ReentrantLock evictionLock = new ReentrantLock();
+
+	protected final FrequencySketch sketch;
+
+	protected final Node windowHead = new Node(null, null);
+	protected final Node probationHead = new Node(null, null);
+	protected final Node protectedHead = new Node(null, null);
+
+	protected final int maxWindow;
+	protected final int maxProtected;
+
+	protected int windowSize;
+	protected int probationSize;
+	protected int protectedSize;
+
+	/**
+	 * Expiration index of the linked nodes
+	 */
+	protected final ExpirationQueue<Node> nodeExpiry = new ExpirationQueue<>();
+
+	// --- CONSTUCTORS ---
+
+	@SuppressWarnings("unchecked")
+	protected TinyLfuPartition(MemoryCacher parent) {
+		super(parent);
+		int capacity = parent.capacity;
+		data = new ConcurrentHashMap<>(Math.min(capacity, 1024) * 2);
+		sketch = new FrequencySketch(capacity);
+
+		// 1% window, 80% of the main area is protected
+		maxWindow = Math.max(1, capacity / 100);
+		maxProtected = (int) ((capacity - maxWindow) * 0.8);
+
+		// Create read buffers
+		readBuffers = new AtomicReferenceArray[READ_BUFFER_STRIPES];
+		readCounters = new AtomicInteger[READ_BUFFER_STRIPES];
+		for (int i = 0; i < READ_BUFFER_STRIPES; i++) {
+			readBuffers[i] = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+			readCounters[i] = new AtomicInteger();
+		}
+
+		// Empty (circular) queues
+		windowHead.prev = windowHead.next = windowHead;
+		probationHead.prev = probationHead.next = probationHead;
+		protectedHead.prev = protectedHead.next = protectedHead;
+	}
+
+	// --- STORAGE METHODS ---
+
+	@Override
+	protected PartitionEntry getEntry(String key) {
+		Node node = data.get(key);
+		if (node == null) {
+			return null;
+		}
+		recordRead(node);
+		return node.entry;
+	}
+
+	@Override
+	protected void putEntry(String key, PartitionEntry entry) {
+		Node node = new Node(key, entry);
+		Node previous = data.put(key, node);
+		onStored(entry);
+		if (previous != null) {
+			onRemoved(previous.entry);
+			previous.retired = true;
+			afterWrite(() -> {
+				unlink(previous);
+				link(node);
+			});
+		} else {
+			afterWrite(() -> {
+				link(node);
+			});
+		}
+	}
+
+	@Override
+	protected PartitionEntry removeEntry(String key) {
+		Node node = data.remove(key);
+		if (node == null) {
+			return null;
+		}
+		onRemoved(node.entry);
+		retire(node);
+		return node.entry;
+	}
+
+	@Override
+	protected long cleanEntries(String match) {
+		long count = 0;
+		boolean all = match.isEmpty() || "**".equals(match);
+		if (!all && match.indexOf('*') == -1) {
+			return removeEntry(match) == null ? -1 : 1;
+		}
+		Iterator<Node> i = data.values().iterator();
+		Node node;
+		while (i.hasNext()) {
+			node = i.next();
+			if (all || Matcher.matches(node.key, match)) {
+				if (data.remove(node.key, node)) {
+					onRemoved(node.entry);
+					retire(node);
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Override
+	protected int removeOldEntries(long now) {
+		int count = 0;
+		evictionLock.lock();
+		try {
+
+			// Link pending nodes, then visit only the expired buckets
+			drainBuffers();
+			for (Node node : nodeExpiry.pollExpired(now)) {
+				node.retired = true;
+				unlink(node);
+				if (data.remove(node.key, node)) {
+					onRemoved(node.entry);
+					count++;
+				}
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+
+		// Metrics
+		if (count > 0 && parent.counterExpired != null) {
+			parent.counterExpired.increment(count);
+		}
+		return count;
+	}
+
+	@Override
+	protected void expireEntry(String key, PartitionEntry entry) {
+		Node node = data.get(key);
+		if (node != null && node.entry == entry && data.remove(key, node)) {
+			onRemoved(entry);
+			retire(node);
+
+			// Metrics
+			if (parent.counterExpired != null) {
+				parent.counterExpired.increment();
+			}
+		}
+	}
+
+	@Override
+	protected boolean evictEntry() {
+		evictionLock.lock();
+		try {
+			drainBuffers();
+
+			// Victim of the main area, or the eldest entry of the window
+			Node victim = probationHead.next;
+			if (victim == probationHead) {
+				victim = protectedHead.next;
+			}
+			if (victim == protectedHead) {
+				victim = windowHead.next;
+			}
+			if (victim == windowHead) {
+				return false;
+			}
+			evictNode(victim);
+			return true;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	@Override
+	protected ArrayList<Map.Entry<String, PartitionEntry>> entries() {
+		ArrayList<Map.Entry<String, PartitionEntry>> list = new ArrayList<>(data.size());
+		for (Node node : data.values()) {
+			list.add(new AbstractMap.SimpleImmutableEntry<>(node.key, node.entry));
+		}
+		return list;
+	}
+
+	@Override
+	protected void addKeysTo(Tree list, String prefix) {
+		for (String key : data.keySet()) {
+			list.add(prefix + '.' + key);
+		}
+	}
+
+	protected void retire(Node node) {
+		node.retired = true;
+		afterWrite(() -> {
+			unlink(node);
+		});
+	}
+
+	// --- RECORD ACCESS ---
+
+	protected void recordRead(Node node) {
+		int stripe = (int) Thread.currentThread().getId() & (READ_BUFFER_STRIPES - 1);
+		int index = readCounters[stripe].getAndIncrement();
+		if (index < READ_BUFFER_SIZE) {
+			readBuffers[stripe].lazySet(index, node);
+			if (index == READ_BUFFER_DRAIN_THRESHOLD) {
+				tryDrain();
+			}
+		} else if (index == READ_BUFFER_SIZE) {
+
+			// Buffer is full, accesses are dropped until the next drain
+			tryDrain();
+		}
+	}
+
+	protected void afterWrite(Runnable task) {
+		writeBuffer.add(task);
+		if (pendingWrites.incrementAndGet() < WRITE_BUFFER_DRAIN_THRESHOLD) {
+			if (evictionLock.tryLock()) {
+				try {
+					drainWrites();
+				} finally {
+					evictionLock.unlock();
+				}
+			}
+			return;
+		}
+
+		// Too many pending writes (wait for the lock)
+		evictionLock.lock();
+		try {
+			drainBuffers();
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	protected void tryDrain() {
+		if (evictionLock.tryLock()) {
+			try {
+				drainBuffers();
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+	}
+
+	// --- REPLAY BUFFERS (UNDER EVICTION LOCK) ---
+
+	protected void drainBuffers() {
+
+		// Replay reads
+		AtomicReferenceArray<Node> buffer;
+		for (int stripe = 0; stripe < READ_BUFFER_STRIPES; stripe++) {
+			int max = Math.min(readCounters[stripe].get(), READ_BUFFER_SIZE);
+			if (max == 0) {
+				continue;
+			}
+			buffer = readBuffers[stripe];
+			Node node;
+			for (int i = 0; i < max; i++) {
+				node = buffer.getAndSet(i, null);
+				if (node != null) {
+					onAccess(node);
+				}
+			}
+			readCounters[stripe].set(0);
+		}
+
+		// Replay writes
+		drainWrites();
+	}
+
+	protected void drainWrites() {
+		Runnable task;
+		while ((task = writeBuffer.poll()) != null) {
+			pendingWrites.decrementAndGet();
+			task.run();
+		}
+	}
+
+	protected void onAccess(Node node) {
+		sketch.increment(node.key.hashCode());
+		switch (node.queue) {
+		case WINDOW:
+			moveToTail(windowHead, node);
+			break;
+		case PROBATION:
+
+			// Promote to protected area
+			remove(node);
+			probationSize--;
+			node.queue = PROTECTED;
+			append(protectedHead, node);
+			protectedSize++;
+			while (protectedSize > maxProtected) {
+				Node demoted = protectedHead.next;
+				remove(demoted);
+				protectedSize--;
+				demoted.queue = PROBATION;
+				append(probationHead, demoted);
+				probationSize++;
+			}
+			break;
+		case PROTECTED:
+			moveToTail(protectedHead, node);
+			break;
+		default:
+			break;
+		}
+	}
+
+	protected void link(Node node) {
+		if (node.retired || node.queue != NONE) {
+			return;
+		}
+		sketch.increment(node.key.hashCode());
+		node.queue = WINDOW;
+		append(windowHead, node);
+		windowSize++;
+		nodeExpiry.add(node, node.entry.expireAt);
+		evict();
+	}
+
+	protected void unlink(Node node) {
+		switch (node.queue) {
+		case WINDOW:
+			windowSize--;
+			break;
+		case PROBATION:
+			probationSize--;
+			break;
+		case PROTECTED:
+			protectedSize--;
+			break;
+		default:
+			return;
+		}
+		remove(node);
+		node.queue = NONE;
+		nodeExpiry.remove(node, node.entry.expireAt);
+	}
+
+	// --- EVICTION ---
+
+	protected void evict() {
+
+		// Move the window's LRU entries to the probation area
+		Node candidate = null;
+		while (windowSize > maxWindow) {
+			Node node = windowHead.next;
+			remove(node);
+			windowSize--;
+			node.queue = PROBATION;
+			append(probationHead, node);
+			probationSize++;
+			if (candidate == null) {
+				candidate = node;
+			}
+		}
+
+		// Admission (candidate versus the main area's victim)
+		while (windowSize + probationSize + protectedSize > parent.capacity) {
+			Node victim = probationHead.next;
+			if (victim == probationHead) {
+
+				// Probation area is empty
+				victim = protectedHead.next == protectedHead ? windowHead.next : protectedHead.next;
+				if (victim.key == null) {
+					break;
+				}
+				evictNode(victim);
+				continue;
+			}
+			if (candidate == null || victim == candidate) {
+				if (victim == candidate) {
+					candidate = nextCandidate(candidate);
+				}
+				evictNode(victim);
+				continue;
+			}
+			Node next = nextCandidate(candidate);
+			if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+				evictNode(victim);
+			} else {
+				evictNode(candidate);
+				candidate = next;
+			}
+		}
+	}
+
+	protected Node nextCandidate(Node candidate) {
+		return candidate.next == probationHead ? null : candidate.next;
+	}
+
+	protected void evictNode(Node node) {
+		unlink(node);
+		node.retired = true;
+		if (data.remove(node.key, node)) {
+			onRemoved(node.entry);
+
+			// Metrics
+			if (parent.counterEvicted != null) {
+				parent.counterEvicted.increment();
+			}
+		}
+	}
+
+	// --- LINKED LIST OPERATIONS ---
+
+	protected static void append(Node head, Node node) {
+		node.prev = head.prev;
+		node.next = head;
+		head.prev.next = node;
+		head.prev = node;
+	}
+
+	protected static void remove(Node node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = node.next = null;
+	}
+
+	protected static void moveToTail(Node head, Node node) {
+		remove(node);
+		append(head, node);
+	}
+
+	// --- ENTRY NODE ---
+
+	protected static final class Node {
+
+		protected final String key;
+		protected final PartitionEntry entry;
+
+		protected volatile boolean retired;
+
+		// Guarded by "evictionLock"
+		protected byte queue;
+		protected Node prev;
+		protected Node next;
+
+		protected Node(String key, PartitionEntry entry) {
+			this.key = key;
+			this.entry = entry;
+		}
+
+	}
+
+}
@@ -0,0 +1,134 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+import io.datatree.Tree;
+
+/**
+ * Estimates the retained heap size (in bytes) of the MemoryCacher's entries.
+ * The estimation is computed once, when the entry is stored. The default
+ * implementation walks the Tree, and uses the typical object sizes of a 64-bit
+ * JVM with compressed references; override the "weigh" method for a faster or
+ * more accurate estimation.
+ *
+ * @see MemoryCacher#setMaxBytes(long)
+ */
+public class Weigher {
+
+	// --- ESTIMATED OBJECT SIZES ---
+
+	protected static final int ENTRY_OVERHEAD = 96;
+	protected static final int STRING_OVERHEAD = 40;
+	protected static final int NUMBER_SIZE = 24;
+	protected static final int OBJECT_SIZE = 32;
+	protected static final int ARRAY_OVERHEAD = 16;
+	protected static final int MAP_OVERHEAD = 48;
+	protected static final int MAP_ENTRY_SIZE = 32;
+	protected static final int COLLECTION_OVERHEAD = 40;
+	protected static final int REFERENCE_SIZE = 8;
+
+	// --- WEIGH ENTRY ---
+
+	/**
+	 * Returns the estimated size of a cache entry.
+	 *
+	 * @param key
+	 *            cache key (without partition prefix)
+	 * @param value
+	 *            cached value
+	 *
+	 * @return estimated size, in bytes
+	 */
+	public long weigh(String key, Tree value) {
+		return ENTRY_OVERHEAD + weighObject(key) + weighObject(value == null ? null : value.asObject());
+	}
+
+	@SuppressWarnings("unchecked")
+	protected long weighObject(Object source) {
+
+		// Null value (or shared constant)
+		if (source == null || source instanceof Boolean) {
+			return 0;
+		}
+
+		// String
+		if (source instanceof String) {
+			return STRING_OVERHEAD + 2L * ((String) source).length();
+		}
+
+		// Number
+		if (source instanceof Number) {
+			return NUMBER_SIZE;
+		}
+
+		// Binary
+		if (source instanceof byte[]) {
+			return ARRAY_OVERHEAD + ((byte[]) source).length;
+		}
+
+		// Map
+		if (source instanceof Map) {
+			Map<Object, Object> map = (Map<Object, Object>) source;
+			long size = MAP_OVERHEAD;
+			for (Map.Entry<Object, Object> entry : map.entrySet()) {
+				size += MAP_ENTRY_SIZE + weighObject(entry.getKey()) + weighObject(entry.getValue());
+			}
+			return size;
+		}
+
+		// List or Set
+		if (source instanceof Collection) {
+			Collection<Object> collection = (Collection<Object>) source;
+			long size = COLLECTION_OVERHEAD;
+			for (Object child : collection) {
+				size += REFERENCE_SIZE + weighObject(child);
+			}
+			return size;
+		}
+
+		// Array
+		Class<?> clazz = source.getClass();
+		if (clazz.isArray()) {
+			int max = Array.getLength(source);
+			long size = ARRAY_OVERHEAD;
+			if (clazz.getComponentType().isPrimitive()) {
+				return size + max * REFERENCE_SIZE;
+			}
+			for (int i = 0; i < max; i++) {
+				size += REFERENCE_SIZE + weighObject(Array.get(source, i));
+			}
+			return size;
+		}
+
+		// UUID, Date, etc.
+		return OBJECT_SIZE;
+	}
+
+}
@@ -33,6 +33,7 @@ import services.moleculer.cacher.Cacher;
 import services.moleculer.eventbus.Eventbus;
 import services.moleculer.metrics.Metrics;
 import services.moleculer.monitor.Monitor;
+import services.moleculer.service.ExecutionLanes;
 import services.moleculer.service.ServiceInvoker;
 import services.moleculer.service.ServiceRegistry;
 import services.moleculer.strategy.StrategyFactory;
@@ -85,6 +86,11 @@ public class ServiceBrokerBuilder {
 		return this;
 	}
 
+	public ServiceBrokerBuilder lanes(ExecutionLanes lanes) {
+		config.setLanes(lanes);
+		return this;
+	}
+
 	public ServiceBrokerBuilder registry(ServiceRegistry serviceRegistry) {
 		config.setServiceRegistry(serviceRegistry);
 		return this;
@@ -48,6 +48,7 @@ import services.moleculer.monitor.ConstantMonitor;
 import services.moleculer.monitor.Monitor;
 import services.moleculer.service.DefaultServiceInvoker;
 import services.moleculer.service.DefaultServiceRegistry;
+import services.moleculer.service.ExecutionLanes;
 import services.moleculer.service.ServiceInvoker;
 import services.moleculer.service.ServiceRegistry;
 import services.moleculer.strategy.RoundRobinStrategyFactory;
@@ -64,6 +65,11 @@ public class ServiceBrokerConfig {
 	protected ExecutorService executor;
 	protected ScheduledExecutorService scheduler;
 
+	/**
+	 * Optional, priority-based execution lanes (null = disabled).
+	 */
+	protected ExecutionLanes lanes;
+
 	protected boolean shutDownThreadPools = true;
 
 	// --- PROPERTIES ---
@@ -225,6 +231,14 @@ public class ServiceBrokerConfig {
 		this.shutDownThreadPools = shutDownThreadPools;
 	}
 
+	public ExecutionLanes getLanes() {
+		return lanes;
+	}
+
+	public void setLanes(ExecutionLanes lanes) {
+		this.lanes = lanes;
+	}
+
 	public String getNamespace() {
 		return namespace;
 	}
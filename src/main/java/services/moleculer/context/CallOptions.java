@@ -26,7 +26,9 @@
 package services.moleculer.context;
 
 /**
- * Calling options (timeout, target nodeID, number of retries). Usage:<br>
+ * Calling options (timeout, target nodeID, number of retries, hedging,
+ * priority).
+ * Usage:<br>
  * 
  * <pre>
  * broker.call("math.add", "a", 3, "b", 5,
@@ -40,9 +42,40 @@ package services.moleculer.context;
  * <pre>
  * CallOptions.nodeID("node-2").timeout(500).retryCount(3);
  * </pre>
+ * 
+ * Hedged request (for idempotent actions only) - if no response arrives
+ * within 50 milliseconds, the request is also sent to another node, and the
+ * first response wins:<br>
+ * 
+ * <pre>
+ * CallOptions.hedge(50).timeout(1000);
+ * </pre>
  */
 public class CallOptions {
 
+	// --- CONSTANTS ---
+
+	/**
+	 * Hedging delay value: use the observed 95th percentile response time of
+	 * the selected endpoint.
+	 */
+	public static final long HEDGE_P95 = -1;
+
+	/**
+	 * Priority of batch jobs.
+	 */
+	public static final int PRIORITY_LOW = -1;
+
+	/**
+	 * Default priority.
+	 */
+	public static final int PRIORITY_NORMAL = 0;
+
+	/**
+	 * Priority of latency-critical requests (and internal actions).
+	 */
+	public static final int PRIORITY_HIGH = 1;
+
 	// --- PROPERTIES ---
 
 	public static class Options {
@@ -63,26 +96,53 @@ public class CallOptions {
 		 */
 		public final int retryCount;
 
-		// --- CONSTRUCTOR ---
+		/**
+		 * Hedging delay (in milliseconds, 0 = disable hedging, HEDGE_P95 = use
+		 * the observed 95th percentile latency of the endpoint). Use hedging
+		 * only with idempotent actions!
+		 */
+		public final long hedgeDelay;
+
+		/**
+		 * Priority of the request (selects the execution lane on the target
+		 * node, 0 = normal priority)
+		 */
+		public final int priority;
+
+		// --- CONSTRUCTORS ---
 
 		protected Options(String nodeID, long timeoutMillis, int retryCount) {
+			this(nodeID, timeoutMillis, retryCount, 0, PRIORITY_NORMAL);
+		}
+
+		protected Options(String nodeID, long timeoutMillis, int retryCount, long hedgeDelayMillis, int priority) {
 			this.nodeID = nodeID;
 			this.timeout = timeoutMillis;
 			this.retryCount = retryCount;
+			this.hedgeDelay = hedgeDelayMillis;
+			this.priority = priority;
 		}
 
 		// --- VARIABLE SETTERS ---
 
 		public Options nodeID(String nodeID) {
-			return new Options(nodeID, timeout, retryCount);
+			return new Options(nodeID, timeout, retryCount, hedgeDelay, priority);
 		}
 
 		public Options timeout(long timeoutMillis) {
-			return new Options(nodeID, timeoutMillis, retryCount);
+			return new Options(nodeID, timeoutMillis, retryCount, hedgeDelay, priority);
 		}
 
 		public Options retryCount(int retryCount) {
-			return new Options(nodeID, timeout, retryCount);
+			return new Options(nodeID, timeout, retryCount, hedgeDelay, priority);
+		}
+
+		public Options hedge(long hedgeDelayMillis) {
+			return new Options(nodeID, timeout, retryCount, hedgeDelayMillis, priority);
+		}
+
+		public Options priority(int priority) {
+			return new Options(nodeID, timeout, retryCount, hedgeDelay, priority);
 		}
 
 	}
@@ -106,4 +166,12 @@ public class CallOptions {
 		return new Options(null, 0, retryCount);
 	}
 
+	public static Options hedge(long hedgeDelayMillis) {
+		return new Options(null, 0, 0, hedgeDelayMillis, PRIORITY_NORMAL);
+	}
+
+	public static Options priority(int priority) {
+		return new Options(null, 0, 0, 0, priority);
+	}
+
 }
\ No newline at end of file
@@ -38,6 +38,7 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -47,10 +48,10 @@ import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 
 import io.datatree.Tree;
-import io.datatree.dom.Cache;
 import io.datatree.dom.Config;
 import services.moleculer.ServiceBroker;
 import services.moleculer.config.ServiceBrokerConfig;
+import services.moleculer.context.CallOptions;
 import services.moleculer.context.Context;
 import services.moleculer.error.ListenerNotAvailableError;
 import services.moleculer.error.MaxCallLevelError;
@@ -58,6 +59,7 @@ import services.moleculer.error.MoleculerClientError;
 import services.moleculer.error.RequestTimeoutError;
 import services.moleculer.metrics.MetricConstants;
 import services.moleculer.metrics.Metrics;
+import services.moleculer.service.ExecutionLanes;
 import services.moleculer.service.Name;
 import services.moleculer.service.Service;
 import services.moleculer.service.ServiceInvoker;
@@ -80,11 +82,16 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 
 	protected final HashMap<String, HashMap<String, Strategy<ListenerEndpoint>>> listeners = new HashMap<>(256);
 
-	// --- CACHES ---
+	/**
+	 * Index of the event masks of the "listeners" map (mask -> groups)
+	 */
+	protected final SubscriptionTrie<HashMap<String, Strategy<ListenerEndpoint>>> subscriptions = new SubscriptionTrie<>();
+
+	// --- RESOLVED ROUTES ---
 
-	protected final Cache<String, Strategy<ListenerEndpoint>[]> emitterCache = new Cache<>(Config.CACHE_SIZE);
-	protected final Cache<String, ListenerEndpoint[]> broadcasterCache = new Cache<>(Config.CACHE_SIZE);
-	protected final Cache<String, ListenerEndpoint[]> localBroadcasterCache = new Cache<>(Config.CACHE_SIZE);
+	protected final RouteTable<Strategy<ListenerEndpoint>[]> emitterRoutes = new RouteTable<>(Config.CACHE_SIZE);
+	protected final RouteTable<ListenerEndpoint[]> broadcasterRoutes = new RouteTable<>(Config.CACHE_SIZE);
+	protected final RouteTable<ListenerEndpoint[]> localBroadcasterRoutes = new RouteTable<>(Config.CACHE_SIZE);
 
 	// --- PROPERTIES ---
 
@@ -119,6 +126,26 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 	 */
 	protected int maxCallLevel = 100;
 
+	/**
+	 * Queue size of the asynchronous local listeners (0 = invoke local
+	 * listeners in the emitter's thread, except listeners marked with the
+	 * "Async" annotation)
+	 */
+	protected int asyncQueueSize;
+
+	/**
+	 * Overflow policy of the asynchronous local listeners (BLOCK is unsafe when
+	 * events are emitted from the executor's threads)
+	 */
+	protected OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+	// --- QUEUES OF ASYNCHRONOUS LISTENERS ---
+
+	/**
+	 * Event queues by local services and event groups ("service:group")
+	 */
+	protected final HashMap<String, ListenerQueue> listenerQueues = new HashMap<>();
+
 	// --- REGISTRY LOCKS ---
 
 	/**
@@ -143,8 +170,10 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 	protected StrategyFactory strategy;
 	protected Transporter transporter;
 	protected ServiceInvoker serviceInvoker;
+	protected ExecutorService executor;
 	protected ScheduledExecutorService scheduler;
 	protected UidGenerator uidGenerator;
+	protected ExecutionLanes lanes;
 	protected Metrics metrics;
 
 	// --- REGISTERED STREAMS ---
@@ -193,8 +222,10 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 		this.strategy = cfg.getStrategyFactory();
 		this.transporter = cfg.getTransporter();
 		this.serviceInvoker = cfg.getServiceInvoker();
+		this.executor = cfg.getExecutor();
 		this.scheduler = cfg.getScheduler();
 		this.uidGenerator = cfg.getUidGenerator();
+		this.lanes = cfg.getLanes();
 
 		// Metrics
 		if (cfg.isMetricsEnabled()) {
@@ -224,12 +255,15 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 		registryWriteLock.lock();
 		try {
 			listeners.clear();
+			subscriptions.clear();
+			for (ListenerQueue queue : listenerQueues.values()) {
+				queue.clear();
+			}
+			listenerQueues.clear();
 		} finally {
 
-			// Clear caches
-			emitterCache.clear();
-			broadcasterCache.clear();
-			localBroadcasterCache.clear();
+			// Invalidate routes
+			invalidateRoutes();
 
 			registryWriteLock.unlock();
 		}
@@ -273,6 +307,15 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 			}
 		}
 
+		// Batched events
+		Tree batch = message.get("batch");
+		if (batch != null) {
+			for (Tree event : batch) {
+				receiveEvent(event);
+			}
+			return;
+		}
+
 		// Get request's unique ID
 		String id = message.get("id", "0");
 
@@ -384,10 +427,14 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 		String parentID = message.get("parentID", (String) null);
 		String requestID = message.get("requestID", id);
 
+		// Get priority
+		int priority = message.get("priority", CallOptions.PRIORITY_NORMAL);
+		CallOptions.Options opts = priority == CallOptions.PRIORITY_NORMAL ? null : CallOptions.priority(priority);
+
 		// Create Context
 		PacketStream stream = requestStream == null ? null : requestStream.getPacketStream();
 		Context ctx = new Context(serviceInvoker, this, uidGenerator, id, name, data, level, parentID, requestID,
-				stream, null, sender);
+				stream, opts, sender);
 
 		// Emit or broadcast?
 		if (message.get("broadcast", true)) {
@@ -397,8 +444,9 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 
 		} else {
 
-			// Emit
-			emitInternal(ctx, groups, true);
+			// Emit (the "shaped" events were throttled and debounced by the
+			// sender node)
+			emitInternal(ctx, groups, true, message.get("shaped", false));
 		}
 	}
 
@@ -473,6 +521,7 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 				if (groups == null) {
 					groups = new HashMap<String, Strategy<ListenerEndpoint>>();
 					listeners.put(subscribe, groups);
+					subscriptions.put(subscribe, groups);
 				}
 
 				// Get or create strategy
@@ -482,24 +531,46 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 					groups.put(group, strategy);
 				}
 
+				// Asynchronous listener?
+				ListenerQueue queue = null;
+				Async async = field.getAnnotation(Async.class);
+				if (async != null) {
+					queue = getListenerQueue(name, group, async.queueSize(), async.overflow());
+				} else if (asyncQueueSize > 0) {
+					queue = getListenerQueue(name, group, asyncQueueSize, overflowPolicy);
+				}
+
+				// Throttling, debouncing and sampling
+				LocalListenerEndpoint endpoint = new LocalListenerEndpoint(nodeID, name, group, subscribe, listener,
+						privateAccess, metrics, lanes, queue, executor);
+				endpoint.setShaper(EventShaper.of(field, scheduler));
+
 				// Add endpoint to strategy
-				strategy.addEndpoint(
-						new LocalListenerEndpoint(nodeID, name, group, subscribe, listener, privateAccess, metrics));
+				strategy.addEndpoint(endpoint);
 			}
 		} catch (Exception cause) {
 			logger.error("Unable to register local listener!", cause);
 		} finally {
 
-			// Clear caches
-			emitterCache.clear();
-			broadcasterCache.clear();
-			localBroadcasterCache.clear();
+			// Invalidate routes
+			invalidateRoutes();
 
 			// Unlock reader threads
 			registryWriteLock.unlock();
 		}
 	}
 
+	protected ListenerQueue getListenerQueue(String service, String group, int queueSize,
+			OverflowPolicy overflow) {
+		String key = service + ':' + group;
+		ListenerQueue queue = listenerQueues.get(key);
+		if (queue == null) {
+			queue = new ListenerQueue(service, group, queueSize, overflow, executor, metrics);
+			listenerQueues.put(key, queue);
+		}
+		return queue;
+	}
+
 	// --- ADD REMOTE LISTENER ---
 
 	@Override
@@ -516,12 +587,14 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 					// Register remote listener
 					RemoteListenerEndpoint endpoint = new RemoteListenerEndpoint(nodeID, serviceName, group, subscribe,
 							transporter);
+					endpoint.setShaper(EventShaper.of(listenerConfig, scheduler));
 
 					// Get or create group map
 					HashMap<String, Strategy<ListenerEndpoint>> groups = listeners.get(subscribe);
 					if (groups == null) {
 						groups = new HashMap<String, Strategy<ListenerEndpoint>>();
 						listeners.put(subscribe, groups);
+						subscriptions.put(subscribe, groups);
 					}
 
 					// Get or create strategy
@@ -534,10 +607,8 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 				}
 			} finally {
 
-				// Clear caches
-				emitterCache.clear();
-				broadcasterCache.clear();
-				localBroadcasterCache.clear();
+				// Invalidate routes
+				invalidateRoutes();
 
 				// Unlock reader threads
 				registryWriteLock.unlock();
@@ -549,16 +620,25 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 
 	@Override
 	public void removeListeners(String nodeID) {
+		removeListeners(nodeID, null);
+	}
+
+	// --- REMOVE LISTENERS OF A REMOTE SERVICE ---
+
+	@Override
+	public void removeListeners(String nodeID, String serviceName) {
 		boolean found = false;
 		registryWriteLock.lock();
 		try {
-			Iterator<HashMap<String, Strategy<ListenerEndpoint>>> groupIterator = listeners.values().iterator();
+			Iterator<Map.Entry<String, HashMap<String, Strategy<ListenerEndpoint>>>> groupIterator = listeners.entrySet()
+					.iterator();
 			while (groupIterator.hasNext()) {
-				HashMap<String, Strategy<ListenerEndpoint>> groups = groupIterator.next();
+				Map.Entry<String, HashMap<String, Strategy<ListenerEndpoint>>> entry = groupIterator.next();
+				HashMap<String, Strategy<ListenerEndpoint>> groups = entry.getValue();
 				Iterator<Strategy<ListenerEndpoint>> strategyIterator = groups.values().iterator();
 				while (strategyIterator.hasNext()) {
 					Strategy<ListenerEndpoint> strategy = strategyIterator.next();
-					if (strategy.remove(nodeID)) {
+					if (strategy.remove(nodeID, serviceName)) {
 						found = true;
 						if (strategy.isEmpty()) {
 							strategyIterator.remove();
@@ -567,15 +647,26 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 				}
 				if (groups.isEmpty()) {
 					groupIterator.remove();
+					subscriptions.remove(entry.getKey());
+				}
+			}
+
+			// Remove queues of local services
+			if (this.nodeID.equals(nodeID)) {
+				Iterator<ListenerQueue> queueIterator = listenerQueues.values().iterator();
+				while (queueIterator.hasNext()) {
+					ListenerQueue queue = queueIterator.next();
+					if (serviceName == null || serviceName.equals(queue.getService())) {
+						queue.clear();
+						queueIterator.remove();
+					}
 				}
 			}
 		} finally {
 
-			// Clear caches
+			// Invalidate routes
 			if (found) {
-				emitterCache.clear();
-				broadcasterCache.clear();
-				localBroadcasterCache.clear();
+				invalidateRoutes();
 			}
 
 			registryWriteLock.unlock();
@@ -605,8 +696,12 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 		emitInternal(ctx, groups, local);
 	}
 
-	@SuppressWarnings("unchecked")
 	protected void emitInternal(Context ctx, Groups groups, boolean local) {
+		emitInternal(ctx, groups, local, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void emitInternal(Context ctx, Groups groups, boolean local, boolean shaped) {
 
 		// Verify call level
 		if (maxCallLevel > 0 && ctx.level >= maxCallLevel) {
@@ -619,25 +714,25 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 
 		// Emit event
 		String key = getCacheKey(ctx.name, groups);
-		Strategy<ListenerEndpoint>[] strategies = emitterCache.get(key);
+		Strategy<ListenerEndpoint>[] strategies = emitterRoutes.get(key);
 		if (strategies == null) {
 			LinkedList<Strategy<ListenerEndpoint>> list = new LinkedList<>();
+			long generation;
 			registryReadLock.lock();
 			try {
-				for (Map.Entry<String, HashMap<String, Strategy<ListenerEndpoint>>> entry : listeners.entrySet()) {
-					if (Matcher.matches(ctx.name, entry.getKey())) {
-						if (groups != null) {
-							for (Map.Entry<String, Strategy<ListenerEndpoint>> test : entry.getValue().entrySet()) {
-								final String testGroup = test.getKey();
-								for (String group : groups.groups()) {
-									if (group.equals(testGroup)) {
-										list.add(test.getValue());
-									}
+				generation = emitterRoutes.generation();
+				for (HashMap<String, Strategy<ListenerEndpoint>> groupMap : subscriptions.match(ctx.name)) {
+					if (groups != null) {
+						for (Map.Entry<String, Strategy<ListenerEndpoint>> test : groupMap.entrySet()) {
+							final String testGroup = test.getKey();
+							for (String group : groups.groups()) {
+								if (group.equals(testGroup)) {
+									list.add(test.getValue());
 								}
 							}
-						} else {
-							list.addAll(entry.getValue().values());
 						}
+					} else {
+						list.addAll(groupMap.values());
 					}
 				}
 			} finally {
@@ -645,7 +740,7 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 			}
 			strategies = new Strategy[list.size()];
 			list.toArray(strategies);
-			emitterCache.put(key, strategies);
+			emitterRoutes.put(key, strategies, generation);
 		}
 		if (strategies.length == 0) {
 			stopStreaming(ctx);
@@ -662,7 +757,7 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 					stopStreaming(ctx);
 					return;
 				}
-				endpoint.on(ctx, groups, false);
+				invoke(endpoint, ctx, groups, shaped);
 			} catch (Throwable cause) {
 				if (ctx.stream != null) {
 					ctx.stream.sendError(cause);
@@ -680,7 +775,7 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 					if (endpoint == null || (endpoint.privateAccess && !nodeID.equals(ctx.nodeID))) {
 						continue;
 					}
-					endpoint.on(ctx, groups, false);
+					invoke(endpoint, ctx, groups, shaped);
 				} catch (Throwable cause) {
 					logUnableToInvokeListener(cause);
 				}
@@ -705,7 +800,7 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 							continue;
 						}
 						foundLocal = true;
-						endpoint.on(ctx, groups, false);
+						invoke(endpoint, ctx, groups, shaped);
 					} catch (Throwable cause) {
 						logUnableToInvokeListener(cause);
 					}
@@ -744,6 +839,14 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 		}
 	}
 
+	protected void invoke(ListenerEndpoint endpoint, Context ctx, Groups groups, boolean shaped) throws Exception {
+		if (shaped) {
+			endpoint.onShaped(ctx, groups);
+		} else {
+			endpoint.on(ctx, groups, false);
+		}
+	}
+
 	protected void stopStreaming(Context ctx) {
 		if (ctx.stream != null) {
 			ctx.stream.sendError(new ListenerNotAvailableError(nodeID, ctx.name));
@@ -795,43 +898,40 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 		// Broadcast event
 		String key = getCacheKey(ctx.name, groups);
 		ListenerEndpoint[] endpoints;
-		if (local) {
-			endpoints = localBroadcasterCache.get(key);
-		} else {
-			endpoints = broadcasterCache.get(key);
-		}
+		RouteTable<ListenerEndpoint[]> routes = local ? localBroadcasterRoutes : broadcasterRoutes;
+		endpoints = routes.get(key);
 		if (endpoints == null) {
 			LinkedList<ListenerEndpoint> list = new LinkedList<>();
+			long generation;
 			registryReadLock.lock();
 			try {
-				for (Map.Entry<String, HashMap<String, Strategy<ListenerEndpoint>>> entry : listeners.entrySet()) {
-					if (Matcher.matches(ctx.name, entry.getKey())) {
-						for (Map.Entry<String, Strategy<ListenerEndpoint>> test : entry.getValue().entrySet()) {
-							if (groups != null) {
-								final String testGroup = test.getKey();
-								for (String group : groups.groups()) {
-									if (group.equals(testGroup)) {
-										for (ListenerEndpoint endpoint : test.getValue().getAllEndpoints()) {
-											if (local) {
-												if (endpoint.isLocal()) {
-													list.add(endpoint);
-												}
-											} else {
+				generation = routes.generation();
+				for (HashMap<String, Strategy<ListenerEndpoint>> groupMap : subscriptions.match(ctx.name)) {
+					for (Map.Entry<String, Strategy<ListenerEndpoint>> test : groupMap.entrySet()) {
+						if (groups != null) {
+							final String testGroup = test.getKey();
+							for (String group : groups.groups()) {
+								if (group.equals(testGroup)) {
+									for (ListenerEndpoint endpoint : test.getValue().getAllEndpoints()) {
+										if (local) {
+											if (endpoint.isLocal()) {
 												list.add(endpoint);
 											}
+										} else {
+											list.add(endpoint);
 										}
 									}
 								}
-							} else {
-								if (local) {
-									for (ListenerEndpoint endpoint : test.getValue().getAllEndpoints()) {
-										if (endpoint.isLocal()) {
-											list.add(endpoint);
-										}
+							}
+						} else {
+							if (local) {
+								for (ListenerEndpoint endpoint : test.getValue().getAllEndpoints()) {
+									if (endpoint.isLocal()) {
+										list.add(endpoint);
 									}
-								} else {
-									list.addAll(test.getValue().getAllEndpoints());
 								}
+							} else {
+								list.addAll(test.getValue().getAllEndpoints());
 							}
 						}
 					}
@@ -841,11 +941,7 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 			}
 			endpoints = new ListenerEndpoint[list.size()];
 			list.toArray(endpoints);
-			if (local) {
-				localBroadcasterCache.put(key, endpoints);
-			} else {
-				broadcasterCache.put(key, endpoints);
-			}
+			routes.put(key, endpoints, generation);
 		}
 		if (endpoints.length == 0) {
 			stopStreaming(ctx);
@@ -870,6 +966,7 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 
 		// Group of listeners
 		HashSet<String> nodeSet = new HashSet<>(endpoints.length * 2);
+		LinkedList<String> remoteNodeIDs = null;
 		for (ListenerEndpoint endpoint : endpoints) {
 			try {
 				if (endpoint.isLocal()) {
@@ -878,12 +975,28 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 					}
 				} else if (!nodeSet.add(endpoint.getNodeID())) {
 					continue;
+				} else if (ctx.stream == null && transporter != null) {
+
+					// Send to remote nodes later (serialize only once,
+					// throttling and debouncing are done by the receivers)
+					if (remoteNodeIDs == null) {
+						remoteNodeIDs = new LinkedList<>();
+					}
+					remoteNodeIDs.add(endpoint.getNodeID());
+					continue;
 				}
 				endpoint.on(ctx, groups, true);
 			} catch (Throwable cause) {
 				logUnableToInvokeListener(cause);
 			}
 		}
+		if (remoteNodeIDs != null) {
+			try {
+				transporter.sendEventPacket(remoteNodeIDs, ctx, groups, true);
+			} catch (Throwable cause) {
+				logUnableToInvokeListener(cause);
+			}
+		}
 	}
 
 	protected void logUnableToInvokeListener(Throwable cause) {
@@ -892,6 +1005,14 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 		}
 	}
 	
+	// --- INVALIDATE RESOLVED ROUTES ---
+
+	protected void invalidateRoutes() {
+		emitterRoutes.invalidate();
+		broadcasterRoutes.invalidate();
+		localBroadcasterRoutes.invalidate();
+	}
+
 	// --- CREATE CACHE KEY ---
 
 	protected String getCacheKey(String name, Groups groups) {
@@ -922,6 +1043,9 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 							descriptor.put(endpoint.subscribe, map);
 							map.put("name", endpoint.subscribe);
 							map.put("group", endpoint.group);
+							if (endpoint.shaper != null) {
+								endpoint.shaper.addToDescriptor(map);
+							}
 						}
 					}
 				}
@@ -966,4 +1090,20 @@ public class DefaultEventbus extends Eventbus implements MetricConstants {
 		this.maxCallLevel = maxCallLevel;
 	}
 
+	public int getAsyncQueueSize() {
+		return asyncQueueSize;
+	}
+
+	public void setAsyncQueueSize(int asyncQueueSize) {
+		this.asyncQueueSize = asyncQueueSize;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
 }
\ No newline at end of file
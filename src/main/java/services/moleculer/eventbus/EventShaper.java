@@ -0,0 +1,332 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.eventbus;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.datatree.Tree;
+import io.datatree.dom.Config;
+import services.moleculer.context.Context;
+
+/**
+ * Event shaping (throttling, debouncing and sampling) of an event listener.
+ * The dropped events are never dispatched (or sent to the remote node).
+ * 
+ * @see Throttle
+ * @see Debounce
+ * @see Sample
+ */
+public class EventShaper {
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(EventShaper.class);
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Max number of events per "throttleInterval" (0 = no throttling)
+	 */
+	protected final int throttleLimit;
+
+	/**
+	 * Length of the throttling window in MILLISECONDS
+	 */
+	protected final long throttleInterval;
+
+	/**
+	 * Debounce interval in MILLISECONDS (0 = no debouncing)
+	 */
+	protected final long debounceInterval;
+
+	/**
+	 * Payload fields of the debounce key
+	 */
+	protected final String[] debounceKeys;
+
+	/**
+	 * Probability of delivery (1 = no sampling)
+	 */
+	protected final double sampleRate;
+
+	// --- COMPONENTS ---
+
+	protected final ScheduledExecutorService scheduler;
+
+	// --- THROTTLING WINDOW ---
+
+	protected long windowStart;
+	protected int windowCount;
+
+	// --- LATEST (DEBOUNCED) EVENTS BY KEY ---
+
+	protected final ConcurrentHashMap<String, Runnable> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * Max number of debounce keys waiting at the same time (events with new
+	 * keys are not debounced above this limit, only throttled)
+	 */
+	protected int maxPending = Config.CACHE_SIZE;
+
+	// --- CONSTRUCTOR ---
+
+	public EventShaper(int throttleLimit, long throttleInterval, long debounceInterval, String[] debounceKeys,
+			double sampleRate, ScheduledExecutorService scheduler) {
+		this.throttleLimit = Math.max(0, throttleLimit);
+		this.throttleInterval = Math.max(1, throttleInterval);
+		this.debounceInterval = Math.max(0, debounceInterval);
+		this.debounceKeys = debounceKeys == null ? new String[0] : debounceKeys;
+		this.sampleRate = Math.min(1, Math.max(0, sampleRate));
+		this.scheduler = scheduler;
+	}
+
+	// --- CREATE FROM ANNOTATIONS ---
+
+	/**
+	 * Creates an EventShaper from the "Throttle", "Debounce" and "Sample"
+	 * annotations of a Listener field.
+	 * 
+	 * @param field
+	 *            Listener field
+	 * @param scheduler
+	 *            scheduler of the debounced events
+	 * 
+	 * @return EventShaper or null (if the listener has no shaping
+	 *         annotations)
+	 */
+	public static EventShaper of(Field field, ScheduledExecutorService scheduler) {
+		Throttle throttle = field.getAnnotation(Throttle.class);
+		Debounce debounce = field.getAnnotation(Debounce.class);
+		Sample sample = field.getAnnotation(Sample.class);
+		if (throttle == null && debounce == null && sample == null) {
+			return null;
+		}
+		return new EventShaper(throttle == null ? 0 : throttle.limit(), throttle == null ? 1 : throttle.interval(),
+				debounce == null ? 0 : debounce.value(), debounce == null ? null : debounce.key(),
+				sample == null ? 1 : sample.value(), scheduler);
+	}
+
+	// --- CREATE FROM LISTENER DESCRIPTOR ---
+
+	/**
+	 * Creates an EventShaper from the descriptor of a remote listener. The
+	 * sampling is skipped (it is performed by the remote listener's node, and
+	 * sampling twice would lower the rate). Throttling and debouncing are
+	 * repeatable, so they reduce the traffic without changing the result.
+	 * 
+	 * @param config
+	 *            listener descriptor
+	 * @param scheduler
+	 *            scheduler of the debounced events
+	 * 
+	 * @return EventShaper or null (if the listener has no shaping config)
+	 */
+	public static EventShaper of(Tree config, ScheduledExecutorService scheduler) {
+		Tree throttle = config.get("throttle");
+		Tree debounce = config.get("debounce");
+		if (throttle == null && debounce == null) {
+			return null;
+		}
+		String[] keys = null;
+		if (debounce != null) {
+			Tree keyList = debounce.get("key");
+			if (keyList != null) {
+				keys = new String[keyList.size()];
+				int i = 0;
+				for (Tree key : keyList) {
+					keys[i++] = key.asString();
+				}
+			}
+		}
+		return new EventShaper(throttle == null ? 0 : throttle.get("limit", 0),
+				throttle == null ? 1 : throttle.get("interval", 1000L),
+				debounce == null ? 0 : debounce.get("interval", 0L), keys, 1, scheduler);
+	}
+
+	// --- ADD CONFIG TO LISTENER DESCRIPTOR ---
+
+	public void addToDescriptor(Map<String, Object> descriptor) {
+		if (throttleLimit > 0) {
+			LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+			map.put("limit", throttleLimit);
+			map.put("interval", throttleInterval);
+			descriptor.put("throttle", map);
+		}
+		if (debounceInterval > 0) {
+			LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+			map.put("interval", debounceInterval);
+			map.put("key", Arrays.asList(debounceKeys));
+			descriptor.put("debounce", map);
+		}
+		if (sampleRate < 1) {
+			descriptor.put("sample", sampleRate);
+		}
+	}
+
+	// --- SHAPE EVENT ---
+
+	/**
+	 * Decides the fate of an event.
+	 * 
+	 * @param ctx
+	 *            context of the event
+	 * @param dispatcher
+	 *            delivers the event later (used by the debouncer, invoked in
+	 *            the shared scheduler's thread, so it must not block)
+	 * 
+	 * @return true = dispatch now, false = dropped or deferred
+	 */
+	public boolean accept(Context ctx, Runnable dispatcher) {
+		return accept(ctx.params, dispatcher);
+	}
+
+	protected boolean accept(Tree params, Runnable dispatcher) {
+
+		// Sampling
+		if (!sample()) {
+			return false;
+		}
+
+		// Debouncing
+		if (debounceInterval > 0) {
+			String key = getKey(params);
+			if (pending.size() >= maxPending && !pending.containsKey(key)) {
+
+				// Too many keys -> don't debounce
+				return tryAcquire();
+			}
+			if (pending.put(key, dispatcher) == null) {
+				scheduler.schedule(() -> {
+					flush(key);
+				}, debounceInterval, TimeUnit.MILLISECONDS);
+			}
+			return false;
+		}
+
+		// Throttling
+		return tryAcquire();
+	}
+
+	/**
+	 * Sampling of the events.
+	 * 
+	 * @return true = deliver the event, false = drop it
+	 */
+	public boolean sample() {
+		return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+	}
+
+	protected void flush(String key) {
+		Runnable dispatcher = pending.remove(key);
+		if (dispatcher != null && tryAcquire()) {
+			try {
+				dispatcher.run();
+			} catch (Throwable cause) {
+				logger.error("Unable to dispatch debounced event!", cause);
+			}
+		}
+	}
+
+	protected synchronized boolean tryAcquire() {
+		if (throttleLimit < 1) {
+			return true;
+		}
+		long now = System.currentTimeMillis();
+		if (now - windowStart >= throttleInterval) {
+			windowStart = now;
+			windowCount = 0;
+		}
+		if (windowCount < throttleLimit) {
+			windowCount++;
+			return true;
+		}
+		return false;
+	}
+
+	protected String getKey(Tree params) {
+		if (debounceKeys.length == 0 || params == null) {
+			return "";
+		}
+		if (debounceKeys.length == 1) {
+			return params.get(debounceKeys[0], "");
+		}
+		StringBuilder key = new StringBuilder(64);
+		for (String field : debounceKeys) {
+			if (key.length() > 0) {
+				key.append('|');
+			}
+			key.append(params.get(field, ""));
+		}
+		return key.toString();
+	}
+
+	// --- CLEAR PENDING EVENTS ---
+
+	public void clear() {
+		pending.clear();
+	}
+
+	// --- GETTERS ---
+
+	public int getThrottleLimit() {
+		return throttleLimit;
+	}
+
+	public long getThrottleInterval() {
+		return throttleInterval;
+	}
+
+	public long getDebounceInterval() {
+		return debounceInterval;
+	}
+
+	public String[] getDebounceKeys() {
+		return debounceKeys;
+	}
+
+	public double getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	public void setMaxPending(int maxPending) {
+		this.maxPending = maxPending;
+	}
+
+}
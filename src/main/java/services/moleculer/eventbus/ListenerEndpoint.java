@@ -49,6 +49,11 @@ public abstract class ListenerEndpoint extends Endpoint {
 	 */
 	protected final boolean privateAccess;
 
+	/**
+	 * Throttling, debouncing and sampling of events (or null)
+	 */
+	protected EventShaper shaper;
+
 	protected final int hashCode;
 
 	// --- CONSTRUCTOR ---
@@ -73,6 +78,22 @@ public abstract class ListenerEndpoint extends Endpoint {
 
 	public abstract void on(Context ctx, Groups groups, boolean broadcast) throws Exception;
 
+	/**
+	 * Sends an emitted event which has already been throttled and debounced
+	 * by the sender node (shaping it again would delay or drop it twice).
+	 * 
+	 * @param ctx
+	 *            context of the event
+	 * @param groups
+	 *            event groups (or null)
+	 * 
+	 * @throws Exception
+	 *             any error
+	 */
+	public void onShaped(Context ctx, Groups groups) throws Exception {
+		on(ctx, groups, false);
+	}
+
 	// --- LOCAL LISTENER? ---
 
 	public abstract boolean isLocal();
@@ -82,6 +103,13 @@ public abstract class ListenerEndpoint extends Endpoint {
 	public boolean isPrivate() {
 		return privateAccess;
 	}
+
+	// --- NAME OF THE SERVICE ---
+
+	@Override
+	public String getServiceName() {
+		return serviceName;
+	}
 	
 	// --- COLLECTION HELPERS ---
 
@@ -129,4 +157,14 @@ public abstract class ListenerEndpoint extends Endpoint {
 		return true;
 	}
 
+	// --- GETTERS / SETTERS ---
+
+	public EventShaper getShaper() {
+		return shaper;
+	}
+
+	public void setShaper(EventShaper shaper) {
+		this.shaper = shaper;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.eventbus;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import services.moleculer.metrics.MetricConstants;
+import services.moleculer.metrics.MetricGauge;
+import services.moleculer.metrics.Metrics;
+
+/**
+ * Bounded event queue of an event group of a local service. The queued events
+ * are processed by one worker at a time (in the shared executor), so the order
+ * of the events is preserved within the group.
+ * 
+ * @see Async
+ */
+public class ListenerQueue implements MetricConstants {
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(ListenerQueue.class);
+
+	// --- MAX NUMBER OF EVENTS PROCESSED BY ONE WORKER TASK ---
+
+	protected static final int MAX_EVENTS_PER_TASK = 64;
+
+	// --- PROPERTIES ---
+
+	protected final String service;
+	protected final String group;
+	protected final ArrayBlockingQueue<Runnable> queue;
+	protected final OverflowPolicy overflow;
+	protected final AtomicBoolean running = new AtomicBoolean();
+
+	// --- COMPONENTS ---
+
+	protected final ExecutorService executor;
+	protected final Metrics metrics;
+
+	// --- METRICS ---
+
+	protected final MetricGauge gaugeQueueSize;
+
+	// --- CONSTRUCTOR ---
+
+	public ListenerQueue(String service, String group, int queueSize, OverflowPolicy overflow,
+			ExecutorService executor, Metrics metrics) {
+		this.service = service;
+		this.group = group;
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+		this.overflow = overflow == null ? OverflowPolicy.DROP_OLDEST : overflow;
+		this.executor = executor;
+		this.metrics = metrics;
+		if (metrics == null) {
+			gaugeQueueSize = null;
+		} else {
+			gaugeQueueSize = metrics.set(MOLECULER_EVENT_QUEUE_SIZE, MOLECULER_EVENT_QUEUE_SIZE_DESC, 0, "service",
+					service, "group", group);
+		}
+	}
+
+	// --- ADD EVENT TO QUEUE ---
+
+	public void submit(Runnable task) throws InterruptedException {
+		switch (overflow) {
+		case DROP_NEWEST:
+			if (!queue.offer(task)) {
+				dropped();
+				return;
+			}
+			break;
+		case DROP_OLDEST:
+			while (!queue.offer(task)) {
+				if (queue.poll() != null) {
+					dropped();
+				}
+			}
+			break;
+		default:
+			queue.put(task);
+			break;
+		}
+		updateQueueSize();
+		schedule();
+	}
+
+	// --- PROCESS EVENTS ---
+
+	protected void schedule() {
+		if (running.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::drain);
+			} catch (RuntimeException cause) {
+				running.set(false);
+				throw cause;
+			}
+		}
+	}
+
+	protected void drain() {
+		try {
+			Runnable task;
+			for (int i = 0; i < MAX_EVENTS_PER_TASK && (task = queue.poll()) != null; i++) {
+				try {
+					task.run();
+				} catch (Throwable cause) {
+					logger.error("Unable to invoke event listener!", cause);
+				}
+			}
+			updateQueueSize();
+		} finally {
+			running.set(false);
+		}
+
+		// Continue in a new task (other groups can run in the meantime)
+		if (!queue.isEmpty()) {
+			schedule();
+		}
+	}
+
+	// --- METRICS ---
+
+	protected void updateQueueSize() {
+		if (gaugeQueueSize != null) {
+			gaugeQueueSize.set(queue.size());
+		}
+	}
+
+	protected void dropped() {
+		if (metrics != null) {
+			metrics.increment(MOLECULER_EVENT_QUEUE_DROPPED_TOTAL, MOLECULER_EVENT_QUEUE_DROPPED_TOTAL_DESC,
+					"service", service, "group", group);
+		}
+	}
+
+	// --- STOP PROCESSING ---
+
+	public void clear() {
+		queue.clear();
+		updateQueueSize();
+	}
+
+	// --- PROPERTY GETTERS ---
+
+	public String getService() {
+		return service;
+	}
+
+	public String getGroup() {
+		return group;
+	}
+
+	public int getSize() {
+		return queue.size();
+	}
+
+	public int getCapacity() {
+		return queue.size() + queue.remainingCapacity();
+	}
+
+	public OverflowPolicy getOverflow() {
+		return overflow;
+	}
+
+}
@@ -25,12 +25,15 @@
  */
 package services.moleculer.eventbus;
 
+import java.util.concurrent.ExecutorService;
+
 import services.moleculer.context.Context;
 import services.moleculer.error.MoleculerError;
 import services.moleculer.metrics.MetricCounter;
 import services.moleculer.metrics.MetricConstants;
 import services.moleculer.metrics.Metrics;
 import services.moleculer.metrics.StoppableTimer;
+import services.moleculer.service.ExecutionLanes;
 
 public class LocalListenerEndpoint extends ListenerEndpoint implements MetricConstants {
 
@@ -46,19 +49,125 @@ public class LocalListenerEndpoint extends ListenerEndpoint implements MetricCon
 	 */
 	protected Metrics metrics;
 
-	// --- CONSTRUCTOR ---
+	/**
+	 * Priority-based execution lanes (or null)
+	 */
+	protected ExecutionLanes lanes;
+
+	/**
+	 * Event queue of the listener's group (or null)
+	 */
+	protected ListenerQueue queue;
+
+	/**
+	 * Executor of the debounced events (or null)
+	 */
+	protected ExecutorService executor;
+
+	// --- CONSTRUCTORS ---
 
 	public LocalListenerEndpoint(String nodeID, String service, String group, String subscribe, Listener listener,
 			boolean privateAccess, Metrics metrics) {
+		this(nodeID, service, group, subscribe, listener, privateAccess, metrics, null);
+	}
+
+	public LocalListenerEndpoint(String nodeID, String service, String group, String subscribe, Listener listener,
+			boolean privateAccess, Metrics metrics, ExecutionLanes lanes) {
+		this(nodeID, service, group, subscribe, listener, privateAccess, metrics, lanes, null);
+	}
+
+	public LocalListenerEndpoint(String nodeID, String service, String group, String subscribe, Listener listener,
+			boolean privateAccess, Metrics metrics, ExecutionLanes lanes, ListenerQueue queue) {
+		this(nodeID, service, group, subscribe, listener, privateAccess, metrics, lanes, queue, null);
+	}
+
+	public LocalListenerEndpoint(String nodeID, String service, String group, String subscribe, Listener listener,
+			boolean privateAccess, Metrics metrics, ExecutionLanes lanes, ListenerQueue queue,
+			ExecutorService executor) {
 		super(nodeID, service, group, subscribe, privateAccess);
 		this.listener = listener;
 		this.metrics = metrics;
+		this.lanes = lanes;
+		this.queue = queue;
+		this.executor = executor;
 	}
 
 	// --- INVOKE LOCAL LISTENER ---
 
 	@Override
 	public void on(Context ctx, Groups groups, boolean broadcast) throws Exception {
+
+		// Throttling, debouncing and sampling
+		if (shaper != null && !shaper.accept(ctx, () -> {
+
+			// Debounced event (don't block the shared scheduler's thread)
+			try {
+				dispatch(ctx, executor);
+			} catch (Throwable cause) {
+				logger.error("Unable to invoke event listener!", cause);
+			}
+		})) {
+			return;
+		}
+		dispatch(ctx, null);
+	}
+
+	@Override
+	public void onShaped(Context ctx, Groups groups) throws Exception {
+
+		// Sampling only (the sender node doesn't sample)
+		if (shaper != null && !shaper.sample()) {
+			return;
+		}
+		dispatch(ctx, null);
+	}
+
+	protected void dispatch(Context ctx, ExecutorService fallback) throws Exception {
+		if (queue != null) {
+
+			// Invoke asynchronously (in the order of the events)
+			queue.submit(() -> {
+				try {
+					invoke(ctx);
+				} catch (Throwable cause) {
+					logger.error("Unable to invoke event listener!", cause);
+				}
+			});
+			return;
+		}
+		ExecutionLanes.Lane lane = lanes == null ? null : lanes.getEventLane(ctx);
+		if (lane == null) {
+			if (fallback == null) {
+
+				// Invoke in the current thread
+				invoke(ctx);
+
+			} else {
+
+				// Invoke in the fallback executor
+				fallback.execute(() -> {
+					try {
+						invoke(ctx);
+					} catch (Throwable cause) {
+						logger.error("Unable to invoke event listener!", cause);
+					}
+				});
+			}
+
+		} else {
+
+			// Invoke in the selected lane
+			lane.execute(() -> {
+				try {
+					invoke(ctx);
+				} catch (Throwable cause) {
+					logger.error("Unable to invoke event listener!", cause);
+				}
+			});
+		}
+	}
+
+	protected void invoke(Context ctx) throws Exception {
 		if (metrics == null) {
 
 			// Call without metrics
@@ -84,19 +84,22 @@ public final class Matcher {
 			}
 		}
 
-		// Regex (eg. "prefix.ab?cd.*.foo")
+		// Regex (eg. "prefix.ab?cd.*.foo"). The "?" matches one character
+		// within a segment (never the "." separator), like "*" and the
+		// SubscriptionTrie.
 		Pattern regex = regexCache.get(pattern);
 		if (regex == null) {
 			String regexPattern = pattern;
 			if (regexPattern.startsWith("$")) {
 				regexPattern = '\\' + regexPattern;
 			}
-			regexPattern = regexPattern.replace("?", ".");
+			regexPattern = regexPattern.replace(".", "\\.");
+			regexPattern = regexPattern.replace("?", "[^\\.]");
 			regexPattern = regexPattern.replace("**", "§§§");
 			regexPattern = regexPattern.replace("*", "[^\\.]*");
 			regexPattern = regexPattern.replace("§§§", ".*");
 			regex = Pattern.compile("^" + regexPattern + "$");
-			regexCache.put(regexPattern, regex);
+			regexCache.put(pattern, regex);
 		}
 		return regex.matcher(text).matches();
 	}
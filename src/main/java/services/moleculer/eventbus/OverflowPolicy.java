@@ -0,0 +1,55 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.eventbus;
+
+/**
+ * What to do when the queue of an asynchronous event listener is full.
+ * 
+ * @see Async
+ * @see ListenerQueue
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Block the emitter until there is free space in the queue. Use it only if
+	 * the events are emitted from the caller's own threads: when the emitters
+	 * are the executor's threads, all of them can be blocked on a full queue
+	 * while the queue's worker waits for a free thread in the same executor, so
+	 * the node deadlocks.
+	 */
+	BLOCK,
+
+	/**
+	 * Drop the oldest queued event and add the new one (default).
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Drop the new event.
+	 */
+	DROP_NEWEST
+
+}
@@ -54,6 +54,20 @@ public class RemoteListenerEndpoint extends ListenerEndpoint {
 	@Override
 	public void on(Context ctx, Groups groups, boolean broadcast) throws Exception {
 
+		// Drop throttled / debounced events before serialization. The packet
+		// is marked as "shaped", so the receiving node doesn't shape it again.
+		// Broadcasted events are not shaped here: they are sent to all nodes
+		// in one shared packet, and the listeners are shaped by the receiving
+		// node.
+		if (shaper != null && !broadcast && ctx.stream == null) {
+			if (shaper.accept(ctx, () -> {
+				transporter.sendEventPacket(nodeID, ctx, groups, false, true);
+			})) {
+				transporter.sendEventPacket(nodeID, ctx, groups, false, true);
+			}
+			return;
+		}
+
 		// Send event via transporter
 		transporter.sendEventPacket(nodeID, ctx, groups, broadcast);
 		
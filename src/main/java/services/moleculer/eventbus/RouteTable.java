@@ -0,0 +1,148 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.eventbus;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking table of resolved event routes (event name -> listeners). The
+ * routes are invalidated by increasing the generation counter (instead of
+ * clearing a synchronized map), entries of older generations are ignored by
+ * the readers and purged by the first writer of the new generation.
+ */
+public class RouteTable<V> {
+
+	// --- PROPERTIES ---
+
+	protected final ConcurrentHashMap<String, Route<V>> routes;
+
+	protected final AtomicLong generation = new AtomicLong();
+
+	protected final AtomicLong purged = new AtomicLong();
+
+	protected final int maxSize;
+
+	// --- CONSTRUCTOR ---
+
+	public RouteTable(int maxSize) {
+		this.maxSize = Math.max(1, maxSize);
+		this.routes = new ConcurrentHashMap<>(Math.min(this.maxSize, 1024));
+	}
+
+	// --- GET ROUTE ---
+
+	public V get(String key) {
+		Route<V> route = routes.get(key);
+		if (route == null || route.generation != generation.get()) {
+			return null;
+		}
+		return route.value;
+	}
+
+	// --- STORE ROUTE ---
+
+	/**
+	 * Stores a resolved route.
+	 * 
+	 * @param key
+	 *            event name (and groups)
+	 * @param value
+	 *            resolved listeners
+	 * @param generation
+	 *            generation of the topology (from the {@link #generation()}
+	 *            method) the route was resolved from
+	 */
+	public void put(String key, V value, long generation) {
+		if (generation != this.generation.get()) {
+
+			// Topology changed during the resolution
+			return;
+		}
+
+		// Drop the routes of the older generations (once per generation)
+		long last = purged.get();
+		if (last != generation && purged.compareAndSet(last, generation)) {
+			purge(generation);
+		}
+		if (routes.size() >= maxSize && !routes.containsKey(key)) {
+
+			// Purge late writes of older generations, then evict a live route
+			purge(generation);
+			if (routes.size() >= maxSize) {
+				Iterator<String> i = routes.keySet().iterator();
+				if (i.hasNext()) {
+					i.next();
+					i.remove();
+				}
+			}
+		}
+		routes.put(key, new Route<>(value, generation));
+	}
+
+	protected void purge(long generation) {
+		Iterator<Route<V>> i = routes.values().iterator();
+		while (i.hasNext()) {
+			if (i.next().generation != generation) {
+				i.remove();
+			}
+		}
+	}
+
+	// --- INVALIDATE ALL ROUTES ---
+
+	public void invalidate() {
+		generation.incrementAndGet();
+	}
+
+	// --- CURRENT GENERATION ---
+
+	public long generation() {
+		return generation.get();
+	}
+
+	// --- NUMBER OF STORED ROUTES ---
+
+	public int size() {
+		return routes.size();
+	}
+
+	// --- ROUTE ENTRY ---
+
+	protected static final class Route<V> {
+
+		protected final V value;
+		protected final long generation;
+
+		protected Route(V value, long generation) {
+			this.value = value;
+			this.generation = generation;
+		}
+
+	}
+
+}
@@ -0,0 +1,308 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.eventbus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Segment trie of event masks (eg. "service.event.**"). Finds all values of
+ * the masks matching an event name in time proportional to the number of
+ * segments of the event name. Masks which can't be split into segments (eg.
+ * "prefix**suffix") are checked with the {@link Matcher}. Not thread-safe,
+ * the caller must synchronize the modifications.
+ */
+public class SubscriptionTrie<T> {
+
+	// --- ROOT NODE ---
+
+	protected final Node<T> root = new Node<>();
+
+	// --- MASKS WHICH ARE NOT SEGMENT-BASED ---
+
+	protected final LinkedHashMap<String, T> complexMasks = new LinkedHashMap<>();
+
+	// --- ADD MASK ---
+
+	public void put(String mask, T value) {
+		if (isComplex(mask)) {
+			complexMasks.put(mask, value);
+			return;
+		}
+		Node<T> node = root;
+		for (String segment : split(mask)) {
+			node = node.getOrCreateChild(segment);
+		}
+		node.value = value;
+	}
+
+	// --- REMOVE MASK ---
+
+	public void remove(String mask) {
+		if (isComplex(mask)) {
+			complexMasks.remove(mask);
+			return;
+		}
+		remove(root, split(mask), 0);
+	}
+
+	protected boolean remove(Node<T> node, String[] segments, int index) {
+		if (index == segments.length) {
+			node.value = null;
+		} else {
+			Node<T> child = node.getChild(segments[index]);
+			if (child != null && remove(child, segments, index + 1)) {
+				node.removeChild(segments[index]);
+			}
+		}
+		return node.isEmpty();
+	}
+
+	// --- REMOVE ALL MASKS ---
+
+	public void clear() {
+		root.clear();
+		complexMasks.clear();
+	}
+
+	// --- FIND VALUES OF THE MATCHING MASKS ---
+
+	public List<T> match(String name) {
+		Set<T> values = Collections.newSetFromMap(new IdentityHashMap<>());
+		ArrayList<T> list = new ArrayList<>();
+		collect(root, split(name), 0, values, list);
+		if (!complexMasks.isEmpty()) {
+			for (Map.Entry<String, T> entry : complexMasks.entrySet()) {
+				if (Matcher.matches(name, entry.getKey()) && values.add(entry.getValue())) {
+					list.add(entry.getValue());
+				}
+			}
+		}
+		return list;
+	}
+
+	protected void collect(Node<T> node, String[] segments, int index, Set<T> values, List<T> list) {
+		if (index == segments.length) {
+			if (node.value != null && values.add(node.value)) {
+				list.add(node.value);
+			}
+			return;
+		}
+		String segment = segments[index];
+
+		// Exact segment (eg. "service")
+		if (node.literals != null) {
+			Node<T> child = node.literals.get(segment);
+			if (child != null) {
+				collect(child, segments, index + 1, values, list);
+			}
+		}
+
+		// Single segment (eg. "*")
+		if (node.star != null) {
+			collect(node.star, segments, index + 1, values, list);
+		}
+
+		// Segment with wildcards (eg. "user?", "*Created")
+		if (node.globs != null) {
+			for (Map.Entry<String, Node<T>> entry : node.globs.entrySet()) {
+				if (globMatches(segment, entry.getKey())) {
+					collect(entry.getValue(), segments, index + 1, values, list);
+				}
+			}
+		}
+
+		// One or more segments (eg. "**")
+		if (node.doubleStar != null) {
+			for (int i = index + 1; i <= segments.length; i++) {
+				collect(node.doubleStar, segments, i, values, list);
+			}
+		}
+	}
+
+	// --- INTERNAL METHODS ---
+
+	protected static boolean isComplex(String mask) {
+		for (int i = 0; i < mask.length(); i++) {
+			char c = mask.charAt(i);
+			if (c == '\\' || c == '^' || c == '[') {
+				return true;
+			}
+		}
+		int start = 0;
+		int end;
+		do {
+			end = mask.indexOf('.', start);
+			String segment = end == -1 ? mask.substring(start) : mask.substring(start, end);
+			if (segment.contains("**") && !segment.equals("**")) {
+				return true;
+			}
+			start = end + 1;
+		} while (end != -1);
+		return false;
+	}
+
+	protected static String[] split(String name) {
+		int count = 1;
+		for (int i = 0; i < name.length(); i++) {
+			if (name.charAt(i) == '.') {
+				count++;
+			}
+		}
+		String[] segments = new String[count];
+		int start = 0;
+		for (int i = 0; i < count - 1; i++) {
+			int end = name.indexOf('.', start);
+			segments[i] = name.substring(start, end);
+			start = end + 1;
+		}
+		segments[count - 1] = name.substring(start);
+		return segments;
+	}
+
+	protected static boolean isGlob(String segment) {
+		return segment.indexOf('*') > -1 || segment.indexOf('?') > -1;
+	}
+
+	protected static boolean globMatches(String text, String pattern) {
+		int t = 0, p = 0, star = -1, mark = 0;
+		int textLength = text.length();
+		int patternLength = pattern.length();
+		while (t < textLength) {
+			if (p < patternLength && (pattern.charAt(p) == '?' || pattern.charAt(p) == text.charAt(t))) {
+				t++;
+				p++;
+			} else if (p < patternLength && pattern.charAt(p) == '*') {
+				star = p++;
+				mark = t;
+			} else if (star > -1) {
+				p = star + 1;
+				t = ++mark;
+			} else {
+				return false;
+			}
+		}
+		while (p < patternLength && pattern.charAt(p) == '*') {
+			p++;
+		}
+		return p == patternLength;
+	}
+
+	// --- TRIE NODE ---
+
+	protected static class Node<T> {
+
+		// --- CHILD NODES ---
+
+		protected HashMap<String, Node<T>> literals;
+		protected LinkedHashMap<String, Node<T>> globs;
+		protected Node<T> star;
+		protected Node<T> doubleStar;
+
+		// --- VALUE OF THE MASK ---
+
+		protected T value;
+
+		// --- CHILD HANDLING ---
+
+		protected Node<T> getChild(String segment) {
+			if ("*".equals(segment)) {
+				return star;
+			}
+			if ("**".equals(segment)) {
+				return doubleStar;
+			}
+			if (isGlob(segment)) {
+				return globs == null ? null : globs.get(segment);
+			}
+			return literals == null ? null : literals.get(segment);
+		}
+
+		protected Node<T> getOrCreateChild(String segment) {
+			Node<T> child = getChild(segment);
+			if (child != null) {
+				return child;
+			}
+			child = new Node<>();
+			if ("*".equals(segment)) {
+				star = child;
+			} else if ("**".equals(segment)) {
+				doubleStar = child;
+			} else if (isGlob(segment)) {
+				if (globs == null) {
+					globs = new LinkedHashMap<>();
+				}
+				globs.put(segment, child);
+			} else {
+				if (literals == null) {
+					literals = new HashMap<>();
+				}
+				literals.put(segment, child);
+			}
+			return child;
+		}
+
+		protected void removeChild(String segment) {
+			if ("*".equals(segment)) {
+				star = null;
+			} else if ("**".equals(segment)) {
+				doubleStar = null;
+			} else if (isGlob(segment)) {
+				if (globs != null) {
+					globs.remove(segment);
+					if (globs.isEmpty()) {
+						globs = null;
+					}
+				}
+			} else if (literals != null) {
+				literals.remove(segment);
+				if (literals.isEmpty()) {
+					literals = null;
+				}
+			}
+		}
+
+		protected boolean isEmpty() {
+			return value == null && literals == null && globs == null && star == null && doubleStar == null;
+		}
+
+		protected void clear() {
+			literals = null;
+			globs = null;
+			star = null;
+			doubleStar = null;
+			value = null;
+		}
+
+	}
+
+}
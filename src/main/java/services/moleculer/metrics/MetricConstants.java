@@ -81,6 +81,9 @@ public interface MetricConstants {
 	public static final String MOLECULER_TRANSIT_ORPHAN_RESPONSE_TOTAL = "moleculer.transit.orphan.response.total";
 	public static final String MOLECULER_TRANSIT_ORPHAN_RESPONSE_TOTAL_DESC = "Number of orphan responses";
 
+	public static final String MOLECULER_TRANSIT_REQUESTS_REJECTED_TOTAL = "moleculer.transit.requests.rejected.total";
+	public static final String MOLECULER_TRANSIT_REQUESTS_REJECTED_TOTAL_DESC = "Number of requests rejected by the overload detector";
+
 	// --- MOLECULER TRANSPORTER METRICS ---
 
 	public static final String MOLECULER_TRANSPORTER_PACKETS_SENT_TOTAL = "moleculer.transporter.packets.sent.total";
@@ -111,6 +114,30 @@ public interface MetricConstants {
 	public static final String MOLECULER_REQUEST_RETRY_ATTEMPTS_TOTAL = "moleculer.request.retry.attempts.total";
 	public static final String MOLECULER_REQUEST_RETRY_ATTEMPTS_TOTAL_DESC = "Number of retries";
 
+	// --- MOLECULER HEDGING METRICS ---
+
+	public static final String MOLECULER_REQUEST_HEDGE_ATTEMPTS_TOTAL = "moleculer.request.hedge.attempts.total";
+	public static final String MOLECULER_REQUEST_HEDGE_ATTEMPTS_TOTAL_DESC = "Number of hedged (duplicated) requests";
+
+	public static final String MOLECULER_REQUEST_HEDGE_WINS_TOTAL = "moleculer.request.hedge.wins.total";
+	public static final String MOLECULER_REQUEST_HEDGE_WINS_TOTAL_DESC = "Number of hedged requests answered before the original request";
+
+	// --- MOLECULER EXECUTION LANE METRICS ---
+
+	public static final String MOLECULER_LANE_QUEUE_WAIT_TIME = "moleculer.lane.queue.wait.time";
+	public static final String MOLECULER_LANE_QUEUE_WAIT_TIME_DESC = "Time spent by tasks in the queue of the execution lane";
+
+	public static final String MOLECULER_LANE_REJECTED_TOTAL = "moleculer.lane.rejected.total";
+	public static final String MOLECULER_LANE_REJECTED_TOTAL_DESC = "Number of tasks rejected by the execution lane";
+
+	// --- MOLECULER ASYNC EVENT QUEUE METRICS ---
+
+	public static final String MOLECULER_EVENT_QUEUE_SIZE = "moleculer.event.queue.size";
+	public static final String MOLECULER_EVENT_QUEUE_SIZE_DESC = "Number of queued events of asynchronous listeners";
+
+	public static final String MOLECULER_EVENT_QUEUE_DROPPED_TOTAL = "moleculer.event.queue.dropped.total";
+	public static final String MOLECULER_EVENT_QUEUE_DROPPED_TOTAL_DESC = "Number of events dropped by full listener queues";
+
 	// --- MOLECULER TIMEOUT METRICS ---
 
 	public static final String MOLECULER_REQUEST_TIMEOUT_TOTAL = "moleculer.request.timeout.total";
@@ -148,6 +175,18 @@ public interface MetricConstants {
 	public static final String MOLECULER_CACHER_EXPIRED_TOTAL = "moleculer.cacher.expired.total";
 	public static final String MOLECULER_CACHER_EXPIRED_TOTAL_DESC = "Expired cache entries";
 
+	public static final String MOLECULER_CACHER_EVICTED_TOTAL = "moleculer.cacher.evicted.total";
+	public static final String MOLECULER_CACHER_EVICTED_TOTAL_DESC = "Cache entries evicted by the capacity limit";
+
+	public static final String MOLECULER_CACHER_HIT_TOTAL = "moleculer.cacher.hit.total";
+	public static final String MOLECULER_CACHER_HIT_TOTAL_DESC = "Number of cache hits by cache level";
+
+	public static final String MOLECULER_CACHER_HIT_RATIO = "moleculer.cacher.hit.ratio";
+	public static final String MOLECULER_CACHER_HIT_RATIO_DESC = "Hit ratio by cache level (0...1)";
+
+	public static final String MOLECULER_CACHER_BYTES_USED = "moleculer.cacher.bytes.used";
+	public static final String MOLECULER_CACHER_BYTES_USED_DESC = "Estimated heap size of cached entries by partition";
+
 	// --- MOLECULER EXECUTOR METRICS ---
 
 	public static final String MOLECULER_EXECUTOR = "moleculer.executor";
@@ -29,10 +29,13 @@ import static services.moleculer.util.CommonUtils.compress;
 import static services.moleculer.util.CommonUtils.decompress;
 import static services.moleculer.util.CommonUtils.formatNamoSec;
 
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 
 import io.datatree.Tree;
 import services.moleculer.service.Name;
+import services.moleculer.util.Lz4Codec;
 
 /**
  * Message compressor / decompressor. Sample of usage:<br>
@@ -52,6 +55,8 @@ import services.moleculer.service.Name;
  * BlockCipherSerializer cipher = new BlockCipherSerializer(deflater);
  * trans.setSerializer(cipher);
  * </pre>
+ * 
+ * @see Lz4Serializer
  */
 @Name("Deflater Serializer")
 public class DeflaterSerializer extends ChainedSerializer {
@@ -69,6 +74,11 @@ public class DeflaterSerializer extends ChainedSerializer {
 	 */
 	protected int compressionLevel = Deflater.BEST_SPEED;
 
+	/**
+	 * Maximum size of the decompressed LZ4 content (BYTES)
+	 */
+	protected int maxLength = 64 * 1024 * 1024;
+
 	// --- CONSTRUCTORS ---
 
 	/**
@@ -141,30 +151,25 @@ public class DeflaterSerializer extends ChainedSerializer {
 		// Serialize content
 		byte[] bytes = parent.write(value);
 
-		// Compress content
-		boolean compressed;
+		// Compress content (into a buffer with one byte header space)
 		if (threshold > 0 && bytes.length > threshold) {
+			byte[] compressed;
 			if (debug) {
 				long start = System.nanoTime();
-				byte[] compressedBytes = compress(bytes, compressionLevel);
+				compressed = compress(bytes, 0, bytes.length, compressionLevel, 1);
 				long duration = System.nanoTime() - start;
 				logger.info("Packet compressed in " + formatNamoSec(duration) + " (from " + bytes.length + " bytes to "
-						+ compressedBytes.length + " bytes).");
-				bytes = compressedBytes;
+						+ (compressed.length - 1) + " bytes).");
 			} else {
-				bytes = compress(bytes, compressionLevel);
+				compressed = compress(bytes, 0, bytes.length, compressionLevel, 1);
 			}
-			compressed = true;
-		} else {
-			compressed = false;
-		}
-		byte[] copy = new byte[bytes.length + 1];
-		System.arraycopy(bytes, 0, copy, 1, bytes.length);
-		if (compressed) {
 
 			// Compressed = first byte is "1"
-			copy[0] = 1;
+			compressed[0] = 1;
+			return compressed;
 		}
+		byte[] copy = new byte[bytes.length + 1];
+		System.arraycopy(bytes, 0, copy, 1, bytes.length);
 		return copy;
 	}
 
@@ -172,26 +177,35 @@ public class DeflaterSerializer extends ChainedSerializer {
 
 	public Tree read(byte[] source) throws Exception {
 
-		// Decompress content
-		byte[] copy = new byte[source.length - 1];
-		System.arraycopy(source, 1, copy, 0, source.length - 1);
+		// Decompress content (after the header byte)
+		byte[] bytes;
 		if (source[0] == 1) {
 
 			// First byte == 1 -> compressed
 			if (debug) {
 				long start = System.nanoTime();
-				byte[] decompressed = decompress(copy);
+				bytes = decompress(source, 1, source.length - 1);
 				long duration = System.nanoTime() - start;
-				logger.info("Packet extracted in " + formatNamoSec(duration) + " (from " + copy.length + " bytes to "
-						+ decompressed.length + " bytes).");
-				copy = decompressed;
+				logger.info("Packet extracted in " + formatNamoSec(duration) + " (from " + (source.length - 1)
+						+ " bytes to " + bytes.length + " bytes).");
 			} else {
-				copy = decompress(copy);
+				bytes = decompress(source, 1, source.length - 1);
+			}
+		} else if (source[0] == 2) {
+
+			// First byte == 2 -> LZ4 block (by Lz4Serializer)
+			if (source.length < 5) {
+				throw new DataFormatException("Truncated LZ4 packet (" + source.length + " bytes)!");
 			}
+			int length = (source[1] & 0xFF) << 24 | (source[2] & 0xFF) << 16 | (source[3] & 0xFF) << 8
+					| (source[4] & 0xFF);
+			bytes = Lz4Codec.decompress(source, 5, source.length - 5, length, maxLength);
+		} else {
+			bytes = Arrays.copyOfRange(source, 1, source.length);
 		}
 
 		// Deserialize content
-		return parent.read(copy);
+		return parent.read(bytes);
 	}
 
 	// --- GETTERS / SETTERS ---
@@ -212,4 +226,12 @@ public class DeflaterSerializer extends ChainedSerializer {
 		this.threshold = threshold;
 	}
 
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	public void setMaxLength(int maxLength) {
+		this.maxLength = maxLength;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,218 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import static services.moleculer.util.CommonUtils.decompress;
+import static services.moleculer.util.CommonUtils.formatNamoSec;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+import io.datatree.Tree;
+import services.moleculer.service.Name;
+import services.moleculer.util.Lz4Codec;
+
+/**
+ * Fast message compressor / decompressor, based on the LZ4 algorithm (pure Java
+ * implementation, no additional dependency required). LZ4 compresses less than
+ * DeflaterSerializer, but it is several times faster, so it is a better choice
+ * for fast networks (where the CPU time of the compression costs more than the
+ * transferred bytes). The first byte of the packets is the same flag byte as in
+ * the DeflaterSerializer (0 = uncompressed, 1 = deflated, 2 = LZ4), and both
+ * Serializers can read the packets of the other. Older DeflaterSerializers
+ * (before the LZ4 support) reject the LZ4 packets, so in a mixed cluster, enable
+ * the Lz4Serializer only after all nodes have been upgraded. Sample of usage:<br>
+ * 
+ * <pre>
+ * Transporter trans = new NatsTransporter("localhost");
+ * trans.setSerializer(new Lz4Serializer());
+ * ServiceBroker broker = ServiceBroker.builder().nodeID("node1").transporter(trans).build();
+ * </pre>
+ * 
+ * Compressing the values of the OHCacher (or RedisCacher):
+ * 
+ * <pre>
+ * OHCacher cacher = new OHCacher();
+ * cacher.setCompressAbove(0);
+ * cacher.setSerializer(new Lz4Serializer());
+ * </pre>
+ */
+@Name("LZ4 Serializer")
+public class Lz4Serializer extends ChainedSerializer {
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Compress content above this size (BYTES), 0 = disable compression
+	 */
+	protected int threshold = 1024;
+
+	/**
+	 * Maximum size of the decompressed LZ4 content (BYTES)
+	 */
+	protected int maxLength = 64 * 1024 * 1024;
+
+	// --- CONSTRUCTORS ---
+
+	/**
+	 * Creates a JSON-based Serializer that compresses content above 1024
+	 * bytes.
+	 */
+	public Lz4Serializer() {
+		this(null, 1024);
+	}
+
+	/**
+	 * Creates a JSON-based Serializer that compresses content above a specified
+	 * size.
+	 * 
+	 * @param threshold
+	 *            Compress content above this size (BYTES), 0 = disable
+	 *            compression
+	 */
+	public Lz4Serializer(int threshold) {
+		this(null, threshold);
+	}
+
+	/**
+	 * Creates a custom Serializer that compresses content above 1024 bytes.
+	 * 
+	 * @param parent
+	 *            parent Serializer (eg. a JsonSerializer)
+	 */
+	public Lz4Serializer(Serializer parent) {
+		this(parent, 1024);
+	}
+
+	/**
+	 * Creates a custom Serializer that compresses content above a specified
+	 * size.
+	 * 
+	 * @param parent
+	 *            parent Serializer (eg. a JsonSerializer)
+	 * @param threshold
+	 *            Compress content above this size (BYTES), 0 = disable
+	 *            compression
+	 */
+	public Lz4Serializer(Serializer parent, int threshold) {
+		super(parent == null ? new JsonSerializer() : parent);
+		setThreshold(threshold);
+	}
+
+	// --- SERIALIZE AND COMPRESS TREE TO BYTE ARRAY ---
+
+	@Override
+	public byte[] write(Tree value) throws Exception {
+
+		// Serialize content
+		byte[] bytes = parent.write(value);
+
+		// Compress content (header = flag byte + uncompressed length)
+		if (threshold > 0 && bytes.length > threshold) {
+			byte[] compressed;
+			if (debug) {
+				long start = System.nanoTime();
+				compressed = Lz4Codec.compress(bytes, 0, bytes.length, 5);
+				long duration = System.nanoTime() - start;
+				logger.info("Packet compressed in " + formatNamoSec(duration) + " (from " + bytes.length + " bytes to "
+						+ (compressed.length - 5) + " bytes).");
+			} else {
+				compressed = Lz4Codec.compress(bytes, 0, bytes.length, 5);
+			}
+			if (compressed.length < bytes.length + 1) {
+
+				// Compressed = first byte is "2"
+				compressed[0] = 2;
+				compressed[1] = (byte) (bytes.length >>> 24);
+				compressed[2] = (byte) (bytes.length >>> 16);
+				compressed[3] = (byte) (bytes.length >>> 8);
+				compressed[4] = (byte) bytes.length;
+				return compressed;
+			}
+		}
+		byte[] copy = new byte[bytes.length + 1];
+		System.arraycopy(bytes, 0, copy, 1, bytes.length);
+		return copy;
+	}
+
+	// --- DECOMPRESS AND DESERIALIZE BYTE ARRAY TO TREE ---
+
+	@Override
+	public Tree read(byte[] source) throws Exception {
+
+		// Decompress content (after the header)
+		byte[] bytes;
+		if (source[0] == 0) {
+			bytes = Arrays.copyOfRange(source, 1, source.length);
+		} else if (debug) {
+			long start = System.nanoTime();
+			bytes = extract(source);
+			long duration = System.nanoTime() - start;
+			logger.info("Packet extracted in " + formatNamoSec(duration) + " (from " + source.length + " bytes to "
+					+ bytes.length + " bytes).");
+		} else {
+			bytes = extract(source);
+		}
+
+		// Deserialize content
+		return parent.read(bytes);
+	}
+
+	protected byte[] extract(byte[] source) throws Exception {
+		if (source[0] == 1) {
+
+			// First byte == 1 -> deflated (by DeflaterSerializer)
+			return decompress(source, 1, source.length - 1);
+		}
+
+		// First byte == 2 -> LZ4 block (after the uncompressed length)
+		if (source.length < 5) {
+			throw new DataFormatException("Truncated LZ4 packet (" + source.length + " bytes)!");
+		}
+		int length = (source[1] & 0xFF) << 24 | (source[2] & 0xFF) << 16 | (source[3] & 0xFF) << 8
+				| (source[4] & 0xFF);
+		return Lz4Codec.decompress(source, 5, source.length - 5, length, maxLength);
+	}
+
+	// --- GETTERS / SETTERS ---
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	public void setThreshold(int threshold) {
+		this.threshold = threshold;
+	}
+
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	public void setMaxLength(int maxLength) {
+		this.maxLength = maxLength;
+	}
+
+}
@@ -140,4 +140,9 @@ public abstract class ActionEndpoint extends Endpoint implements Action {
 		return localOnly;
 	}
 
+	@Override
+	public String getServiceName() {
+		return service;
+	}
+
 }
\ No newline at end of file
@@ -27,6 +27,10 @@ package services.moleculer.service;
 
 import java.util.Objects;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import io.datatree.Promise;
@@ -42,7 +46,13 @@ import services.moleculer.metrics.Metrics;
 import services.moleculer.uid.UidGenerator;
 
 /**
- * Default service invoker with retry logic.
+ * Default service invoker with retry logic and hedged requests. Hedged request
+ * means: if no response arrives within the specified delay, the same request
+ * is sent to another node, and the first (successful) response wins. The
+ * response of the "loser" request is ignored (but it is not an orphan
+ * response, because the request was registered as a normal pending call).
+ * 
+ * @see services.moleculer.context.CallOptions#hedge(long)
  */
 @Name("Default Service Invoker")
 public class DefaultServiceInvoker extends ServiceInvoker implements MetricConstants {
@@ -59,11 +69,24 @@ public class DefaultServiceInvoker extends ServiceInvoker implements MetricConst
 	 */
 	protected int maxCallLevel = 100;
 
+	/**
+	 * Hedging delay in milliseconds, when the delay is "HEDGE_P95", but the
+	 * observed response times of the endpoint are not available yet
+	 */
+	protected long defaultHedgeDelay = 100;
+
+	/**
+	 * Max number of attempts to find a second endpoint (on a different node)
+	 * for the hedged request
+	 */
+	protected int maxHedgeLookups = 3;
+
 	// --- COMPONENTS ---
 
 	protected ServiceRegistry serviceRegistry;
 	protected Eventbus eventbus;
 	protected UidGenerator uidGenerator;
+	protected ScheduledExecutorService scheduler;
 	protected Metrics metrics;
 
 	// --- RETRY LOGIC (BY ERROR) ---
@@ -95,6 +118,7 @@ public class DefaultServiceInvoker extends ServiceInvoker implements MetricConst
 		this.serviceRegistry = cfg.getServiceRegistry();
 		this.eventbus = cfg.getEventbus();
 		this.uidGenerator = cfg.getUidGenerator();
+		this.scheduler = cfg.getScheduler();
 		if (cfg.isMetricsEnabled()) {
 			metrics = cfg.getMetrics();
 		}
@@ -124,6 +148,13 @@ public class DefaultServiceInvoker extends ServiceInvoker implements MetricConst
 	}
 
 	protected Promise call(Context ctx, String targetID, int remaining) {
+
+		// Hedged (duplicated) request
+		if (targetID == null && ctx.opts != null && ctx.opts.hedgeDelay != 0 && ctx.stream == null) {
+			return hedge(ctx, remaining);
+		}
+
+		// Simple request
 		try {
 			Action action = serviceRegistry.getAction(ctx.name, targetID);
 			if (remaining < 1 && !writeErrorsToLog) {
@@ -137,6 +168,108 @@ public class DefaultServiceInvoker extends ServiceInvoker implements MetricConst
 		}
 	}
 
+	// --- HEDGED CALL ---
+
+	protected Promise hedge(Context ctx, int remaining) {
+		try {
+			Action action = serviceRegistry.getAction(ctx.name, null);
+			long delay = getHedgeDelay(ctx.opts.hedgeDelay, action);
+
+			// Shared result of the original and the hedged request
+			Promise result = new Promise();
+			AtomicInteger pending = new AtomicInteger(1);
+
+			// Send the duplicated request when the delay is elapsed
+			ScheduledFuture<?> timer = scheduler.schedule(() -> {
+				if (result.isDone()) {
+					return;
+				}
+				String firstID = action instanceof Endpoint ? ((Endpoint) action).getNodeID() : null;
+				Action second = null;
+				for (int i = 0; i < maxHedgeLookups; i++) {
+					try {
+						Action test = serviceRegistry.getAction(ctx.name, null);
+						if (test instanceof Endpoint && !((Endpoint) test).getNodeID().equals(firstID)) {
+							second = test;
+							break;
+						}
+					} catch (Throwable notAvailable) {
+						break;
+					}
+				}
+				if (second == null) {
+
+					// There is only one node
+					return;
+				}
+				pending.incrementAndGet();
+
+				// Metrics
+				if (metrics != null) {
+					metrics.increment(MOLECULER_REQUEST_HEDGE_ATTEMPTS_TOTAL,
+							MOLECULER_REQUEST_HEDGE_ATTEMPTS_TOTAL_DESC, "action", ctx.name);
+				}
+
+				// Create new Context (with new id)
+				attempt(new Context(this, eventbus, uidGenerator, uidGenerator.nextUID(), ctx.name, ctx.params,
+						ctx.level, ctx.parentID, ctx.requestID, ctx.stream, ctx.opts, ctx.nodeID), second, result,
+						pending, null, true);
+
+			}, delay, TimeUnit.MILLISECONDS);
+
+			// Send the original request
+			attempt(ctx, action, result, pending, timer, false);
+
+			return result.catchError(cause -> {
+				return retry(ctx, null, remaining, cause);
+			});
+		} catch (Throwable cause) {
+			return retry(ctx, null, remaining, cause);
+		}
+	}
+
+	protected void attempt(Context ctx, Action action, Promise result, AtomicInteger pending, ScheduledFuture<?> timer,
+			boolean hedged) {
+		Promise rsp;
+		try {
+			rsp = Promise.resolve(action.handler(ctx));
+		} catch (Throwable cause) {
+			rsp = Promise.reject(cause);
+		}
+		rsp.then(in -> {
+			if (result.complete(in)) {
+				if (timer != null) {
+					timer.cancel(false);
+				}
+				if (hedged && metrics != null) {
+					metrics.increment(MOLECULER_REQUEST_HEDGE_WINS_TOTAL, MOLECULER_REQUEST_HEDGE_WINS_TOTAL_DESC,
+							"action", ctx.name);
+				}
+			}
+		}).catchError(cause -> {
+
+			// Reject when all requests are failed
+			if (pending.decrementAndGet() < 1 && result.complete(cause)) {
+				if (timer != null) {
+					timer.cancel(false);
+				}
+			}
+		});
+	}
+
+	protected long getHedgeDelay(long hedgeDelay, Action action) {
+		if (hedgeDelay > 0) {
+			return hedgeDelay;
+		}
+		if (action instanceof RemoteActionEndpoint) {
+			long p95 = ((RemoteActionEndpoint) action).getLatencyPercentile(95);
+			if (p95 > 0) {
+				return p95;
+			}
+		}
+		return defaultHedgeDelay;
+	}
+
 	// --- RETRY CALL ---
 
 	protected Promise retry(Context ctx, String targetID, int remaining, Throwable cause) {
@@ -206,4 +339,20 @@ public class DefaultServiceInvoker extends ServiceInvoker implements MetricConst
 		this.maxCallLevel = maxCallLevel;
 	}
 
+	public long getDefaultHedgeDelay() {
+		return defaultHedgeDelay;
+	}
+
+	public void setDefaultHedgeDelay(long defaultHedgeDelay) {
+		this.defaultHedgeDelay = defaultHedgeDelay;
+	}
+
+	public int getMaxHedgeLookups() {
+		return maxHedgeLookups;
+	}
+
+	public void setMaxHedgeLookups(int maxHedgeLookups) {
+		this.maxHedgeLookups = maxHedgeLookups;
+	}
+
 }
\ No newline at end of file
@@ -51,6 +51,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -177,6 +178,7 @@ public class DefaultServiceRegistry extends ServiceRegistry implements MetricCon
 
 	protected ExecutorService executor;
 	protected ScheduledExecutorService scheduler;
+	protected ExecutionLanes lanes;
 	protected StrategyFactory strategyFactory;
 	protected Transporter transporter;
 	protected Eventbus eventbus;
@@ -279,6 +281,7 @@ public class DefaultServiceRegistry extends ServiceRegistry implements MetricCon
 		this.eventbus = cfg.getEventbus();
 		this.uidGenerator = cfg.getUidGenerator();
 		this.serviceInvoker = cfg.getServiceInvoker();
+		this.lanes = cfg.getLanes();
 		if (cfg.isMetricsEnabled()) {
 			metrics = cfg.getMetrics();
 			if (metrics != null) {
@@ -665,11 +668,17 @@ public class DefaultServiceRegistry extends ServiceRegistry implements MetricCon
 			}
 		}
 
-		// Get timeout
+		// Get timeout and priority
 		int timeout = message.get("timeout", 0);
+		int priority = message.get("priority", CallOptions.PRIORITY_NORMAL);
 		CallOptions.Options opts;
 		if (timeout > 0) {
 			opts = CallOptions.timeout(timeout);
+			if (priority != CallOptions.PRIORITY_NORMAL) {
+				opts = opts.priority(priority);
+			}
+		} else if (priority != CallOptions.PRIORITY_NORMAL) {
+			opts = CallOptions.priority(priority);
 		} else {
 			opts = null;
 		}
@@ -1190,46 +1199,132 @@ public class DefaultServiceRegistry extends ServiceRegistry implements MetricCon
 
 	@Override
 	public void addActions(String nodeID, Tree config) {
-		Tree actions = config.get("actions");
 		String serviceName = config.get("name", "");
-		int actionCounter = 0;
+		LinkedHashMap<String, List<ActionEndpoint>> endpoints = new LinkedHashMap<>();
+		int actionCounter = createRemoteEndpoints(nodeID, config, endpoints);
 
 		writeLock.lock();
 		try {
-			if (actions != null && actions.isMap()) {
-				for (Tree actionConfig : actions) {
-					actionConfig = actionConfig.clone();
-					actionConfig.putObject("nodeID", nodeID, true);
-					String actionName = actionConfig.get("name", "");
-
-					// Register remote action
-					RemoteActionEndpoint endpoint = new RemoteActionEndpoint(this, transporter, nodeID, serviceName,
-							actionConfig, actionName);
-					Strategy<ActionEndpoint> actionStrategy = strategies.get(actionName);
-					if (actionStrategy == null) {
-						actionStrategy = strategyFactory.create();
-						strategies.put(actionName, actionStrategy);
-					}
-					actionStrategy.addEndpoint(endpoint);
+			for (Map.Entry<String, List<ActionEndpoint>> entry : endpoints.entrySet()) {
+				String actionName = entry.getKey();
+				Strategy<ActionEndpoint> actionStrategy = strategies.get(actionName);
+				if (actionStrategy == null) {
+					actionStrategy = strategyFactory.create();
+					strategies.put(actionName, actionStrategy);
+				}
+				actionStrategy.addEndpoints(entry.getValue());
+			}
+			names.add(serviceName);
+		} finally {
+			writeLock.unlock();
+		}
 
-					// Apply middlewares
-					for (Middleware middleware : middlewares) {
-						endpoint.use(middleware);
-					}
+		// Write log about this service
+		logRemoteService(nodeID, serviceName, actionCounter);
 
-					// Write log about this action
-					if (writeRegistrations) {
-						logger.info("Action \"" + actionName + "\" on node \"" + nodeID + "\" registered.");
+		// Notify local listeners about the new REMOTE service
+		broadcastServicesChanged(false);
+	}
+
+	// --- REPLACE ALL REMOTE SERVICES/ACTIONS OF A NODE ---
+
+	@Override
+	public void replaceActions(String nodeID, Tree services) {
+		LinkedHashMap<String, List<ActionEndpoint>> endpoints = new LinkedHashMap<>();
+		LinkedHashMap<String, Integer> actionCounters = new LinkedHashMap<>();
+		if (services != null) {
+			for (Tree config : services) {
+				actionCounters.put(config.get("name", ""), createRemoteEndpoints(nodeID, config, endpoints));
+			}
+		}
+		HashSet<String> removedActions = new HashSet<>();
+
+		// Rebuild each strategy only once
+		writeLock.lock();
+		try {
+			Iterator<Map.Entry<String, Strategy<ActionEndpoint>>> i = strategies.entrySet().iterator();
+			while (i.hasNext()) {
+				Map.Entry<String, Strategy<ActionEndpoint>> entry = i.next();
+				Strategy<ActionEndpoint> strategy = entry.getValue();
+				List<ActionEndpoint> list = endpoints.remove(entry.getKey());
+				if (list == null) {
+					if (strategy.remove(nodeID)) {
+						removedActions.add(entry.getKey());
+						if (strategy.isEmpty()) {
+							i.remove();
+						}
 					}
-					actionCounter++;
+				} else {
+					strategy.replaceNode(nodeID, list);
 				}
 			}
-			names.add(serviceName);
+			for (Map.Entry<String, List<ActionEndpoint>> entry : endpoints.entrySet()) {
+				Strategy<ActionEndpoint> actionStrategy = strategyFactory.create();
+				actionStrategy.addEndpoints(entry.getValue());
+				strategies.put(entry.getKey(), actionStrategy);
+			}
+
+			// Update service names
+			names.clear();
+			for (Strategy<ActionEndpoint> strategy : strategies.values()) {
+				for (ActionEndpoint endpoint : strategy.getAllEndpoints()) {
+					names.add(endpoint.service);
+				}
+			}
+			names.addAll(actionCounters.keySet());
+
 		} finally {
 			writeLock.unlock();
 		}
 
-		// Write log about this service
+		// Write log about the services
+		for (Map.Entry<String, Integer> entry : actionCounters.entrySet()) {
+			logRemoteService(nodeID, entry.getKey(), entry.getValue());
+		}
+
+		// Reject promises of the removed actions
+		rejectPendingPromises(nodeID, removedActions);
+
+		// Notify local listeners (REMOTE services changed)
+		broadcastServicesChanged(false);
+	}
+
+	protected int createRemoteEndpoints(String nodeID, Tree config, Map<String, List<ActionEndpoint>> endpoints) {
+		Tree actions = config.get("actions");
+		String serviceName = config.get("name", "");
+		int actionCounter = 0;
+		if (actions != null && actions.isMap()) {
+			for (Tree actionConfig : actions) {
+				actionConfig = actionConfig.clone();
+				actionConfig.putObject("nodeID", nodeID, true);
+				String actionName = actionConfig.get("name", "");
+
+				// Create remote action
+				RemoteActionEndpoint endpoint = new RemoteActionEndpoint(this, transporter, nodeID, serviceName,
+						actionConfig, actionName);
+				List<ActionEndpoint> list = endpoints.get(actionName);
+				if (list == null) {
+					list = new LinkedList<>();
+					endpoints.put(actionName, list);
+				}
+				list.add(endpoint);
+
+				// Apply middlewares
+				for (Middleware middleware : middlewares) {
+					endpoint.use(middleware);
+				}
+
+				// Write log about this action
+				if (writeRegistrations) {
+					logger.info("Action \"" + actionName + "\" on node \"" + nodeID + "\" registered.");
+				}
+				actionCounter++;
+			}
+		}
+		return actionCounter;
+	}
+
+	protected void logRemoteService(String nodeID, String serviceName, int actionCounter) {
 		if (writeRegistrations) {
 			StringBuilder msg = new StringBuilder(64);
 			msg.append("Remote service \"");
@@ -1249,9 +1344,6 @@ public class DefaultServiceRegistry extends ServiceRegistry implements MetricCon
 			msg.append("\".");
 			logger.info(msg.toString());
 		}
-
-		// Notify local listeners about the new REMOTE service
-		broadcastServicesChanged(false);
 	}
 
 	// --- REMOVE ALL REMOTE SERVICES/ACTIONS OF A NODE ---
@@ -1330,6 +1422,80 @@ public class DefaultServiceRegistry extends ServiceRegistry implements MetricCon
 		}
 	}
 
+	// --- REMOVE ACTIONS OF A REMOTE SERVICE ---
+
+	@Override
+	public void removeActions(String nodeID, String serviceName) {
+		HashSet<String> removedActions = new HashSet<>();
+
+		// Remove actions
+		writeLock.lock();
+		try {
+			Iterator<Map.Entry<String, Strategy<ActionEndpoint>>> endpoints = strategies.entrySet().iterator();
+			while (endpoints.hasNext()) {
+				Map.Entry<String, Strategy<ActionEndpoint>> entry = endpoints.next();
+				Strategy<ActionEndpoint> strategy = entry.getValue();
+				if (strategy.remove(nodeID, serviceName)) {
+					removedActions.add(entry.getKey());
+					if (strategy.isEmpty()) {
+						endpoints.remove();
+					}
+				}
+			}
+
+			// Update service names
+			names.clear();
+			for (Strategy<ActionEndpoint> strategy : strategies.values()) {
+				for (ActionEndpoint endpoint : strategy.getAllEndpoints()) {
+					names.add(endpoint.service);
+				}
+			}
+
+		} finally {
+			writeLock.unlock();
+		}
+
+		// Write log about this service
+		if (writeRegistrations) {
+			logger.info("Remote service \"" + serviceName + "\" removed from node \"" + nodeID + "\".");
+		}
+
+		// Reject promises
+		rejectPendingPromises(nodeID, removedActions);
+
+		// Notify local listeners (REMOTE services changed)
+		broadcastServicesChanged(false);
+	}
+
+	protected void rejectPendingPromises(String nodeID, Set<String> actions) {
+		if (actions.isEmpty()) {
+			return;
+		}
+		Iterator<PendingPromise> pendingPromises = promises.values().iterator();
+		boolean removed = false;
+		while (pendingPromises.hasNext()) {
+			PendingPromise pending = pendingPromises.next();
+			if (pending.nodeID.equals(nodeID) && actions.contains(pending.action)) {
+				removed = true;
+				pendingPromises.remove();
+				executor.execute(() -> {
+					try {
+						pending.promise.complete(new RequestRejectedError(nodeID, pending.action));
+					} catch (Throwable cause) {
+						logger.warn("Unable to reject action \"" + pending.action + "\"!", cause);
+					}
+				});
+			}
+		}
+
+		// Reschedule timeout checker
+		if (removed) {
+			scheduler.execute(() -> {
+				reschedule(Long.MAX_VALUE);
+			});
+		}
+	}
+
 	protected void stopAllLocalServices() {
 
 		// Stop services
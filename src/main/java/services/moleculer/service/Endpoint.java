@@ -43,4 +43,14 @@ public abstract class Endpoint {
 		return nodeID;
 	}
 
+	/**
+	 * Returns the name of the endpoint's service. Endpoints without service
+	 * name (null) are removed only together with their node.
+	 * 
+	 * @return service name (or null)
+	 */
+	public String getServiceName() {
+		return null;
+	}
+
 }
\ No newline at end of file
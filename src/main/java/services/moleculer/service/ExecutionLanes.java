@@ -0,0 +1,274 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import services.moleculer.ServiceBroker;
+import services.moleculer.config.ServiceBrokerConfig;
+import services.moleculer.context.CallOptions;
+import services.moleculer.context.Context;
+import services.moleculer.metrics.MetricConstants;
+import services.moleculer.metrics.Metrics;
+import services.moleculer.metrics.StoppableTimer;
+
+/**
+ * Priority-based execution lanes. Each lane has its own bounded thread pool,
+ * and serves a range of priorities. Local actions and event listeners are
+ * executed in the lane selected by the priority of the request (or event).
+ * Requests without a matching lane are executed the same way as before (in
+ * the thread of the caller, or in the common executor of the broker). Actions
+ * of the internal services (eg. "$node.health") have HIGH priority by
+ * default. The priority is transferred to the remote nodes in the "priority"
+ * field of the REQ and EVENT packets. Usage:
+ * 
+ * <pre>
+ * ExecutionLanes lanes = new ExecutionLanes();
+ * lanes.add("critical", CallOptions.PRIORITY_HIGH, Integer.MAX_VALUE, 2, 1000);
+ * lanes.add("batch", Integer.MIN_VALUE, CallOptions.PRIORITY_LOW, 4, 10000);
+ * 
+ * ServiceBroker broker = ServiceBroker.builder().lanes(lanes).build();
+ * 
+ * broker.call("report.generate", params, CallOptions.priority(CallOptions.PRIORITY_LOW));
+ * </pre>
+ */
+@Name("Execution Lanes")
+public class ExecutionLanes extends MoleculerComponent implements MetricConstants {
+
+	// --- REGISTERED LANES ---
+
+	protected Lane[] lanes = new Lane[0];
+
+	// --- COMPONENTS ---
+
+	protected Metrics metrics;
+
+	// --- START LANES ---
+
+	@Override
+	public void started(ServiceBroker broker) throws Exception {
+		super.started(broker);
+		ServiceBrokerConfig cfg = broker.getConfig();
+		if (cfg.isMetricsEnabled()) {
+			metrics = cfg.getMetrics();
+		}
+		for (Lane lane : lanes) {
+			logger.info("Lane \"" + lane.name + "\" serves priorities " + lane.minPriority + "..."
+					+ lane.maxPriority + " with " + lane.executor.getMaximumPoolSize() + " threads.");
+		}
+	}
+
+	// --- STOP LANES ---
+
+	@Override
+	public void stopped() {
+		for (Lane lane : lanes) {
+			try {
+				lane.executor.shutdownNow();
+			} catch (Exception ignored) {
+			}
+		}
+	}
+
+	// --- ADD LANE ---
+
+	/**
+	 * Adds a new execution lane.
+	 * 
+	 * @param name
+	 *            name of the lane (used in metrics and thread names)
+	 * @param minPriority
+	 *            lowest priority served by this lane
+	 * @param maxPriority
+	 *            highest priority served by this lane
+	 * @param threads
+	 *            number of threads
+	 * @param queueSize
+	 *            max number of waiting tasks (the overflowing tasks are
+	 *            rejected)
+	 * 
+	 * @return this ExecutionLanes instance (from "method chaining")
+	 */
+	public ExecutionLanes add(String name, int minPriority, int maxPriority, int threads, int queueSize) {
+		Lane lane = new Lane(name, minPriority, maxPriority, threads, queueSize);
+		synchronized (this) {
+			Lane[] copy = Arrays.copyOf(lanes, lanes.length + 1);
+			copy[lanes.length] = lane;
+			lanes = copy;
+		}
+		return this;
+	}
+
+	// --- SELECT LANE ---
+
+	/**
+	 * Returns the lane of the specified priority.
+	 * 
+	 * @param priority
+	 *            priority of the request or event
+	 * 
+	 * @return execution lane, or null (= no lane for this priority)
+	 */
+	public Lane get(int priority) {
+		for (Lane lane : lanes) {
+			if (priority >= lane.minPriority && priority <= lane.maxPriority) {
+				return lane;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the lane of a local action invocation.
+	 * 
+	 * @param ctx
+	 *            Context of the request
+	 * 
+	 * @return execution lane, or null (= no lane for this priority)
+	 */
+	public Lane getActionLane(Context ctx) {
+		if (lanes.length == 0) {
+			return null;
+		}
+		if (ctx.opts != null && ctx.opts.priority != CallOptions.PRIORITY_NORMAL) {
+			return get(ctx.opts.priority);
+		}
+		if (ctx.name != null && ctx.name.startsWith("$")) {
+
+			// Internal actions (eg. "$node.health")
+			return get(CallOptions.PRIORITY_HIGH);
+		}
+		return get(CallOptions.PRIORITY_NORMAL);
+	}
+
+	/**
+	 * Returns the lane of a local event listener invocation.
+	 * 
+	 * @param ctx
+	 *            Context of the event
+	 * 
+	 * @return execution lane, or null (= no lane for this priority)
+	 */
+	public Lane getEventLane(Context ctx) {
+		if (lanes.length == 0) {
+			return null;
+		}
+		return get(ctx.opts == null ? CallOptions.PRIORITY_NORMAL : ctx.opts.priority);
+	}
+
+	// --- LANE ---
+
+	public class Lane {
+
+		// --- PROPERTIES ---
+
+		protected final String name;
+		protected final int minPriority;
+		protected final int maxPriority;
+		protected final ThreadPoolExecutor executor;
+
+		// --- CONSTRUCTOR ---
+
+		protected Lane(String name, int minPriority, int maxPriority, int threads, int queueSize) {
+			this.name = Objects.requireNonNull(name);
+			this.minPriority = minPriority;
+			this.maxPriority = maxPriority;
+			AtomicInteger counter = new AtomicInteger();
+			ThreadFactory factory = runnable -> {
+				Thread thread = new Thread(runnable, "moleculer-" + name + "-lane-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			};
+			int size = Math.max(1, threads);
+			this.executor = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(Math.max(1, queueSize)), factory);
+			this.executor.allowCoreThreadTimeOut(true);
+		}
+
+		// --- EXECUTE TASK ---
+
+		/**
+		 * Executes the task in this lane.
+		 * 
+		 * @param task
+		 *            task to execute
+		 * 
+		 * @throws RejectedExecutionException
+		 *             if the queue of the lane is full
+		 */
+		public void execute(Runnable task) throws RejectedExecutionException {
+			Metrics m = metrics;
+			if (m == null) {
+				executor.execute(task);
+				return;
+			}
+			StoppableTimer queueWait = m.timer(MOLECULER_LANE_QUEUE_WAIT_TIME, MOLECULER_LANE_QUEUE_WAIT_TIME_DESC,
+					"lane", name);
+			try {
+				executor.execute(() -> {
+					queueWait.stop();
+					task.run();
+				});
+			} catch (RejectedExecutionException rejected) {
+				m.increment(MOLECULER_LANE_REJECTED_TOTAL, MOLECULER_LANE_REJECTED_TOTAL_DESC, "lane", name);
+				throw rejected;
+			}
+		}
+
+		// --- PROPERTY GETTERS ---
+
+		public String getName() {
+			return name;
+		}
+
+		public int getMinPriority() {
+			return minPriority;
+		}
+
+		public int getMaxPriority() {
+			return maxPriority;
+		}
+
+		public int getQueueSize() {
+			return executor.getQueue().size();
+		}
+
+	}
+
+	// --- GETTERS ---
+
+	public Lane[] getLanes() {
+		return lanes;
+	}
+
+}
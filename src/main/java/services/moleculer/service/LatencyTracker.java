@@ -0,0 +1,107 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last N response times (in a ring buffer) of a remote endpoint, and
+ * calculates percentiles of them. Used by the hedged (duplicated) requests.
+ */
+public class LatencyTracker {
+
+	// --- PROPERTIES ---
+
+	protected final long[] samples;
+
+	protected int position;
+	protected int count;
+	protected long modCount;
+
+	// --- CACHED (SORTED) SAMPLES ---
+
+	protected long sortedAt = -1;
+	protected long[] sorted;
+
+	// --- CONSTRUCTOR ---
+
+	public LatencyTracker(int capacity) {
+		samples = new long[Math.max(1, capacity)];
+	}
+
+	// --- ADD SAMPLE ---
+
+	/**
+	 * Stores a response time.
+	 * 
+	 * @param millis
+	 *            response time in milliseconds
+	 */
+	public synchronized void add(long millis) {
+		samples[position] = millis;
+		position = (position + 1) % samples.length;
+		if (count < samples.length) {
+			count++;
+		}
+		modCount++;
+	}
+
+	// --- GET PERCENTILE ---
+
+	/**
+	 * Returns the specified percentile of the stored response times.
+	 * 
+	 * @param percentile
+	 *            percentile (eg. 95)
+	 * @param minSamples
+	 *            minimum number of required samples
+	 * 
+	 * @return response time in milliseconds, or -1 if there is not enough
+	 *         samples
+	 */
+	public synchronized long getPercentile(int percentile, int minSamples) {
+		if (count < Math.max(1, minSamples)) {
+			return -1;
+		}
+
+		// Sort only when new samples are arrived
+		if (sortedAt != modCount) {
+			if (sorted == null || sorted.length != count) {
+				sorted = new long[count];
+			}
+			System.arraycopy(samples, 0, sorted, 0, count);
+			Arrays.sort(sorted);
+			sortedAt = modCount;
+		}
+		int index = (int) Math.ceil(percentile / 100d * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, index))];
+	}
+
+	public synchronized int getCount() {
+		return count;
+	}
+
+}
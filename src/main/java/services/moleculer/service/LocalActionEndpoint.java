@@ -28,9 +28,11 @@ package services.moleculer.service;
 import static services.moleculer.util.CommonUtils.mergeMeta;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.datatree.Promise;
 import io.datatree.Tree;
+import services.moleculer.error.RequestRejectedError;
 
 public class LocalActionEndpoint extends ActionEndpoint {
 
@@ -40,21 +42,25 @@ public class LocalActionEndpoint extends ActionEndpoint {
 			Tree config, Action action, String actionName) {
 		super(nodeID, service, config);
 
-		// Handle local timeout with a handler
+		// Handle local timeout and execution lanes with a handler
 		current = ctx -> {
-			if (ctx.opts != null && ctx.opts.timeout > 0) {
+			ExecutionLanes.Lane lane = registry.lanes == null ? null : registry.lanes.getActionLane(ctx);
+			boolean hasTimeout = ctx.opts != null && ctx.opts.timeout > 0;
+			if (lane != null || hasTimeout) {
 
 				// Create promise
 				Promise promise = new Promise();
 
-				// Execute local task
-				executor.execute(() -> {
+				// Create local task
+				Runnable task = () -> {
 
 					// Set timeout
-					long timeoutAt = System.currentTimeMillis() + ctx.opts.timeout;
+					if (hasTimeout) {
+						long timeoutAt = System.currentTimeMillis() + ctx.opts.timeout;
 
-					// Register promise
-					registry.register(ctx.id, promise, timeoutAt, nodeID, actionName, ctx.params);
+						// Register promise
+						registry.register(ctx.id, promise, timeoutAt, nodeID, actionName, ctx.params);
+					}
 
 					// Invoke async method
 					try {
@@ -63,20 +69,33 @@ public class LocalActionEndpoint extends ActionEndpoint {
 						// Deregister
 						Promise.resolve(rsp).then(in -> {
 							in = mergeMeta(in, ctx.params);
-							if (promise.complete(in)) {
+							if (promise.complete(in) && hasTimeout) {
 								registry.deregister(ctx.id);
 							}
 						}).catchError(err -> {
-							if (promise.complete(err)) {
+							if (promise.complete(err) && hasTimeout) {
 								registry.deregister(ctx.id);
 							}
 						});
 					} catch (Throwable cause) {
-						registry.deregister(ctx.id);
+						if (hasTimeout) {
+							registry.deregister(ctx.id);
+						}
 						promise.complete(cause);
 					}
 
-				});
+				};
+
+				// Execute local task
+				if (lane == null) {
+					executor.execute(task);
+				} else {
+					try {
+						lane.execute(task);
+					} catch (RejectedExecutionException rejected) {
+						promise.complete(new RequestRejectedError(nodeID, actionName));
+					}
+				}
 
 				// Return promise
 				return promise;
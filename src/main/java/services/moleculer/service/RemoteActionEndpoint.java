@@ -38,6 +38,10 @@ import services.moleculer.transporter.Transporter;
 
 public class RemoteActionEndpoint extends ActionEndpoint {
 
+	// --- OBSERVED RESPONSE TIMES (CREATED BY THE FIRST HEDGED CALL) ---
+
+	protected volatile LatencyTracker latencyTracker;
+
 	// --- CONSTRUCTOR ---
 
 	public RemoteActionEndpoint(DefaultServiceRegistry registry, Transporter transporter, String nodeID, String service,
@@ -61,6 +65,15 @@ public class RemoteActionEndpoint extends ActionEndpoint {
 			// Register promise (timeout and response handling)
 			registry.register(ctx.id, promise, timeoutAt, nodeID, actionName, ctx.params);
 
+			// Measure response time
+			LatencyTracker tracker = latencyTracker;
+			if (tracker != null) {
+				long start = System.currentTimeMillis();
+				promise.then(rsp -> {
+					tracker.add(System.currentTimeMillis() - start);
+				});
+			}
+
 			// Send request via transporter
 			transporter.sendRequestPacket(nodeID, ctx);
 
@@ -103,4 +116,30 @@ public class RemoteActionEndpoint extends ActionEndpoint {
 		};
 	}
 
+	// --- OBSERVED LATENCY ---
+
+	/**
+	 * Returns the specified percentile of the observed response times. The
+	 * response time measurement starts with the first invocation of this
+	 * method.
+	 * 
+	 * @param percentile
+	 *            percentile (eg. 95)
+	 * 
+	 * @return response time in milliseconds, or -1 if there is not enough
+	 *         samples
+	 */
+	public long getLatencyPercentile(int percentile) {
+		LatencyTracker tracker = latencyTracker;
+		if (tracker == null) {
+			synchronized (this) {
+				if (latencyTracker == null) {
+					latencyTracker = new LatencyTracker(128);
+				}
+			}
+			return -1;
+		}
+		return tracker.getPercentile(percentile, 10);
+	}
+
 }
\ No newline at end of file
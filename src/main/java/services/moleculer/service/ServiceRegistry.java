@@ -66,6 +66,14 @@ public abstract class ServiceRegistry extends MoleculerComponent {
 
 	public abstract void removeActions(String nodeID);
 
+	// --- REMOVE ACTIONS OF A REMOTE SERVICE ---
+
+	public abstract void removeActions(String nodeID, String serviceName);
+
+	// --- REPLACE ALL ACTIONS OF A NODE ---
+
+	public abstract void replaceActions(String nodeID, Tree services);
+
 	// --- GET LOCAL SERVICE ---
 
 	public abstract Service getService(String name);
@@ -26,6 +26,10 @@
 package services.moleculer.strategy;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -34,6 +38,7 @@ import io.datatree.dom.Config;
 import services.moleculer.ServiceBroker;
 import services.moleculer.context.Context;
 import services.moleculer.service.Endpoint;
+import services.moleculer.transporter.Transporter;
 
 /**
  * Abstract class for Round-Robin and Random invocation strategies.
@@ -61,11 +66,21 @@ public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T>
 	protected final String nodeID;
 	protected final boolean preferLocal;
 
+	/**
+	 * Skip the endpoints of the overloaded nodes (if possible)
+	 */
+	protected boolean routeAroundOverloadedNodes = true;
+
+	// --- COMPONENTS ---
+
+	protected Transporter transporter;
+
 	// --- CONSTRUCTOR ---
 
 	public ArrayBasedStrategy(ServiceBroker broker, boolean preferLocal) {
 		this.nodeID = broker.getNodeID();
 		this.preferLocal = preferLocal;
+		this.transporter = broker.getConfig().getTransporter();
 	}
 
 	// --- ADD A LOCAL OR REMOTE ENDPOINT ---
@@ -77,7 +92,7 @@ public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T>
 			endpoints[0] = endpoint;
 		} else {
 			for (int i = 0; i < endpoints.length; i++) {
-				if (endpoints[i].equals(endpoints)) {
+				if (endpoints[i].equals(endpoint)) {
 
 					// Already registered
 					return;
@@ -95,15 +110,83 @@ public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T>
 		endpointCache.remove(endpoint.getNodeID());
 	}
 
+	// --- ADD MULTIPLE ENDPOINTS AT ONCE ---
+
+	@Override
+	public void addEndpoints(Collection<T> newEndpoints) {
+		if (newEndpoints.isEmpty()) {
+			return;
+		}
+		LinkedHashSet<Endpoint> set = new LinkedHashSet<>((endpoints.length + newEndpoints.size()) * 2);
+		Collections.addAll(set, endpoints);
+		HashSet<String> nodeIDs = new HashSet<>();
+		for (T endpoint : newEndpoints) {
+			if (set.add(endpoint)) {
+				nodeIDs.add(endpoint.getNodeID());
+			}
+		}
+		if (nodeIDs.isEmpty()) {
+
+			// Already registered
+			return;
+		}
+
+		// Copy array only once
+		endpoints = set.toArray(new Endpoint[set.size()]);
+
+		// Remove from cache
+		for (String id : nodeIDs) {
+			endpointCache.remove(id);
+		}
+	}
+
+	// --- REPLACE ALL ENDPOINTS OF THE SPECIFIED NODE ---
+
+	@Override
+	public boolean replaceNode(String nodeID, Collection<T> newEndpoints) {
+		ArrayList<Endpoint> list = new ArrayList<>(endpoints.length + newEndpoints.size());
+		boolean changed = false;
+		for (Endpoint endpoint : endpoints) {
+			if (nodeID.equals(endpoint.getNodeID())) {
+				changed = true;
+			} else {
+				list.add(endpoint);
+			}
+		}
+		for (Endpoint endpoint : new LinkedHashSet<>(newEndpoints)) {
+			if (nodeID.equals(endpoint.getNodeID())) {
+				list.add(endpoint);
+				changed = true;
+			}
+		}
+		if (changed) {
+
+			// Copy array only once
+			endpoints = list.toArray(new Endpoint[list.size()]);
+
+			// Remove from cache
+			endpointCache.remove(nodeID);
+		}
+		return changed;
+	}
+
 	// --- REMOVE ALL ENDPOINTS OF THE SPECIFIED NODE ---
 
 	@Override
 	public boolean remove(String nodeID) {
+		return remove(nodeID, null);
+	}
+
+	// --- REMOVE ENDPOINTS OF A SERVICE ON THE SPECIFIED NODE ---
+
+	@Override
+	public boolean remove(String nodeID, String serviceName) {
 		Endpoint endpoint;
 		boolean found = false;
 		for (int i = 0; i < endpoints.length; i++) {
 			endpoint = endpoints[i];
-			if (nodeID.equals(endpoint.getNodeID())) {
+			if (nodeID.equals(endpoint.getNodeID())
+					&& (serviceName == null || serviceName.equals(endpoint.getServiceName()))) {
 				found = true;
 				if (endpoints.length == 1) {
 					endpoints = new Endpoint[0];
@@ -137,9 +220,11 @@ public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T>
 	@Override
 	public T getEndpoint(Context ctx, String nodeID) {
 		Endpoint[] array;
+		boolean overloaded = routeAroundOverloadedNodes && nodeID == null && transporter != null
+				&& transporter.hasOverloadedNodes();
 		if (nodeID == null && preferLocal) {
 			array = getEndpointsByNodeID(this.nodeID);
-			if (array.length == 0) {
+			if (array.length == 0 || (overloaded && transporter.isOverloaded())) {
 				array = endpoints;
 			}
 		} else {
@@ -151,7 +236,15 @@ public abstract class ArrayBasedStrategy<T extends Endpoint> extends Strategy<T>
 		if (array.length == 1) {
 			return (T) array[0];
 		}
-		return (T) next(ctx, array);
+		Endpoint endpoint = next(ctx, array);
+		if (overloaded) {
+
+			// Route around the overloaded nodes
+			for (int i = 0; i < array.length && transporter.isOverloaded(endpoint.getNodeID()); i++) {
+				endpoint = next(ctx, array);
+			}
+		}
+		return (T) endpoint;
 	}
 
 	protected Endpoint[] getEndpointsByNodeID(String nodeID) {
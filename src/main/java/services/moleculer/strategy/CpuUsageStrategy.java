@@ -58,10 +58,6 @@ public class CpuUsageStrategy<T extends Endpoint> extends XorShiftRandomStrategy
 	 */
 	protected final int lowCpuUsage;
 
-	// --- COMPONENTS ---
-
-	protected final Transporter transporter;
-
 	// --- CONSTRUCTOR ---
 
 	public CpuUsageStrategy(ServiceBroker broker, boolean preferLocal, int sampleCount, int lowCpuUsage,
@@ -26,6 +26,7 @@
 package services.moleculer.strategy;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -110,6 +111,9 @@ public class ShardStrategy<T extends Endpoint> extends XorShiftRandomStrategy<T>
 		this.cacheSize = cacheSize;
 		this.hash = hash;
 
+		// Keep the affinity of the shard keys
+		this.routeAroundOverloadedNodes = false;
+
 		// Init Ring
 		rebuild();
 	}
@@ -118,15 +122,42 @@ public class ShardStrategy<T extends Endpoint> extends XorShiftRandomStrategy<T>
 
 	@Override
 	public void addEndpoint(T endpoint) {
+		Endpoint[] previous = endpoints;
 		super.addEndpoint(endpoint);
-		rebuild();
+		if (endpoints != previous) {
+			rebuild();
+		}
+	}
+
+	// --- ADD MULTIPLE ENDPOINTS AT ONCE ---
+
+	@Override
+	public void addEndpoints(Collection<T> endpoints) {
+
+		// The array is replaced only if the endpoint set has changed
+		Endpoint[] previous = this.endpoints;
+		super.addEndpoints(endpoints);
+		if (this.endpoints != previous) {
+			rebuild();
+		}
+	}
+
+	// --- REPLACE ALL ENDPOINTS OF THE SPECIFIED NODE ---
+
+	@Override
+	public boolean replaceNode(String nodeID, Collection<T> endpoints) {
+		boolean changed = super.replaceNode(nodeID, endpoints);
+		if (changed) {
+			rebuild();
+		}
+		return changed;
 	}
 
-	// --- REMOVE ALL ENDPOINTS OF THE SPECIFIED NODE ---
+	// --- REMOVE ENDPOINTS OF THE SPECIFIED NODE ---
 
 	@Override
-	public boolean remove(String nodeID) {
-		boolean removed = super.remove(nodeID);
+	public boolean remove(String nodeID, String serviceName) {
+		boolean removed = super.remove(nodeID, serviceName);
 		if (removed) {
 			rebuild();
 		}
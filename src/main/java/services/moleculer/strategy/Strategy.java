@@ -25,6 +25,7 @@
  */
 package services.moleculer.strategy;
 
+import java.util.Collection;
 import java.util.List;
 
 import services.moleculer.context.Context;
@@ -41,10 +42,33 @@ public abstract class Strategy<T extends Endpoint> {
 
 	public abstract void addEndpoint(T endpoint);
 
+	// --- ADD MULTIPLE ENDPOINTS AT ONCE ---
+
+	public void addEndpoints(Collection<T> endpoints) {
+		for (T endpoint : endpoints) {
+			addEndpoint(endpoint);
+		}
+	}
+
+	// --- REPLACE ALL ENDPOINTS OF THE SPECIFIED NODE ---
+
+	public boolean replaceNode(String nodeID, Collection<T> endpoints) {
+		boolean changed = remove(nodeID);
+		if (!endpoints.isEmpty()) {
+			addEndpoints(endpoints);
+			changed = true;
+		}
+		return changed;
+	}
+
 	// --- REMOVE ALL ENDPOINTS OF THE SPECIFIED NODE ---
 
 	public abstract boolean remove(String nodeID);
 
+	// --- REMOVE ENDPOINTS OF A SERVICE ON THE SPECIFIED NODE ---
+
+	public abstract boolean remove(String nodeID, String serviceName);
+
 	// --- HAS ENDPOINTS ---
 
 	public abstract boolean isEmpty();
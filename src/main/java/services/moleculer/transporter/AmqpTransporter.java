@@ -335,7 +335,7 @@ public class AmqpTransporter extends Transporter {
 			try {
 
 				// Metrics
-				byte[] bytes = serializer.write(message);
+				byte[] bytes = serialize(message);
 				if (metrics != null) {
 					counterTransporterPacketsSentTotal.increment();
 					counterTransporterPacketsSentBytes.increment(bytes.length);
@@ -223,7 +223,7 @@ public class FileSystemTransporter extends Transporter {
 	public void publish(String channel, Tree message) {
 		byte[] bytes;
 		try {
-			bytes = serializer.write(message);
+			bytes = serialize(message);
 			
 			// Metrics
 			if (metrics != null) {
@@ -137,7 +137,7 @@ public class InternalTransporter extends Transporter {
 		try {
 
 			// Metrics
-			byte[] bytes = serializer.write(message);
+			byte[] bytes = serialize(message);
 			if (metrics != null) {
 				counterTransporterPacketsSentTotal.increment();
 				counterTransporterPacketsSentBytes.increment(bytes.length);
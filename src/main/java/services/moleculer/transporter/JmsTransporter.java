@@ -316,7 +316,7 @@ public class JmsTransporter extends Transporter {
 				}
 				
 				// Metrics
-				byte[] bytes = serializer.write(message);
+				byte[] bytes = serialize(message);
 				if (metrics != null) {
 					counterTransporterPacketsSentTotal.increment();
 					counterTransporterPacketsSentBytes.increment(bytes.length);
@@ -357,7 +357,7 @@ public class KafkaTransporter extends Transporter {
 				}
 				
 				// Metrics
-				byte[] bytes = serializer.write(message);
+				byte[] bytes = serialize(message);
 				if (metrics != null) {
 					counterTransporterPacketsSentTotal.increment();
 					counterTransporterPacketsSentBytes.increment(bytes.length);
@@ -283,7 +283,7 @@ public class MqttTransporter extends Transporter implements MqttCallback {
 				}
 
 				// Metrics
-				byte[] bytes = serializer.write(message);
+				byte[] bytes = serialize(message);
 				if (metrics != null) {
 					counterTransporterPacketsSentTotal.increment();
 					counterTransporterPacketsSentBytes.increment(bytes.length);
@@ -285,7 +285,7 @@ public class NatsStreamingTransporter extends Transporter
 				}
 				
 				// Metrics
-				byte[] bytes = serializer.write(message);
+				byte[] bytes = serialize(message);
 				if (metrics != null) {
 					counterTransporterPacketsSentTotal.increment();
 					counterTransporterPacketsSentBytes.increment(bytes.length);
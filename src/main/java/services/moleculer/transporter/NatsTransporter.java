@@ -438,7 +438,7 @@ public class NatsTransporter extends Transporter implements MessageHandler, Conn
 				}
 				
 				// Metrics
-				byte[] bytes = serializer.write(message);
+				byte[] bytes = serialize(message);
 				if (metrics != null) {
 					counterTransporterPacketsSentTotal.increment();
 					counterTransporterPacketsSentBytes.increment(bytes.length);
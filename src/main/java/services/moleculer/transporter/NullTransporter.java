@@ -53,7 +53,7 @@ public class NullTransporter extends Transporter {
 		// Metrics
 		if (metrics != null) {
 			try {
-				byte[] bytes = serializer.write(message);
+				byte[] bytes = serialize(message);
 				counterTransporterPacketsSentTotal.increment();
 				counterTransporterPacketsSentBytes.increment(bytes.length);
 			} catch (Exception cause) {
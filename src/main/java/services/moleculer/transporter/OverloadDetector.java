@@ -0,0 +1,207 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CoDel-like overload detector of the incoming packets. The Transporter
+ * measures the queue-wait time ("sojourn time") of the tasks submitted to the
+ * executor by the "received" method. If the minimum sojourn time within an
+ * interval (or the length of the executor's queue) exceeds the target value,
+ * there is a standing queue, so the node is overloaded. In overloaded state
+ * the requests that waited longer than the target are rejected with a
+ * RequestRejectedError (the caller can retry them on another node), and the
+ * node signals its overloaded state to the other nodes in the heartbeat
+ * packets (and reports 100% CPU usage). Usage:
+ * 
+ * <pre>
+ * Transporter transporter = new RedisTransporter();
+ * transporter.setOverloadDetector(new OverloadDetector(50, 500, 10000));
+ * </pre>
+ */
+public class OverloadDetector {
+
+	// --- LOGGER ---
+
+	protected static final Logger logger = LoggerFactory.getLogger(OverloadDetector.class);
+
+	// --- PROPERTIES ---
+
+	/**
+	 * Acceptable queue-wait time in nanoseconds
+	 */
+	protected final long targetNanos;
+
+	/**
+	 * Length of the measurement interval in nanoseconds
+	 */
+	protected final long intervalNanos;
+
+	/**
+	 * Max number of waiting tasks in the executor's queue (0 = unlimited)
+	 */
+	protected final int maxQueueSize;
+
+	// --- VARIABLES ---
+
+	/**
+	 * Minimum sojourn time in the current interval
+	 */
+	protected final AtomicLong minSojourn = new AtomicLong(Long.MAX_VALUE);
+
+	/**
+	 * End of the current interval (in nanoseconds)
+	 */
+	protected final AtomicLong intervalEnd = new AtomicLong();
+
+	/**
+	 * Overloaded state
+	 */
+	protected volatile boolean overloaded;
+
+	// --- COMPONENTS ---
+
+	protected ExecutorService executor;
+
+	// --- CONSTRUCTORS ---
+
+	public OverloadDetector() {
+		this(50, 500, 0);
+	}
+
+	/**
+	 * Creates an overload detector.
+	 * 
+	 * @param targetMillis
+	 *            acceptable queue-wait time in milliseconds (eg. 50)
+	 * @param intervalMillis
+	 *            length of the measurement interval in milliseconds (eg. 500)
+	 * @param maxQueueSize
+	 *            max number of waiting tasks in the executor's queue (0 =
+	 *            unlimited)
+	 */
+	public OverloadDetector(long targetMillis, long intervalMillis, int maxQueueSize) {
+		this.targetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, targetMillis));
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(targetMillis, intervalMillis));
+		this.maxQueueSize = maxQueueSize;
+		this.intervalEnd.set(System.nanoTime() + intervalNanos);
+	}
+
+	// --- START DETECTOR ---
+
+	public void started(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	// --- TASK STARTED ---
+
+	/**
+	 * Records the sojourn time of a task. Invoked when the task (submitted at
+	 * "submittedAt") leaves the executor's queue.
+	 * 
+	 * @param submittedAt
+	 *            submission time of the task (in System.nanoTime() units)
+	 * 
+	 * @return true if the task should be rejected (if it is a request)
+	 */
+	public boolean onDequeue(long submittedAt) {
+		long now = System.nanoTime();
+		long sojourn = now - submittedAt;
+
+		// Store the minimum
+		long min = minSojourn.get();
+		while (sojourn < min && !minSojourn.compareAndSet(min, sojourn)) {
+			min = minSojourn.get();
+		}
+
+		// End of interval?
+		long end = intervalEnd.get();
+		if (now >= end && intervalEnd.compareAndSet(end, now + intervalNanos)) {
+			long minInInterval = minSojourn.getAndSet(Long.MAX_VALUE);
+			boolean standingQueue = minInInterval != Long.MAX_VALUE && minInInterval >= targetNanos;
+			if (!standingQueue && maxQueueSize > 0) {
+				standingQueue = getQueueSize() > maxQueueSize;
+			}
+			if (overloaded != standingQueue) {
+				overloaded = standingQueue;
+				if (standingQueue) {
+					logger.warn("Node is overloaded (queue-wait time: "
+							+ TimeUnit.NANOSECONDS.toMillis(minInInterval) + " msec)!");
+				} else {
+					logger.info("Node is no longer overloaded.");
+				}
+			}
+		}
+
+		// Reject tasks that waited too long (in overloaded state)
+		return overloaded && sojourn >= targetNanos;
+	}
+
+	// --- QUEUE SIZE ---
+
+	/**
+	 * Returns the number of waiting tasks in the executor's queue.
+	 * 
+	 * @return number of waiting tasks (or 0 if unknown)
+	 */
+	public int getQueueSize() {
+		ExecutorService e = executor;
+		if (e instanceof ThreadPoolExecutor) {
+			return ((ThreadPoolExecutor) e).getQueue().size();
+		}
+		if (e instanceof ForkJoinPool) {
+			return ((ForkJoinPool) e).getQueuedSubmissionCount();
+		}
+		return 0;
+	}
+
+	// --- GETTERS ---
+
+	public boolean isOverloaded() {
+		return overloaded;
+	}
+
+	public long getTargetMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(targetNanos);
+	}
+
+	public long getIntervalMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(intervalNanos);
+	}
+
+	public int getMaxQueueSize() {
+		return maxQueueSize;
+	}
+
+}
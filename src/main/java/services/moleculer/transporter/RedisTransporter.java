@@ -228,7 +228,7 @@ public class RedisTransporter extends Transporter implements EventBus, RedisPubS
 				}
 				
 				// Metrics
-				byte[] bytes = serializer.write(message);
+				byte[] bytes = serialize(message);
 				if (metrics != null) {
 					counterTransporterPacketsSentTotal.increment();
 					counterTransporterPacketsSentBytes.increment(bytes.length);
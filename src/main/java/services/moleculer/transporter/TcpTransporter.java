@@ -444,8 +444,13 @@ public class TcpTransporter extends Transporter {
 	// --- MESSAGE RECEIVED ---
 
 	public void received(byte packetID, byte[] packet) {
+		OverloadDetector detector = overloadDetector;
+		long submittedAt = detector == null ? 0 : System.nanoTime();
 		executor.execute(() -> {
 
+			// Measure the queue-wait time
+			boolean overloaded = detector != null && detector.onDequeue(submittedAt);
+
 			// Parse message
 			Tree data;
 			try {
@@ -474,6 +479,9 @@ public class TcpTransporter extends Transporter {
 					if (debug) {
 						logger.info("Request message received:\r\n" + data);
 					}
+					if (overloaded && rejectRequest(data)) {
+						return;
+					}
 					registry.receiveRequest(data);
 					return;
 
@@ -742,7 +750,7 @@ public class TcpTransporter extends Transporter {
 	}
 
 	protected byte[] serialize(byte packetID, Tree message) throws Exception {
-		byte[] data = serializer.write(message);
+		byte[] data = serialize(message);
 		byte[] packet = new byte[data.length + 6];
 
 		// 6. byte is the packet type (from 1 to 6)
@@ -905,9 +913,9 @@ public class TcpTransporter extends Transporter {
 	protected Tree sendGossipRequest() {
 		try {
 
-			// Update CPU
+			// Update CPU (overloaded node reports 100%)
 			NodeDescriptor descriptor = getDescriptor();
-			int cpu = monitor.getTotalCpuPercent();
+			int cpu = isOverloaded() ? 100 : monitor.getTotalCpuPercent();
 			descriptor.writeLock.lock();
 			try {
 				descriptor.updateCpu(cpu);
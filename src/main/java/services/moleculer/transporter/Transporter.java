@@ -29,10 +29,15 @@ import static services.moleculer.util.CommonUtils.nameOf;
 import static services.moleculer.util.CommonUtils.removeLocalEvents;
 import static services.moleculer.util.CommonUtils.throwableToTree;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -41,15 +46,21 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import io.datatree.Promise;
 import io.datatree.Tree;
+import io.datatree.dom.Config;
 import services.moleculer.ServiceBroker;
 import services.moleculer.config.ServiceBrokerConfig;
+import services.moleculer.context.CallOptions;
 import services.moleculer.context.Context;
+import services.moleculer.error.RequestRejectedError;
 import services.moleculer.eventbus.Eventbus;
 import services.moleculer.eventbus.Groups;
+import services.moleculer.eventbus.Matcher;
+import services.moleculer.eventbus.RouteTable;
 import services.moleculer.metrics.MetricConstants;
 import services.moleculer.metrics.MetricCounter;
 import services.moleculer.metrics.MetricGauge;
@@ -66,6 +77,7 @@ import services.moleculer.transporter.tcp.RemoteAddress;
 import services.moleculer.uid.TimeBasedUidGenerator;
 import services.moleculer.uid.UidGenerator;
 import services.moleculer.util.FastBuildTree;
+import services.moleculer.util.SharedPacket;
 
 /**
  * Base superclass of all Transporter implementations.
@@ -86,6 +98,7 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 
 	public static final String PACKET_EVENT = "EVENT";
 	public static final String PACKET_REQUEST = "REQ";
+	public static final String PACKET_REQUEST_BALANCED = "REQB";
 	public static final String PACKET_RESPONSE = "RES";
 	public static final String PACKET_DISCOVER = "DISCOVER";
 	public static final String PACKET_INFO = "INFO";
@@ -98,6 +111,7 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 
 	public String eventChannel;
 	public String requestChannel;
+	public String requestBalancedChannel;
 	public String responseChannel;
 	public String discoverBroadcastChannel;
 	public String discoverChannel;
@@ -157,6 +171,22 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 	 */
 	protected boolean preferHostname = true;
 
+	/**
+	 * Optional overload detector (null = accept all incoming requests).
+	 */
+	protected OverloadDetector overloadDetector;
+
+	/**
+	 * Send only the changed services (instead of the full node descriptor) in
+	 * the INFO packets to the remote nodes which support it.
+	 */
+	protected boolean deltaInfo = true;
+
+	/**
+	 * Maximum number of events in one batched EVENT packet.
+	 */
+	protected int maxEventBatchSize = 100;
+
 	// --- DEBUG COMMUNICATION ---
 
 	/**
@@ -206,11 +236,47 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 
 	protected final ConcurrentHashMap<String, NodeDescriptor> nodes = new ConcurrentHashMap<>(256);
 
+	/**
+	 * Number of online remote nodes in overloaded state (recounted from the
+	 * node descriptors, see "countOverloadedNodes")
+	 */
+	protected final AtomicInteger overloadedNodes = new AtomicInteger();
+
 	// --- SENDING INFO BLOCK ---
 
 	protected final AtomicBoolean infoScheduled = new AtomicBoolean();
 	protected final AtomicLong infoScheduledAt = new AtomicLong();
 
+	/**
+	 * Version and services block of the last broadcasted INFO packet (base of
+	 * the next "delta" INFO packet).
+	 */
+	protected long lastInfoVersion;
+	protected Tree lastInfoServices;
+
+	/**
+	 * The last INFO packet was sent to the known nodes only (not broadcasted)
+	 */
+	protected volatile boolean lastInfoTargeted;
+
+	// --- EVENT BATCHING ---
+
+	/**
+	 * Batching windows by event masks (mask -&gt; window in MILLISECONDS)
+	 */
+	protected final ConcurrentHashMap<String, Long> eventBatchWindows = new ConcurrentHashMap<>();
+
+	/**
+	 * Resolved batching windows by event names (bounded, the least recently
+	 * added names are evicted)
+	 */
+	protected final RouteTable<Long> eventBatchWindowCache = new RouteTable<>(Config.CACHE_SIZE);
+
+	/**
+	 * Outgoing event batches by target nodeIDs
+	 */
+	protected final ConcurrentHashMap<String, EventBatch> eventBatches = new ConcurrentHashMap<>();
+
 	// --- FOR TESTING ONLY ---
 
 	protected final AtomicLong lastReceivedMessageAt = new AtomicLong();
@@ -222,6 +288,7 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 	protected MetricCounter counterTransporterPacketsSentBytes;
 	protected MetricCounter counterTransporterPacketsReceivedTotal;
 	protected MetricCounter counterTransporterPacketsReceivedBytes;
+	protected MetricCounter counterTransitRequestsRejectedTotal;
 
 	// --- CONSTUCTORS ---
 
@@ -274,6 +341,9 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 		eventbus = cfg.getEventbus();
 		uidGenerator = cfg.getUidGenerator();
 		serviceInvoker = cfg.getServiceInvoker();
+		if (overloadDetector != null) {
+			overloadDetector.started(executor);
+		}
 		if (cfg.isMetricsEnabled()) {
 			metrics = cfg.getMetrics();
 			if (metrics != null) {
@@ -286,12 +356,15 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 						MOLECULER_TRANSPORTER_PACKETS_RECEIVED_TOTAL_DESC, 0);
 				counterTransporterPacketsReceivedBytes = metrics.increment(MOLECULER_TRANSPORTER_PACKETS_RECEIVED_BYTES,
 						MOLECULER_TRANSPORTER_PACKETS_RECEIVED_BYTES_DESC, 0);
+				counterTransitRequestsRejectedTotal = metrics.increment(MOLECULER_TRANSIT_REQUESTS_REJECTED_TOTAL,
+						MOLECULER_TRANSIT_REQUESTS_REJECTED_TOTAL_DESC, 0);
 			}
 		}
 
 		// Set channel names
 		eventChannel = channel(PACKET_EVENT, nodeID);
 		requestChannel = channel(PACKET_REQUEST, nodeID);
+		requestBalancedChannel = channel(PACKET_REQUEST_BALANCED, null);
 		responseChannel = channel(PACKET_RESPONSE, nodeID);
 		discoverBroadcastChannel = channel(PACKET_DISCOVER, null);
 		discoverChannel = channel(PACKET_DISCOVER, nodeID);
@@ -407,6 +480,9 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 			checkTimeoutTimer = null;
 		}
 
+		// Send pending events
+		flushEvents();
+
 		// Send "disconnected" packet
 		sendDisconnectPacket();
 
@@ -417,12 +493,158 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 	// --- GENERIC MOLECULER PACKETS ---
 
 	protected void sendInfoPacket(String channel) {
-		Tree msg = removeLocalEvents(registry.getDescriptor());
+		long[] version = new long[1];
+		Tree msg = getDescriptor(version);
+		publish(channel, createInfoPacket(msg, version[0]));
+	}
+
+	/**
+	 * Returns the local node's descriptor and its version as one consistent
+	 * snapshot (the timestamp is re-read until it stays the same while the
+	 * descriptor is being generated).
+	 * 
+	 * @param version
+	 *            single-element array, receives the version of the
+	 *            descriptor
+	 * 
+	 * @return descriptor without the local events
+	 */
+	protected Tree getDescriptor(long[] version) {
+		while (true) {
+			long current = registry.getTimestamp();
+			Tree descriptor = removeLocalEvents(registry.getDescriptor());
+			if (current == registry.getTimestamp()) {
+				version[0] = current;
+				return descriptor;
+			}
+		}
+	}
+
+	protected Tree createInfoPacket(Tree msg, long version) {
 		msg.put("ver", protocolVersion);
 		msg.put("sender", nodeID);
-		msg.put("seq", registry.getTimestamp());
+		msg.put("seq", version);
 		msg.put("instanceID", instanceID);
-		publish(channel, msg);
+		msg.put("infoVersion", version);
+		if (deltaInfo) {
+			Tree metadata = msg.get("metadata");
+			if (metadata == null) {
+				metadata = msg.putMap("metadata");
+			}
+			metadata.put("deltaInfo", true);
+		}
+		return msg;
+	}
+
+	protected synchronized void sendBroadcastInfoPacket() {
+		long[] snapshot = new long[1];
+		Tree descriptor = getDescriptor(snapshot);
+		long version = snapshot[0];
+		Tree services = descriptor.get("services");
+
+		// Send only the changed services (if possible)
+		Tree delta = null;
+		List<String> deltaNodes = null;
+		if (deltaInfo && lastInfoServices != null && services != null && lastInfoVersion != version) {
+			deltaNodes = getDeltaInfoNodes();
+			if (!deltaNodes.isEmpty()) {
+				delta = createDeltaInfoPacket(lastInfoServices, services, lastInfoVersion, version);
+			}
+		}
+		Tree msg = createInfoPacket(descriptor, version);
+		lastInfoVersion = version;
+		lastInfoServices = services;
+		lastInfoTargeted = delta != null;
+		if (delta == null) {
+			publish(infoBroadcastChannel, msg);
+			return;
+		}
+
+		// Deltas are sent only to the nodes which advertised support for
+		// them, other nodes (eg. non-Java nodes) get the full descriptor.
+		// Undiscovered nodes get the full descriptor when they connect (see
+		// "updateNodeInfo").
+		for (NodeDescriptor node : nodes.values()) {
+			if (node.local || node.offlineSince > 0) {
+				continue;
+			}
+			if (deltaNodes.contains(node.nodeID)) {
+				publish(PACKET_INFO, node.nodeID, delta);
+			} else {
+				publish(PACKET_INFO, node.nodeID, msg);
+			}
+		}
+	}
+
+	protected Tree createDeltaInfoPacket(Tree prevServices, Tree services, long base, long version) {
+		LinkedHashMap<String, Tree> prevMap = indexServices(prevServices);
+		LinkedHashMap<String, Tree> map = indexServices(services);
+		if (prevMap == null || map == null) {
+			return null;
+		}
+		SharedPacket msg = new SharedPacket(5);
+		msg.put("ver", protocolVersion);
+		msg.put("sender", nodeID);
+		msg.put("seq", version);
+		msg.put("instanceID", instanceID);
+		Tree delta = msg.putMap("delta");
+		delta.put("base", base);
+		delta.put("version", version);
+
+		// Added or changed services
+		Tree changed = delta.putList("services");
+		for (Map.Entry<String, Tree> entry : map.entrySet()) {
+			Tree service = entry.getValue();
+			if (!service.equals(prevMap.remove(entry.getKey()))) {
+				changed.addObject(service.asObject());
+			}
+		}
+		if (changed.size() >= map.size() && !map.isEmpty()) {
+
+			// Everything changed -> send the full descriptor
+			return null;
+		}
+
+		// Removed services
+		Tree removed = delta.putList("removed");
+		for (String name : prevMap.keySet()) {
+			removed.add(name);
+		}
+		return msg;
+	}
+
+	/**
+	 * Returns the IDs of the online remote nodes which advertised support for
+	 * delta INFO packets (via "metadata.deltaInfo" in their INFO packets).
+	 * 
+	 * @return list of nodeIDs
+	 */
+	protected List<String> getDeltaInfoNodes() {
+		List<String> list = new ArrayList<>();
+		for (NodeDescriptor node : nodes.values()) {
+			if (node.local || node.offlineSince > 0 || node.info == null) {
+				continue;
+			}
+			if (node.info.get("metadata.deltaInfo", false)) {
+				list.add(node.nodeID);
+			}
+		}
+		return list;
+	}
+
+	protected static LinkedHashMap<String, Tree> indexServices(Tree services) {
+		LinkedHashMap<String, Tree> map = new LinkedHashMap<>();
+		if (services != null) {
+			for (Tree service : services) {
+				String name = service.get("name", "");
+				if (map.put(name, service) != null) {
+
+					// Not unique service names
+					return null;
+				}
+			}
+		}
+		return map;
 	}
 
 	protected void sendDiscoverPacket(String channel) {
@@ -436,7 +658,12 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 		FastBuildTree msg = new FastBuildTree(4);
 		msg.putUnsafe("ver", protocolVersion);
 		msg.putUnsafe("sender", nodeID);
-		msg.putUnsafe("cpu", monitor.getTotalCpuPercent());
+		if (isOverloaded()) {
+			msg.putUnsafe("cpu", 100);
+			msg.putUnsafe("overloaded", true);
+		} else {
+			msg.putUnsafe("cpu", monitor.getTotalCpuPercent());
+		}
 		publish(heartbeatChannel, msg);
 	}
 
@@ -467,7 +694,63 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 	// --- EVENT PACKET ---
 
 	public void sendEventPacket(String nodeID, Context ctx, Groups groups, boolean broadcast) {
-		FastBuildTree msg = new FastBuildTree(13);
+		sendEventPacket(nodeID, ctx, groups, broadcast, false);
+	}
+
+	/**
+	 * Sends an event to one node.
+	 * 
+	 * @param nodeID
+	 *            target node
+	 * @param ctx
+	 *            Context of the event
+	 * @param groups
+	 *            event groups (or null)
+	 * @param broadcast
+	 *            broadcasted event
+	 * @param shaped
+	 *            the event has been throttled and debounced by this node
+	 *            (the target node doesn't shape it again)
+	 */
+	public void sendEventPacket(String nodeID, Context ctx, Groups groups, boolean broadcast, boolean shaped) {
+		SharedPacket msg = createEventPacket(ctx, groups, broadcast);
+		if (shaped) {
+			msg.putUnsafe("shaped", true);
+		}
+		publishEvent(nodeID, ctx, msg);
+	}
+
+	/**
+	 * Sends the same event to more than one node. The packet is serialized
+	 * only once.
+	 * 
+	 * @param nodeIDs
+	 *            target nodes
+	 * @param ctx
+	 *            Context of the event
+	 * @param groups
+	 *            event groups (or null)
+	 * @param broadcast
+	 *            broadcasted event
+	 */
+	public void sendEventPacket(Collection<String> nodeIDs, Context ctx, Groups groups, boolean broadcast) {
+		SharedPacket msg = createEventPacket(ctx, groups, broadcast);
+		for (String nodeID : nodeIDs) {
+			publishEvent(nodeID, ctx, msg);
+		}
+	}
+
+	protected void publishEvent(String nodeID, Context ctx, SharedPacket msg) {
+		long window = ctx.stream == null ? getEventBatchWindow(ctx.name) : 0;
+		if (window > 0) {
+			addToEventBatch(nodeID, msg, window);
+		} else {
+			publish(PACKET_EVENT, nodeID, msg);
+		}
+	}
+
+	protected SharedPacket createEventPacket(Context ctx, Groups groups, boolean broadcast) {
+		SharedPacket msg = new SharedPacket(14);
 
 		// Add basic properties (version, sender's nodeID, etc.)
 		msg.putUnsafe("ver", protocolVersion);
@@ -481,6 +764,11 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 		// Broadcast or emit?
 		msg.putUnsafe("broadcast", broadcast);
 
+		// Priority
+		if (ctx.opts != null && ctx.opts.priority != CallOptions.PRIORITY_NORMAL) {
+			msg.putUnsafe("priority", ctx.opts.priority);
+		}
+
 		// Add groups
 		if (groups != null) {
 			String[] array = groups.groups();
@@ -512,15 +800,118 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 			// First sequence
 			msg.putUnsafe("seq", 0);
 		}
+		return msg;
+	}
 
-		// Send message
+	// --- EVENT BATCHING ---
+
+	protected long getEventBatchWindow(String name) {
+		if (eventBatchWindows.isEmpty()) {
+			return 0;
+		}
+		Long window = eventBatchWindowCache.get(name);
+		if (window == null) {
+			long generation = eventBatchWindowCache.generation();
+			window = 0L;
+			for (Map.Entry<String, Long> entry : eventBatchWindows.entrySet()) {
+				if (Matcher.matches(name, entry.getKey())) {
+					window = entry.getValue();
+					break;
+				}
+			}
+			eventBatchWindowCache.put(name, window, generation);
+		}
+		return window;
+	}
+
+	protected void addToEventBatch(String nodeID, Tree msg, long window) {
+		EventBatch batch = eventBatches.computeIfAbsent(nodeID, id -> new EventBatch());
+		ArrayList<Tree> full = null;
+		boolean schedule = false;
+		synchronized (batch) {
+			batch.events.add(msg);
+			if (batch.events.size() >= maxEventBatchSize) {
+				full = batch.events;
+				batch.events = new ArrayList<>();
+			} else {
+				schedule = batch.events.size() == 1;
+			}
+		}
+		if (full != null) {
+			sendEventBatch(nodeID, full);
+		} else if (schedule) {
+			scheduler.schedule(() -> {
+				flushEvents(nodeID);
+			}, window, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	protected void flushEvents() {
+		for (String nodeID : eventBatches.keySet()) {
+			flushEvents(nodeID);
+		}
+	}
+
+	protected void flushEvents(String nodeID) {
+		EventBatch batch = eventBatches.get(nodeID);
+		if (batch == null) {
+			return;
+		}
+		ArrayList<Tree> events;
+		synchronized (batch) {
+			if (batch.events.isEmpty()) {
+				return;
+			}
+			events = batch.events;
+			batch.events = new ArrayList<>();
+		}
+		sendEventBatch(nodeID, events);
+	}
+
+	protected void sendEventBatch(String nodeID, ArrayList<Tree> events) {
+		if (events.size() == 1) {
+			publish(PACKET_EVENT, nodeID, events.get(0));
+			return;
+		}
+		FastBuildTree msg = new FastBuildTree(3);
+		msg.putUnsafe("ver", protocolVersion);
+		msg.putUnsafe("sender", this.nodeID);
+		Tree list = msg.putListUnsafe("batch", events.size());
+		for (Tree event : events) {
+			list.addObject(event.asObject());
+		}
 		publish(PACKET_EVENT, nodeID, msg);
 	}
 
+	protected static class EventBatch {
+
+		protected ArrayList<Tree> events = new ArrayList<>();
+
+	}
+
+	/**
+	 * Enables batching of the specified events. Events sent to the same node
+	 * within the window are packed into one EVENT packet. Only Java-based
+	 * nodes can process batched EVENT packets.
+	 * 
+	 * @param eventMask
+	 *            event name or mask (eg. "telemetry.**")
+	 * @param windowMillis
+	 *            batching window in MILLISECONDS (0 = disable batching)
+	 */
+	public void setEventBatching(String eventMask, long windowMillis) {
+		if (windowMillis > 0) {
+			eventBatchWindows.put(eventMask, windowMillis);
+		} else {
+			eventBatchWindows.remove(eventMask);
+		}
+		eventBatchWindowCache.invalidate();
+	}
+
 	// --- REQUEST PACKET ---
 
 	public void sendRequestPacket(String nodeID, Context ctx) {
-		FastBuildTree msg = new FastBuildTree(13);
+		FastBuildTree msg = new FastBuildTree(14);
 
 		// Add basic properties (version, sender's nodeID, etc.)
 		msg.putUnsafe("ver", protocolVersion);
@@ -528,9 +919,14 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 		msg.putUnsafe("id", ctx.id);
 		msg.putUnsafe("action", ctx.name);
 
-		// Timeout
-		if (ctx.opts != null && ctx.opts.timeout > 0) {
-			msg.putUnsafe("timeout", ctx.opts.timeout);
+		// Timeout and priority
+		if (ctx.opts != null) {
+			if (ctx.opts.timeout > 0) {
+				msg.putUnsafe("timeout", ctx.opts.timeout);
+			}
+			if (ctx.opts.priority != CallOptions.PRIORITY_NORMAL) {
+				msg.putUnsafe("priority", ctx.opts.priority);
+			}
 		}
 
 		// Call level
@@ -659,6 +1055,21 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 
 	public abstract void publish(String channel, Tree message);
 
+	// --- SERIALIZE OUTGOING PACKET ---
+
+	protected byte[] serialize(Tree message) throws Exception {
+		if (message instanceof SharedPacket) {
+			SharedPacket packet = (SharedPacket) message;
+			byte[] bytes = packet.getBytes(serializer);
+			if (bytes == null) {
+				bytes = serializer.write(message);
+				packet.setBytes(serializer, bytes);
+			}
+			return bytes;
+		}
+		return serializer.write(message);
+	}
+
 	// --- SUBSCRIBE ---
 
 	public Promise subscribe(String cmd, String nodeID) {
@@ -678,11 +1089,86 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 	 *            incoming message
 	 */
 	protected void received(String channel, byte[] message) {
+		OverloadDetector detector = overloadDetector;
+		if (detector == null) {
+			executor.execute(() -> {
+				processReceivedMessage(channel, message);
+			});
+			return;
+		}
+		long submittedAt = System.nanoTime();
 		executor.execute(() -> {
+			if (detector.onDequeue(submittedAt) && isRequestChannel(channel)) {
+
+				// Overloaded -> try to reject the request
+				Tree request;
+				try {
+					request = serializer.read(message);
+				} catch (Exception cause) {
+					logger.warn("Unable to parse incoming message!", cause);
+					return;
+				}
+				if (metrics != null) {
+					counterTransporterPacketsReceivedTotal.increment();
+					counterTransporterPacketsReceivedBytes.increment(message.length);
+				}
+				if (!rejectRequest(request)) {
+					processReceivedMessage(channel, request);
+				}
+				return;
+			}
 			processReceivedMessage(channel, message);
 		});
 	}
 
+	/**
+	 * Checks the channel of an incoming request. Requests are received on the
+	 * node's own request channel ("MOL.REQ.nodeID") and on the balanced
+	 * request channels of the actions ("MOL.REQB.actionName").
+	 * 
+	 * @param channel
+	 *            incoming channel
+	 * 
+	 * @return true if it is a request channel
+	 */
+	protected boolean isRequestChannel(String channel) {
+		if (channel.equals(requestChannel)) {
+			return true;
+		}
+		int len = requestBalancedChannel.length();
+		return channel.length() > len && channel.charAt(len) == '.' && channel.startsWith(requestBalancedChannel);
+	}
+
+	/**
+	 * Rejects an incoming request (in overloaded state). Streamed requests,
+	 * internal ("$node") actions and high-priority requests are not rejected.
+	 * 
+	 * @param message
+	 *            incoming request
+	 * 
+	 * @return true if the request is rejected
+	 */
+	protected boolean rejectRequest(Tree message) {
+		if (message.get("stream", false) || message.get("seq", 0) > 0
+				|| message.get("priority", CallOptions.PRIORITY_NORMAL) > CallOptions.PRIORITY_NORMAL) {
+			return false;
+		}
+		String id = message.get("id", (String) null);
+		String sender = message.get("sender", (String) null);
+		String action = message.get("action", (String) null);
+		if (id == null || sender == null || action == null || action.startsWith("$") || sender.equals(nodeID)) {
+			return false;
+		}
+		publish(PACKET_RESPONSE, sender,
+				throwableToTree(id, nodeID, protocolVersion, new RequestRejectedError(nodeID, action)));
+
+		// Metrics
+		if (counterTransitRequestsRejectedTotal != null) {
+			counterTransitRequestsRejectedTotal.increment();
+		}
+		return true;
+	}
+
 	/**
 	 * Process incoming message directly (without new Task).
 	 * 
@@ -752,7 +1238,7 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 			}
 
 			// Incoming request
-			if (channel.equals(requestChannel)) {
+			if (isRequestChannel(channel)) {
 				registry.receiveRequest(message);
 				return;
 			}
@@ -769,16 +1255,24 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 					return;
 				}
 				int cpu = message.get("cpu", 0);
+				boolean overloaded = message.get("overloaded", false);
 
-				// Update CPU info
-				boolean offline;
+				// Update CPU info and overloaded state
+				boolean offline, changed = false;
 				node.writeLock.lock();
 				try {
 					node.updateCpu(cpu);
+					if (node.overloaded != overloaded) {
+						node.overloaded = overloaded;
+						changed = true;
+					}
 					offline = node.offlineSince > 0;
 				} finally {
 					node.writeLock.unlock();
 				}
+				if (changed) {
+					countOverloadedNodes();
+				}
 				if (offline) {
 
 					// Offline node -> send discover packet
@@ -790,6 +1284,12 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 			// Info packet
 			if (channel.equals(infoChannel) || channel.equals(infoBroadcastChannel)) {
 
+				// Changed services only
+				if (message.get("delta") != null) {
+					updateNodeInfoDelta(sender, message.get("delta"));
+					return;
+				}
+
 				// Register services and listeners
 				message.put("seq", System.currentTimeMillis());
 				message.put("port", 1);
@@ -840,6 +1340,7 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 					node.writeLock.unlock();
 				}
 				if (node != null && disconnected) {
+					countOverloadedNodes();
 
 					// Notify listeners (not unexpected disconnection)
 					logger.info("Node \"" + sender + "\" disconnected.");
@@ -853,10 +1354,73 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 		}
 	}
 
+	protected void updateNodeInfoDelta(String sender, Tree delta) throws Exception {
+		long base = delta.get("base", 0L);
+		long version = delta.get("version", 0L);
+
+		// Apply changes on the stored info block
+		Tree info = null;
+		long seq = 0;
+		NodeDescriptor node = nodes.get(sender);
+		if (node != null) {
+			node.readLock.lock();
+			try {
+				seq = node.seq;
+				if (node.offlineSince == 0) {
+					long current = node.info.get("infoVersion", 0L);
+					if (current == version) {
+
+						// Already applied
+						return;
+					}
+					if (current == base) {
+						info = node.info.clone();
+					}
+				}
+			} finally {
+				node.readLock.unlock();
+			}
+		}
+		if (info == null) {
+
+			// Versions diverged -> request the full node descriptor
+			sendDiscoverPacket(channel(PACKET_DISCOVER, sender));
+			return;
+		}
+		LinkedHashMap<String, Tree> map = indexServices(info.get("services"));
+		if (map == null) {
+			sendDiscoverPacket(channel(PACKET_DISCOVER, sender));
+			return;
+		}
+		Tree removed = delta.get("removed");
+		if (removed != null) {
+			for (Tree name : removed) {
+				map.remove(name.asString());
+			}
+		}
+		Tree changed = delta.get("services");
+		if (changed != null) {
+			for (Tree service : changed) {
+				map.put(service.get("name", ""), service);
+			}
+		}
+		Tree services = info.putList("services");
+		for (Tree service : map.values()) {
+			services.addObject(service.asObject());
+		}
+		info.put("infoVersion", version);
+
+		// Must be newer than the stored block (even within the same msec)
+		info.put("seq", Math.max(System.currentTimeMillis(), seq + 1));
+		info.put("port", 1);
+		updateNodeInfo(sender, info);
+	}
+
 	protected void updateNodeInfo(String sender, Tree info) throws Exception {
 		boolean connected = false;
 		boolean reconnected = false;
 		boolean updated = false;
+		Tree prevServices = null;
 		NodeDescriptor node = nodes.get(sender);
 		if (node == null) {
 
@@ -874,6 +1438,7 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 
 					// Node connected (it was offline)
 					connected = true;
+					node.overloaded = false;
 					node.markAsOnline(info);
 
 				} else {
@@ -897,7 +1462,14 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 						}
 						if (wasOnline) {
 							updated = true;
+							if (prevInfo != null) {
+								prevServices = prevInfo.get("services");
+							}
 						} else {
+
+							// Overloaded state is reported again by the
+							// next heartbeat
+							node.overloaded = false;
 							reconnected = true;
 						}
 
@@ -915,19 +1487,45 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 
 		// Register actions and listeners
 		if (connected || reconnected || updated) {
-			if (updated) {
-
-				// Remove actions and listeners
-				registry.removeActions(sender);
-				eventbus.removeListeners(sender);
-
-			}
-			Tree services = info.get("services");
-			if (services != null && !services.isEmpty()) {
-				for (Tree service : services) {
+			LinkedHashMap<String, Tree> prevMap = updated ? indexServices(prevServices) : null;
+			LinkedHashMap<String, Tree> map = prevMap == null ? null : indexServices(info.get("services"));
+			if (map != null) {
+
+				// Re-register the changed services only
+				for (Map.Entry<String, Tree> entry : map.entrySet()) {
+					String name = entry.getKey();
+					Tree service = entry.getValue();
+					Tree prevService = prevMap.remove(name);
+					if (service.equals(prevService)) {
+						continue;
+					}
+					if (prevService != null) {
+						registry.removeActions(sender, name);
+						eventbus.removeListeners(sender, name);
+					}
 					registry.addActions(sender, service);
 					eventbus.addListeners(sender, service);
 				}
+				for (String name : prevMap.keySet()) {
+					registry.removeActions(sender, name);
+					eventbus.removeListeners(sender, name);
+				}
+			} else {
+
+				// Register all actions at once
+				Tree services = info.get("services");
+				registry.replaceActions(sender, services);
+				if (updated) {
+
+					// Remove listeners
+					eventbus.removeListeners(sender);
+
+				}
+				if (services != null && !services.isEmpty()) {
+					for (Tree service : services) {
+						eventbus.addListeners(sender, service);
+					}
+				}
 			}
 		}
 
@@ -947,6 +1545,11 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 				logger.info("Node \"" + sender + "\" reconnected.");
 			}
 			broadcastNodeConnected(info, reconnected);
+
+			// The node may have missed the last (not broadcasted) INFO
+			if (lastInfoTargeted) {
+				sendInfoPacket(channel(PACKET_INFO, sender));
+			}
 		}
 	}
 
@@ -1014,7 +1617,7 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 		scheduler.schedule(() -> {
 			if (System.currentTimeMillis() - infoScheduledAt.get() >= 1000L) {
 				infoScheduled.set(false);
-				sendInfoPacket(infoBroadcastChannel);
+				sendBroadcastInfoPacket();
 			} else {
 				scheduleInfoPacket();
 			}
@@ -1088,18 +1691,77 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 				broadcastNodeDisconnected(node.info, true);
 			}
 		}
+
+		// Drop removed and offline nodes from the overloaded counter
+		countOverloadedNodes();
+	}
+
+	/**
+	 * Recounts the online, overloaded remote nodes. Called when a node changes
+	 * its overloaded state or goes offline (the counter is only a fast path of
+	 * "hasOverloadedNodes", the node descriptors are the real source).
+	 */
+	protected void countOverloadedNodes() {
+		int count = 0;
+		for (NodeDescriptor node : nodes.values()) {
+			if (node.overloaded && node.offlineSince == 0 && !node.local) {
+				count++;
+			}
+		}
+		overloadedNodes.set(count);
 	}
 
 	// --- GET CPU USAGE OF A REMOTE NODE ---
 
 	public int getCpuUsage(String nodeID) {
 		if (this.nodeID.equals(nodeID)) {
-			return monitor.getTotalCpuPercent();
+			return isOverloaded() ? 100 : monitor.getTotalCpuPercent();
 		}
 		NodeDescriptor node = nodes.get(nodeID);
 		return node == null ? 0 : node.cpu;
 	}
 
+	// --- OVERLOADED STATE ---
+
+	/**
+	 * Returns true if the local node is overloaded.
+	 * 
+	 * @return true if overloaded
+	 */
+	public boolean isOverloaded() {
+		OverloadDetector detector = overloadDetector;
+		return detector != null && detector.isOverloaded();
+	}
+
+	/**
+	 * Returns true if the specified node is overloaded.
+	 * 
+	 * @param nodeID
+	 *            node ID
+	 * 
+	 * @return true if overloaded
+	 */
+	public boolean isOverloaded(String nodeID) {
+		if (this.nodeID.equals(nodeID)) {
+			return isOverloaded();
+		}
+		if (overloadedNodes.get() < 1) {
+			return false;
+		}
+		NodeDescriptor node = nodes.get(nodeID);
+		return node != null && node.overloaded && node.offlineSince == 0;
+	}
+
+	/**
+	 * Returns true if any node is overloaded (used by the Invocation
+	 * Strategies).
+	 * 
+	 * @return true if there are overloaded nodes
+	 */
+	public boolean hasOverloadedNodes() {
+		return overloadedNodes.get() > 0 || isOverloaded();
+	}
+
 	// --- GET LAST HEARTBEAT TIME OF A REMOTE NODE ---
 
 	public long getLastHeartbeatTime(String nodeID) {
@@ -1276,4 +1938,28 @@ public abstract class Transporter extends MoleculerComponent implements MetricCo
 		return instanceID;
 	}
 
+	public OverloadDetector getOverloadDetector() {
+		return overloadDetector;
+	}
+
+	public void setOverloadDetector(OverloadDetector overloadDetector) {
+		this.overloadDetector = overloadDetector;
+	}
+
+	public int getMaxEventBatchSize() {
+		return maxEventBatchSize;
+	}
+
+	public void setMaxEventBatchSize(int maxEventBatchSize) {
+		this.maxEventBatchSize = maxEventBatchSize;
+	}
+
+	public boolean isDeltaInfo() {
+		return deltaInfo;
+	}
+
+	public void setDeltaInfo(boolean deltaInfo) {
+		this.deltaInfo = deltaInfo;
+	}
+
 }
\ No newline at end of file
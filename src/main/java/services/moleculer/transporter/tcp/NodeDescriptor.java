@@ -59,6 +59,8 @@ public class NodeDescriptor {
 	public volatile long cpuSeq;
 	public volatile long cpuWhen;
 
+	public volatile boolean overloaded;
+
 	// --- LOCKS ---
 
 	public final Lock readLock;
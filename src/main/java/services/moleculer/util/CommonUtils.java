@@ -628,27 +628,130 @@ public final class CommonUtils {
 
 	// --- COMPRESSS / DECOMPRESS ---
 
+	/**
+	 * Pooled Deflater, Inflater and work buffer (one per thread)
+	 */
+	private static final ThreadLocal<Codec> codecs = ThreadLocal.withInitial(Codec::new);
+
+	private static final class Codec {
+
+		/**
+		 * Larger work buffers are not kept after use
+		 */
+		private static final int MAX_POOLED_BUFFER = 1024 * 1024;
+
+		private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+		private final Inflater inflater = new Inflater(true);
+
+		private int level = Deflater.BEST_SPEED;
+		private byte[] buffer = new byte[8192];
+
+		private final byte[] buffer(int size) {
+			if (buffer.length < size) {
+				buffer = new byte[size];
+			}
+			return buffer;
+		}
+
+		private final byte[] grow() {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			return buffer;
+		}
+
+		private final byte[] release(byte[] result) {
+			if (buffer.length > MAX_POOLED_BUFFER) {
+				buffer = new byte[8192];
+			}
+			return result;
+		}
+
+	}
+
 	public static final byte[] compress(byte[] data, int level) throws IOException {
-		final Deflater deflater = new Deflater(level, true);
-		deflater.setInput(data);
+		return compress(data, 0, data.length, level, 0);
+	}
+
+	/**
+	 * Compresses a part of an array with a pooled Deflater. The compressed
+	 * bytes are preceded by "headerSize" zero bytes, so the caller can write
+	 * its header (eg. a flag byte) without copying the result again.
+	 * 
+	 * @param data
+	 *            uncompressed bytes
+	 * @param offset
+	 *            start offset of the data
+	 * @param length
+	 *            number of bytes to compress
+	 * @param level
+	 *            compression level (best speed = 1, best compression = 9)
+	 * @param headerSize
+	 *            number of the reserved bytes at the beginning of the result
+	 * 
+	 * @return header + compressed bytes
+	 */
+	public static final byte[] compress(byte[] data, int offset, int length, int level, int headerSize) {
+		final Codec codec = codecs.get();
+		final Deflater deflater = codec.deflater;
+		deflater.reset();
+		if (codec.level != level) {
+			deflater.setLevel(level);
+			codec.level = level;
+		}
+		deflater.setInput(data, offset, length);
 		deflater.finish();
-		final byte[] buffer = new byte[data.length + 128];
-		final int length = deflater.deflate(buffer);
-		final byte[] compressed = new byte[length];
-		System.arraycopy(buffer, 0, compressed, 0, length);
-		return compressed;
+
+		// Deflate into the work buffer (presized for incompressible data)
+		byte[] buffer = codec.buffer(length + (length >> 12) + (length >> 14) + 64);
+		int size = 0;
+		while (!deflater.finished()) {
+			if (size == buffer.length) {
+				buffer = codec.grow();
+			}
+			size += deflater.deflate(buffer, size, buffer.length - size);
+		}
+		final byte[] compressed = new byte[headerSize + size];
+		System.arraycopy(buffer, 0, compressed, headerSize, size);
+		return codec.release(compressed);
 	}
 
 	public static final byte[] decompress(byte[] data) throws IOException, DataFormatException {
-		Inflater inflater = new Inflater(true);
-		inflater.setInput(data);
-		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length);
-		byte[] buffer = new byte[1024];
+		return decompress(data, 0, data.length);
+	}
+
+	/**
+	 * Decompresses a part of an array with a pooled Inflater (eg. the content
+	 * after a flag byte, without copying it into a new array).
+	 * 
+	 * @param data
+	 *            compressed bytes
+	 * @param offset
+	 *            start offset of the compressed data
+	 * @param length
+	 *            number of compressed bytes
+	 * 
+	 * @return decompressed bytes
+	 * 
+	 * @throws DataFormatException
+	 *             invalid or truncated data
+	 */
+	public static final byte[] decompress(byte[] data, int offset, int length) throws DataFormatException {
+		final Codec codec = codecs.get();
+		final Inflater inflater = codec.inflater;
+		inflater.reset();
+		inflater.setInput(data, offset, length);
+		byte[] buffer = codec.buffer(length * 4 + 64);
+		int size = 0;
 		while (!inflater.finished()) {
-			int count = inflater.inflate(buffer);
-			outputStream.write(buffer, 0, count);
+			if (size == buffer.length) {
+				buffer = codec.grow();
+			}
+			int count = inflater.inflate(buffer, size, buffer.length - size);
+			if (count == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+				throw new DataFormatException("Truncated or invalid compressed data!");
+			}
+			size += count;
 		}
-		return outputStream.toByteArray();
+		return codec.release(Arrays.copyOf(buffer, size));
 	}
 
 	// --- UNIT PARSER ---
@@ -0,0 +1,80 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.util;
+
+/**
+ * Outgoing packet which is sent to more than one node. The packet is
+ * serialized only once, the serialized bytes are reused for all targets. The
+ * packet must not be modified after the first serialization. For internal use
+ * only!
+ */
+public class SharedPacket extends FastBuildTree {
+
+	// --- SERIAL VERSION UID ---
+
+	private static final long serialVersionUID = -2386527134457734245L;
+
+	// --- SERIALIZED FORM ---
+
+	protected transient volatile Object owner;
+	protected transient volatile byte[] bytes;
+
+	// --- CONSTRUCTORS ---
+
+	public SharedPacket() {
+		super();
+	}
+
+	public SharedPacket(int size) {
+		super(size);
+	}
+
+	// --- GET / SET SERIALIZED FORM ---
+
+	/**
+	 * Returns the serialized form of this packet.
+	 * 
+	 * @param serializer
+	 *            serializer which produced the bytes
+	 * 
+	 * @return serialized packet or null (if the packet has not been serialized
+	 *         by the specified serializer yet)
+	 */
+	public byte[] getBytes(Object serializer) {
+		byte[] cached = bytes;
+		if (cached != null && owner == serializer) {
+			return cached;
+		}
+		return null;
+	}
+
+	public void setBytes(Object serializer, byte[] bytes) {
+		this.bytes = null;
+		this.owner = serializer;
+		this.bytes = bytes;
+	}
+
+}
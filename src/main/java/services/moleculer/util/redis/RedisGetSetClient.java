@@ -27,7 +27,9 @@ package services.moleculer.util.redis;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
@@ -39,6 +41,7 @@ import com.lambdaworks.redis.RedisFuture;
 import com.lambdaworks.redis.RedisURI;
 import com.lambdaworks.redis.ScanArgs;
 import com.lambdaworks.redis.ScanCursor;
+import com.lambdaworks.redis.ScriptOutputType;
 import com.lambdaworks.redis.SetArgs;
 import com.lambdaworks.redis.api.async.RedisAsyncCommands;
 import com.lambdaworks.redis.cluster.RedisClusterClient;
@@ -156,6 +159,124 @@ public final class RedisGetSetClient extends AbstractRedisClient {
 		return Promise.resolve();
 	}
 
+	// --- COMPARE AND DELETE ---
+
+	/**
+	 * Lua script of the atomic "delete if the value is equal" operation.
+	 */
+	private static final String DEL_IF_EQUALS = "if redis.call('get',KEYS[1])==ARGV[1] then "
+			+ "return redis.call('del',KEYS[1]) end return 0";
+
+	/**
+	 * Deletes a content only if its value is equal to the specified value (eg.
+	 * releases a lock only if it is held by the current owner).
+	 *
+	 * @param key
+	 *            cache key
+	 * @param value
+	 *            expected value
+	 * 
+	 * @return Promise with the number of the deleted keys (0 or 1)
+	 */
+	public final Promise delIfEquals(String key, byte[] value) {
+		byte[][] binaryKeys = new byte[][] { key.getBytes(StandardCharsets.UTF_8) };
+		if (client != null) {
+			return new Promise(client.eval(DEL_IF_EQUALS, ScriptOutputType.INTEGER, binaryKeys, value));
+		}
+		if (clusteredClient != null) {
+			return new Promise(clusteredClient.eval(DEL_IF_EQUALS, ScriptOutputType.INTEGER, binaryKeys, value));
+		}
+		return Promise.resolve();
+	}
+
+	// --- BULK OPERATIONS ---
+
+	/**
+	 * Gets many contents by keys (with one MGET command).
+	 *
+	 * @param keys
+	 *            cache keys
+	 * 
+	 * @return Promise with the list of the values (the Nth item is the value of
+	 *         the Nth key, or null)
+	 */
+	public final Promise mget(String... keys) {
+		byte[][] binaryKeys = toBinaryKeys(keys);
+		if (client != null) {
+			return new Promise(client.mget(binaryKeys));
+		}
+		if (clusteredClient != null) {
+			return new Promise(clusteredClient.mget(binaryKeys));
+		}
+		return Promise.resolve();
+	}
+
+	/**
+	 * Sets many contents. Without TTL, it sends one MSET command, otherwise it
+	 * sends pipelined "SET key value EX ttl" commands (the asynchronous
+	 * commands are written without waiting for the previous responses).
+	 *
+	 * @param values
+	 *            cache keys and values
+	 * @param args
+	 *            Redis arguments (eg. TTL)
+	 * 
+	 * @return Promise with empty value
+	 */
+	public final Promise mset(Map<String, byte[]> values, SetArgs args) {
+		if (client == null && clusteredClient == null) {
+			return Promise.resolve();
+		}
+		if (args == null) {
+			LinkedHashMap<byte[], byte[]> map = new LinkedHashMap<>(values.size() * 2);
+			for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+				map.put(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+			}
+			if (client != null) {
+				return new Promise(client.mset(map));
+			}
+			return new Promise(clusteredClient.mset(map));
+		}
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[values.size()];
+		int i = 0;
+		for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+			byte[] binaryKey = entry.getKey().getBytes(StandardCharsets.UTF_8);
+			if (client != null) {
+				futures[i++] = client.set(binaryKey, entry.getValue(), args).toCompletableFuture();
+			} else {
+				futures[i++] = clusteredClient.set(binaryKey, entry.getValue(), args).toCompletableFuture();
+			}
+		}
+		return new Promise(CompletableFuture.allOf(futures));
+	}
+
+	/**
+	 * Deletes many contents (with one DEL command).
+	 *
+	 * @param keys
+	 *            cache keys
+	 * 
+	 * @return Promise with the number of the deleted keys
+	 */
+	public final Promise mdel(String... keys) {
+		byte[][] binaryKeys = toBinaryKeys(keys);
+		if (client != null) {
+			return new Promise(client.del(binaryKeys));
+		}
+		if (clusteredClient != null) {
+			return new Promise(clusteredClient.del(binaryKeys));
+		}
+		return Promise.resolve();
+	}
+
+	private static final byte[][] toBinaryKeys(String[] keys) {
+		byte[][] binaryKeys = new byte[keys.length][];
+		for (int i = 0; i < keys.length; i++) {
+			binaryKeys[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+		}
+		return binaryKeys;
+	}
+
 	/**
 	 * Deletes a group of items. Removes every key by a match string.
 	 *
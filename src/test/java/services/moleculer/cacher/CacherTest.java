@@ -25,6 +25,8 @@
  */
 package services.moleculer.cacher;
 
+import java.io.File;
+import java.util.LinkedHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -34,6 +36,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
+import io.datatree.Promise;
 import io.datatree.Tree;
 import junit.framework.TestCase;
 import services.moleculer.ServiceBroker;
@@ -369,6 +372,91 @@ public abstract class CacherTest extends TestCase {
 
 	}
 
+	@Test
+	public void testBulk() throws Exception {
+		cr.setBatchSize(7);
+
+		// Set many (more than one batch)
+		LinkedHashMap<String, Tree> entries = new LinkedHashMap<>();
+		String[] keys = new String[20];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = "bulk.key" + i;
+			entries.put(keys[i], new Tree().put("v", i));
+		}
+		cr.setMany(entries, 0).waitFor(20000);
+		for (int i = 0; i < keys.length; i++) {
+			Tree rsp = cr.get(keys[i]).waitFor(20000);
+			assertEquals(i, rsp.get("v", -1));
+		}
+
+		// Get many (with a missing key)
+		String[] query = new String[] { "bulk.key3", "bulk.missing", "bulk.key19", "bulk.key0" };
+		Tree rsp = cr.getMany(query).waitFor(20000);
+		assertEquals(4, rsp.size());
+		assertEquals(3, rsp.get(0).get("v", -1));
+		assertTrue(rsp.get(1) == null || rsp.get(1).isNull());
+		assertEquals(19, rsp.get(2).get("v", -1));
+		assertEquals(0, rsp.get(3).get("v", -1));
+
+		// Delete many
+		cr.delMany("bulk.key3", "bulk.key4").waitFor(20000);
+		assertNull(cr.get("bulk.key3").waitFor(20000));
+		assertNull(cr.get("bulk.key4").waitFor(20000));
+		assertEquals(5, cr.get("bulk.key5").waitFor(20000).get("v", -1));
+
+		rsp = cr.getMany(keys).waitFor(20000);
+		assertEquals(keys.length, rsp.size());
+		for (int i = 0; i < keys.length; i++) {
+			Tree item = rsp.get(i);
+			if (i == 3 || i == 4) {
+				assertTrue(item == null || item.isNull());
+			} else {
+				assertEquals(i, item.get("v", -1));
+			}
+		}
+	}
+
+	@Test
+	public void testStampede() throws Exception {
+		executor = Executors.newCachedThreadPool();
+		SlowService slowService = new SlowService();
+		br.createService(slowService);
+
+		// Concurrent misses of the same key
+		Tree params = new Tree().put("a", 5);
+		Promise[] promises = new Promise[10];
+		for (int i = 0; i < promises.length; i++) {
+			promises[i] = br.call("slow.test", params);
+		}
+		for (Promise promise : promises) {
+			Tree rsp = promise.waitFor(20000);
+			assertEquals(10, rsp.get("b", 0));
+		}
+		assertEquals(1, slowService.counter.get());
+	}
+
+	@Name("slow")
+	public class SlowService extends Service {
+
+		AtomicInteger counter = new AtomicInteger();
+
+		@Cache(keys = { "a" })
+		public Action test = ctx -> {
+			counter.incrementAndGet();
+			return new Promise(resolver -> {
+				executor.execute(() -> {
+					try {
+						Thread.sleep(300);
+					} catch (InterruptedException interrupt) {
+						return;
+					}
+					resolver.resolve(new Tree().put("b", ctx.params.get("a", 0) * 2));
+				});
+			});
+		};
+
+	}
+
 	@Test
 	public void testClean() throws Exception {
 
@@ -435,6 +523,65 @@ public abstract class CacherTest extends TestCase {
 		}
 	}
 
+	// --- SNAPSHOT ---
+
+	protected static final int SNAPSHOT_SIZE = 10000;
+
+	protected void fillSnapshot(Cacher cacher) throws Exception {
+		for (int i = 0; i < SNAPSHOT_SIZE; i++) {
+			cacher.set("users.find:" + i, new Tree().put("a", i), i % 2 == 0 ? 0 : 3600);
+		}
+		cacher.set("users.get", new Tree().put("a", 1), 0);
+		cacher.set("users.find:x", new Tree().put("a", 1), 1);
+		Thread.sleep(1100);
+	}
+
+	protected void checkSnapshot(Cacher cacher, Promise restored, File file) throws Exception {
+
+		// Modified during the restore
+		cacher.set("users.get", new Tree().put("a", -1), 0);
+		cacher.set("users.find:7", new Tree().put("a", -1), 0);
+		restored.waitFor(20000);
+		assertFalse(file.exists());
+		assertFalse(new File(file.getPath() + ".restore").exists());
+		assertEquals(-1, cacher.get("users.get").waitFor(20000).get("a", 0));
+		assertEquals(-1, cacher.get("users.find:7").waitFor(20000).get("a", 0));
+		assertEquals(8, cacher.get("users.find:8").waitFor(20000).get("a", 0));
+		assertEquals(SNAPSHOT_SIZE - 1, cacher.get("users.find:" + (SNAPSHOT_SIZE - 1)).waitFor(20000).get("a", 0));
+		assertNull(cacher.get("users.find:x").waitFor(20000));
+		assertEquals(SNAPSHOT_SIZE + 1, cacher.getCacheKeys().waitFor(20000).get("keys").size());
+	}
+
+	protected void checkSnapshotWrittenDuringRestore(File file) throws Exception {
+		try (CacheSnapshot.Writer writer = new CacheSnapshot(file).createWriter()) {
+			writer.write(new byte[] { 1 }, 0, new byte[] { 1 });
+			writer.commit();
+		}
+
+		// The new snapshot is committed before the old one is read
+		executor = Executors.newCachedThreadPool();
+		AtomicInteger loaded = new AtomicInteger();
+		new CacheSnapshot(file).restore(executor, (key, expireAt, value) -> {
+			try (CacheSnapshot.Writer writer = new CacheSnapshot(file).createWriter()) {
+				writer.write(new byte[] { 2 }, 0, new byte[] { 2 });
+				writer.commit();
+			}
+			loaded.incrementAndGet();
+			return true;
+		}).waitFor(20000);
+		assertEquals(1, loaded.get());
+		assertFalse(new File(file.getPath() + ".restore").exists());
+
+		// Only the old snapshot is deleted
+		new CacheSnapshot(file).restore(executor, (key, expireAt, value) -> {
+			assertEquals(2, key[0]);
+			loaded.incrementAndGet();
+			return true;
+		}).waitFor(20000);
+		assertEquals(2, loaded.get());
+		assertFalse(file.exists());
+	}
+
 	// --- START BROKER ---
 
 	@Override
@@ -0,0 +1,138 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import services.moleculer.ServiceBroker;
+
+public class DiskCacherTest extends CacherTest {
+
+	protected File directory;
+
+	@Override
+	protected Cacher createCacher() throws Exception {
+		if (directory == null) {
+			directory = Files.createTempDirectory("moleculer-cache").toFile();
+		}
+		DiskCacher cacher = new DiskCacher(directory.getAbsolutePath(), 0, 0);
+		cacher.setSegmentSize(1);
+		cacher.setCompaction(0);
+		return cacher;
+	}
+
+	@Test
+	public void testRestart() throws Exception {
+		DiskCacher cacher = (DiskCacher) cr;
+		for (int i = 0; i < 100; i++) {
+			cacher.set("users.find:" + i, new Tree().put("a", i), 0);
+		}
+		cacher.set("posts.get", new Tree().put("a", 1), 0);
+		cacher.del("users.find:5").waitFor(20000);
+		cacher.clean("posts.**").waitFor(20000);
+
+		// Restart
+		cacher = restart();
+		assertEquals(99, cacher.getCacheKeys().waitFor(20000).get("keys").size());
+		assertEquals(7, cacher.get("users.find:7").waitFor(20000).get("a", 0));
+		assertNull(cacher.get("users.find:5").waitFor(20000));
+		assertNull(cacher.get("posts.get").waitFor(20000));
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		DiskCacher cacher = (DiskCacher) cr;
+		cacher.setCompressAbove(0);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			text.append('x');
+		}
+
+		// Overwrite the same keys (3 MBytes in 1 MByte segments)
+		for (int n = 0; n < 30; n++) {
+			for (int i = 0; i < 100; i++) {
+				cacher.set("users.find:" + i, new Tree().put("a", n).put("b", text.toString()), 0);
+			}
+		}
+		cacher.del("users.find:3").waitFor(20000);
+		int segments = cacher.segments.size();
+		assertTrue(segments > 2);
+
+		// Copy live records into the active segment
+		cacher.run();
+		assertTrue(cacher.segments.size() < segments);
+		assertEquals(29, cacher.get("users.find:7").waitFor(20000).get("a", 0));
+		assertNull(cacher.get("users.find:3").waitFor(20000));
+
+		// Restart
+		cacher = restart();
+		assertEquals(29, cacher.get("users.find:7").waitFor(20000).get("a", 0));
+		assertNull(cacher.get("users.find:3").waitFor(20000));
+	}
+
+	@Test
+	public void testTtl() throws Exception {
+		DiskCacher cacher = (DiskCacher) cr;
+		cacher.set("users.find:1", new Tree().put("a", 1), 1);
+		cacher.set("users.find:2", new Tree().put("a", 2), 0);
+		assertEquals(1, cacher.get("users.find:1").waitFor(20000).get("a", 0));
+		Thread.sleep(1100);
+		assertNull(cacher.get("users.find:1").waitFor(20000));
+		assertEquals(2, cacher.get("users.find:2").waitFor(20000).get("a", 0));
+	}
+
+	// --- RESTART BROKER ---
+
+	protected DiskCacher restart() throws Exception {
+		br.stop();
+		cr = createCacher();
+		br = ServiceBroker.builder().cacher(cr).build();
+		br.start();
+		return (DiskCacher) cr;
+	}
+
+	// --- STOP BROKER ---
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		if (directory != null) {
+			File[] files = directory.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					file.delete();
+				}
+			}
+			directory.delete();
+			directory = null;
+		}
+	}
+
+}
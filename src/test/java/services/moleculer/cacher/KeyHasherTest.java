@@ -0,0 +1,110 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import io.datatree.dom.Config;
+import junit.framework.TestCase;
+
+public class KeyHasherTest extends TestCase {
+
+	@Test
+	public void testHasher() throws Exception {
+
+		// MurmurHash3 (x64, 128 bit) of the UTF-16LE bytes
+		assertEquals("YB-0q--b9a7kvZcbu2tGyQ", hash("abc.def:A|C0|false"));
+		assertEquals("AAAAAAAAAAAAAAAAAAAAAA", hash(""));
+
+		// Numbers are hashed as decimal digits
+		KeyHasher hasher = new KeyHasher();
+		hasher.append(-1234567890123L);
+		char[] chars = new char[KeyHasher.TOKEN_LENGTH];
+		hasher.finish(chars, 0);
+		assertEquals(hash("-1234567890123"), new String(chars));
+
+		// Binary format
+		byte[] bytes = KeyHasher.decode("x:" + hash("abc"), 2);
+		assertNotNull(bytes);
+		assertEquals(KeyHasher.BINARY_LENGTH, bytes.length);
+		hasher.reset().append("abc");
+		byte[] expected = hasher.finishBytes();
+		for (int i = 0; i < bytes.length; i++) {
+			assertEquals(expected[i], bytes[i]);
+		}
+		assertNull(KeyHasher.decode("abc", 0));
+
+		// Non-canonical text (must not collide with the canonical form)
+		assertNotNull(KeyHasher.decode("AAAAAAAAAAAAAAAAAAAAAQ", 0));
+		assertNull(KeyHasher.decode("AAAAAAAAAAAAAAAAAAAAAR", 0));
+	}
+
+	@Test
+	public void testHashedKeys() throws Exception {
+		MemoryCacher cacher = new MemoryCacher();
+		Tree params = new Tree();
+		params.put("id", 123);
+		params.put("name", "John");
+		params.getMeta().put("user", "u1");
+
+		// Hash of the serialized params
+		String plain = cacher.getCacheKey("abc.def", params);
+		cacher.setHashKeys(true);
+		String hashed = cacher.getCacheKey("abc.def", params);
+		assertEquals("abc.def:" + hash(plain.substring(8)), hashed);
+		assertEquals(8 + KeyHasher.TOKEN_LENGTH, hashed.length());
+
+		// Same / different params
+		Tree copy = params.clone();
+		assertEquals(hashed, cacher.getCacheKey("abc.def", copy));
+		copy.put("id", 124);
+		assertFalse(hashed.equals(cacher.getCacheKey("abc.def", copy)));
+
+		// Selectors ("#user" in the annotation)
+		String meta = Config.META + ".user";
+		String k1 = cacher.getCacheKey("abc.def", params, "id", meta);
+		cacher.setHashKeys(false);
+		String k2 = cacher.getCacheKey("abc.def", params, "id", meta);
+		assertEquals("abc.def:" + hash(k2.substring(8)), k1);
+		cacher.setHashKeys(true);
+		copy.put("id", 123);
+		copy.put("name", "Bob");
+		assertEquals(k1, cacher.getCacheKey("abc.def", copy, "id", meta));
+
+		// Distributed cachers
+		RedisCacher redis = new RedisCacher();
+		redis.setHashKeys(true);
+		assertEquals(hashed, redis.getCacheKey("abc.def", params));
+	}
+
+	protected String hash(String text) {
+		char[] chars = new char[KeyHasher.TOKEN_LENGTH];
+		new KeyHasher().append(text).finish(chars, 0);
+		return new String(chars);
+	}
+
+}
@@ -25,11 +25,318 @@
  */
 package services.moleculer.cacher;
 
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import services.moleculer.ServiceBroker;
+import services.moleculer.error.MoleculerClientError;
+import services.moleculer.service.Action;
+import services.moleculer.service.Name;
+import services.moleculer.service.Service;
+
 public class MemoryCacherTest extends CacherTest {
 
 	@Override
 	protected Cacher createCacher() throws Exception {
 		return new MemoryCacher(3000, 10000, 10000);
 	}
-	
+
+	@Test
+	public void testStaleWhileRevalidate() throws Exception {
+		StaleService staleService = new StaleService();
+		br.createService(staleService);
+
+		Tree params = new Tree().put("a", 1);
+		Tree rsp = br.call("stale.test", params).waitFor(20000);
+		assertEquals(1, rsp.get("v", 0));
+
+		// Fresh value
+		rsp = br.call("stale.test", params).waitFor(20000);
+		assertEquals(1, rsp.get("v", 0));
+		assertEquals(1, staleService.counter.get());
+
+		// Stale value (served immediately, refreshed in background)
+		Thread.sleep(1200);
+		rsp = br.call("stale.test", params).waitFor(20000);
+		assertEquals(1, rsp.get("v", 0));
+		Thread.sleep(300);
+		assertEquals(2, staleService.counter.get());
+
+		// Refreshed value
+		rsp = br.call("stale.test", params).waitFor(20000);
+		assertEquals(2, rsp.get("v", 0));
+	}
+
+	@Test
+	public void testNegativeCaching() throws Exception {
+		NegativeService negativeService = new NegativeService();
+		br.createService(negativeService);
+
+		// Null result
+		assertNull(br.call("negative.find", new Tree().put("id", 1)).waitFor(20000));
+		assertNull(br.call("negative.find", new Tree().put("id", 1)).waitFor(20000));
+		assertEquals(1, negativeService.counter.get());
+
+		// Cached client error
+		for (int i = 0; i < 2; i++) {
+			try {
+				br.call("negative.find", new Tree().put("id", 2)).waitFor(20000);
+				fail();
+			} catch (Exception e) {
+				assertEquals("Not found!", e.getMessage());
+			}
+		}
+		assertEquals(2, negativeService.counter.get());
+
+		// Other errors are not cached
+		for (int i = 0; i < 2; i++) {
+			try {
+				br.call("negative.find", new Tree().put("id", 3)).waitFor(20000);
+				fail();
+			} catch (Exception e) {
+				assertEquals("Invalid id!", e.getMessage());
+			}
+		}
+		assertEquals(4, negativeService.counter.get());
+
+		// Normal result
+		assertEquals(4, br.call("negative.find", new Tree().put("id", 4)).waitFor(20000).get("id", 0));
+		assertEquals(4, br.call("negative.find", new Tree().put("id", 4)).waitFor(20000).get("id", 0));
+		assertEquals(5, negativeService.counter.get());
+
+		// Normal results are stored unwrapped, null results as markers
+		String key = cr.getCacheKey("negative.find", new Tree().put("id", 4), "id");
+		Tree entry = cr.get(key).waitFor(20000);
+		assertEquals(1, entry.size());
+		assertEquals(4, entry.get("id", 0));
+		key = cr.getCacheKey("negative.find", new Tree().put("id", 1), "id");
+		entry = cr.get(key).waitFor(20000);
+		assertEquals(1, entry.get("$negative", 0));
+
+		// Results which look like legacy marker entries
+		for (int i = 0; i < 2; i++) {
+			Tree rsp = br.call("negative.find", new Tree().put("id", 5)).waitFor(20000);
+			assertEquals(1, rsp.get("!", 0));
+			assertEquals("x", rsp.get("e.message", ""));
+			rsp = br.call("negative.plain", new Tree()).waitFor(20000);
+			assertEquals(1, rsp.get("!", 0));
+			assertEquals("x", rsp.get("e.message", ""));
+		}
+		assertEquals(6, negativeService.counter.get());
+
+		// Marker entries expire after "negativeTtl"
+		Thread.sleep(1200);
+		assertNull(br.call("negative.find", new Tree().put("id", 1)).waitFor(20000));
+		assertEquals(7, negativeService.counter.get());
+	}
+
+	@Test
+	public void testExpiration() throws Exception {
+		for (EvictionPolicy policy : EvictionPolicy.values()) {
+			MemoryCacher cacher = new MemoryCacher(10000, 0, 0);
+			cacher.setEvictionPolicy(policy);
+			MemoryCacher.MemoryPartition partition = cacher.createPartition();
+			Tree value = new Tree().put("a", 1);
+			for (int i = 0; i < 1000; i++) {
+				partition.set("p" + i, value, 0);
+			}
+			for (int i = 0; i < 100; i++) {
+				partition.set("t" + i, value, 1);
+			}
+
+			// Overwritten without TTL
+			partition.set("t0", value, 0);
+			assertEquals(0, partition.removeOldEntries(System.currentTimeMillis()));
+
+			// Lazy expiration
+			Thread.sleep(1100);
+			assertNull(partition.get("t1"));
+			assertNotNull(partition.get("t0"));
+
+			// Cleanup process
+			long now = System.currentTimeMillis() + 1000;
+			assertEquals(98, partition.removeOldEntries(now));
+			assertEquals(0, partition.removeOldEntries(now));
+			assertNotNull(partition.get("p1"));
+			assertNotNull(partition.get("t0"));
+		}
+	}
+
+	@Test
+	public void testMaxBytes() throws Exception {
+		StringBuilder tmp = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			tmp.append('x');
+		}
+		String large = tmp.toString();
+		for (EvictionPolicy policy : EvictionPolicy.values()) {
+			MemoryCacher cacher = new MemoryCacher(100000, 0, 0);
+			cacher.setEvictionPolicy(policy);
+			cacher.setMaxBytes(1000000);
+			for (int i = 0; i < 2000; i++) {
+				cacher.set("small.k" + i, new Tree().put("v", i), 0);
+				cacher.set("large.k" + i, new Tree().put("v", large), 0);
+			}
+			assertTrue(cacher.getUsedBytes() <= 1000000);
+
+			// Entries of the largest partition are evicted
+			MemoryCacher.MemoryPartition small = cacher.getPartition("small");
+			MemoryCacher.MemoryPartition partition = cacher.getPartition("large");
+			assertNotNull(small.get("k0"));
+			assertNotNull(partition.get("k1999"));
+			assertNull(partition.get("k0"));
+
+			// Clean
+			cacher.clean("large.**");
+			assertEquals(0, partition.weight.get());
+			assertEquals(small.weight.get(), cacher.getUsedBytes());
+		}
+
+		// Entries are not weighed without limit
+		MemoryCacher cacher = new MemoryCacher(100000, 0, 0);
+		cacher.set("large.k0", new Tree().put("v", large), 0);
+		assertEquals(0, cacher.getUsedBytes());
+	}
+
+	@Test
+	public void testFreezing() throws Exception {
+		MemoryCacher cacher = new MemoryCacher(100, 0, 0);
+		cacher.setUseFreezing(true);
+		Tree value = new Tree();
+		value.put("id", 1);
+		value.putMap("user").put("name", "John");
+		value.putList("list").add(1).add(2);
+		cacher.set("frozen.a", value, 0);
+
+		// Source is copied
+		value.get("user").put("name", "Bob");
+		Tree rsp1 = cacher.get("frozen.a").waitFor(20000);
+		assertEquals("John", rsp1.get("user.name", ""));
+
+		// Copy-on-write
+		Tree rsp2 = cacher.get("frozen.a").waitFor(20000);
+		rsp1.get("user").put("name", "Bill");
+		rsp1.get("list").add(3);
+		rsp1.put("id", 2);
+		assertEquals("Bill", rsp1.get("user.name", ""));
+		assertEquals(3, rsp1.get("list").size());
+		assertEquals(2, rsp1.get("id", 0));
+		assertEquals("John", rsp2.get("user.name", ""));
+		assertEquals(2, rsp2.get("list").size());
+		assertEquals(1, rsp2.get("id", 0));
+		Tree rsp3 = cacher.get("frozen.a").waitFor(20000);
+		assertEquals(rsp2.toString(), rsp3.toString());
+
+		// Repeated reads of a nested node share the same view
+		Tree user1 = rsp3.get("user");
+		Tree user2 = rsp3.get("user");
+		user1.put("name", "Ann");
+		user2.put("age", 30);
+		assertEquals("Ann", rsp3.get("user.name", ""));
+		assertEquals(30, rsp3.get("user.age", 0));
+		rsp3.get("list").add(3);
+		rsp3.get("list").add(4);
+		assertEquals(4, rsp3.get("list").size());
+		assertEquals("John", cacher.get("frozen.a").waitFor(20000).get("user.name", ""));
+
+		// Unsupported types are cloned
+		cacher.set("frozen.b", new Tree().put("bytes", new byte[] { 1, 2, 3 }), 0);
+		Tree rsp4 = cacher.get("frozen.b").waitFor(20000);
+		rsp4.put("bytes", new byte[0]);
+		assertEquals(3, cacher.get("frozen.b").waitFor(20000).get("bytes").asBytes().length);
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		File file = File.createTempFile("moleculer-cache", ".snapshot");
+		file.delete();
+		try {
+			fillSnapshot(restart(file));
+			MemoryCacher cacher = restart(file);
+			checkSnapshot(cacher, cacher.restored, file);
+
+			// Remaining TTL
+			long expireAt = cacher.getPartition("users").getEntry("find:9").expireAt;
+			assertTrue(expireAt > System.currentTimeMillis() + 3500000);
+			assertEquals(0, cacher.getPartition("users").getEntry("find:10").expireAt);
+
+			// "Clean" cancels the restore
+			cacher = restart(file);
+			cacher.clean("users.**").waitFor(20000);
+			cacher.restored.waitFor(20000);
+			assertEquals(0, cacher.getCacheKeys().waitFor(20000).get("keys").size());
+
+			// A new snapshot is not deleted by the restore process
+			restart(null);
+			checkSnapshotWrittenDuringRestore(file);
+		} finally {
+			restart(null);
+			file.delete();
+		}
+	}
+
+	protected MemoryCacher restart(File snapshot) throws Exception {
+		br.stop();
+		MemoryCacher cacher = new MemoryCacher(1 << 20, 0, 0);
+		if (snapshot != null) {
+			cacher.setSnapshotFile(snapshot.getAbsolutePath());
+		}
+		cr = cacher;
+		br = ServiceBroker.builder().cacher(cr).build();
+		br.start();
+		return cacher;
+	}
+
+	@Name("negative")
+	public class NegativeService extends Service {
+
+		AtomicInteger counter = new AtomicInteger();
+
+		@Cache(keys = { "id" }, negativeTtl = 1, negativeErrors = { "NOT_FOUND" })
+		public Action find = ctx -> {
+			counter.incrementAndGet();
+			int id = ctx.params.get("id", 0);
+			if (id == 1) {
+				return null;
+			}
+			if (id == 2) {
+				throw new MoleculerClientError("Not found!", null, "node1", 404, "NOT_FOUND", null);
+			}
+			if (id == 3) {
+				throw new MoleculerClientError("Invalid id!", null, "node1", 400, "INVALID_ID", null);
+			}
+			if (id == 5) {
+				return markerLike();
+			}
+			return new Tree().put("id", id);
+		};
+
+		@Cache(ttl = 60)
+		public Action plain = ctx -> {
+			return markerLike();
+		};
+
+		protected Tree markerLike() {
+			Tree tree = new Tree().put("!", 1);
+			tree.putMap("e").put("message", "x");
+			return tree;
+		}
+
+	}
+
+	@Name("stale")
+	public class StaleService extends Service {
+
+		AtomicInteger counter = new AtomicInteger();
+
+		@Cache(keys = { "a" }, ttl = 1, staleTtl = 10)
+		public Action test = ctx -> {
+			return new Tree().put("v", counter.incrementAndGet());
+		};
+
+	}
+
 }
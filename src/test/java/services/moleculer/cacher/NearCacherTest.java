@@ -0,0 +1,181 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+
+import org.jsr107.ri.spi.RICachingProvider;
+import org.junit.Test;
+
+import io.datatree.Promise;
+import io.datatree.Tree;
+
+public class NearCacherTest extends CacherTest {
+
+	@Override
+	protected Cacher createCacher() throws Exception {
+
+		@SuppressWarnings("resource")
+		CachingProvider provider = new RICachingProvider();
+		CacheManager manager = provider.getCacheManager();
+
+		return new NearCacher(new MemoryCacher(3000, 10000, 10000), new TimestampedCacher(manager));
+	}
+
+	/**
+	 * L2 cache with configurable entry timestamps.
+	 */
+	protected static class TimestampedCacher extends JCacheCacher {
+
+		protected long timestamp;
+		protected long expireAt;
+		protected int getEntriesCalls;
+
+		protected TimestampedCacher(CacheManager manager) {
+			super(manager);
+		}
+
+		@Override
+		public Promise getEntry(String key) {
+			return get(key).then(content -> {
+				if (content == null || content.isNull()) {
+					return null;
+				}
+				return envelope(content.asObject(), timestamp, expireAt);
+			});
+		}
+
+		@Override
+		public Promise getEntries(String... keys) {
+			getEntriesCalls++;
+			return super.getEntries(keys);
+		}
+
+	}
+
+	@Test
+	public void testLevels() throws Exception {
+		NearCacher near = (NearCacher) cr;
+		Tree val = new Tree().put("a", 1);
+		near.set("x.y", val, 0).waitFor(20000);
+
+		// L1 hit
+		Tree rsp = near.get("x.y").waitFor(20000);
+		assertEquals(1, rsp.get("a", 0));
+		assertEquals(1d, near.getLocalHitRatio());
+
+		// L2 hit
+		near.getLocal().del("x.y").waitFor(20000);
+		rsp = near.get("x.y").waitFor(20000);
+		assertEquals(1, rsp.get("a", 0));
+		assertEquals(0.5d, near.getRemoteHitRatio());
+
+		// Copied back to L1
+		rsp = near.getLocal().get("x.y").waitFor(20000);
+		assertEquals(1, rsp.get("a", 0));
+	}
+
+	@Test
+	public void testEntryCopy() throws Exception {
+		NearCacher near = (NearCacher) cr;
+		TimestampedCacher remote = (TimestampedCacher) near.getRemote();
+		long now = System.currentTimeMillis();
+		remote.timestamp = now - 5000;
+		remote.expireAt = now + 3000;
+		remote.set("x.w", new Tree().put("a", 4), 0).waitFor(20000);
+
+		// L2 hit, the L1 entry keeps the timestamp and the remaining TTL
+		Tree rsp = near.getEntry("x.w").waitFor(20000);
+		assertEquals(4, rsp.get("_.a", 0));
+		rsp = near.getLocal().getEntry("x.w").waitFor(20000);
+		assertEquals(4, rsp.get("_.a", 0));
+		assertEquals(now - 5000, rsp.get("t", 0L));
+		long expireAt = rsp.get("x", 0L);
+		assertTrue(expireAt > now);
+		assertTrue(expireAt <= now + 3000 + (System.currentTimeMillis() - now));
+
+		// Expired L2 entries are not copied
+		remote.expireAt = now - 1000;
+		remote.set("x.e", new Tree().put("a", 5), 0).waitFor(20000);
+		rsp = near.get("x.e").waitFor(20000);
+		assertEquals(5, rsp.get("a", 0));
+		assertNull(near.getLocal().get("x.e").waitFor(20000));
+		remote.timestamp = 0;
+		remote.expireAt = 0;
+	}
+
+	@Test
+	public void testGetMany() throws Exception {
+		NearCacher near = (NearCacher) cr;
+		TimestampedCacher remote = (TimestampedCacher) near.getRemote();
+		remote.set("x.m1", new Tree().put("a", 1), 0).waitFor(20000);
+		remote.set("x.m2", new Tree().put("a", 2), 0).waitFor(20000);
+		near.set("x.m3", new Tree().put("a", 3), 0).waitFor(20000);
+		remote.getEntriesCalls = 0;
+
+		// The L1 misses are loaded with one call
+		Tree rsp = near.getMany("x.m1", "x.m2", "x.m3", "x.m4").waitFor(20000);
+		assertEquals(1, remote.getEntriesCalls);
+		assertEquals(1, rsp.get(0).get("a", 0));
+		assertEquals(2, rsp.get(1).get("a", 0));
+		assertEquals(3, rsp.get(2).get("a", 0));
+		assertTrue(rsp.get(3) == null || rsp.get(3).isNull());
+
+		// Copied to L1
+		rsp = near.getLocal().get("x.m2").waitFor(20000);
+		assertEquals(2, rsp.get("a", 0));
+
+		// All hits from L1
+		near.getMany("x.m1", "x.m2", "x.m3").waitFor(20000);
+		assertEquals(1, remote.getEntriesCalls);
+	}
+
+	@Test
+	public void testInvalidation() throws Exception {
+		NearCacher near = (NearCacher) cr;
+		near.set("x.z", new Tree().put("a", 2), 0).waitFor(20000);
+
+		// Event from another node
+		Tree payload = new Tree();
+		payload.put("sender", "otherNode");
+		payload.putList("keys").add("x.z");
+		br.broadcast(NearCacher.INVALIDATE_EVENT, payload);
+		Thread.sleep(200);
+
+		Tree rsp = near.getLocal().get("x.z").waitFor(20000);
+		assertNull(rsp);
+		rsp = near.getRemote().get("x.z").waitFor(20000);
+		assertEquals(2, rsp.get("a", 0));
+
+		// Own events are ignored
+		near.set("x.z", new Tree().put("a", 3), 0).waitFor(20000);
+		Thread.sleep(200);
+		rsp = near.getLocal().get("x.z").waitFor(20000);
+		assertEquals(3, rsp.get("a", 0));
+	}
+
+}
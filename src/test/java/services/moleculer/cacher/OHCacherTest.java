@@ -25,11 +25,127 @@
  */
 package services.moleculer.cacher;
 
+import java.io.File;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import services.moleculer.ServiceBroker;
+
 public class OHCacherTest extends CacherTest {
 
 	@Override
 	protected Cacher createCacher() throws Exception {
 		return new OHCacher();
 	}
-	
+
+	@Test
+	public void testKeyIndex() throws Exception {
+		OHCacher cacher = (OHCacher) cr;
+		Tree value = new Tree().put("a", 1);
+		for (int i = 0; i < 100; i++) {
+			cacher.set("users.find:" + i, value, 0);
+			cacher.set("users.get" + i, value, 0);
+			cacher.set("posts.find:" + i, value, 0);
+		}
+		assertEquals(300, cacher.getCacheKeys().waitFor(20000).get("keys").size());
+
+		// Visits only the matching keys
+		assertEquals(11, cacher.cleanIndex("users.get1*"));
+		assertNull(cacher.get("users.get10").waitFor(20000));
+		assertNotNull(cacher.get("users.get2").waitFor(20000));
+		assertNotNull(cacher.get("users.find:1").waitFor(20000));
+
+		// Invalidated entries are not listed
+		assertEquals(289, cacher.getCacheKeys().waitFor(20000).get("keys").size());
+
+		// Drop partition
+		cacher.clean("users.**").waitFor(20000);
+		assertNull(cacher.get("users.find:1").waitFor(20000));
+		assertNull(cacher.get("users.get2").waitFor(20000));
+		assertNotNull(cacher.get("posts.find:1").waitFor(20000));
+		assertEquals(100, cacher.getCacheKeys().waitFor(20000).get("keys").size());
+
+		// Reinsert
+		cacher.set("users.find:1", new Tree().put("a", 2), 0);
+		assertEquals(2, cacher.get("users.find:1").waitFor(20000).get("a", 0));
+	}
+
+	@Test
+	public void testCleanParams() throws Exception {
+		OHCacher cacher = (OHCacher) cr;
+		cacher.setHashKeys(true);
+		Tree value = new Tree().put("a", 1);
+		for (int i = 0; i < 100; i++) {
+			cacher.set("users.find:" + i, value, 0);
+			cacher.set("posts.find:" + i, value, 0);
+		}
+		cacher.set("users.find:John", value, 0);
+		cacher.set("users.all", value, 0);
+
+		// Compressed and hashed parameters
+		String longParams = new String(new char[2000]).replace('\0', 'x');
+		cacher.set("users.find:" + longParams, value, 0);
+		String hash = "AAAAAAAAAAAAAAAAAAAAAQ";
+		cacher.set("users.find:" + hash, value, 0);
+		String key = "users.find:" + longParams;
+		assertEquals(key, cacher.bytesToFullKey(cacher.keyToBytes(key, false)));
+		key = "users.find:" + hash;
+		assertEquals(key, cacher.bytesToFullKey(cacher.keyToBytes(key, false)));
+
+		// Pattern with parameters
+		assertEquals(11, cacher.cleanIndex("users.find:1*"));
+		assertNull(cacher.get("users.find:1").waitFor(20000));
+		assertNull(cacher.get("users.find:12").waitFor(20000));
+		assertNotNull(cacher.get("users.find:2").waitFor(20000));
+		assertNotNull(cacher.get("posts.find:1").waitFor(20000));
+
+		// Exact key
+		cacher.clean("users.find:John").waitFor(20000);
+		assertNull(cacher.get("users.find:John").waitFor(20000));
+		assertNotNull(cacher.get("users.all").waitFor(20000));
+		cacher.clean("users.find:" + hash).waitFor(20000);
+		assertNull(cacher.get("users.find:" + hash).waitFor(20000));
+		cacher.clean("users.find:x*").waitFor(20000);
+		assertNull(cacher.get("users.find:" + longParams).waitFor(20000));
+		assertNotNull(cacher.get("users.find:2").waitFor(20000));
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		File file = File.createTempFile("moleculer-cache", ".snapshot");
+		file.delete();
+		try {
+			fillSnapshot(restart(file));
+			OHCacher cacher = restart(file);
+			checkSnapshot(cacher, cacher.restored, file);
+
+			// Remaining TTL
+			byte[] bytes = cacher.cache.get(cacher.keyToBytes("users.find:9", false));
+			assertTrue(OHCacher.expireAtOf(bytes) > System.currentTimeMillis() + 3500000);
+			bytes = cacher.cache.get(cacher.keyToBytes("users.find:10", false));
+			assertEquals(0, OHCacher.expireAtOf(bytes));
+
+			// Restored keys can be invalidated
+			cacher.clean("users.find*").waitFor(20000);
+			assertNull(cacher.get("users.find:8").waitFor(20000));
+			assertEquals(-1, cacher.get("users.get").waitFor(20000).get("a", 0));
+		} finally {
+			restart(null);
+			file.delete();
+		}
+	}
+
+	protected OHCacher restart(File snapshot) throws Exception {
+		br.stop();
+		OHCacher cacher = new OHCacher(512, 0);
+		if (snapshot != null) {
+			cacher.setSnapshotFile(snapshot.getAbsolutePath());
+		}
+		cr = cacher;
+		br = ServiceBroker.builder().cacher(cr).build();
+		br.start();
+		return cacher;
+	}
+
 }
\ No newline at end of file
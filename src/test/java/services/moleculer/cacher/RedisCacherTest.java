@@ -25,6 +25,12 @@
  */
 package services.moleculer.cacher;
 
+import java.util.LinkedHashMap;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+
 public class RedisCacherTest extends CacherTest {
 
 	@Override
@@ -33,4 +39,59 @@ public class RedisCacherTest extends CacherTest {
 		return cacher;
 	}
 
+	@Test
+	public void testBulkLatency() throws Exception {
+		int count = 1000;
+		String[] keys = new String[count];
+		LinkedHashMap<String, Tree> entries = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			keys[i] = "latency.key" + i;
+			entries.put(keys[i], new Tree().put("v", i));
+		}
+
+		// Warm up
+		for (int n = 0; n < 3; n++) {
+			cr.setMany(entries, 0).waitFor(20000);
+			cr.getMany(keys).waitFor(20000);
+			for (String key : keys) {
+				cr.get(key).waitFor(20000);
+			}
+		}
+
+		// One round trip per key
+		long start = System.nanoTime();
+		for (String key : keys) {
+			cr.set(key, entries.get(key), 0).waitFor(20000);
+		}
+		long singleSet = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (String key : keys) {
+			cr.get(key).waitFor(20000);
+		}
+		long singleGet = System.nanoTime() - start;
+
+		// MSET / MGET (one round trip per batch)
+		start = System.nanoTime();
+		cr.setMany(entries, 0).waitFor(20000);
+		long bulkSet = System.nanoTime() - start;
+		start = System.nanoTime();
+		Tree rsp = cr.getMany(keys).waitFor(20000);
+		long bulkGet = System.nanoTime() - start;
+		assertEquals(count, rsp.size());
+		assertEquals(count - 1, rsp.get(count - 1).get("v", -1));
+
+		// Pipelined SET EX
+		start = System.nanoTime();
+		cr.setMany(entries, 60).waitFor(20000);
+		long bulkSetEx = System.nanoTime() - start;
+
+		System.out.println("Redis latency of " + count + " keys (batch size: " + cr.getBatchSize() + ")");
+		System.out.println("  get x " + count + ": " + singleGet / 1000000 + " msec, getMany: " + bulkGet / 1000000
+				+ " msec");
+		System.out.println("  set x " + count + ": " + singleSet / 1000000 + " msec, setMany: " + bulkSet / 1000000
+				+ " msec, setMany with TTL: " + bulkSetEx / 1000000 + " msec");
+		cr.delMany(keys).waitFor(20000);
+		assertNull(cr.get(keys[0]).waitFor(20000));
+	}
+
 }
@@ -0,0 +1,117 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.cacher;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import services.moleculer.cacher.MemoryCacher.MemoryPartition;
+
+public class TinyLfuMemoryCacherTest extends CacherTest {
+
+	@Override
+	protected Cacher createCacher() throws Exception {
+		MemoryCacher cacher = new MemoryCacher(3000, 10000, 10000);
+		cacher.setEvictionPolicy(EvictionPolicy.TINY_LFU);
+		return cacher;
+	}
+
+	@Test
+	public void testZipfianHitRatio() throws Exception {
+
+		// Zipfian workload (100 000 keys, 1 000 cached)
+		String[] keys = zipfianKeys(100000, 0.9, 1000000);
+		double fifo = 0;
+		double tinyLfu = 0;
+		for (EvictionPolicy policy : EvictionPolicy.values()) {
+			MemoryCacher cacher = new MemoryCacher(1000, 0, 0);
+			cacher.setEvictionPolicy(policy);
+			MemoryPartition partition = cacher.createPartition();
+			Tree value = new Tree().put("a", 1);
+			int hits = 0;
+			long start = System.nanoTime();
+			for (String key : keys) {
+				if (partition.get(key) == null) {
+					partition.set(key, value, 0);
+				} else {
+					hits++;
+				}
+			}
+			long duration = (System.nanoTime() - start) / 1000000;
+			double ratio = hits * 100d / keys.length;
+			System.out.println(policy + " hit ratio: " + ratio + "%, " + keys.length + " operations in " + duration
+					+ " msec");
+			if (policy == EvictionPolicy.FIFO) {
+				fifo = ratio;
+			} else if (policy == EvictionPolicy.TINY_LFU) {
+				tinyLfu = ratio;
+			}
+		}
+		assertTrue(tinyLfu > fifo);
+	}
+
+	@Test
+	public void testCapacity() throws Exception {
+		MemoryCacher cacher = new MemoryCacher(100, 0, 0);
+		cacher.setEvictionPolicy(EvictionPolicy.TINY_LFU);
+		TinyLfuPartition partition = (TinyLfuPartition) cacher.createPartition();
+		Tree value = new Tree().put("a", 1);
+
+		// Frequently used key
+		for (int i = 0; i < 10; i++) {
+			partition.set("hot", value, 0);
+			partition.get("hot");
+		}
+		for (int i = 0; i < 1000; i++) {
+			partition.set("key" + i, value, 0);
+		}
+		assertTrue(partition.data.size() <= 100);
+		assertNotNull(partition.get("hot"));
+	}
+
+	protected String[] zipfianKeys(int items, double skew, int count) {
+		double[] cdf = new double[items];
+		double sum = 0;
+		for (int i = 0; i < items; i++) {
+			sum += 1 / Math.pow(i + 1, skew);
+			cdf[i] = sum;
+		}
+		Random rnd = new Random(1);
+		String[] keys = new String[count];
+		for (int i = 0; i < count; i++) {
+			int index = Arrays.binarySearch(cdf, rnd.nextDouble() * sum);
+			if (index < 0) {
+				index = -index - 1;
+			}
+			keys[i] = "key" + index;
+		}
+		return keys;
+	}
+
+}
@@ -0,0 +1,187 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.eventbus;
+
+import java.util.LinkedHashMap;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.context.Context;
+import services.moleculer.util.CheckedTree;
+
+public class EventShaperTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected ScheduledExecutorService scheduler;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testThrottle() throws Exception {
+		EventShaper shaper = new EventShaper(3, 60000, 0, null, 1, scheduler);
+		int accepted = 0;
+		for (int i = 0; i < 10; i++) {
+			if (shaper.accept(new Tree(), null)) {
+				accepted++;
+			}
+		}
+		assertEquals(3, accepted);
+	}
+
+	@Test
+	public void testDebounce() throws Exception {
+		EventShaper shaper = new EventShaper(0, 1, 200, new String[] { "id" }, 1, scheduler);
+		Vector<String> list = new Vector<>();
+		for (int i = 0; i < 10; i++) {
+			for (String id : new String[] { "a", "b" }) {
+				final String value = id + i;
+				Tree params = new Tree().put("id", id);
+				assertFalse(shaper.accept(params, () -> {
+					list.add(value);
+				}));
+			}
+		}
+		Thread.sleep(500);
+		assertEquals(2, list.size());
+		assertTrue(list.contains("a9"));
+		assertTrue(list.contains("b9"));
+	}
+
+	@Test
+	public void testDebouncedListener() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "listener"));
+		try {
+			Vector<String> threads = new Vector<>();
+			CountDownLatch latch = new CountDownLatch(1);
+			LocalListenerEndpoint endpoint = new LocalListenerEndpoint("node1", "service", "group", "event", ctx -> {
+				threads.add(Thread.currentThread().getName());
+				latch.countDown();
+			}, false, null, null, null, executor);
+			endpoint.setShaper(new EventShaper(0, 1, 50, null, 1, scheduler));
+			for (int i = 0; i < 5; i++) {
+				endpoint.on(new Context(null, null, null, "id" + i, "event", new Tree(), 1, null, "id" + i, null,
+						null, "node1"), null, false);
+			}
+
+			// Flushed in the listener's executor (not in the scheduler)
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertEquals(1, threads.size());
+			assertEquals("listener", threads.get(0));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testMaxPending() throws Exception {
+		EventShaper shaper = new EventShaper(0, 1, 200, new String[] { "id" }, 1, scheduler);
+		shaper.setMaxPending(2);
+		assertFalse(shaper.accept(new Tree().put("id", "a"), () -> {
+		}));
+		assertFalse(shaper.accept(new Tree().put("id", "b"), () -> {
+		}));
+
+		// Too many keys -> not debounced
+		assertTrue(shaper.accept(new Tree().put("id", "c"), () -> {
+		}));
+		assertEquals(2, shaper.pending.size());
+
+		// Known key
+		assertFalse(shaper.accept(new Tree().put("id", "a"), () -> {
+		}));
+	}
+
+	@Test
+	public void testShapedEvent() throws Exception {
+		Vector<String> list = new Vector<>();
+		LocalListenerEndpoint endpoint = new LocalListenerEndpoint("node1", "service", "group", "event", ctx -> {
+			list.add(ctx.id);
+		}, false, null);
+		endpoint.setShaper(new EventShaper(1, 60000, 10000, null, 1, scheduler));
+
+		// Already throttled and debounced by the sender node
+		for (int i = 0; i < 3; i++) {
+			endpoint.onShaped(new Context(null, null, null, "id" + i, "event", new Tree(), 1, null, "id" + i, null,
+					null, "node2"), null);
+		}
+		assertEquals(3, list.size());
+
+		// Local events are debounced
+		endpoint.on(new Context(null, null, null, "id3", "event", new Tree(), 1, null, "id3", null, null, "node1"),
+				null, false);
+		assertEquals(3, list.size());
+	}
+
+	@Test
+	public void testSample() throws Exception {
+		EventShaper shaper = new EventShaper(0, 1, 0, null, 0.2, scheduler);
+		int accepted = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (shaper.accept(new Tree(), null)) {
+				accepted++;
+			}
+		}
+		assertTrue(accepted > 1500 && accepted < 2500);
+	}
+
+	@Test
+	public void testDescriptor() throws Exception {
+		EventShaper shaper = new EventShaper(5, 100, 50, new String[] { "id", "type" }, 0.5, scheduler);
+		LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+		shaper.addToDescriptor(map);
+		Tree descriptor = new CheckedTree(map);
+
+		// Sampling is performed by the listener's node
+		EventShaper remote = EventShaper.of(descriptor, scheduler);
+		assertEquals(5, remote.getThrottleLimit());
+		assertEquals(100, remote.getThrottleInterval());
+		assertEquals(50, remote.getDebounceInterval());
+		assertEquals(2, remote.getDebounceKeys().length);
+		assertEquals(1.0, remote.getSampleRate());
+	}
+
+	// --- START / STOP SCHEDULER ---
+
+	@Override
+	protected void setUp() throws Exception {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		scheduler.shutdownNow();
+	}
+
+}
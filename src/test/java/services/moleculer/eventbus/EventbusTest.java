@@ -363,6 +363,40 @@ public class EventbusTest extends TestCase {
 		assertEquals(1, s2.payloads.size());
 	}
 
+	@Test
+	public void testBatchedEvents() throws Exception {
+
+		// Create two listeners
+		br.createService("test1", new TestListener());
+		TestListener s1 = (TestListener) br.getLocalService("test1");
+		br.createService("test2", new TestListener());
+		TestListener s2 = (TestListener) br.getLocalService("test2");
+
+		// One EVENT packet with three events
+		FastBuildTree msg = new FastBuildTree(3);
+		msg.putUnsafe("ver", br.getProtocolVersion());
+		msg.putUnsafe("sender", "node5");
+		Tree batch = msg.putListUnsafe("batch", 3);
+		for (int i = 1; i <= 3; i++) {
+			Tree event = batch.addMap();
+			event.put("ver", br.getProtocolVersion());
+			event.put("sender", "node5");
+			event.put("event", "test.a");
+			event.put("broadcast", i != 2);
+			event.putMap("data").put("y", i);
+		}
+		tr.received(tr.eventChannel, msg);
+
+		// Broadcasted events are received by both listeners, the emitted one
+		// by both groups (one listener per group)
+		assertEquals(3, s1.payloads.size());
+		assertEquals(3, s2.payloads.size());
+		for (int i = 1; i <= 3; i++) {
+			assertEquals(i, s1.payloads.remove().get("y", 0));
+			assertEquals(i, s2.payloads.remove().get("y", 0));
+		}
+	}
+
 	protected void putIncomingMessage(String name, boolean broadcast, Groups groups, Tree payload) throws Exception {
 		FastBuildTree msg = new FastBuildTree(7);
 		msg.putUnsafe("ver", br.getProtocolVersion());
@@ -543,6 +577,55 @@ public class EventbusTest extends TestCase {
 		assertEquals(0, g2_b.payloads.size());
 	}
 
+	@Test
+	public void testAsyncQueues() throws Exception {
+		br.createService("async_a", new AsyncListener1());
+		AsyncListener1 a = (AsyncListener1) br.getLocalService("async_a");
+		br.createService("async_b", new AsyncListener2());
+		AsyncListener2 b = (AsyncListener2) br.getLocalService("async_b");
+
+		// One queue per service and group
+		DefaultEventbus eb = (DefaultEventbus) br.getConfig().getEventbus();
+		assertEquals(2, eb.listenerQueues.size());
+		assertEquals(10, eb.listenerQueues.get("async_a:shared").getCapacity());
+		assertEquals(20, eb.listenerQueues.get("async_b:shared").getCapacity());
+
+		br.broadcastLocal("async.a", new Tree());
+		assertEquals(1, a.payloads.size());
+		assertEquals(1, b.payloads.size());
+
+		// Remove queue with the listeners
+		eb.removeListeners("local", "async_a");
+		assertNull(eb.listenerQueues.get("async_a:shared"));
+		assertNotNull(eb.listenerQueues.get("async_b:shared"));
+	}
+
+	protected static final class AsyncListener1 extends Service {
+
+		protected LinkedList<Tree> payloads = new LinkedList<>();
+
+		@Async(queueSize = 10)
+		@Group("shared")
+		@Subscribe("async.*")
+		Listener evt = ctx -> {
+			payloads.addLast(ctx.params);
+		};
+
+	}
+
+	protected static final class AsyncListener2 extends Service {
+
+		protected LinkedList<Tree> payloads = new LinkedList<>();
+
+		@Async(queueSize = 20)
+		@Group("shared")
+		@Subscribe("async.*")
+		Listener evt = ctx -> {
+			payloads.addLast(ctx.params);
+		};
+
+	}
+
 	protected static final class Group1Listener extends Service {
 
 		protected LinkedList<Tree> payloads = new LinkedList<>();
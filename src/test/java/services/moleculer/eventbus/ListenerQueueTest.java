@@ -0,0 +1,124 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.eventbus;
+
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class ListenerQueueTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected ExecutorService executor;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testOrdering() throws Exception {
+		ListenerQueue queue = new ListenerQueue("service", "test", 10, OverflowPolicy.BLOCK, executor, null);
+		Vector<Integer> list = new Vector<>();
+		CountDownLatch latch = new CountDownLatch(1000);
+		for (int i = 0; i < 1000; i++) {
+			final int value = i;
+			queue.submit(() -> {
+				list.add(value);
+				latch.countDown();
+			});
+		}
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, (int) list.get(i));
+		}
+	}
+
+	@Test
+	public void testOverflow() throws Exception {
+		CountDownLatch blocker = new CountDownLatch(1);
+		Vector<Integer> list = new Vector<>();
+
+		// Drop newest
+		ListenerQueue queue = new ListenerQueue("service", "test", 2, OverflowPolicy.DROP_NEWEST, executor, null);
+		fill(queue, blocker, list);
+		assertEquals(2, queue.getSize());
+		blocker.countDown();
+		Thread.sleep(300);
+		assertEquals("[0, 1, 2]", list.toString());
+
+		// Drop oldest
+		blocker = new CountDownLatch(1);
+		list.clear();
+		queue = new ListenerQueue("service", "test", 2, OverflowPolicy.DROP_OLDEST, executor, null);
+		fill(queue, blocker, list);
+		assertEquals(2, queue.getSize());
+		blocker.countDown();
+		Thread.sleep(300);
+		assertEquals("[0, 3, 4]", list.toString());
+
+		// Default policy never blocks the emitter
+		queue = new ListenerQueue("service", "test", 2, null, executor, null);
+		assertEquals(OverflowPolicy.DROP_OLDEST, queue.getOverflow());
+	}
+
+	protected void fill(ListenerQueue queue, CountDownLatch blocker, Vector<Integer> list) throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		queue.submit(() -> {
+			started.countDown();
+			try {
+				blocker.await();
+			} catch (InterruptedException interrupt) {
+				return;
+			}
+			list.add(0);
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		for (int i = 1; i < 5; i++) {
+			final int value = i;
+			queue.submit(() -> {
+				list.add(value);
+			});
+		}
+	}
+
+	// --- START / STOP EXECUTOR ---
+
+	@Override
+	protected void setUp() throws Exception {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		executor.shutdownNow();
+	}
+
+}
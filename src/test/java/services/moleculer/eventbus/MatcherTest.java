@@ -107,6 +107,24 @@ public class MatcherTest extends TestCase {
 		assertNotMatch("$aa.bb.cc", "*");
 	}
 
+	@Test
+	public void testQuestionMark() throws Exception {
+
+		// "?" matches exactly one character of a segment
+		assertMatch("a1c", "a?c");
+		assertMatch("aa.xb", "aa.?b");
+		assertNotMatch("ac", "a?c");
+		assertNotMatch("a12c", "a?c");
+
+		// ...but never the "." separator
+		assertNotMatch("a.c", "a?c");
+		assertNotMatch("aa.b", "aa?b");
+		assertNotMatch("aa.bb.cc", "aa?bb.*");
+
+		// "." is a literal character
+		assertNotMatch("aaxbc", "aa.?c");
+	}
+
 	public void assertMatch(String text, String pattern) {
 		assertTrue(Matcher.matches(text, pattern));
 	}
@@ -0,0 +1,136 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.eventbus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import io.datatree.dom.Cache;
+import junit.framework.TestCase;
+
+public class RouteTableTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testRouteTable() throws Exception {
+		RouteTable<String> routes = new RouteTable<>(2);
+		assertNull(routes.get("a"));
+
+		// Store and invalidate
+		routes.put("a", "1", routes.generation());
+		assertEquals("1", routes.get("a"));
+		routes.invalidate();
+		assertNull(routes.get("a"));
+
+		// Resolved from an older topology
+		long generation = routes.generation();
+		routes.invalidate();
+		routes.put("a", "2", generation);
+		assertNull(routes.get("a"));
+		routes.put("a", "3", routes.generation());
+		assertEquals("3", routes.get("a"));
+
+		// Size limit
+		routes.put("b", "4", routes.generation());
+		routes.put("c", "5", routes.generation());
+		assertEquals(2, routes.routes.size());
+		assertEquals("5", routes.get("c"));
+
+		// Routes of older generations are purged first
+		routes.invalidate();
+		routes.put("d", "6", routes.generation());
+		assertEquals(1, routes.routes.size());
+		routes.put("e", "7", routes.generation());
+		assertEquals("6", routes.get("d"));
+		assertEquals("7", routes.get("e"));
+
+		// Late write of an older generation
+		routes.routes.put("f", new RouteTable.Route<>("8", generation));
+		routes.put("g", "9", routes.generation());
+		assertEquals(2, routes.routes.size());
+		assertNull(routes.routes.get("f"));
+		assertEquals("9", routes.get("g"));
+	}
+
+	@Test
+	public void testThroughput() throws Exception {
+		String[] names = new String[100];
+		RouteTable<String> routes = new RouteTable<>(1024);
+		Cache<String, String> cache = new Cache<>(1024);
+		for (int i = 0; i < names.length; i++) {
+			names[i] = "event" + i;
+			routes.put(names[i], names[i], routes.generation());
+			cache.put(names[i], names[i]);
+		}
+
+		// Warm up
+		measure(4, cache::get, names);
+		measure(4, routes::get, names);
+
+		// Lookups of the resolved routes (the hot path of emit / broadcast)
+		for (int threads = 1; threads <= 32; threads *= 2) {
+			long cacheRate = measure(threads, cache::get, names);
+			long routeRate = measure(threads, routes::get, names);
+			System.out.println(threads + " threads: synchronized Cache " + cacheRate + " lookups/msec, RouteTable "
+					+ routeRate + " lookups/msec");
+		}
+	}
+
+	protected long measure(int threads, Function<String, String> lookup, String[] names) throws Exception {
+		int loops = 200000;
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger misses = new AtomicInteger();
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException interrupt) {
+					return;
+				}
+				for (int i = 0; i < loops; i++) {
+					if (lookup.apply(names[i % names.length]) == null) {
+						misses.incrementAndGet();
+					}
+				}
+			});
+			workers[t].start();
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		long duration = Math.max(1, System.nanoTime() - begin);
+		assertEquals(0, misses.get());
+		return threads * (long) loops * 1000000L / duration;
+	}
+
+}
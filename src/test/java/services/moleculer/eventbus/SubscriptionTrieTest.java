@@ -0,0 +1,133 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.eventbus;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class SubscriptionTrieTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testMatching() throws Exception {
+		assertMatch("1.2.3", "1.2.3");
+		assertMatch("a1c", "a?c");
+		assertMatch("aa.1b.c", "aa.?b.*");
+		assertMatch("aa.bb.cc", "*.bb.*");
+		assertMatch("dd", "*");
+		assertMatch("abcd", "*d*");
+		assertMatch("abcd", "a*");
+
+		assertNotMatch("aa.bb.cc", "aa.*");
+		assertNotMatch("aa.bb.cc", "a*");
+		assertNotMatch("bb.cc", "*");
+		assertNotMatch("aa.bb.cc.dd", "*.bb.*");
+		assertNotMatch("aa.bb.cc.dd", "*bb*");
+		assertNotMatch("aa.bb", "aa.bb.**");
+
+		assertMatch("aa.bb.cc.dd", "**aa**");
+		assertMatch("aa.bb.cc.dd", "**.bb.**");
+		assertMatch("aa.bb.cc.dd", "**b**");
+		assertMatch("aa.bb.cc", "aa.**");
+		assertMatch("aa.bb.cc", "**.cc");
+		assertMatch("b", "**");
+
+		assertMatch("$node.connected", "$node.**");
+		assertMatch("$aa.bb.cc", "$aa.*.cc");
+		assertMatch("$aa.bb.cc", "$aa.**.cc");
+		assertMatch("$aa.bb.cc", "$aa.??.cc");
+		assertMatch("$aa.bb.cc", "?aa.bb.cc");
+		assertNotMatch("$aa.bb.cc", "aa.bb.cc");
+		assertNotMatch("$aa.bb.cc", "*");
+	}
+
+	@Test
+	public void testAddRemove() throws Exception {
+		SubscriptionTrie<String> trie = new SubscriptionTrie<>();
+		trie.put("user.created", "a");
+		trie.put("user.*", "b");
+		trie.put("**", "c");
+		trie.put("user.**", "d");
+		trie.put("**.created**", "e");
+
+		List<String> list = trie.match("user.created");
+		assertEquals(5, list.size());
+		assertTrue(list.contains("a"));
+		assertTrue(list.contains("e"));
+
+		list = trie.match("user.removed.all");
+		assertEquals(2, list.size());
+		assertTrue(list.contains("c"));
+		assertTrue(list.contains("d"));
+
+		trie.remove("user.*");
+		trie.remove("**.created**");
+		list = trie.match("user.created");
+		assertEquals(3, list.size());
+		assertFalse(list.contains("b"));
+		assertFalse(list.contains("e"));
+
+		trie.clear();
+		assertTrue(trie.match("user.created").isEmpty());
+	}
+
+	@Test
+	public void testQuestionMark() throws Exception {
+
+		// "?" matches exactly one character of a segment
+		assertMatch("a1c", "a?c");
+		assertMatch("aa.xb", "aa.?b");
+		assertNotMatch("ac", "a?c");
+		assertNotMatch("a12c", "a?c");
+
+		// ...but never the "." separator
+		assertNotMatch("a.c", "a?c");
+		assertNotMatch("aa.b", "aa?b");
+		assertNotMatch("aa.bb.cc", "aa?bb.*");
+
+		// "." is a literal character
+		assertNotMatch("aaxbc", "aa.?c");
+	}
+
+	// --- UTILITIES ---
+
+	protected void assertMatch(String text, String pattern) {
+		SubscriptionTrie<String> trie = new SubscriptionTrie<>();
+		trie.put(pattern, pattern);
+		assertEquals(1, trie.match(text).size());
+	}
+
+	protected void assertNotMatch(String text, String pattern) {
+		SubscriptionTrie<String> trie = new SubscriptionTrie<>();
+		trie.put(pattern, pattern);
+		assertTrue(trie.match(text).isEmpty());
+	}
+
+}
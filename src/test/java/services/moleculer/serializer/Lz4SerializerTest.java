@@ -0,0 +1,145 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.serializer;
+
+import java.util.zip.DataFormatException;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+
+public class Lz4SerializerTest extends SerializerTest {
+
+	@Override
+	protected Serializer createSerializer() {
+		return new Lz4Serializer(1);
+	}
+
+	@Test
+	public void testCompatibility() throws Exception {
+		Tree packet = createPacket(100);
+
+		// DeflaterSerializer reads LZ4 packets
+		Lz4Serializer lz4 = new Lz4Serializer();
+		DeflaterSerializer deflater = new DeflaterSerializer();
+		byte[] bytes = lz4.write(packet);
+		assertEquals(2, bytes[0]);
+		assertEquals(packet.toString(false), deflater.read(bytes).toString(false));
+
+		// Lz4Serializer reads deflated packets
+		bytes = deflater.write(packet);
+		assertEquals(1, bytes[0]);
+		assertEquals(packet.toString(false), lz4.read(bytes).toString(false));
+
+		// Uncompressed packets
+		bytes = lz4.write(new Tree().put("a", 1));
+		assertEquals(0, bytes[0]);
+		assertEquals(1, deflater.read(bytes).get("a", 0));
+	}
+
+	@Test
+	public void testInvalidPackets() throws Exception {
+		Lz4Serializer lz4 = new Lz4Serializer();
+		DeflaterSerializer deflater = new DeflaterSerializer();
+
+		// Truncated header
+		byte[] truncated = new byte[] { 2, 0, 0 };
+		assertInvalid(lz4, truncated);
+		assertInvalid(deflater, truncated);
+
+		// Forged uncompressed length (2 GB from a few bytes)
+		byte[] forged = new byte[] { 2, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x10, 0x41 };
+		assertInvalid(lz4, forged);
+		assertInvalid(deflater, forged);
+
+		// Content above the configured maximum
+		byte[] bytes = lz4.write(createPacket(100));
+		lz4.setMaxLength(1024);
+		deflater.setMaxLength(1024);
+		assertInvalid(lz4, bytes);
+		assertInvalid(deflater, bytes);
+	}
+
+	protected void assertInvalid(Serializer serializer, byte[] bytes) throws Exception {
+		try {
+			serializer.read(bytes);
+			fail();
+		} catch (DataFormatException expected) {
+		}
+	}
+
+	@Test
+	public void testSpeed() throws Exception {
+		Serializer json = new JsonSerializer();
+		Lz4Serializer lz4 = new Lz4Serializer();
+		DeflaterSerializer deflater = new DeflaterSerializer();
+		for (int rows : new int[] { 10, 100, 1000, 10000 }) {
+			Tree packet = createPacket(rows);
+			int size = json.write(packet).length;
+			for (Serializer serializer : new Serializer[] { lz4, deflater }) {
+				int loops = Math.max(10, 10000000 / size);
+				byte[] bytes = null;
+				long start = System.nanoTime();
+				for (int i = 0; i < loops; i++) {
+					bytes = serializer.write(packet);
+				}
+				long write = (System.nanoTime() - start) / loops;
+				start = System.nanoTime();
+				for (int i = 0; i < loops; i++) {
+					serializer.read(bytes);
+				}
+				long read = (System.nanoTime() - start) / loops;
+				System.out.println(serializer.getClass().getSimpleName() + ": " + size + " bytes packet written in "
+						+ write + " nsec, read in " + read + " nsec (compressed size: " + bytes.length + " bytes, "
+						+ (bytes.length * 100 / size) + "%).");
+			}
+		}
+	}
+
+	/**
+	 * Creates a "RES" packet with a list of records.
+	 */
+	protected Tree createPacket(int rows) {
+		Tree packet = new Tree();
+		packet.put("ver", "4");
+		packet.put("sender", "node-1");
+		packet.put("id", "e4a4b7c0-0f4a-4bc1-8f5a-9c4d3a2b1e0f");
+		packet.put("success", true);
+		packet.putMap("meta").put("user", "admin").put("tenant", 12);
+		Tree data = packet.putList("data");
+		for (int i = 0; i < rows; i++) {
+			Tree row = data.addMap();
+			row.put("id", 1000 + i);
+			row.put("name", "User " + i);
+			row.put("email", "user" + i + "@example.com");
+			row.put("active", i % 3 != 0);
+			row.put("balance", i * 31.7);
+			row.putList("roles").add("user").add(i % 5 == 0 ? "admin" : "guest");
+		}
+		return packet;
+	}
+
+}
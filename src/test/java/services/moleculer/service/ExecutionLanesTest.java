@@ -0,0 +1,99 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.ServiceBroker;
+import services.moleculer.context.CallOptions;
+import services.moleculer.monitor.ConstantMonitor;
+
+public class ExecutionLanesTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected ExecutionLanes lanes;
+	protected ServiceBroker br;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testLaneSelection() throws Exception {
+		assertEquals("critical", lanes.get(CallOptions.PRIORITY_HIGH).getName());
+		assertEquals("critical", lanes.get(100).getName());
+		assertEquals("batch", lanes.get(CallOptions.PRIORITY_LOW).getName());
+		assertEquals("batch", lanes.get(-100).getName());
+		assertNull(lanes.get(CallOptions.PRIORITY_NORMAL));
+	}
+
+	@Test
+	public void testInvocation() throws Exception {
+		br.createService(new Service("test") {
+
+			@Name("thread")
+			public Action thread = ctx -> {
+				return Thread.currentThread().getName();
+			};
+
+		});
+
+		// Normal priority (invoked directly)
+		Tree rsp = br.call("test.thread", new Tree()).waitFor(2000);
+		assertFalse(rsp.asString().contains("-lane-"));
+
+		// Critical lane
+		rsp = br.call("test.thread", new Tree(), CallOptions.priority(CallOptions.PRIORITY_HIGH)).waitFor(2000);
+		assertTrue(rsp.asString().startsWith("moleculer-critical-lane-"));
+
+		// Batch lane (with timeout)
+		rsp = br.call("test.thread", new Tree(), CallOptions.priority(CallOptions.PRIORITY_LOW).timeout(1000))
+				.waitFor(2000);
+		assertTrue(rsp.asString().startsWith("moleculer-batch-lane-"));
+	}
+
+	// --- SET UP ---
+
+	@Override
+	protected void setUp() throws Exception {
+		lanes = new ExecutionLanes();
+		lanes.add("critical", CallOptions.PRIORITY_HIGH, Integer.MAX_VALUE, 2, 100);
+		lanes.add("batch", Integer.MIN_VALUE, CallOptions.PRIORITY_LOW, 2, 100);
+		br = ServiceBroker.builder().monitor(new ConstantMonitor()).lanes(lanes).nodeID("local").build();
+		br.start();
+	}
+
+	// --- TEAR DOWN ---
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (br != null) {
+			br.stop();
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import io.datatree.Promise;
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.ServiceBroker;
+import services.moleculer.breaker.TestTransporter;
+import services.moleculer.context.CallOptions;
+import services.moleculer.monitor.ConstantMonitor;
+
+public class HedgingTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected ServiceBroker br;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testOptions() throws Exception {
+		CallOptions.Options opts = CallOptions.hedge(50).timeout(1000).retryCount(2);
+		assertEquals(50, opts.hedgeDelay);
+		assertEquals(1000, opts.timeout);
+		assertEquals(2, opts.retryCount);
+		assertNull(opts.nodeID);
+
+		opts = CallOptions.timeout(200).hedge(CallOptions.HEDGE_P95);
+		assertEquals(CallOptions.HEDGE_P95, opts.hedgeDelay);
+		assertEquals(200, opts.timeout);
+
+		assertEquals(0, CallOptions.nodeID("node2").hedgeDelay);
+	}
+
+	@Test
+	public void testLatencyTracker() throws Exception {
+		LatencyTracker tracker = new LatencyTracker(100);
+		assertEquals(-1, tracker.getPercentile(95, 1));
+		for (int i = 1; i <= 100; i++) {
+			tracker.add(i);
+		}
+		assertEquals(100, tracker.getCount());
+		assertEquals(95, tracker.getPercentile(95, 10));
+		assertEquals(50, tracker.getPercentile(50, 10));
+		assertEquals(100, tracker.getPercentile(100, 10));
+
+		// Overwrite the oldest samples
+		for (int i = 0; i < 100; i++) {
+			tracker.add(1000);
+		}
+		assertEquals(100, tracker.getCount());
+		assertEquals(1000, tracker.getPercentile(50, 10));
+	}
+
+	@Test
+	public void testSingleNode() throws Exception {
+		br.createService(new Service("math") {
+
+			@Name("add")
+			public Action add = ctx -> {
+				Thread.sleep(100);
+				return ctx.params.get("a", 0) + ctx.params.get("b", 0);
+			};
+
+		});
+
+		// No other node -> the original request is processed
+		Tree rsp = br.call("math.add", new Tree().put("a", 3).put("b", 5), CallOptions.hedge(10)).waitFor(2000);
+		assertEquals(8, rsp.asInteger().intValue());
+
+		rsp = br.call("math.add", new Tree().put("a", 1).put("b", 2), CallOptions.hedge(CallOptions.HEDGE_P95))
+				.waitFor(2000);
+		assertEquals(3, rsp.asInteger().intValue());
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	public void testMultipleNodes() throws Exception {
+		DefaultServiceRegistry sr = new DefaultServiceRegistry();
+		TestTransporter tr = new TestTransporter();
+		ServiceBroker caller = ServiceBroker.builder().monitor(new ConstantMonitor()).registry(sr).transporter(tr)
+				.nodeID("caller").build();
+		caller.start();
+		try {
+
+			// Same action on two remote nodes
+			for (int i = 1; i <= 2; i++) {
+				Tree config = new Tree().put("name", "math");
+				LinkedHashMap<String, Object> action = new LinkedHashMap<>();
+				action.put("name", "math.add");
+				((Map) config.putMap("actions").asObject()).put("math.add", action);
+				sr.addActions("node" + i, config);
+			}
+
+			// Observed response times (p95 = 200 msec)
+			for (int i = 1; i <= 2; i++) {
+				RemoteActionEndpoint endpoint = (RemoteActionEndpoint) sr.getAction("math.add", "node" + i);
+				assertEquals(-1, endpoint.getLatencyPercentile(95));
+				for (int j = 0; j < 20; j++) {
+					endpoint.latencyTracker.add(200);
+				}
+				assertEquals(200, endpoint.getLatencyPercentile(95));
+			}
+
+			// Original request
+			long start = System.currentTimeMillis();
+			Promise promise = caller.call("math.add", new Tree().put("a", 3).put("b", 5),
+					CallOptions.hedge(CallOptions.HEDGE_P95));
+			Thread.sleep(100);
+			assertEquals(1, getRequests(tr).size());
+			Tree first = getRequests(tr).get(0);
+
+			// Hedged request (to the other node, after the p95 delay)
+			waitFor(() -> getRequests(tr).size() == 2);
+			assertTrue(System.currentTimeMillis() - start >= 200);
+			Tree second = getRequests(tr).get(1);
+			assertFalse(first.get("channel", "").equals(second.get("channel", "")));
+			assertFalse(first.get("id", "").equals(second.get("id", "")));
+			assertEquals(2, sr.promises.size());
+
+			// First response wins
+			sendResponse(tr, second, 8);
+			assertEquals(8, promise.waitFor(2000).asInteger().intValue());
+
+			// Late response of the losing request
+			sendResponse(tr, first, 9);
+			waitFor(() -> sr.promises.isEmpty());
+			assertEquals(8, promise.waitFor(2000).asInteger().intValue());
+		} finally {
+			caller.stop();
+		}
+	}
+
+	protected List<Tree> getRequests(TestTransporter tr) {
+		List<Tree> requests = new ArrayList<>();
+		for (Tree message : tr.getMessages()) {
+			if (message.get("channel", "").startsWith("MOL.REQ.")) {
+				requests.add(message);
+			}
+		}
+		return requests;
+	}
+
+	protected void sendResponse(TestTransporter tr, Tree request, int data) throws Exception {
+		String channel = request.get("channel", "");
+		Tree rsp = new Tree();
+		rsp.put("ver", br.getProtocolVersion());
+		rsp.put("sender", channel.substring(channel.lastIndexOf('.') + 1));
+		rsp.put("id", request.get("id", ""));
+		rsp.put("success", true);
+		rsp.put("data", data);
+		tr.received("MOL.RES.caller", rsp);
+	}
+
+	protected void waitFor(BooleanSupplier condition) throws Exception {
+		long timeoutAt = System.currentTimeMillis() + 2000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < timeoutAt);
+			Thread.sleep(10);
+		}
+	}
+
+	// --- SET UP ---
+
+	@Override
+	protected void setUp() throws Exception {
+		br = ServiceBroker.builder().monitor(new ConstantMonitor()).nodeID("local").build();
+		br.start();
+	}
+
+	// --- TEAR DOWN ---
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (br != null) {
+			br.stop();
+		}
+	}
+
+}
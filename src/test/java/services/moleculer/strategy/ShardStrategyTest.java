@@ -25,6 +25,7 @@
  */
 package services.moleculer.strategy;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 
 import org.junit.Test;
@@ -306,6 +307,58 @@ public class ShardStrategyTest extends StrategyTest {
 		// }
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testRemoveService() throws Exception {
+
+		ShardStrategy<LocalActionEndpoint> s = (ShardStrategy<LocalActionEndpoint>) createStrategy(false);
+		for (int i = 0; i <= 9; i++) {
+			s.addEndpoint(createEndpoint(br, "node" + i, "e", "e" + i));
+		}
+
+		Tree params = new Tree();
+		params.put("key", "sfasdlfjlkjfkljrqweriru2314qe");
+		HashSet<String> set = collect(s, params, 10);
+		assertEquals(1, set.size());
+		String nodeID = set.iterator().next();
+
+		// Another service of the same node
+		assertFalse(s.remove(nodeID, "f"));
+		set = collect(s, params, 10);
+		assertEquals(1, set.size());
+		assertEquals(nodeID, set.iterator().next());
+
+		// Remove the service (the cached route must be dropped)
+		assertTrue(s.remove(nodeID, "e"));
+		assertEquals(9, s.getAllEndpoints().size());
+		set = collect(s, params, 10);
+		assertEquals(1, set.size());
+		assertFalse(set.contains(nodeID));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testAddEndpoints() throws Exception {
+		ShardStrategy<LocalActionEndpoint> s = (ShardStrategy<LocalActionEndpoint>) createStrategy(false);
+		ArrayList<LocalActionEndpoint> list = new ArrayList<>();
+		for (int i = 0; i <= 9; i++) {
+			list.add(createEndpoint(br, "node" + i, "e", "e" + i));
+		}
+		s.addEndpoints(list);
+		assertEquals(10, s.getAllEndpoints().size());
+		Object ring = s.ringRef.get();
+
+		// Already registered endpoints (the ring is not rebuilt)
+		s.addEndpoints(list);
+		s.addEndpoint(list.get(0));
+		assertSame(ring, s.ringRef.get());
+
+		// New endpoint
+		s.addEndpoint(createEndpoint(br, "node10", "e", "e10"));
+		assertEquals(11, s.getAllEndpoints().size());
+		assertNotSame(ring, s.ringRef.get());
+	}
+
 	protected void assertNodeLinkedToKey(ShardStrategy<LocalActionEndpoint> s, String nodeID, String key) {
 		Tree params = new Tree().put("key", key);
 		LocalActionEndpoint ep = s.getEndpoint(createContext(params), null);
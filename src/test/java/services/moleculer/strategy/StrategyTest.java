@@ -26,6 +26,7 @@
 package services.moleculer.strategy;
 
 import java.util.HashSet;
+import java.util.LinkedList;
 
 import org.junit.Test;
 
@@ -95,6 +96,43 @@ public abstract class StrategyTest extends TestCase {
 		assertEquals(0, s.getAllEndpoints().size());
 	}
 
+	@Test
+	public void testBulkRegistration() throws Exception {
+		Strategy<LocalActionEndpoint> s = createStrategy(false);
+		LinkedList<LocalActionEndpoint> list = new LinkedList<>();
+		for (int i = 1; i <= 6; i++) {
+			list.add(createEndpoint(br, i < 4 ? "node1" : "node2", "e", "e" + i));
+		}
+		s.addEndpoints(list);
+		assertEquals(6, s.getAllEndpoints().size());
+
+		// Duplicated endpoints
+		s.addEndpoints(list);
+		s.addEndpoint(list.getFirst());
+		assertEquals(6, s.getAllEndpoints().size());
+
+		// Replace endpoints of "node2"
+		list.clear();
+		list.add(createEndpoint(br, "node2", "e", "e7"));
+		assertTrue(s.replaceNode("node2", list));
+		assertEquals(4, s.getAllEndpoints().size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals("e7", s.getEndpoint(null, "node2").getConfig().get("name", ""));
+		}
+
+		// Remove endpoints of a service
+		list.clear();
+		list.add(createEndpoint(br, "node2", "f", "f1"));
+		s.addEndpoints(list);
+		assertEquals(5, s.getAllEndpoints().size());
+		assertTrue(s.remove("node2", "f"));
+		assertFalse(s.remove("node2", "f"));
+		assertEquals(4, s.getAllEndpoints().size());
+		assertTrue(s.replaceNode("node2", new LinkedList<>()));
+		assertNull(s.getEndpoint(null, "node2"));
+		assertEquals(3, s.getAllEndpoints().size());
+	}
+
 	protected void simpleTest(boolean preferLocal) throws Exception {
 		Strategy<LocalActionEndpoint> s = createStrategy(preferLocal);
 		for (int i = 1; i <= 5; i++) {
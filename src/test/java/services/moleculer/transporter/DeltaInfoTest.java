@@ -0,0 +1,238 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.ServiceBroker;
+import services.moleculer.breaker.TestTransporter;
+import services.moleculer.monitor.ConstantMonitor;
+import services.moleculer.service.Action;
+import services.moleculer.service.Name;
+import services.moleculer.service.Service;
+import services.moleculer.service.ServiceRegistry;
+
+public class DeltaInfoTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected TestTransporter tr;
+	protected ServiceBroker br;
+	protected ServiceRegistry sr;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testCreateDelta() throws Exception {
+		Tree prev = createServices("s1", "s2", "s3");
+		Tree next = createServices("s2", "s4", "s3");
+		next.get(0).put("version", 2);
+
+		Tree msg = tr.createDeltaInfoPacket(prev, next, 10, 20);
+		assertNull(msg.get("services"));
+		assertEquals(10, msg.get("delta.base", 0L));
+		assertEquals(20, msg.get("delta.version", 0L));
+
+		// Changed (s2) and added (s4) services, removed (s1) service
+		Tree changed = msg.get("delta.services");
+		assertEquals(2, changed.size());
+		assertEquals("s2", changed.get(0).get("name", ""));
+		assertEquals("s4", changed.get(1).get("name", ""));
+		Tree removed = msg.get("delta.removed");
+		assertEquals(1, removed.size());
+		assertEquals("s1", removed.get(0).asString());
+
+		// Everything changed -> full INFO is required
+		assertNull(tr.createDeltaInfoPacket(prev, createServices("s5", "s6"), 10, 20));
+
+		// Full INFO packets advertise the delta support
+		Tree info = tr.createInfoPacket(new Tree(), 20);
+		assertTrue(info.get("metadata.deltaInfo", false));
+		assertEquals(20, info.get("infoVersion", 0L));
+		tr.setDeltaInfo(false);
+		info = tr.createInfoPacket(new Tree(), 20);
+		assertFalse(info.get("metadata.deltaInfo", false));
+	}
+
+	@Test
+	public void testApplyDelta() throws Exception {
+		tr.processReceivedMessage(tr.infoBroadcastChannel, createInfo("node2", 1, "s1", "s2"));
+		assertNotNull(sr.getAction("s1.a", "node2"));
+		assertNotNull(sr.getAction("s2.a", "node2"));
+
+		// Remove "s1", add "s3"
+		tr.processReceivedMessage(tr.infoBroadcastChannel, createDelta("node2", 1, 2, "s1", "s3"));
+		assertNotAvailable("s1.a", "node2");
+		assertNotNull(sr.getAction("s2.a", "node2"));
+		assertNotNull(sr.getAction("s3.a", "node2"));
+		assertEquals(2, tr.nodes.get("node2").info.get("infoVersion", 0L));
+		assertEquals(2, tr.nodes.get("node2").info.get("services").size());
+
+		// Same delta again -> already applied
+		tr.clearMessages();
+		tr.processReceivedMessage(tr.infoBroadcastChannel, createDelta("node2", 1, 2, "s1", "s3"));
+		assertEquals(0, tr.getMessageCount());
+	}
+
+	@Test
+	public void testVersionMismatch() throws Exception {
+		tr.processReceivedMessage(tr.infoBroadcastChannel, createInfo("node2", 1, "s1", "s2"));
+		tr.clearMessages();
+
+		// Base version is unknown -> request the full descriptor
+		tr.processReceivedMessage(tr.infoBroadcastChannel, createDelta("node2", 5, 6, "s1", "s3"));
+		assertEquals(1, tr.getMessageCount());
+		assertEquals("MOL.DISCOVER.node2", tr.getMessages().get(0).get("channel", ""));
+		assertNotNull(sr.getAction("s1.a", "node2"));
+		assertNotAvailable("s3.a", "node2");
+
+		// Delta from an unknown node
+		tr.clearMessages();
+		tr.processReceivedMessage(tr.infoBroadcastChannel, createDelta("node3", 1, 2, "s1", "s3"));
+		assertEquals("MOL.DISCOVER.node3", tr.getMessages().get(0).get("channel", ""));
+	}
+
+	@Test
+	public void testNegotiation() throws Exception {
+
+		// Java node with delta support and a node without it
+		Tree info = createInfo("node2", 1, "s1");
+		info.putMap("metadata").put("deltaInfo", true);
+		tr.processReceivedMessage(tr.infoBroadcastChannel, info);
+		tr.processReceivedMessage(tr.infoBroadcastChannel, createInfo("node3", 1, "s1"));
+
+		// First INFO is always a full, broadcasted one
+		br.createService("math1", new MathService());
+		tr.clearMessages();
+		tr.sendBroadcastInfoPacket();
+		assertEquals(1, tr.getMessageCount());
+		assertEquals("MOL.INFO", tr.getMessages().get(0).get("channel", ""));
+
+		// Topology changed -> delta to node2, full INFO to node3
+		Thread.sleep(5);
+		br.createService("math2", new MathService());
+		tr.clearMessages();
+		tr.sendBroadcastInfoPacket();
+		assertEquals(2, tr.getMessageCount());
+		Tree msg2 = tr.getMessage("node2");
+		assertEquals("MOL.INFO.node2", msg2.get("channel", ""));
+		assertNotNull(msg2.get("delta"));
+		assertNull(msg2.get("services"));
+		assertEquals(1, msg2.get("delta.services").size());
+		Tree msg3 = tr.getMessage("node3");
+		assertEquals("MOL.INFO.node3", msg3.get("channel", ""));
+		assertNull(msg3.get("delta"));
+		assertNotNull(msg3.get("services"));
+		assertEquals(msg2.get("delta.version", 0L), msg3.get("infoVersion", 0L));
+
+		// Undiscovered node gets the full descriptor when it connects
+		tr.clearMessages();
+		tr.processReceivedMessage(tr.infoBroadcastChannel, createInfo("node4", 1, "s1"));
+		Tree msg4 = tr.getMessage("node4");
+		assertEquals("MOL.INFO.node4", msg4.get("channel", ""));
+		assertNotNull(msg4.get("services"));
+	}
+
+	// --- UTILITIES ---
+
+	protected void assertNotAvailable(String action, String nodeID) {
+		try {
+			sr.getAction(action, nodeID);
+			fail();
+		} catch (Exception expected) {
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected Tree createServices(String... names) {
+		Tree services = new Tree().putList("services");
+		for (String name : names) {
+			Tree service = services.addMap();
+			service.put("name", name);
+			LinkedHashMap<String, Object> action = new LinkedHashMap<>();
+			action.put("name", name + ".a");
+			((Map) service.putMap("actions").asObject()).put(name + ".a", action);
+		}
+		return services;
+	}
+
+	protected Tree createInfo(String sender, long version, String... services) {
+		Tree info = new Tree();
+		info.put("ver", br.getProtocolVersion());
+		info.put("sender", sender);
+		info.put("hostname", "host-" + sender);
+		info.putList("ipList").add("127.0.0.1");
+		info.put("infoVersion", version);
+		info.putObject("services", createServices(services).asObject());
+		return info;
+	}
+
+	protected Tree createDelta(String sender, long base, long version, String removed, String added) {
+		Tree msg = new Tree();
+		msg.put("ver", br.getProtocolVersion());
+		msg.put("sender", sender);
+		Tree delta = msg.putMap("delta");
+		delta.put("base", base);
+		delta.put("version", version);
+		delta.putObject("services", createServices(added).asObject());
+		delta.putList("removed").add(removed);
+		return msg;
+	}
+
+	protected static class MathService extends Service {
+
+		@Name("add")
+		public Action add = ctx -> {
+			return ctx.params.get("a", 0) + ctx.params.get("b", 0);
+		};
+
+	}
+
+	// --- SET UP ---
+
+	@Override
+	protected void setUp() throws Exception {
+		tr = new TestTransporter();
+		br = ServiceBroker.builder().monitor(new ConstantMonitor()).transporter(tr).nodeID("local").build();
+		br.start();
+		sr = br.getConfig().getServiceRegistry();
+	}
+
+	// --- TEAR DOWN ---
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (br != null) {
+			br.stop();
+		}
+	}
+
+}
@@ -0,0 +1,214 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import io.datatree.dom.Config;
+import junit.framework.TestCase;
+import services.moleculer.ServiceBroker;
+import services.moleculer.breaker.TestTransporter;
+import services.moleculer.eventbus.Eventbus;
+import services.moleculer.monitor.ConstantMonitor;
+import services.moleculer.serializer.JsonSerializer;
+import services.moleculer.util.SharedPacket;
+
+public class EventBatchingTest extends TestCase {
+
+	// --- VARIABLES ---
+
+	protected PacketCollector tr;
+	protected ServiceBroker br;
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testSerializeOnce() throws Exception {
+		addRemoteListener("node1", "test.event");
+		addRemoteListener("node2", "test.event");
+		addRemoteListener("node3", "test.event");
+
+		// One shared packet for all nodes
+		br.broadcast("test.event", new Tree().put("a", 1));
+		waitFor(() -> getEvents().size() == 3);
+		List<Tree> events = getEvents();
+		assertTrue(events.get(0) instanceof SharedPacket);
+		assertSame(events.get(0), events.get(1));
+		assertSame(events.get(0), events.get(2));
+
+		// Serialized only once
+		byte[] bytes = tr.serialize(events.get(0));
+		assertSame(bytes, tr.serialize(events.get(1)));
+		assertEquals(1, new Tree(bytes).get("data.a", 0));
+
+		// Serializer changed -> serialize again
+		tr.setSerializer(new JsonSerializer());
+		byte[] other = tr.serialize(events.get(2));
+		assertNotSame(bytes, other);
+		assertEquals(1, new Tree(other).get("data.a", 0));
+	}
+
+	@Test
+	public void testBatching() throws Exception {
+		addRemoteListener("node1", "telemetry.cpu");
+		addRemoteListener("node1", "other.event");
+		tr.setEventBatching("telemetry.**", 300);
+
+		// Batched events are held back until the window elapses
+		for (int i = 0; i < 3; i++) {
+			br.broadcast("telemetry.cpu", new Tree().put("i", i));
+		}
+		br.broadcast("other.event", new Tree().put("i", 9));
+		waitFor(() -> getEvents().size() == 1);
+		assertEquals("other.event", getEvents().get(0).get("event", ""));
+		Thread.sleep(100);
+		assertEquals(1, getEvents().size());
+
+		// Window flushed -> one packet with all events (in order)
+		waitFor(() -> getEvents().size() == 2);
+		Tree batch = getEvents().get(1).get("batch");
+		assertNotNull(batch);
+		assertEquals(3, batch.size());
+		for (int i = 0; i < 3; i++) {
+			assertEquals("telemetry.cpu", batch.get(i).get("event", ""));
+			assertEquals(i, batch.get(i).get("data.i", -1));
+		}
+		assertEquals("local", getEvents().get(1).get("sender", ""));
+	}
+
+	@Test
+	public void testFullBatch() throws Exception {
+		addRemoteListener("node1", "telemetry.cpu");
+		tr.setEventBatching("telemetry.**", 60000);
+		tr.maxEventBatchSize = 2;
+
+		// Full batch is sent without waiting for the window
+		br.broadcast("telemetry.cpu", new Tree().put("i", 1));
+		br.broadcast("telemetry.cpu", new Tree().put("i", 2));
+		waitFor(() -> getEvents().size() == 1);
+		assertEquals(2, getEvents().get(0).get("batch").size());
+
+		// Pending events are flushed by the transporter
+		br.broadcast("telemetry.cpu", new Tree().put("i", 3));
+		Thread.sleep(100);
+		assertEquals(1, getEvents().size());
+		tr.flushEvents();
+		assertEquals(2, getEvents().size());
+		assertEquals(3, getEvents().get(1).get("data.i", 0));
+	}
+
+	@Test
+	public void testWindowCache() throws Exception {
+		tr.setEventBatching("telemetry.**", 100);
+		assertEquals(100, tr.getEventBatchWindow("telemetry.cpu"));
+		assertEquals(0, tr.getEventBatchWindow("other.event"));
+
+		// Dynamic event names don't grow the cache without limit
+		for (int i = 0; i < 10000; i++) {
+			tr.getEventBatchWindow("dynamic.event." + i);
+		}
+		assertTrue(tr.eventBatchWindowCache.size() <= Config.CACHE_SIZE);
+
+		// Configuration change invalidates the cached windows
+		tr.setEventBatching("telemetry.**", 0);
+		assertEquals(0, tr.getEventBatchWindow("telemetry.cpu"));
+	}
+
+	// --- UTILITIES ---
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected void addRemoteListener(String nodeID, String event) {
+		Tree config = new Tree().put("name", "service-" + nodeID);
+		LinkedHashMap<String, Object> listener = new LinkedHashMap<>();
+		listener.put("name", event);
+		((Map) config.putMap("events").asObject()).put(event, listener);
+		Eventbus eventbus = br.getConfig().getEventbus();
+		eventbus.addListeners(nodeID, config);
+	}
+
+	protected List<Tree> getEvents() {
+		List<Tree> events = new ArrayList<>();
+		synchronized (tr.packets) {
+			for (int i = 0; i < tr.packets.size(); i++) {
+				if (tr.channels.get(i).startsWith("MOL.EVENT.")) {
+					events.add(tr.packets.get(i));
+				}
+			}
+		}
+		return events;
+	}
+
+	protected void waitFor(BooleanSupplier condition) throws Exception {
+		long timeoutAt = System.currentTimeMillis() + 2000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < timeoutAt);
+			Thread.sleep(10);
+		}
+	}
+
+	protected static class PacketCollector extends TestTransporter {
+
+		protected final List<Tree> packets = new ArrayList<>();
+		protected final List<String> channels = new ArrayList<>();
+
+		@Override
+		public void publish(String channel, Tree message) {
+
+			// Keep the original instances (TestTransporter stores copies)
+			synchronized (packets) {
+				packets.add(message);
+				channels.add(channel);
+			}
+		}
+
+	}
+
+	// --- SET UP ---
+
+	@Override
+	protected void setUp() throws Exception {
+		tr = new PacketCollector();
+		br = ServiceBroker.builder().monitor(new ConstantMonitor()).transporter(tr).nodeID("local").build();
+		br.start();
+	}
+
+	// --- TEAR DOWN ---
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (br != null) {
+			br.stop();
+		}
+	}
+
+}
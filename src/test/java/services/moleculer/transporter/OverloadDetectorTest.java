@@ -0,0 +1,192 @@
+/**
+ * THIS SOFTWARE IS LICENSED UNDER MIT LICENSE.<br>
+ * <br>
+ * Copyright 2017 Andras Berkes [andras.berkes@programmer.net]<br>
+ * Based on Moleculer Framework for NodeJS [https://moleculer.services].
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:<br>
+ * <br>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.<br>
+ * <br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package services.moleculer.transporter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.datatree.Tree;
+import junit.framework.TestCase;
+import services.moleculer.ServiceBroker;
+import services.moleculer.breaker.TestTransporter;
+import services.moleculer.monitor.ConstantMonitor;
+
+public class OverloadDetectorTest extends TestCase {
+
+	// --- TEST METHODS ---
+
+	@Test
+	public void testDetector() throws Exception {
+		OverloadDetector detector = new OverloadDetector(20, 50, 0);
+		assertFalse(detector.isOverloaded());
+
+		// Short queue-wait times
+		long end = System.currentTimeMillis() + 200;
+		while (System.currentTimeMillis() < end) {
+			assertFalse(detector.onDequeue(System.nanoTime()));
+			Thread.sleep(5);
+		}
+		assertFalse(detector.isOverloaded());
+
+		// Standing queue (every task waited 100 msec)
+		end = System.currentTimeMillis() + 200;
+		while (System.currentTimeMillis() < end) {
+			detector.onDequeue(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100));
+			Thread.sleep(5);
+		}
+		assertTrue(detector.isOverloaded());
+
+		// Long waiting tasks are rejected, fresh tasks are accepted
+		assertTrue(detector.onDequeue(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100)));
+		assertFalse(detector.onDequeue(System.nanoTime()));
+
+		// Queue drained
+		end = System.currentTimeMillis() + 200;
+		while (System.currentTimeMillis() < end) {
+			detector.onDequeue(System.nanoTime());
+			Thread.sleep(5);
+		}
+		assertFalse(detector.isOverloaded());
+	}
+
+	@Test
+	public void testOverloadedNodes() throws Exception {
+		TestTransporter tr = new TestTransporter();
+		ServiceBroker br = ServiceBroker.builder().monitor(new ConstantMonitor()).transporter(tr).nodeID("local")
+				.build();
+		br.start();
+		try {
+
+			// Remote node connects, then reports overloaded state
+			tr.processReceivedMessage(tr.infoBroadcastChannel, createInfo(br, "node2"));
+			assertFalse(tr.hasOverloadedNodes());
+			tr.processReceivedMessage(tr.heartbeatChannel, createHeartbeat(br, "node2", true));
+			assertTrue(tr.hasOverloadedNodes());
+			assertTrue(tr.isOverloaded("node2"));
+
+			// Overloaded node goes offline
+			tr.processReceivedMessage(tr.disconnectChannel, new Tree().put("ver", br.getProtocolVersion())
+					.put("sender", "node2"));
+			assertFalse(tr.isOverloaded("node2"));
+			assertFalse(tr.hasOverloadedNodes());
+
+			// Reconnects with a fresh INFO (not overloaded until the next
+			// heartbeat)
+			tr.processReceivedMessage(tr.infoBroadcastChannel, createInfo(br, "node2"));
+			assertFalse(tr.hasOverloadedNodes());
+			tr.processReceivedMessage(tr.heartbeatChannel, createHeartbeat(br, "node2", true));
+			assertTrue(tr.hasOverloadedNodes());
+			tr.processReceivedMessage(tr.heartbeatChannel, createHeartbeat(br, "node2", false));
+			assertFalse(tr.hasOverloadedNodes());
+		} finally {
+			br.stop();
+		}
+	}
+
+	@Test
+	public void testShedding() throws Exception {
+		TestTransporter tr = new TestTransporter();
+
+		// Every dequeued task waited too long
+		tr.setOverloadDetector(new OverloadDetector() {
+
+			@Override
+			public boolean onDequeue(long submittedAt) {
+				return true;
+			}
+
+		});
+		ServiceBroker br = ServiceBroker.builder().monitor(new ConstantMonitor()).transporter(tr).nodeID("local")
+				.build();
+		br.start();
+		try {
+
+			// Request on the node's own channel
+			tr.received(tr.requestChannel, createRequest(br, "node2", "r1"));
+			Tree rsp = waitForResponse(tr, "node2");
+			assertEquals("r1", rsp.get("id", ""));
+			assertFalse(rsp.get("success", true));
+
+			// Request on a balanced channel
+			tr.clearMessages();
+			tr.received(tr.channel(Transporter.PACKET_REQUEST_BALANCED, "math.add"),
+					createRequest(br, "node3", "r2"));
+			rsp = waitForResponse(tr, "node3");
+			assertEquals("r2", rsp.get("id", ""));
+			assertFalse(rsp.get("success", true));
+
+			// Not a request channel
+			assertFalse(tr.isRequestChannel(tr.requestBalancedChannel));
+			assertFalse(tr.isRequestChannel(tr.requestBalancedChannel + "X.math.add"));
+		} finally {
+			br.stop();
+		}
+	}
+
+	protected Tree waitForResponse(TestTransporter tr, String nodeID) throws Exception {
+		long end = System.currentTimeMillis() + 2000;
+		while (System.currentTimeMillis() < end) {
+			Tree rsp = tr.getMessage(nodeID);
+			if (rsp != null) {
+				return rsp;
+			}
+			Thread.sleep(20);
+		}
+		fail("Request of " + nodeID + " wasn't rejected!");
+		return null;
+	}
+
+	protected Tree createRequest(ServiceBroker br, String sender, String id) {
+		Tree request = new Tree();
+		request.put("ver", br.getProtocolVersion());
+		request.put("sender", sender);
+		request.put("id", id);
+		request.put("action", "math.add");
+		request.putMap("params");
+		return request;
+	}
+
+	protected Tree createInfo(ServiceBroker br, String sender) {
+		Tree info = new Tree();
+		info.put("ver", br.getProtocolVersion());
+		info.put("sender", sender);
+		info.put("hostname", "host-" + sender);
+		info.putList("ipList").add("127.0.0.1");
+		info.putList("services");
+		return info;
+	}
+
+	protected Tree createHeartbeat(ServiceBroker br, String sender, boolean overloaded) {
+		Tree heartbeat = new Tree();
+		heartbeat.put("ver", br.getProtocolVersion());
+		heartbeat.put("sender", sender);
+		heartbeat.put("cpu", overloaded ? 100 : 10);
+		heartbeat.put("overloaded", overloaded);
+		return heartbeat;
+	}
+
+}
@@ -25,6 +25,11 @@
  */
 package services.moleculer.util;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
 import org.junit.Test;
 
 import junit.framework.TestCase;
@@ -67,4 +72,57 @@ public class CommonUtilsTest extends TestCase {
 		assertEquals(1073741824, CommonUtils.resolveUnit("1 gbyte"));
 	}
 
+	@Test
+	public void testCompress() throws Exception {
+		Random rnd = new Random(1);
+		for (int size : new int[] { 0, 1024, 64 * 1024, 1024 * 1024 }) {
+
+			// Incompressible data (larger than the input after compression)
+			byte[] data = new byte[size];
+			rnd.nextBytes(data);
+			byte[] compressed = CommonUtils.compress(data, Deflater.BEST_SPEED);
+			assertTrue(Arrays.equals(data, CommonUtils.decompress(compressed)));
+
+			// Header space + decompress from offset
+			for (int i = 0; i < size; i++) {
+				data[i] = (byte) ('a' + i % 7);
+			}
+			compressed = CommonUtils.compress(data, 0, size, Deflater.BEST_COMPRESSION, 3);
+			assertEquals(0, compressed[0] | compressed[1] | compressed[2]);
+			assertTrue(Arrays.equals(data, CommonUtils.decompress(compressed, 3, compressed.length - 3)));
+		}
+
+		// Truncated data
+		byte[] compressed = CommonUtils.compress(new byte[100000], Deflater.BEST_SPEED);
+		try {
+			CommonUtils.decompress(compressed, 0, compressed.length / 2);
+			fail();
+		} catch (DataFormatException expected) {
+		}
+	}
+
+	@Test
+	public void testCompressSpeed() throws Exception {
+		for (int size : new int[] { 1024, 64 * 1024, 1024 * 1024 }) {
+			byte[] data = new byte[size];
+			for (int i = 0; i < size; i++) {
+				data[i] = (byte) ("{\"id\":" + i % 10 + ",\"name\":\"John\"}").charAt(i % 24);
+			}
+			int loops = Math.max(20, 20000000 / size);
+			byte[] compressed = null;
+			long start = System.nanoTime();
+			for (int i = 0; i < loops; i++) {
+				compressed = CommonUtils.compress(data, 0, size, Deflater.BEST_SPEED, 1);
+			}
+			long compress = (System.nanoTime() - start) / loops;
+			start = System.nanoTime();
+			for (int i = 0; i < loops; i++) {
+				CommonUtils.decompress(compressed, 1, compressed.length - 1);
+			}
+			long decompress = (System.nanoTime() - start) / loops;
+			System.out.println(size + " bytes compressed in " + compress + " nsec, extracted in " + decompress
+					+ " nsec (ratio: " + (compressed.length * 100 / size) + "%).");
+		}
+	}
+
 }